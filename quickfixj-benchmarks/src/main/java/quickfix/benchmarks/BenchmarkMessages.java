@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.benchmarks;
+
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import quickfix.ConfigError;
+import quickfix.DataDictionary;
+import quickfix.FixVersions;
+import quickfix.Message;
+import quickfix.field.AllocAccount;
+import quickfix.field.AllocShares;
+import quickfix.field.ApplVerID;
+import quickfix.field.AvgPx;
+import quickfix.field.ClOrdID;
+import quickfix.field.CumQty;
+import quickfix.field.ExecID;
+import quickfix.field.ExecType;
+import quickfix.field.HandlInst;
+import quickfix.field.LastPx;
+import quickfix.field.LastQty;
+import quickfix.field.LeavesQty;
+import quickfix.field.MDEntryPx;
+import quickfix.field.MDEntrySize;
+import quickfix.field.MDEntryType;
+import quickfix.field.MsgSeqNum;
+import quickfix.field.OrdStatus;
+import quickfix.field.OrdType;
+import quickfix.field.OrderID;
+import quickfix.field.OrderQty;
+import quickfix.field.PartyID;
+import quickfix.field.PartyIDSource;
+import quickfix.field.PartyRole;
+import quickfix.field.Price;
+import quickfix.field.SenderCompID;
+import quickfix.field.SendingTime;
+import quickfix.field.Side;
+import quickfix.field.Symbol;
+import quickfix.field.TargetCompID;
+import quickfix.field.TransactTime;
+
+/**
+ * Representative messages of the FIX versions covered by the benchmarks.
+ */
+public enum BenchmarkMessages {
+
+    /**
+     * A FIX 4.2 NewOrderSingle with a repeating group of allocations.
+     */
+    FIX42_NEW_ORDER_SINGLE("FIX42.xml", null) {
+        @Override
+        Message newMessage() {
+            final quickfix.fix42.NewOrderSingle order = new quickfix.fix42.NewOrderSingle(
+                    new ClOrdID("ORD-00000001"), new HandlInst(HandlInst.AUTOMATED_EXECUTION_ORDER_PRIVATE_NO_BROKER_INTERVENTION),
+                    new Symbol("IBM"), new Side(Side.BUY), new TransactTime(TIMESTAMP), new OrdType(OrdType.LIMIT));
+            order.set(new OrderQty(1000));
+            order.set(new Price(123.45));
+            final quickfix.fix42.NewOrderSingle.NoAllocs allocs = new quickfix.fix42.NewOrderSingle.NoAllocs();
+            for (int i = 1; i <= 3; i++) {
+                allocs.set(new AllocAccount("ACCOUNT-" + i));
+                allocs.set(new AllocShares(i * 100));
+                order.addGroup(allocs);
+            }
+            return order;
+        }
+    },
+
+    /**
+     * A FIX 4.4 ExecutionReport with a repeating group of parties.
+     */
+    FIX44_EXECUTION_REPORT("FIX44.xml", null) {
+        @Override
+        Message newMessage() {
+            final quickfix.fix44.ExecutionReport report = new quickfix.fix44.ExecutionReport(
+                    new OrderID("O-00000001"), new ExecID("E-00000001"), new ExecType(ExecType.TRADE),
+                    new OrdStatus(OrdStatus.PARTIALLY_FILLED), new Side(Side.SELL), new LeavesQty(400),
+                    new CumQty(600), new AvgPx(99.875));
+            report.set(new ClOrdID("ORD-00000001"));
+            report.set(new Symbol("MSFT"));
+            report.set(new OrderQty(1000));
+            report.set(new LastQty(200));
+            report.set(new LastPx(99.75));
+            report.set(new TransactTime(TIMESTAMP));
+            final quickfix.fix44.ExecutionReport.NoPartyIDs parties = new quickfix.fix44.ExecutionReport.NoPartyIDs();
+            parties.set(new PartyID("BROKER"));
+            parties.set(new PartyIDSource(PartyIDSource.PROPRIETARY_CUSTOM_CODE));
+            parties.set(new PartyRole(PartyRole.EXECUTING_FIRM));
+            report.addGroup(parties);
+            parties.set(new PartyID("TRADER"));
+            parties.set(new PartyRole(PartyRole.ORDER_ORIGINATION_TRADER));
+            report.addGroup(parties);
+            return report;
+        }
+    },
+
+    /**
+     * A FIX 5.0SP2 MarketDataSnapshotFullRefresh over FIXT 1.1 with ten book entries.
+     */
+    FIX50SP2_MARKET_DATA_SNAPSHOT("FIX50SP2.xml", "FIXT11.xml") {
+        @Override
+        Message newMessage() {
+            final quickfix.fix50sp2.MarketDataSnapshotFullRefresh snapshot = new quickfix.fix50sp2.MarketDataSnapshotFullRefresh();
+            snapshot.getHeader().setField(new ApplVerID(ApplVerID.FIX50SP2));
+            snapshot.set(new Symbol("EUR/USD"));
+            final quickfix.fix50sp2.MarketDataSnapshotFullRefresh.NoMDEntries entries
+                    = new quickfix.fix50sp2.MarketDataSnapshotFullRefresh.NoMDEntries();
+            for (int i = 0; i < 10; i++) {
+                entries.set(new MDEntryType(i % 2 == 0 ? MDEntryType.BID : MDEntryType.OFFER));
+                entries.set(new MDEntryPx(new BigDecimal("1.0850").add(BigDecimal.valueOf(i, 4))));
+                entries.set(new MDEntrySize(1000000 * (i + 1)));
+                snapshot.addGroup(entries);
+            }
+            return snapshot;
+        }
+    };
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2020, 1, 2, 3, 4, 5, 678000000);
+
+    private final String applicationDictionary;
+    private final String sessionDictionary;
+
+    BenchmarkMessages(String applicationDictionary, String sessionDictionary) {
+        this.applicationDictionary = applicationDictionary;
+        this.sessionDictionary = sessionDictionary;
+    }
+
+    abstract Message newMessage();
+
+    /**
+     * @return the message with a complete header
+     */
+    public Message create() {
+        final Message message = newMessage();
+        final Message.Header header = message.getHeader();
+        if (sessionDictionary != null) {
+            header.setString(quickfix.field.BeginString.FIELD, FixVersions.BEGINSTRING_FIXT11);
+        }
+        header.setField(new SenderCompID("SENDER"));
+        header.setField(new TargetCompID("TARGET"));
+        header.setField(new MsgSeqNum(123456));
+        header.setField(new SendingTime(TIMESTAMP));
+        return message;
+    }
+
+    /**
+     * @return the dictionary of the message body
+     */
+    public DataDictionary getApplicationDictionary() throws ConfigError {
+        return new DataDictionary(applicationDictionary);
+    }
+
+    /**
+     * @return the dictionary of the header and trailer
+     */
+    public DataDictionary getSessionDictionary() throws ConfigError {
+        return sessionDictionary != null ? new DataDictionary(sessionDictionary) : getApplicationDictionary();
+    }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.benchmarks;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import quickfix.DataDictionary;
+import quickfix.FieldNotFound;
+import quickfix.IncorrectDataFormat;
+import quickfix.IncorrectTagValue;
+import quickfix.Message;
+
+/**
+ * Validation of a parsed message against its data dictionary.
+ * <p>
+ * FIX 5.0 messages are validated against the application dictionary only,
+ * since the header is defined by the separate FIXT dictionary.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataDictionaryValidateBenchmark {
+
+    @Param
+    private BenchmarkMessages message;
+
+    private DataDictionary applicationDictionary;
+    private boolean bodyOnly;
+    private Message parsed;
+
+    @Setup
+    public void setUp() throws Exception {
+        final DataDictionary sessionDictionary = message.getSessionDictionary();
+        applicationDictionary = message.getApplicationDictionary();
+        bodyOnly = sessionDictionary.getVersion().startsWith("FIXT");
+        parsed = new Message();
+        parsed.fromString(message.create().toString(), sessionDictionary, applicationDictionary, true);
+        // fail fast rather than measuring the exception path
+        applicationDictionary.validate(parsed, bodyOnly);
+    }
+
+    @Benchmark
+    public Message validate() throws IncorrectTagValue, FieldNotFound, IncorrectDataFormat {
+        applicationDictionary.validate(parsed, bodyOnly);
+        return parsed;
+    }
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.benchmarks;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.filterchain.IoFilter.NextFilter;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolCodecException;
+import org.apache.mina.filter.codec.ProtocolDecoderOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.quickfixj.CharsetSupport;
+
+import quickfix.mina.message.FIXMessageDecoder;
+
+/**
+ * Framing of a buffer holding a burst of messages, as read from a socket.
+ * The score is per buffer, i.e. per {@code messageCount} messages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FIXMessageDecoderBenchmark {
+
+    @Param
+    private BenchmarkMessages message;
+
+    @Param({ "1", "32" })
+    private int messageCount;
+
+    /**
+     * Whether the decoder outputs message bytes instead of strings (SocketDecodeMessageBytes).
+     */
+    @Param({ "false", "true" })
+    private boolean decodeMessageBytes;
+
+    private FIXMessageDecoder decoder;
+    private IoBuffer buffer;
+
+    @Setup
+    public void setUp() throws Exception {
+        decoder = new FIXMessageDecoder(CharsetSupport.getCharset(), "\001", decodeMessageBytes);
+        final byte[] messageData = message.create().toString().getBytes(CharsetSupport.getCharsetInstance());
+        buffer = IoBuffer.allocate(messageData.length * messageCount);
+        for (int i = 0; i < messageCount; i++) {
+            buffer.put(messageData);
+        }
+        buffer.flip();
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) throws ProtocolCodecException {
+        buffer.rewind();
+        decoder.decode(null, buffer, new BlackholeDecoderOutput(blackhole));
+    }
+
+    private static final class BlackholeDecoderOutput implements ProtocolDecoderOutput {
+        private final Blackhole blackhole;
+
+        BlackholeDecoderOutput(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(Object message) {
+            blackhole.consume(message);
+        }
+
+        @Override
+        public void flush(NextFilter nextFilter, IoSession session) {
+        }
+    }
+}
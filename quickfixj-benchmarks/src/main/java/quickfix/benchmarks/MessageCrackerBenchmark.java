@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.benchmarks;
+
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import quickfix.Message;
+import quickfix.MessageCracker;
+import quickfix.SessionID;
+import quickfix.fix44.ExecutionReport;
+import quickfix.fix44.Heartbeat;
+import quickfix.fix44.NewOrderSingle;
+
+/**
+ * Dispatch of messages to their type-safe handlers. Cracks a FIX 4.4
+ * ExecutionReport, NewOrderSingle and Heartbeat in turn.
+ * <p>
+ * {@code REFLECTION} calls the handlers with {@code Method.invoke}, as
+ * {@link MessageCracker} did before binding its handlers, {@code RUNTIME} uses
+ * {@link MessageCracker} and {@code GENERATED} the generated
+ * {@link quickfix.fix44.MessageCracker}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCrackerBenchmark {
+
+    public enum Dispatch {
+        REFLECTION, RUNTIME, GENERATED
+    }
+
+    @Param
+    private Dispatch dispatch;
+
+    private final SessionID sessionID = new SessionID("FIX.4.4", "SENDER", "TARGET");
+    private final Message[] messages = { new ExecutionReport(), new NewOrderSingle(), new Heartbeat() };
+    private final Handlers handlers = new Handlers();
+    private final Map<Class<?>, Method> methods = new HashMap<>();
+    private MessageCracker runtimeCracker;
+    private GeneratedCracker generatedCracker;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        for (Method method : Handlers.class.getMethods()) {
+            if (method.getName().equals("onMessage")) {
+                methods.put(method.getParameterTypes()[0], method);
+            }
+        }
+        runtimeCracker = new MessageCracker(handlers);
+        generatedCracker = new GeneratedCracker(handlers);
+    }
+
+    @Benchmark
+    public int crack() throws Exception {
+        final Message message = messages[next];
+        next = next == messages.length - 1 ? 0 : next + 1;
+        switch (dispatch) {
+            case REFLECTION:
+                try {
+                    methods.get(message.getClass()).invoke(handlers, message, sessionID);
+                } catch (InvocationTargetException e) {
+                    throw (Exception) e.getTargetException();
+                }
+                break;
+            case RUNTIME:
+                runtimeCracker.crack(message, sessionID);
+                break;
+            default:
+                generatedCracker.crack(message, sessionID);
+        }
+        return handlers.count;
+    }
+
+    public static class Handlers {
+        private int count;
+
+        public void onMessage(ExecutionReport message, SessionID sessionID) {
+            count++;
+        }
+
+        public void onMessage(NewOrderSingle message, SessionID sessionID) {
+            count++;
+        }
+
+        public void onMessage(Heartbeat message, SessionID sessionID) {
+            count++;
+        }
+    }
+
+    private static class GeneratedCracker extends quickfix.fix44.MessageCracker {
+        private final Handlers handlers;
+
+        GeneratedCracker(Handlers handlers) {
+            this.handlers = handlers;
+        }
+
+        @Override
+        public void onMessage(ExecutionReport message, SessionID sessionID) {
+            handlers.onMessage(message, sessionID);
+        }
+
+        @Override
+        public void onMessage(NewOrderSingle message, SessionID sessionID) {
+            handlers.onMessage(message, sessionID);
+        }
+
+        @Override
+        public void onMessage(Heartbeat message, SessionID sessionID) {
+            handlers.onMessage(message, sessionID);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.benchmarks;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quickfixj.CharsetSupport;
+
+import quickfix.DataDictionary;
+import quickfix.InvalidMessage;
+import quickfix.Message;
+import quickfix.MessageBytes;
+
+/**
+ * Decoding of a message from its string and from its raw bytes, with and
+ * without dictionary based group parsing and validation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageParseBenchmark {
+
+    @Param
+    private BenchmarkMessages message;
+
+    private DataDictionary sessionDictionary;
+    private DataDictionary applicationDictionary;
+    private String messageString;
+    private MessageBytes messageBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        sessionDictionary = message.getSessionDictionary();
+        applicationDictionary = message.getApplicationDictionary();
+        messageString = message.create().toString();
+        messageBytes = MessageBytes.wrap(messageString.getBytes(CharsetSupport.getCharsetInstance()));
+    }
+
+    @Benchmark
+    public Message fromStringWithoutDictionary() throws InvalidMessage {
+        final Message parsed = new Message();
+        parsed.fromString(messageString, null, false);
+        return parsed;
+    }
+
+    @Benchmark
+    public Message fromString() throws InvalidMessage {
+        final Message parsed = new Message();
+        parsed.fromString(messageString, sessionDictionary, applicationDictionary, true);
+        return parsed;
+    }
+
+    @Benchmark
+    public Message fromBytes() throws InvalidMessage {
+        final Message parsed = new Message();
+        parsed.fromBytes(messageBytes, sessionDictionary, applicationDictionary, true, true);
+        return parsed;
+    }
+
+    @Benchmark
+    public Message fromBytesLazily() throws InvalidMessage {
+        final Message parsed = new Message();
+        parsed.fromBytes(messageBytes, sessionDictionary, applicationDictionary, true, true, true);
+        return parsed;
+    }
+}
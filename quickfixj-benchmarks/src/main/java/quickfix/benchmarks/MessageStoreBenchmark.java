@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.benchmarks;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import quickfix.CachedFileStoreFactory;
+import quickfix.FileStoreFactory;
+import quickfix.FileUtil;
+import quickfix.JdbcSetting;
+import quickfix.JdbcStoreFactory;
+import quickfix.MappedFileStoreFactory;
+import quickfix.MemoryStoreFactory;
+import quickfix.Message;
+import quickfix.MessageStore;
+import quickfix.MessageStoreFactory;
+import quickfix.SessionID;
+import quickfix.SessionSettings;
+import quickfix.SleepycatStoreFactory;
+
+/**
+ * Storing single messages and retrieving ranges of messages (as for a resend)
+ * with each {@link MessageStore} implementation.
+ * <p>
+ * Messages are stored with increasing sequence numbers into a store that is
+ * reset before each iteration, and retrieved from a separate store that is
+ * populated once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+// the connection pool of the JdbcStore (proxool) generates classes with cglib
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+public class MessageStoreBenchmark {
+
+    private static final int POPULATED_MESSAGES = 10_000;
+    private static final int RANGE_SIZE = 10;
+
+    public enum StoreType {
+        MEMORY {
+            @Override
+            MessageStoreFactory createFactory(SessionSettings settings, Path directory) {
+                return new MemoryStoreFactory();
+            }
+        },
+        FILE {
+            @Override
+            MessageStoreFactory createFactory(SessionSettings settings, Path directory) {
+                settings.setString(FileStoreFactory.SETTING_FILE_STORE_PATH, directory.toString());
+                return new FileStoreFactory(settings);
+            }
+        },
+        FILE_SYNC {
+            @Override
+            MessageStoreFactory createFactory(SessionSettings settings, Path directory) {
+                settings.setString(FileStoreFactory.SETTING_FILE_STORE_PATH, directory.toString());
+                settings.setBool(FileStoreFactory.SETTING_FILE_STORE_SYNC, true);
+                return new FileStoreFactory(settings);
+            }
+        },
+        CACHED_FILE {
+            @Override
+            MessageStoreFactory createFactory(SessionSettings settings, Path directory) {
+                settings.setString(FileStoreFactory.SETTING_FILE_STORE_PATH, directory.toString());
+                return new CachedFileStoreFactory(settings);
+            }
+        },
+        MAPPED_FILE {
+            @Override
+            MessageStoreFactory createFactory(SessionSettings settings, Path directory) {
+                settings.setString(FileStoreFactory.SETTING_FILE_STORE_PATH, directory.toString());
+                return new MappedFileStoreFactory(settings);
+            }
+        },
+        SLEEPYCAT {
+            @Override
+            MessageStoreFactory createFactory(SessionSettings settings, Path directory) {
+                settings.setString(SleepycatStoreFactory.SETTING_SLEEPYCAT_DATABASE_DIR, directory.toString());
+                return new SleepycatStoreFactory(settings);
+            }
+        },
+        JDBC {
+            @Override
+            void setUpDatabase() throws Exception {
+                Class.forName(HSQL_DRIVER);
+                try (Connection connection = DriverManager.getConnection(HSQL_CONNECTION_URL, "sa", "")) {
+                    loadSQL(connection, "config/sql/hsqldb/sessions_table.sql");
+                    loadSQL(connection, "config/sql/hsqldb/messages_table.sql");
+                }
+            }
+
+            @Override
+            MessageStoreFactory createFactory(SessionSettings settings, Path directory) {
+                settings.setString(JdbcSetting.SETTING_JDBC_DRIVER, HSQL_DRIVER);
+                settings.setString(JdbcSetting.SETTING_JDBC_CONNECTION_URL, HSQL_CONNECTION_URL);
+                settings.setString(JdbcSetting.SETTING_JDBC_USER, "sa");
+                settings.setString(JdbcSetting.SETTING_JDBC_PASSWORD, "");
+                return new JdbcStoreFactory(settings);
+            }
+        };
+
+        private static final String HSQL_DRIVER = "org.hsqldb.jdbcDriver";
+        private static final String HSQL_CONNECTION_URL = "jdbc:hsqldb:mem:quickfixj";
+
+        abstract MessageStoreFactory createFactory(SessionSettings settings, Path directory);
+
+        void setUpDatabase() throws Exception {
+        }
+
+        private static void loadSQL(Connection connection, String resource) throws IOException, SQLException {
+            final String sql;
+            try (InputStream in = FileUtil.open(Message.class, resource)) {
+                sql = new String(in.readAllBytes(), StandardCharsets.US_ASCII)
+                        .replaceAll("USE .*;", "")
+                        .replaceAll("TEXT", "LONGVARCHAR");
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    @Param
+    private StoreType store;
+
+    private Path directory;
+    private MessageStore appendStore;
+    private MessageStore populatedStore;
+    private String messageString;
+    private int sequence;
+    private int rangeStart;
+    private final List<String> messages = new ArrayList<>(RANGE_SIZE);
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("quickfixj-store-benchmark");
+        store.setUpDatabase();
+        appendStore = createStore(new SessionID("FIX.4.2", "SENDER", "APPEND"));
+        populatedStore = createStore(new SessionID("FIX.4.2", "SENDER", "POPULATED"));
+        messageString = BenchmarkMessages.FIX42_NEW_ORDER_SINGLE.create().toString();
+        populatedStore.reset();
+        for (int i = 1; i <= POPULATED_MESSAGES; i++) {
+            populatedStore.set(i, messageString);
+        }
+    }
+
+    private MessageStore createStore(SessionID sessionID) throws IOException {
+        final SessionSettings settings = new SessionSettings();
+        // some factories look up their settings by session
+        settings.setString(sessionID, SessionSettings.BEGINSTRING, sessionID.getBeginString());
+        // separate directories, since a Sleepycat environment cannot be shared
+        final Path storeDirectory = Files.createDirectory(directory.resolve(sessionID.getTargetCompID()));
+        return store.createFactory(settings, storeDirectory).create(sessionID);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetAppendStore() throws IOException {
+        appendStore.reset();
+        sequence = 0;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for (MessageStore messageStore : new MessageStore[] { appendStore, populatedStore }) {
+            if (messageStore instanceof Closeable) {
+                ((Closeable) messageStore).close();
+            }
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public boolean set() throws IOException {
+        return appendStore.set(++sequence, messageString);
+    }
+
+    @Benchmark
+    public List<String> getRange() throws IOException {
+        rangeStart = (rangeStart + RANGE_SIZE) % (POPULATED_MESSAGES - RANGE_SIZE);
+        messages.clear();
+        populatedStore.get(rangeStart + 1, rangeStart + RANGE_SIZE, messages);
+        return messages;
+    }
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.benchmarks;
+
+
+import java.net.ServerSocket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import quickfix.Acceptor;
+import quickfix.ApplicationAdapter;
+import quickfix.DefaultMessageFactory;
+import quickfix.FixVersions;
+import quickfix.Initiator;
+import quickfix.MemoryStoreFactory;
+import quickfix.Message;
+import quickfix.Session;
+import quickfix.SessionFactory;
+import quickfix.SessionID;
+import quickfix.SessionNotFound;
+import quickfix.SessionSettings;
+import quickfix.SocketAcceptor;
+import quickfix.SocketInitiator;
+import quickfix.field.AvgPx;
+import quickfix.field.ClOrdID;
+import quickfix.field.CumQty;
+import quickfix.field.ExecID;
+import quickfix.field.ExecTransType;
+import quickfix.field.ExecType;
+import quickfix.field.LeavesQty;
+import quickfix.field.MsgType;
+import quickfix.field.OrdStatus;
+import quickfix.field.OrderID;
+import quickfix.field.Side;
+import quickfix.field.Symbol;
+
+/**
+ * Round trip of a NewOrderSingle from an initiator to an acceptor in the same
+ * process and of the ExecutionReport sent back, including parsing, validation
+ * and the message stores of both sessions. Logging is disabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionRoundTripBenchmark {
+
+    private static final long LOGON_TIMEOUT_MILLIS = 10_000;
+
+    @Param({ "VM_PIPE", "SOCKET" })
+    private String protocol;
+
+    private final BlockingQueue<Message> executionReports = new LinkedBlockingQueue<>();
+    private SocketAcceptor acceptor;
+    private SocketInitiator initiator;
+    private SessionID initiatorSessionID;
+    private Message order;
+
+    @Setup
+    public void setUp() throws Exception {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        final SessionID acceptorSessionID = new SessionID(FixVersions.BEGINSTRING_FIX42, "ACCEPTOR", "INITIATOR");
+        initiatorSessionID = new SessionID(FixVersions.BEGINSTRING_FIX42, "INITIATOR", "ACCEPTOR");
+
+        final SessionSettings acceptorSettings = newSettings();
+        acceptorSettings.setString(acceptorSessionID, SessionFactory.SETTING_CONNECTION_TYPE, SessionFactory.ACCEPTOR_CONNECTION_TYPE);
+        acceptorSettings.setString(acceptorSessionID, Acceptor.SETTING_SOCKET_ACCEPT_PROTOCOL, protocol);
+        acceptorSettings.setLong(acceptorSessionID, Acceptor.SETTING_SOCKET_ACCEPT_PORT, port);
+        acceptor = new SocketAcceptor(new ExecutingApplication(), new MemoryStoreFactory(), acceptorSettings,
+                null, new DefaultMessageFactory());
+
+        final SessionSettings initiatorSettings = newSettings();
+        initiatorSettings.setString(initiatorSessionID, SessionFactory.SETTING_CONNECTION_TYPE, SessionFactory.INITIATOR_CONNECTION_TYPE);
+        initiatorSettings.setString(initiatorSessionID, Initiator.SETTING_SOCKET_CONNECT_PROTOCOL, protocol);
+        initiatorSettings.setString(initiatorSessionID, Initiator.SETTING_SOCKET_CONNECT_HOST, "localhost");
+        initiatorSettings.setLong(initiatorSessionID, Initiator.SETTING_SOCKET_CONNECT_PORT, port);
+        initiatorSettings.setLong(initiatorSessionID, Initiator.SETTING_RECONNECT_INTERVAL, 1);
+        initiator = new SocketInitiator(new ApplicationAdapter() {
+            @Override
+            public void fromApp(Message message, SessionID sessionID) {
+                executionReports.add(message);
+            }
+        }, new MemoryStoreFactory(), initiatorSettings, null, new DefaultMessageFactory());
+
+        acceptor.start();
+        initiator.start();
+        final long deadline = System.currentTimeMillis() + LOGON_TIMEOUT_MILLIS;
+        while (!initiator.isLoggedOn() || !acceptor.isLoggedOn()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Sessions did not log on within " + LOGON_TIMEOUT_MILLIS + " ms");
+            }
+            Thread.sleep(10);
+        }
+        order = BenchmarkMessages.FIX42_NEW_ORDER_SINGLE.newMessage();
+    }
+
+    private static SessionSettings newSettings() {
+        final SessionSettings settings = new SessionSettings();
+        settings.setString(Session.SETTING_START_TIME, "00:00:00");
+        settings.setString(Session.SETTING_END_TIME, "00:00:00");
+        settings.setLong(Session.SETTING_HEARTBTINT, 30);
+        settings.setBool(Session.SETTING_RESET_ON_LOGON, true);
+        settings.setBool(Session.SETTING_USE_DATA_DICTIONARY, true);
+        settings.setString(Session.SETTING_DATA_DICTIONARY, "FIX42.xml");
+        return settings;
+    }
+
+    @TearDown
+    public void tearDown() {
+        initiator.stop(true);
+        acceptor.stop(true);
+    }
+
+    @Benchmark
+    public Message roundTrip() throws SessionNotFound, InterruptedException {
+        Session.sendToTarget(order, initiatorSessionID);
+        return executionReports.take();
+    }
+
+    static final class ExecutingApplication extends ApplicationAdapter {
+        private int id;
+
+        @Override
+        public void fromApp(Message message, SessionID sessionID) {
+            try {
+                if (!MsgType.ORDER_SINGLE.equals(message.getHeader().getString(MsgType.FIELD))) {
+                    return;
+                }
+                final String execID = Integer.toString(++id);
+                final quickfix.fix42.ExecutionReport report = new quickfix.fix42.ExecutionReport(
+                        new OrderID(execID), new ExecID(execID), new ExecTransType(ExecTransType.NEW),
+                        new ExecType(ExecType.FILL), new OrdStatus(OrdStatus.FILLED),
+                        new Symbol(message.getString(Symbol.FIELD)), new Side(message.getChar(Side.FIELD)),
+                        new LeavesQty(0), new CumQty(message.getDouble(quickfix.field.OrderQty.FIELD)),
+                        new AvgPx(message.getDouble(quickfix.field.Price.FIELD)));
+                report.set(new ClOrdID(message.getString(ClOrdID.FIELD)));
+                Session.sendToTarget(report, sessionID);
+            } catch (final Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix.benchmarks;
+
+
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import quickfix.Acceptor;
+import quickfix.ApplicationAdapter;
+import quickfix.DefaultMessageFactory;
+import quickfix.FixVersions;
+import quickfix.Initiator;
+import quickfix.MemoryStoreFactory;
+import quickfix.Message;
+import quickfix.Session;
+import quickfix.SessionFactory;
+import quickfix.SessionID;
+import quickfix.SessionNotFound;
+import quickfix.SessionSettings;
+import quickfix.ThreadedSocketAcceptor;
+import quickfix.ThreadedSocketInitiator;
+
+/**
+ * Round trip of a NewOrderSingle and its ExecutionReport between a
+ * ThreadedSocketAcceptor and a ThreadedSocketInitiator with many sessions,
+ * with the session dispatchers on platform threads (one thread per session,
+ * as before) or on virtual threads (UseVirtualThreads, Java 21 or later).
+ * Each invocation uses the next session, so every dispatcher has to be
+ * scheduled in turn.
+ * <p>
+ * The setup prints the number of live platform threads and the used heap once
+ * all sessions are logged on. The stacks of platform threads are reserved
+ * outside of the heap, whereas virtual threads keep their stacks on it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThreadPerSessionBenchmark {
+
+    private static final long LOGON_TIMEOUT_MILLIS = 60_000;
+
+    @Param({ "PLATFORM", "VIRTUAL" })
+    private String threads;
+
+    @Param({ "10", "500" })
+    private int sessions;
+
+    private final BlockingQueue<Message> executionReports = new LinkedBlockingQueue<>();
+    private final List<SessionID> initiatorSessionIDs = new ArrayList<>();
+    private ThreadedSocketAcceptor acceptor;
+    private ThreadedSocketInitiator initiator;
+    private Message order;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        final boolean virtual = "VIRTUAL".equals(threads);
+        final SessionSettings acceptorSettings = newSettings(virtual);
+        final SessionSettings initiatorSettings = newSettings(virtual);
+        for (int i = 0; i < sessions; i++) {
+            final SessionID acceptorSessionID = new SessionID(FixVersions.BEGINSTRING_FIX42, "ACCEPTOR", "INITIATOR" + i);
+            acceptorSettings.setString(acceptorSessionID, SessionFactory.SETTING_CONNECTION_TYPE, SessionFactory.ACCEPTOR_CONNECTION_TYPE);
+            acceptorSettings.setString(acceptorSessionID, Acceptor.SETTING_SOCKET_ACCEPT_PROTOCOL, "VM_PIPE");
+            acceptorSettings.setLong(acceptorSessionID, Acceptor.SETTING_SOCKET_ACCEPT_PORT, port);
+
+            final SessionID initiatorSessionID = new SessionID(FixVersions.BEGINSTRING_FIX42, "INITIATOR" + i, "ACCEPTOR");
+            initiatorSettings.setString(initiatorSessionID, SessionFactory.SETTING_CONNECTION_TYPE, SessionFactory.INITIATOR_CONNECTION_TYPE);
+            initiatorSettings.setString(initiatorSessionID, Initiator.SETTING_SOCKET_CONNECT_PROTOCOL, "VM_PIPE");
+            initiatorSettings.setString(initiatorSessionID, Initiator.SETTING_SOCKET_CONNECT_HOST, "localhost");
+            initiatorSettings.setLong(initiatorSessionID, Initiator.SETTING_SOCKET_CONNECT_PORT, port);
+            initiatorSettings.setLong(initiatorSessionID, Initiator.SETTING_RECONNECT_INTERVAL, 1);
+            initiatorSessionIDs.add(initiatorSessionID);
+        }
+        acceptor = new ThreadedSocketAcceptor(new SessionRoundTripBenchmark.ExecutingApplication(),
+                new MemoryStoreFactory(), acceptorSettings, null, new DefaultMessageFactory());
+        initiator = new ThreadedSocketInitiator(new ApplicationAdapter() {
+            @Override
+            public void fromApp(Message message, SessionID sessionID) {
+                executionReports.add(message);
+            }
+        }, new MemoryStoreFactory(), initiatorSettings, null, new DefaultMessageFactory());
+
+        acceptor.start();
+        initiator.start();
+        final long deadline = System.currentTimeMillis() + LOGON_TIMEOUT_MILLIS;
+        while (!isLoggedOn()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Sessions did not log on within " + LOGON_TIMEOUT_MILLIS + " ms");
+            }
+            Thread.sleep(10);
+        }
+        order = BenchmarkMessages.FIX42_NEW_ORDER_SINGLE.newMessage();
+
+        System.gc();
+        System.out.printf("%n%s threads, %d sessions: %d live platform threads, %d KB heap used%n", threads,
+                sessions, ManagementFactory.getThreadMXBean().getThreadCount(),
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1024);
+    }
+
+    private boolean isLoggedOn() {
+        for (final SessionID sessionID : initiatorSessionIDs) {
+            final Session session = Session.lookupSession(sessionID);
+            if (session == null || !session.isLoggedOn()) {
+                return false;
+            }
+        }
+        return acceptor.getManagedSessions().stream().allMatch(Session::isLoggedOn);
+    }
+
+    private static SessionSettings newSettings(boolean virtual) {
+        final SessionSettings settings = new SessionSettings();
+        settings.setString(Session.SETTING_START_TIME, "00:00:00");
+        settings.setString(Session.SETTING_END_TIME, "00:00:00");
+        settings.setLong(Session.SETTING_HEARTBTINT, 30);
+        settings.setBool(Session.SETTING_RESET_ON_LOGON, true);
+        settings.setBool(Session.SETTING_USE_DATA_DICTIONARY, true);
+        settings.setString(Session.SETTING_DATA_DICTIONARY, "FIX42.xml");
+        settings.setBool(SessionFactory.SETTING_USE_VIRTUAL_THREADS, virtual);
+        return settings;
+    }
+
+    @TearDown
+    public void tearDown() {
+        initiator.stop(true);
+        acceptor.stop(true);
+    }
+
+    @Benchmark
+    public Message roundTrip() throws SessionNotFound, InterruptedException {
+        final SessionID sessionID = initiatorSessionIDs.get(next);
+        next = (next + 1) % sessions;
+        Session.sendToTarget(order, sessionID);
+        return executionReports.take();
+    }
+}
@@ -117,12 +117,13 @@ public class MessageCracker {
 
 		String type = message.getHeader().getString(MsgType.FIELD);
 
-		<xsl:for-each select="//fix/messages/message">
-		<xsl:if test="position()!=1">
-		else </xsl:if>if (type.equals(<xsl:value-of select="@name"/>.MSGTYPE))
-			onMessage((<xsl:value-of select="@name"/>)message, sessionID);</xsl:for-each>
-		else
+		switch (type) {<xsl:for-each select="//fix/messages/message">
+		case <xsl:value-of select="@name"/>.MSGTYPE:
+			onMessage((<xsl:value-of select="@name"/>)message, sessionID);
+			break;</xsl:for-each>
+		default:
 			onMessage(message, sessionID);
+		}
 	}
 </xsl:template>
 
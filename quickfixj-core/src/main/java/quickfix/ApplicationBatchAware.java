@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) quickfixj.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixj.org
+ * license as defined by quickfixj.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixj.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixj.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+/**
+ * Application that is told where the batches of received messages end, so
+ * that it can coalesce the work for the messages of a batch, e.g. write them
+ * to a database at once.
+ *
+ * @see SessionFactory#SETTING_MESSAGE_PROCESSOR_BATCH_SIZE
+ */
+public interface ApplicationBatchAware extends Application {
+
+    /**
+     * This method is called on the message processing thread after it has
+     * processed a batch of messages, once for each session that had messages
+     * in the batch.
+     *
+     * @param sessionId QuickFIX session ID
+     */
+    void onEndOfBatch(SessionID sessionId);
+}
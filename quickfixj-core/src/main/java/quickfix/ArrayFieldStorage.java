@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Field storage backed by parallel arrays of tags and fields kept in iteration
+ * order, i.e. by rank in the field order and then by tag.
+ * <p>
+ * Without a field order the tags are sorted and looked up by binary search.
+ * With a field order they are looked up by a linear scan of the tags, which is
+ * cheaper than computing the rank of the tag for the small field counts of
+ * headers and groups.
+ */
+final class ArrayFieldStorage implements FieldStorage {
+
+    private static final int UNORDERED = Integer.MAX_VALUE;
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int[] EMPTY_TAGS = {};
+    private static final Field<?>[] EMPTY_FIELDS = {};
+
+    private final int[] fieldOrder;
+    private int[] tags = EMPTY_TAGS;
+    private int[] ranks; // only used with a field order
+    private Field<?>[] fields = EMPTY_FIELDS;
+    private int size;
+    private transient int modCount;
+
+    ArrayFieldStorage(int[] fieldOrder) {
+        this.fieldOrder = fieldOrder;
+        ranks = fieldOrder != null ? EMPTY_TAGS : null;
+    }
+
+    private int indexOf(int tag) {
+        if (ranks == null) {
+            final int index = Arrays.binarySearch(tags, 0, size, tag);
+            return index >= 0 ? index : -1;
+        }
+        for (int i = 0; i < size; i++) {
+            if (tags[i] == tag) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int rank(int tag) {
+        final int index = FieldMap.indexOf(tag, fieldOrder);
+        return index > -1 ? index : UNORDERED; // unspecified fields are last
+    }
+
+    @Override
+    public Field<?> get(int tag) {
+        final int index = indexOf(tag);
+        return index != -1 ? fields[index] : null;
+    }
+
+    @Override
+    public void put(int tag, Field<?> field) {
+        final int rank = ranks != null ? rank(tag) : UNORDERED;
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midRank = ranks != null ? ranks[mid] : UNORDERED;
+            final int cmp = midRank != rank ? Integer.compare(midRank, rank) : Integer.compare(tags[mid], tag);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                fields[mid] = field;
+                return;
+            }
+        }
+        insertAt(low, tag, rank, field);
+    }
+
+    private void insertAt(int index, int tag, int rank, Field<?> field) {
+        if (size == tags.length) {
+            final int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            tags = Arrays.copyOf(tags, capacity);
+            fields = Arrays.copyOf(fields, capacity);
+            if (ranks != null) {
+                ranks = Arrays.copyOf(ranks, capacity);
+            }
+        }
+        final int moved = size - index;
+        if (moved > 0) {
+            System.arraycopy(tags, index, tags, index + 1, moved);
+            System.arraycopy(fields, index, fields, index + 1, moved);
+            if (ranks != null) {
+                System.arraycopy(ranks, index, ranks, index + 1, moved);
+            }
+        }
+        tags[index] = tag;
+        fields[index] = field;
+        if (ranks != null) {
+            ranks[index] = rank;
+        }
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public void remove(int tag) {
+        final int index = indexOf(tag);
+        if (index != -1) {
+            removeAt(index);
+        }
+    }
+
+    private void removeAt(int index) {
+        final int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(tags, index + 1, tags, index, moved);
+            System.arraycopy(fields, index + 1, fields, index, moved);
+            if (ranks != null) {
+                System.arraycopy(ranks, index + 1, ranks, index, moved);
+            }
+        }
+        fields[--size] = null;
+        modCount++;
+    }
+
+    @Override
+    public boolean containsKey(int tag) {
+        return indexOf(tag) != -1;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(fields, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public void putAll(FieldStorage source) {
+        if (size == 0 && source instanceof ArrayFieldStorage
+                && Arrays.equals(fieldOrder, ((ArrayFieldStorage) source).fieldOrder)) {
+            // same ordering, so the arrays can be copied as they are
+            final ArrayFieldStorage other = (ArrayFieldStorage) source;
+            final int capacity = Math.max(INITIAL_CAPACITY, other.size);
+            tags = Arrays.copyOf(other.tags, capacity);
+            fields = Arrays.copyOf(other.fields, capacity);
+            if (ranks != null) {
+                ranks = Arrays.copyOf(other.ranks, capacity);
+            }
+            size = other.size;
+            modCount++;
+        } else {
+            source.forEachEntry(this::put);
+        }
+    }
+
+    @Override
+    public void forEachEntry(EntryConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(tags[i], fields[i]);
+        }
+    }
+
+    @Override
+    public Iterator<Field<?>> iterator() {
+        return new Iterator<Field<?>>() {
+            private int next;
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Field<?> next() {
+                checkForComodification();
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                last = next++;
+                return fields[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                checkForComodification();
+                removeAt(last);
+                next = last;
+                last = -1;
+                expectedModCount = modCount;
+            }
+
+            private void checkForComodification() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        };
+    }
+}
@@ -26,6 +26,7 @@ import quickfix.field.converter.UtcTimestampConverter;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
@@ -43,6 +44,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * File store implementation. THIS CLASS IS PUBLIC ONLY TO MAINTAIN COMPATIBILITY WITH THE QUICKFIX JNI. IT SHOULD ONLY
@@ -50,7 +52,7 @@ import java.util.TreeMap;
  *
  * @see quickfix.CachedFileStoreFactory
  */
-public class CachedFileStore implements MessageStore {
+public class CachedFileStore implements MessageStore, Closeable {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -72,6 +74,8 @@ public class CachedFileStore implements MessageStore {
 
     private final String sessionFileName;
 
+    private final String indexSnapshotFileName;
+
     private RandomAccessFile messageFileReader;
 
     private RandomAccessFile messageFileWriter;
@@ -82,13 +86,32 @@ public class CachedFileStore implements MessageStore {
 
     private final boolean syncWrites;
 
+    // guards opening and closing the files
+    private final ReentrantLock filesLock = new ReentrantLock();
+
     private final CachedHashMap messageIndex = new CachedHashMap(100);
 
+    private final MessageCache messageCache;
+
+    private final boolean compressMessages;
+
+    private final boolean indexSnapshot;
+
+    private final MessageCompressor compressor = new MessageCompressor();
+
     private FileOutputStream headerFileOutputStream;
 
     private final String charsetEncoding = CharsetSupport.getCharset();
 
     CachedFileStore(String path, SessionID sessionID, boolean syncWrites) throws IOException {
+        this(path, sessionID, syncWrites, null, false, false);
+    }
+
+    CachedFileStore(String path, SessionID sessionID, boolean syncWrites, MessageCache messageCache,
+            boolean compressMessages, boolean indexSnapshot) throws IOException {
+        this.messageCache = messageCache;
+        this.compressMessages = compressMessages;
+        this.indexSnapshot = indexSnapshot;
         this.syncWrites = syncWrites;
 
         final String fullPath = new File(path == null ? "." : path).getAbsolutePath();
@@ -99,6 +122,7 @@ public class CachedFileStore implements MessageStore {
         headerFileName = prefix + "header";
         seqNumFileName = prefix + "seqnums";
         sessionFileName = prefix + "session";
+        indexSnapshotFileName = prefix + "index";
 
         final File directory = new File(msgFileName).getParentFile();
         if (!directory.exists()) {
@@ -109,21 +133,29 @@ public class CachedFileStore implements MessageStore {
     }
 
     void initialize(boolean deleteFiles) throws IOException {
-        closeFiles();
+        filesLock.lock();
+        try {
+            closeFiles();
 
-        if (deleteFiles) {
-            deleteFiles();
-        }
+            if (deleteFiles) {
+                deleteFiles();
+            }
 
-        messageFileWriter = new RandomAccessFile(msgFileName, getRandomAccessFileOptions());
-        messageFileReader = new RandomAccessFile(msgFileName, READ_OPTION);
-        sequenceNumberFile = new RandomAccessFile(seqNumFileName, getRandomAccessFileOptions());
+            messageFileWriter = new RandomAccessFile(msgFileName, getRandomAccessFileOptions());
+            messageFileReader = new RandomAccessFile(msgFileName, READ_OPTION);
+            sequenceNumberFile = new RandomAccessFile(seqNumFileName, getRandomAccessFileOptions());
 
-        initializeCache();
+            initializeCache();
+        } finally {
+            filesLock.unlock();
+        }
     }
 
     private void initializeCache() throws IOException {
         cache.reset();
+        if (messageCache != null) {
+            messageCache.clear();
+        }
         initializeMessageIndex();
         initializeSequenceNumbers();
         initializeSessionCreateTime();
@@ -179,8 +211,14 @@ public class CachedFileStore implements MessageStore {
     }
 
     private void initializeMessageIndex() throws IOException {
+        final FileStoreIndexSnapshot snapshot = FileStoreIndexSnapshot.read(indexSnapshotFileName,
+                headerFileName, msgFileName);
         final File headerFile = new File(headerFileName);
-        if (headerFile.exists()) {
+        if (snapshot != null) {
+            for (final Map.Entry<Long, long[]> entry : snapshot.getIndex().entrySet()) {
+                messageIndex.put(entry.getKey(), entry.getValue());
+            }
+        } else if (headerFile.exists()) {
             try (DataInputStream headerDataInputStream = new DataInputStream(
                     new BufferedInputStream(new FileInputStream(headerFile)))) {
                 while (headerDataInputStream.available() > 0) {
@@ -200,16 +238,44 @@ public class CachedFileStore implements MessageStore {
         return READ_OPTION + WRITE_OPTION + (syncWrites ? SYNC_OPTION : NOSYNC_OPTION);
     }
 
+    /**
+     * Close the store's files. If enabled, the cached part of the message
+     * index is written to a snapshot file, which is read instead of the header
+     * file when the store is created again.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        filesLock.lock();
+        try {
+            closeFiles();
+            if (indexSnapshot) {
+                // the index only caches some of the offsets
+                FileStoreIndexSnapshot.write(indexSnapshotFileName, headerFileName, msgFileName,
+                        messageIndex, Long.MAX_VALUE);
+            }
+        } finally {
+            filesLock.unlock();
+        }
+    }
+
     /**
      * Close the store's files.
      *
      * @throws IOException
      */
     public void closeFiles() throws IOException {
-        closeOutputStream(headerDataOutputStream);
-        closeFile(messageFileWriter);
-        closeFile(messageFileReader);
-        closeFile(sequenceNumberFile);
+        filesLock.lock();
+        try {
+            closeOutputStream(headerDataOutputStream);
+            closeFile(messageFileWriter);
+            closeFile(messageFileReader);
+            closeFile(sequenceNumberFile);
+            compressor.close();
+        } finally {
+            filesLock.unlock();
+        }
     }
 
     private void closeFile(RandomAccessFile file) throws IOException {
@@ -226,6 +292,7 @@ public class CachedFileStore implements MessageStore {
 
     public void deleteFiles() throws IOException {
         closeFiles();
+        FileStoreIndexSnapshot.delete(indexSnapshotFileName);
         deleteFile(headerFileName);
         deleteFile(msgFileName);
         deleteFile(seqNumFileName);
@@ -304,8 +371,38 @@ public class CachedFileStore implements MessageStore {
     @Override
 	public void get(int startSequence, int endSequence, Collection<String> messages)
             throws IOException {
-        final Collection<String> readedMsg = getMessage(startSequence, endSequence);
-        messages.addAll(readedMsg);
+        if (messageCache != null) {
+            final long cached = messageCache.getFirstSequence();
+            if (startSequence < cached) {
+                messages.addAll(getMessage(startSequence, Math.min(endSequence, cached - 1)));
+            }
+            messageCache.get(startSequence, endSequence, messages);
+        } else {
+            final Collection<String> readedMsg = getMessage(startSequence, endSequence);
+            messages.addAll(readedMsg);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see quickfix.MessageStore#get(int, int, quickfix.MessageStore.MessageConsumer)
+     */
+    @Override
+	public void get(int startSequence, int endSequence, MessageConsumer consumer)
+            throws IOException {
+        if (messageCache != null) {
+            final long cached = messageCache.getFirstSequence();
+            if (startSequence < cached) {
+                getMessages(startSequence, (int) Math.min(endSequence, cached - 1), consumer);
+            }
+            final List<String> messages = new ArrayList<>();
+            messageCache.get(startSequence, endSequence, messages);
+            for (final String message : messages) {
+                consumer.accept(message);
+            }
+        } else {
+            getMessages(startSequence, endSequence, consumer);
+        }
     }
 
     /**
@@ -324,6 +421,9 @@ public class CachedFileStore implements MessageStore {
             throw new IOException("Truncated input while reading message: "
                     + new String(data, charsetEncoding));
         }
+        if (MessageCompressor.isCompressed(data, 0, data.length)) {
+            return compressor.decompress(data, 0, data.length);
+        }
 
         return new String(data, charsetEncoding);
     }
@@ -343,6 +443,18 @@ public class CachedFileStore implements MessageStore {
         return messages;
     }
 
+    /**
+     * Reads the messages of a range from the header file. As in
+     * {@link #getMessage(long, long)}, the last message stored for a sequence
+     * number is read.
+     */
+    private void getMessages(int startSequence, int endSequence, MessageConsumer consumer)
+            throws IOException {
+        FileStoreHeaderScan.read(headerFileName, startSequence, endSequence, false,
+                (sequence, offset, size) -> consumer.accept(read(offset, size)));
+        messageFileReader.seek(messageFileReader.length());
+    }
+
     /*
      * (non-Javadoc)
      * @see quickfix.MessageStore#set(int, java.lang.String)
@@ -350,7 +462,8 @@ public class CachedFileStore implements MessageStore {
     @Override
 	public boolean set(int sequence, String message) throws IOException {
         final long offset = messageFileWriter.getFilePointer();
-        final int size = message.length();
+        final byte[] compressed = compressMessages ? compressor.compress(message) : null;
+        final int size = compressed != null ? compressed.length : message.length();
         messageIndex.put((long) sequence, new long[] { offset, size });
         headerDataOutputStream.writeInt(sequence);
         headerDataOutputStream.writeLong(offset);
@@ -359,7 +472,10 @@ public class CachedFileStore implements MessageStore {
         if (syncWrites) {
             headerFileOutputStream.getFD().sync();
         }
-        messageFileWriter.write(message.getBytes(CharsetSupport.getCharset()));
+        messageFileWriter.write(compressed != null ? compressed : message.getBytes(CharsetSupport.getCharset()));
+        if (messageCache != null) {
+            messageCache.put(sequence, message);
+        }
         return true;
     }
 
@@ -46,7 +46,8 @@ public class CachedFileStoreFactory extends FileStoreFactory {
             if (settings.isSetting(sessionID, SETTING_FILE_STORE_SYNC)) {
                 syncWrites = settings.getBool(sessionID, SETTING_FILE_STORE_SYNC);
             }
-            return new CachedFileStore(settings.getString(sessionID, SETTING_FILE_STORE_PATH), sessionID, syncWrites);
+            return new CachedFileStore(settings.getString(sessionID, SETTING_FILE_STORE_PATH), sessionID, syncWrites,
+                    getMessageCache(sessionID), isCompression(sessionID), isIndexSnapshot(sessionID));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
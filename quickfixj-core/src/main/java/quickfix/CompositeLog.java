@@ -22,12 +22,15 @@ package quickfix;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.IOException;
+
 /**
  * This log factory can be used to log messages and events with more than
  * one logger. For example, you can log to both the screen and to a file
  * or database.
  */
-class CompositeLog implements Log {
+class CompositeLog implements Log, Closeable {
     private final Logger defaultLog = LoggerFactory.getLogger(getClass());
     private final Log[] logs;
     private boolean rethrowException;
@@ -65,6 +68,16 @@ class CompositeLog implements Log {
         }
     }
 
+    @Override
+    public boolean isIncomingEnabled() {
+        for (Log log : logs) {
+            if (log.isIncomingEnabled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
 	public void onOutgoing(String message) {
         for (Log log : logs) {
@@ -98,6 +111,29 @@ class CompositeLog implements Log {
         }
     }
 
+    /**
+     * Closes the logs that are closeable, e.g. to write their batched records.
+     * All of them are closed, the first exception is rethrown afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (Log log : logs) {
+            if (log instanceof Closeable) {
+                try {
+                    ((Closeable) log).close();
+                } catch (IOException e) {
+                    if (exception == null) {
+                        exception = e;
+                    }
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
     // Test Support
     void setRethrowExceptions(boolean flag) {
         rethrowException = flag;
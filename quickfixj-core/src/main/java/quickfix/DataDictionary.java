@@ -81,7 +81,8 @@ public class DataDictionary implements Serializable {
 	private boolean allowUnknownMessageFields = false;
 	private String beginString;
 
-	// CRITICAL: All of these should be changed to Eclipse Collections primitive collections
+	// The maps below are filled while loading. Lookups go through the index that is
+	// compiled from them once loading is complete, see compile().
 	private final Map<String, Set<Integer>> messageFields = new HashMap<>();
 	private final Map<String, Set<Integer>> requiredFields = new HashMap<>();
 	private final Set<String> messages = new HashSet<>();
@@ -98,6 +99,7 @@ public class DataDictionary implements Serializable {
 	private final IntegerStringMap<String> valueNames = new IntegerStringMap<>();
 	private final StringIntegerMap<GroupInfo> groups = new StringIntegerMap<>();
 	private final Map<String, Node> components = new HashMap<>();
+	private transient volatile DataDictionaryIndex index;
 
 	private DataDictionary() {
 	}
@@ -195,7 +197,7 @@ public class DataDictionary implements Serializable {
 	 * @return true if the field is defined, false otherwise
 	 */
 	public boolean isField(final int field) {
-		return fields.contains(field);
+		return index().isField(field);
 	}
 
 	/**
@@ -206,7 +208,7 @@ public class DataDictionary implements Serializable {
 	 * @return the field type
 	 */
 	public FieldType getFieldType(final int field) {
-		return fieldTypes.get(field);
+		return index().getFieldType(field);
 	}
 
 	private void addMsgType(final String msgType, final String msgName) {
@@ -279,8 +281,8 @@ public class DataDictionary implements Serializable {
 	 * @return true if field is defined for message, false otherwise.
 	 */
 	public boolean isMsgField(final String msgType, final int field) {
-		final Set<Integer> fields = messageFields.get(msgType);
-		return fields != null && fields.contains(field);
+		final DataDictionaryIndex index = index();
+		return index.isMsgField(index.ordinal(msgType), field);
 	}
 
 	/**
@@ -335,8 +337,8 @@ public class DataDictionary implements Serializable {
 	 * @return true if field is required, false otherwise
 	 */
 	public boolean isRequiredField(final String msgType, final int field) {
-		final Set<Integer> fields = requiredFields.get(msgType);
-		return fields != null && fields.contains(field);
+		final DataDictionaryIndex index = index();
+		return index.isRequiredField(index.ordinal(msgType), field);
 	}
 
 	/**
@@ -373,8 +375,7 @@ public class DataDictionary implements Serializable {
 	 * @return true if field is enumerated, false otherwise
 	 */
 	public boolean hasFieldValue(final int field) {
-		final Set<String> values = fieldValues.get(field);
-		return values != null && !values.isEmpty();
+		return index().getFieldValues(field) != null;
 	}
 
 	/**
@@ -387,9 +388,9 @@ public class DataDictionary implements Serializable {
 	 * @return true if field value is valid, false otherwise
 	 */
 	public boolean isFieldValue(final int field, final String value) {
-		final Set<String> validValues = fieldValues.get(field);
+		final Set<String> validValues = index().getFieldValues(field);
 
-		if (validValues == null || validValues.isEmpty()) {
+		if (validValues == null) {
 			return false;
 		}
 
@@ -397,7 +398,7 @@ public class DataDictionary implements Serializable {
 			return true;
 		}
 
-		if (!isMultipleValueStringField(field)) {
+		if (!isMultipleValueStringField(field) || value.indexOf(' ') == -1) {
 			return validValues.contains(value);
 		}
 
@@ -430,7 +431,7 @@ public class DataDictionary implements Serializable {
 	public boolean isGroup(final String msg, final int field) {
 		// NOTE: Old Veritian code
 		// groups.containsKey(new IntStringPair(field, msg));
-		return groups.contains(msg, field);
+		return getGroup(msg, field) != null;
 	}
 
 	/**
@@ -443,7 +444,7 @@ public class DataDictionary implements Serializable {
 	public boolean isHeaderGroup(final int field) {
 		// NOTE: Old Veritian code
 		// return groups.containsKey(new IntStringPair(field, HEADER_ID));
-		return groups.contains(HEADER_ID, field);
+		return getGroup(HEADER_ID, field) != null;
 	}
 
 	/**
@@ -458,7 +459,8 @@ public class DataDictionary implements Serializable {
 	public GroupInfo getGroup(final String msg, final int field) {
 		// NOTE: Old Veritian code
 		// return groups.get(new IntStringPair(field, msg));
-		return groups.get(msg, field);
+		final DataDictionaryIndex index = index();
+		return index.getGroup(index.ordinal(msg), field);
 	}
 
 	/**
@@ -469,11 +471,11 @@ public class DataDictionary implements Serializable {
 	 * @return true if field is a raw data field, false otherwise
 	 */
 	public boolean isDataField(final int field) {
-		return fieldTypes.get(field) == FieldType.DATA;
+		return index().getFieldType(field) == FieldType.DATA;
 	}
 
 	private boolean isMultipleValueStringField(final int field) {
-		final FieldType fieldType = fieldTypes.get(field);
+		final FieldType fieldType = index().getFieldType(field);
 		return fieldType == FieldType.MULTIPLEVALUESTRING || fieldType == FieldType.MULTIPLESTRINGVALUE;
 	}
 
@@ -585,6 +587,35 @@ public class DataDictionary implements Serializable {
 		setCheckUserDefinedFields(rhs.checkUserDefinedFields);
 		setCheckUnorderedGroupFields(rhs.checkUnorderedGroupFields);
 		setAllowUnknownMessageFields(rhs.allowUnknownMessageFields);
+		// the group dictionaries were compiled when they were copied
+		index = newIndex();
+	}
+
+	/**
+	 * Builds the array-indexed lookup tables from the loaded maps, for this
+	 * dictionary and the dictionaries of its repeating groups.
+	 */
+	private void compile() {
+		index = newIndex();
+		for (final Map<Integer, GroupInfo> gm : groups.values()) {
+			for (final GroupInfo gi : gm.values()) {
+				gi.getDataDictionary().compile();
+			}
+		}
+	}
+
+	private DataDictionaryIndex index() {
+		DataDictionaryIndex current = index;
+		if (current == null) {
+			// not compiled yet, e.g. after deserialization
+			current = newIndex();
+			index = current;
+		}
+		return current;
+	}
+
+	private DataDictionaryIndex newIndex() {
+		return new DataDictionaryIndex(fields, fieldTypes, fieldValues, messageFields, requiredFields, groups);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -684,6 +715,13 @@ public class DataDictionary implements Serializable {
 			throw message.getException();
 		}
 
+		final ParseValidator parseValidator = message.takeParseValidator();
+		if (parseValidator != null && parseValidator.isFor(sessionDataDictionary, applicationDataDictionary)) {
+			// the fields were already checked while the message was parsed
+			parseValidator.throwFailure();
+			return;
+		}
+
 		final String msgType = header.getString(MsgType.FIELD);
 		if (isVersionSpecified(applicationDataDictionary)) {
 			applicationDataDictionary.checkMsgType(msgType);
@@ -698,44 +736,69 @@ public class DataDictionary implements Serializable {
 		applicationDataDictionary.iterate(message, msgType, applicationDataDictionary);
 	}
 
-	private static boolean isVersionSpecified(final DataDictionary dd) {
+	static boolean isVersionSpecified(final DataDictionary dd) {
 		return dd != null && dd.hasVersion;
 	}
 
 	private void iterate(final FieldMap map, final String msgType, final DataDictionary dd) throws IncorrectTagValue, IncorrectDataFormat {
+		// the message type is resolved once against the dictionary of this map
+		final int msgTypeOrdinal = dd.index().ordinal(msgType);
+		final boolean isMapInstanceOfMessage = map instanceof Message;
 		final Iterator<Field<?>> iterator = map.iterator();
 		while (iterator.hasNext()) {
 			final StringField field = (StringField) iterator.next();
 
-			checkHasValue(field);
+			validateField(field, msgTypeOrdinal, isMapInstanceOfMessage, dd);
 
-			if (hasVersion) {
-				checkValidFormat(field);
-				checkValue(field);
-			}
-
-			// NOTE: Veritian changes
-			if (beginString != null) { // && shouldCheckTag(field)) {
-				// dd.checkValidTagNumber(field);
-				final boolean isMapInstanceOfMessage = map instanceof Message;
-				// NOTE: Old Veritian cod that moes the checkField call into the if statement
-				//				if(isMapInstanceOfMessage) {
-				//					dd.checkField(field, msgType, map instanceof Message);
-				//				}
-				dd.checkField(field, msgType, isMapInstanceOfMessage);
-				dd.checkGroupCount(field, map, msgType);
+			if (beginString != null) {
+				dd.checkGroupCount(field, map, msgTypeOrdinal);
 			}
 		}
 
 		for (final List<Group> groups : map.getGroups().values()) {
 			for (final Group group : groups) {
-				iterate(group, msgType, dd.getGroup(msgType, group.getFieldTag()).getDataDictionary());
+				iterate(group, msgType, dd.index().getGroup(msgTypeOrdinal, group.getFieldTag()).getDataDictionary());
 			}
 		}
 	}
 
+	/**
+	 * Applies the checks that {@link #iterate} makes for each field to a single
+	 * field, so that they can also be made while the message is being parsed.
+	 *
+	 * @param field the field
+	 * @param msgType the message type, or the header or trailer id
+	 * @param message whether the field is a body field rather than a header,
+	 *            trailer or group field
+	 * @param dd the dictionary of the field map containing the field
+	 */
+	void validateField(final StringField field, final String msgType, final boolean message, final DataDictionary dd)
+			throws IncorrectTagValue, IncorrectDataFormat {
+		validateField(field, dd.index().ordinal(msgType), message, dd);
+	}
+
+	private void validateField(final StringField field, final int msgTypeOrdinal, final boolean message, final DataDictionary dd)
+			throws IncorrectTagValue, IncorrectDataFormat {
+		checkHasValue(field);
+
+		if (hasVersion) {
+			checkValidFormat(field);
+			checkValue(field);
+		}
+
+		// NOTE: Veritian changes
+		if (beginString != null) { // && shouldCheckTag(field)) {
+			// dd.checkValidTagNumber(field);
+			// NOTE: Old Veritian cod that moes the checkField call into the if statement
+			//				if(isMapInstanceOfMessage) {
+			//					dd.checkField(field, msgType, map instanceof Message);
+			//				}
+			dd.checkField(field, msgTypeOrdinal, message);
+		}
+	}
+
 	/** Check if message type is defined in spec. **/
-	private void checkMsgType(final String msgType) {
+	void checkMsgType(final String msgType) {
 		if (!isMsgType(msgType)) {
 			throw new FieldException(SessionRejectReason.INVALID_MSGTYPE, MsgType.FIELD);
 		}
@@ -748,20 +811,25 @@ public class DataDictionary implements Serializable {
 
 	/** Check if field tag number is defined in the specification. **/
 	void checkValidTagNumber(final Field<?> field) {
-		if (!fields.contains(field.getTag())) {
+		if (!isField(field.getTag())) {
 			throw new FieldException(SessionRejectReason.INVALID_TAG_NUMBER, field.getField());
 		}
 	}
 
 	/** Check if the field tag is defined for message or group **/
 	void checkField(final Field<?> field, final String msgType, final boolean message) {
+		checkField(field, index().ordinal(msgType), message);
+	}
+
+	private void checkField(final Field<?> field, final int msgTypeOrdinal, final boolean message) {
 		// use different validation for groups and messages
+		final DataDictionaryIndex index = index();
 		final int fieldValue = field.getField();
-		final boolean messageField = message ? isMsgField(msgType, fieldValue) : fields.contains(fieldValue);
+		final boolean messageField = message ? index.isMsgField(msgTypeOrdinal, fieldValue) : index.isField(fieldValue);
 		final boolean fail = checkFieldFailure(fieldValue, messageField);
 
 		if (fail) {
-			if (fields.contains(fieldValue)) {
+			if (index.isField(fieldValue)) {
 				throw new FieldException(SessionRejectReason.TAG_NOT_DEFINED_FOR_THIS_MESSAGE_TYPE, fieldValue);
 			}
 			throw new FieldException(SessionRejectReason.INVALID_TAG_NUMBER, fieldValue);
@@ -861,9 +929,9 @@ public class DataDictionary implements Serializable {
 	}
 
 	/** Check if group count matches number of groups in **/
-	private void checkGroupCount(final StringField field, final FieldMap fieldMap, final String msgType) {
+	private void checkGroupCount(final StringField field, final FieldMap fieldMap, final int msgTypeOrdinal) {
 		final int fieldNum = field.getField();
-		if (isGroup(msgType, fieldNum)) {
+		if (index().getGroup(msgTypeOrdinal, fieldNum) != null) {
 			if (fieldMap.getGroupCount(fieldNum) != Integer.parseInt(field.getValue())) {
 				throw new FieldException(SessionRejectReason.INCORRECT_NUMINGROUP_COUNT_FOR_REPEATING_GROUP, fieldNum);
 			}
@@ -881,8 +949,10 @@ public class DataDictionary implements Serializable {
 	}
 
 	private void checkHasRequired(final String msgType, final FieldMap fields, final boolean bodyOnly) {
-		final Set<Integer> requiredFieldsForMessage = requiredFields.get(msgType);
-		if (requiredFieldsForMessage == null || requiredFieldsForMessage.isEmpty()) {
+		final DataDictionaryIndex index = index();
+		final int msgTypeOrdinal = index.ordinal(msgType);
+		final int[] requiredFieldsForMessage = index.getRequiredFields(msgTypeOrdinal);
+		if (requiredFieldsForMessage.length == 0) {
 			return;
 		}
 
@@ -895,7 +965,7 @@ public class DataDictionary implements Serializable {
 		final Map<Integer, List<Group>> groups = fields.getGroups();
 		if (!groups.isEmpty()) {
 			for (final Map.Entry<Integer, List<Group>> entry : groups.entrySet()) {
-				final GroupInfo p = getGroup(msgType, entry.getKey());
+				final GroupInfo p = index.getGroup(msgTypeOrdinal, entry.getKey());
 				if (p == null) { continue; }
 
 				for (final Group groupInstance : entry.getValue()) {
@@ -968,7 +1038,7 @@ public class DataDictionary implements Serializable {
 		final int componentsNodeLength = componentsNode.getLength();
 		if (componentsNodeLength > 0) {
 			final NodeList componentNodes = componentsNode.item(0).getChildNodes();
-			for (int i = 0; i < componentsNodeLength; ++i) {
+			for (int i = 0; i < componentNodes.getLength(); ++i) {
 				final Node componentNode = componentNodes.item(i);
 				if (!"component".equals(componentNode.getNodeName())) { continue; }
 
@@ -1094,6 +1164,8 @@ public class DataDictionary implements Serializable {
 
 			load(document, msgtype, messageNode);
 		}
+
+		compile();
 	}
 
 	public int getNumMessageCategories() {
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import quickfix.DataDictionary.GroupInfo;
+
+/**
+ * Immutable, array-indexed form of the lookup tables of a {@link DataDictionary}.
+ * <p>
+ * Tags are looked up in bitsets and in arrays indexed by tag, message types are
+ * mapped once to an ordinal which then indexes the per message type tables. None
+ * of the lookups box the tag, so validating and parsing a message does not
+ * allocate for the dictionary queries.
+ */
+final class DataDictionaryIndex {
+
+    private static final long[] NO_TAGS = {};
+    private static final int[] NO_FIELDS = {};
+    private static final GroupInfo[] NO_GROUPS = {};
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final long[] fields;
+    private final FieldType[] fieldTypes;
+    private final Set<String>[] fieldValues;
+    private final long[][] messageFields;
+    private final long[][] requiredFieldBits;
+    private final int[][] requiredFields;
+    private final int[][] groupTags;
+    private final GroupInfo[][] groups;
+
+    @SuppressWarnings("unchecked")
+    DataDictionaryIndex(Collection<Integer> fields, Map<Integer, FieldType> fieldTypes,
+            Map<Integer, Set<String>> fieldValues, Map<String, Set<Integer>> messageFields,
+            Map<String, Set<Integer>> requiredFields, Map<String, ? extends Map<Integer, GroupInfo>> groups) {
+        this.fields = toBits(fields);
+        this.fieldTypes = new FieldType[maxTag(fieldTypes.keySet()) + 1];
+        for (Map.Entry<Integer, FieldType> entry : fieldTypes.entrySet()) {
+            this.fieldTypes[entry.getKey()] = entry.getValue();
+        }
+        this.fieldValues = (Set<String>[]) new Set<?>[maxTag(fieldValues.keySet()) + 1];
+        for (Map.Entry<Integer, Set<String>> entry : fieldValues.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                this.fieldValues[entry.getKey()] = entry.getValue();
+            }
+        }
+
+        addOrdinals(messageFields.keySet());
+        addOrdinals(requiredFields.keySet());
+        addOrdinals(groups.keySet());
+        final int count = ordinals.size();
+        this.messageFields = new long[count][];
+        this.requiredFieldBits = new long[count][];
+        this.requiredFields = new int[count][];
+        this.groupTags = new int[count][];
+        this.groups = new GroupInfo[count][];
+        for (Map.Entry<String, Integer> entry : ordinals.entrySet()) {
+            final String msgType = entry.getKey();
+            final int ordinal = entry.getValue();
+            this.messageFields[ordinal] = toBits(messageFields.get(msgType));
+            this.requiredFieldBits[ordinal] = toBits(requiredFields.get(msgType));
+            this.requiredFields[ordinal] = toArray(requiredFields.get(msgType), false);
+            final Map<Integer, GroupInfo> groupsForMessage = groups.get(msgType);
+            if (groupsForMessage == null || groupsForMessage.isEmpty()) {
+                this.groupTags[ordinal] = NO_FIELDS;
+                this.groups[ordinal] = NO_GROUPS;
+            } else {
+                final int[] tags = toArray(groupsForMessage.keySet(), true);
+                final GroupInfo[] infos = new GroupInfo[tags.length];
+                for (int i = 0; i < tags.length; i++) {
+                    infos[i] = groupsForMessage.get(tags[i]);
+                }
+                this.groupTags[ordinal] = tags;
+                this.groups[ordinal] = infos;
+            }
+        }
+    }
+
+    private void addOrdinals(Collection<String> msgTypes) {
+        for (String msgType : msgTypes) {
+            ordinals.putIfAbsent(msgType, ordinals.size());
+        }
+    }
+
+    private static int maxTag(Collection<Integer> tags) {
+        int max = -1;
+        for (int tag : tags) {
+            max = Math.max(max, tag);
+        }
+        return max;
+    }
+
+    private static long[] toBits(Collection<Integer> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return NO_TAGS;
+        }
+        final long[] bits = new long[(maxTag(tags) >> 6) + 1];
+        for (int tag : tags) {
+            if (tag >= 0) {
+                bits[tag >> 6] |= 1L << tag;
+            }
+        }
+        return bits;
+    }
+
+    private static int[] toArray(Collection<Integer> tags, boolean sorted) {
+        if (tags == null || tags.isEmpty()) {
+            return NO_FIELDS;
+        }
+        final int[] array = new int[tags.size()];
+        int i = 0;
+        for (int tag : tags) {
+            array[i++] = tag;
+        }
+        if (sorted) {
+            Arrays.sort(array);
+        }
+        return array;
+    }
+
+    private static boolean contains(long[] bits, int tag) {
+        final int word = tag >> 6;
+        return tag >= 0 && word < bits.length && (bits[word] & 1L << tag) != 0;
+    }
+
+    /**
+     * Returns the ordinal of a message type (or of the header or trailer ids), or
+     * -1 if the dictionary has no fields for it.
+     */
+    int ordinal(String msgType) {
+        final Integer ordinal = ordinals.get(msgType);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    boolean isField(int tag) {
+        return contains(fields, tag);
+    }
+
+    FieldType getFieldType(int tag) {
+        return tag >= 0 && tag < fieldTypes.length ? fieldTypes[tag] : null;
+    }
+
+    /** Returns the enumerated values of a field, or null if it has none. */
+    Set<String> getFieldValues(int tag) {
+        return tag >= 0 && tag < fieldValues.length ? fieldValues[tag] : null;
+    }
+
+    boolean isMsgField(int ordinal, int tag) {
+        return ordinal >= 0 && contains(messageFields[ordinal], tag);
+    }
+
+    boolean isRequiredField(int ordinal, int tag) {
+        return ordinal >= 0 && contains(requiredFieldBits[ordinal], tag);
+    }
+
+    /**
+     * Returns the required tags of a message type, in the iteration order of the
+     * set they were loaded into so that the first missing tag reported does not
+     * change.
+     */
+    int[] getRequiredFields(int ordinal) {
+        return ordinal >= 0 ? requiredFields[ordinal] : NO_FIELDS;
+    }
+
+    GroupInfo getGroup(int ordinal, int tag) {
+        if (ordinal < 0) {
+            return null;
+        }
+        final int index = Arrays.binarySearch(groupTags[ordinal], tag);
+        return index >= 0 ? groups[ordinal][index] : null;
+    }
+}
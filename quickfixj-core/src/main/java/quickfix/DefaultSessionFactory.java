@@ -233,6 +233,18 @@ public class DefaultSessionFactory implements SessionFactory {
             final int maxScheduledWriteRequests = getSetting(settings, sessionID, Session.SETTING_MAX_SCHEDULED_WRITE_REQUESTS, 0);
             session.setMaxScheduledWriteRequests(maxScheduledWriteRequests);
 
+            final boolean lazyFieldParsing = getSetting(settings, sessionID, Session.SETTING_LAZY_FIELD_PARSING, false);
+            session.setLazyFieldParsing(lazyFieldParsing);
+
+            final boolean validateWhileParsing = getSetting(settings, sessionID, Session.SETTING_VALIDATE_WHILE_PARSING, false);
+            session.setValidateWhileParsing(validateWhileParsing);
+
+            final boolean patchResentMessages = getSetting(settings, sessionID, Session.SETTING_PATCH_RESENT_MESSAGES, false);
+            session.setPatchResentMessages(patchResentMessages);
+
+            final int messagePoolSize = getSetting(settings, sessionID, Session.SETTING_MESSAGE_POOL_SIZE, 0);
+            session.setMessagePoolSize(messagePoolSize);
+
             //
             // Session registration and creation callback is done here instead of in
             // session constructor to eliminate the possibility of other threads
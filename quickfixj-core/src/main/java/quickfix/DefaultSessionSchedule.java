@@ -309,6 +309,30 @@ public class DefaultSessionSchedule implements SessionSchedule {
 		return interval.isContainingTime(now);
 	}
 
+	@Override
+	public long getNextSessionTimeChange() {
+		if (isNonStopSession()) {
+			return Long.MAX_VALUE;
+		}
+		Calendar now = SystemTime.getUtcCalendar();
+		TimeInterval interval = theMostRecentIntervalBefore(now);
+		if (interval.isContainingTime(now)) {
+			return interval.getEnd().getTimeInMillis() + 1;
+		}
+		// the next start is on one of the following days
+		Calendar start = interval.getStart();
+		for (int i = 0; i < 8; i++) {
+			start.add(Calendar.DAY_OF_YEAR, 1);
+			start.set(Calendar.HOUR_OF_DAY, startTime.getHour());
+			start.set(Calendar.MINUTE, startTime.getMinute());
+			start.set(Calendar.SECOND, startTime.getSecond());
+			if (theMostRecentIntervalBefore(start).getStart().getTimeInMillis() == start.getTimeInMillis()) {
+				return start.getTimeInMillis();
+			}
+		}
+		return SystemTime.currentTimeMillis() + 1000L;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder buf = new StringBuilder();
@@ -33,8 +33,16 @@ import quickfix.field.converter.UtcTimeOnlyConverter;
 import quickfix.field.converter.UtcTimestampConverter;
 import org.quickfixj.CharsetSupport;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
@@ -43,16 +51,48 @@ import java.util.Map.Entry;
 
 /**
  * Field container used by messages, groups, and composites.
+ * <p>
+ * The body of a lazily parsed message keeps the undecoded fields in a compact
+ * index and only decodes a field when it is accessed. Reading a field may thus
+ * modify the map, so a lazily parsed message must not be read concurrently.
  */
 public abstract class FieldMap implements Serializable {
 
 	static final long serialVersionUID = -3193357271891865972L;
 
-	private final int[] fieldOrder;
+	/*
+	 * The serialized form is still the one of the TreeMap based field map, so
+	 * that field maps serialized by older versions can be read and vice versa.
+	 * The fields are therefore not final, they are set by readObject().
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("fieldOrder", int[].class),
+			new ObjectStreamField("fields", TreeMap.class),
+			new ObjectStreamField("groups", TreeMap.class)
+	};
+
+	private int[] fieldOrder;
+
+	private static volatile FieldStorageType defaultFieldStorageType = FieldStorageType.TREE_MAP;
 
-	private final TreeMap<Integer, Field<?>> fields;
+	private FieldStorage fields;
+
+	private TreeMap<Integer, List<Group>> groups = new TreeMap<>();
+
+	/*
+	 * Fields of a lazily parsed message which have not been decoded yet. Each
+	 * entry is a (tag, value offset, value length) triple into lazyBytes. A
+	 * field is moved into the fields map when it is first accessed, which
+	 * leaves its entry with a tag of -1. The entries are found by tag through
+	 * lazyTable, an open-addressed hash table of entry numbers plus one.
+	 */
+	private transient MessageBytes lazyBytes;
+	private transient int[] lazyFields;
+	private transient int[] lazyTable;
+	private transient int lazyFieldEnd;
+	private transient int lazyFieldCount;
 
-	private final TreeMap<Integer, List<Group>> groups = new TreeMap<>();
+	private transient boolean modified;
 
 	/**
 	 * Constructs a FieldMap with the given field order.
@@ -62,13 +102,27 @@ public abstract class FieldMap implements Serializable {
 	 */
 	protected FieldMap(int[] fieldOrder) {
 		this.fieldOrder = fieldOrder;
-		fields = new TreeMap<>(fieldOrder != null ? new FieldOrderComparator() : null);
+		fields = defaultFieldStorageType.create(fieldOrder);
 	}
 
 	protected FieldMap() {
 		this(null);
 	}
 
+	/**
+	 * Selects how field maps created from now on store their fields. This does
+	 * not affect existing maps and is intended to be called once at startup.
+	 *
+	 * @param fieldStorageType the storage type
+	 */
+	public static void setDefaultFieldStorageType(FieldStorageType fieldStorageType) {
+		defaultFieldStorageType = Objects.requireNonNull(fieldStorageType);
+	}
+
+	public static FieldStorageType getDefaultFieldStorageType() {
+		return defaultFieldStorageType;
+	}
+
 	/**
 	 * Returns the order of fields in the group.
 	 * The returned array must not be modified.
@@ -81,11 +135,15 @@ public abstract class FieldMap implements Serializable {
 
 	public void clear() {
 		fields.clear();
+		clearLazyFields();
 		groups.clear();
+		modified = true;
 	}
 
 	public void reset() {
 		fields.clear();
+		clearLazyFields();
+		modified = true;
 		for(List<Group> groupList : groups.values()) {
 			for(Group group : groupList)
 				group.reset();
@@ -94,7 +152,23 @@ public abstract class FieldMap implements Serializable {
 	}
 
 	public boolean isEmpty() {
-		return fields.isEmpty();
+		return fields.isEmpty() && lazyFieldCount == 0;
+	}
+
+	/**
+	 * Removes the repeating groups, including nested groups, clears them and
+	 * adds them to the given list for reuse.
+	 */
+	void recycleGroups(List<Group> spareGroups) {
+		for (List<Group> groupList : groups.values()) {
+			for (Group group : groupList) {
+				group.recycleGroups(spareGroups);
+				group.clear();
+				spareGroups.add(group);
+			}
+		}
+		groups.clear();
+		modified = true;
 	}
 
 	protected static int indexOf(int field, int[] fieldOrder) {
@@ -112,28 +186,12 @@ public abstract class FieldMap implements Serializable {
 		return indexOf(field, fieldOrder) > -1;
 	}
 
-	private class FieldOrderComparator implements Comparator<Integer>, Serializable {
-		static final long serialVersionUID = 3416006398018829270L;
-
-		private int rank(int field, int[] fieldOrder) {
-			int index = indexOf(field, fieldOrder);
-			return index > -1 ? index : Integer.MAX_VALUE; // unspecified fields are last
-		}
-
-		@Override
-		public int compare(Integer tag1, Integer tag2) {
-			int rank1 = rank(tag1, getFieldOrder());
-			int rank2 = rank(tag2, getFieldOrder());
-
-			return rank1 != Integer.MAX_VALUE || rank2 != Integer.MAX_VALUE
-					? rank1 - rank2 // order by rank if it is specified for either tag
-					: tag1 - tag2; // order by tag if both tags have unspecified ordering
-		}
-	}
-
 	public void setFields(FieldMap fieldMap) {
+		fieldMap.materializeLazyFields();
 		fields.clear();
+		clearLazyFields();
 		fields.putAll(fieldMap.fields);
+		modified = true;
 	}
 
 	protected void setComponent(MessageComponent component) {
@@ -148,10 +206,12 @@ public abstract class FieldMap implements Serializable {
 	public void setGroups(FieldMap fieldMap) {
 		groups.clear();
 		groups.putAll(fieldMap.groups);
+		modified = true;
 	}
 
 	protected void setGroups(int key, List<Group> groupList) {
 		groups.put(key, groupList);
+		modified = true;
 	}
 
 	public void setString(int field, String value) {
@@ -219,7 +279,7 @@ public abstract class FieldMap implements Serializable {
 	}
 
 	StringField getField(int field) throws FieldNotFound {
-		final StringField f = (StringField) fields.get(field);
+		final StringField f = (StringField) lookupField(field);
 		if (f == null) {
 			throw new FieldNotFound(field);
 		}
@@ -227,7 +287,7 @@ public abstract class FieldMap implements Serializable {
 	}
 
 	Field<?> getField(int field, Field<?> defaultValue) {
-		final Field<?> f = fields.get(field);
+		final Field<?> f = lookupField(field);
 		if (f == null) {
 			return defaultValue;
 		}
@@ -239,7 +299,7 @@ public abstract class FieldMap implements Serializable {
 	}
 
 	public Optional<String> getOptionalString(int field) {
-		final StringField f = (StringField) fields.get(field);
+		final StringField f = (StringField) lookupField(field);
 		if (f == null) {
 			return Optional.empty();
 		}
@@ -319,14 +379,18 @@ public abstract class FieldMap implements Serializable {
 	}
 
 	public void setField(int key, Field<?> field) {
+		removeLazyField(key);
 		fields.put(key, field);
+		modified = true;
 	}
 
 	public void setField(StringField field) {
 		if (field.getValue() == null) {
 			throw new NullPointerException("Null field values are not allowed.");
 		}
+		removeLazyField(field.getField());
 		fields.put(field.getField(), field);
+		modified = true;
 	}
 
 	public void setField(BooleanField field) {
@@ -371,7 +435,7 @@ public abstract class FieldMap implements Serializable {
 	}
 
 	public BytesField getField(BytesField field) throws FieldNotFound {
-		final Field<?> returnField = fields.get(field.getField());
+		final Field<?> returnField = lookupField(field.getField());
 		if (returnField == null) {
 			throw new FieldNotFound(field.getField());
 		} else if (returnField instanceof BytesField) {
@@ -424,7 +488,7 @@ public abstract class FieldMap implements Serializable {
 	}
 
 	public boolean isSetField(int field) {
-		return fields.containsKey(field);
+		return fields.containsKey(field) || lazyIndexOf(field) != -1;
 	}
 
 	public boolean isSetField(Field<?> field) {
@@ -432,16 +496,22 @@ public abstract class FieldMap implements Serializable {
 	}
 
 	public void removeField(int field) {
+		removeLazyField(field);
 		fields.remove(field);
+		modified = true;
 	}
 
 	public Iterator<Field<?>> iterator() {
-		return fields.values().iterator();
+		materializeLazyFields();
+		return fields.iterator();
 	}
 
 	public void initializeFrom(FieldMap source) {
+		source.materializeLazyFields();
 		fields.clear();
+		clearLazyFields();
 		fields.putAll(source.fields);
+		modified = true;
 		for (Entry<Integer, List<Group>> entry : source.groups.entrySet()) {
 			final List<Group> clones = new ArrayList<>();
 			for (final Group group : entry.getValue()) {
@@ -466,13 +536,14 @@ public abstract class FieldMap implements Serializable {
 	}
 
 	protected void calculateString(StringBuilder buffer, int[] preFields, int[] postFields) {
+		materializeLazyFields();
 		if (preFields != null) {
 			for (int preField : preFields) {
 				appendField(buffer, getField(preField, null));
 			}
 		}
 
-		for (final Field<?> field : fields.values()) {
+		for (final Field<?> field : fields) {
 			final int tag = field.getField();
 			if (!isOrderedField(tag, preFields) && !isOrderedField(tag, postFields)
 					&& !isGroupField(tag)) {
@@ -509,11 +580,136 @@ public abstract class FieldMap implements Serializable {
 		}
 	}
 
+	/**
+	 * Writes the encoded fields in the same order as {@link #calculateString}.
+	 * BeginString, BodyLength and CheckSum are skipped since they are written
+	 * by {@link Message#writeTo(ByteBuffer)}.
+	 *
+	 * @return the sum of the written bytes
+	 */
+	int writeTo(ByteBuffer buffer, int[] preFields, int[] postFields) {
+		materializeLazyFields();
+		int sum = 0;
+		if (preFields != null) {
+			for (int preField : preFields) {
+				sum += writeField(buffer, getField(preField, null));
+			}
+		}
+
+		for (final Field<?> field : fields) {
+			final int tag = field.getField();
+			if (!isOrderedField(tag, preFields) && !isOrderedField(tag, postFields)
+					&& !isGroupField(tag)) {
+				sum += writeField(buffer, field);
+			} else if (isGroupField(tag) && isOrderedField(tag, fieldOrder)
+					&& getGroupCount(tag) > 0) {
+				sum += writeField(buffer, field);
+				List<Group> groups = getGroups(tag);
+				for (int i = 0; i < groups.size(); i++) {
+					sum += groups.get(i).writeTo(buffer, preFields, postFields);
+				}
+			}
+		}
+
+		for (final Entry<Integer, List<Group>> entry : groups.entrySet()) {
+			final int groupCountTag = entry.getKey();
+			if (!isOrderedField(groupCountTag, fieldOrder)) {
+				final List<Group> groups = entry.getValue();
+				int groupCount = groups.size();
+				if (groupCount > 0) {
+					sum += writeInt(buffer, groupCountTag);
+					buffer.put((byte) '=');
+					sum += writeInt(buffer, groupCount);
+					buffer.put((byte) '\001');
+					sum += '=' + '\001';
+					for (int i = 0; i < groups.size(); i++) {
+						sum += groups.get(i).writeTo(buffer, preFields, postFields);
+					}
+				}
+			}
+		}
+
+		if (postFields != null) {
+			for (int postField : postFields) {
+				sum += writeField(buffer, getField(postField, null));
+			}
+		}
+		return sum;
+	}
+
+	private static int writeField(ByteBuffer buffer, Field<?> field) {
+		if (field == null) {
+			return 0;
+		}
+		final int tag = field.getTag();
+		if (tag == BeginString.FIELD || tag == BodyLength.FIELD || tag == CheckSum.FIELD) {
+			return 0;
+		}
+		int sum = writeInt(buffer, tag);
+		buffer.put((byte) '=');
+		final Object value = field.getObject();
+		if (value instanceof byte[]) {
+			// binary data is written as it is
+			final byte[] bytes = (byte[]) value;
+			buffer.put(bytes);
+			for (byte b : bytes) {
+				sum += b & 0xFF;
+			}
+		} else {
+			sum += writeString(buffer, value instanceof String ? (String) value : field.objectAsString());
+		}
+		buffer.put((byte) '\001');
+		return sum + '=' + '\001';
+	}
+
+	static int writeString(ByteBuffer buffer, String value) {
+		final Charset charset = CharsetSupport.getCharsetInstance();
+		int sum = 0;
+		if (CharsetSupport.isStringEquivalent()) {
+			// unmappable characters are replaced by '?' like String.getBytes() does
+			final int maxChar = charset.equals(StandardCharsets.US_ASCII) ? 0x7F : 0xFF;
+			for (int i = 0, n = value.length(); i < n; i++) {
+				final char c = value.charAt(i);
+				final int b = c <= maxChar ? c : '?';
+				buffer.put((byte) b);
+				sum += b;
+			}
+		} else {
+			final byte[] bytes = value.getBytes(charset);
+			buffer.put(bytes);
+			for (byte b : bytes) {
+				sum += b & 0xFF;
+			}
+		}
+		return sum;
+	}
+
+	static int writeInt(ByteBuffer buffer, int value) {
+		if (value < 0) {
+			return writeString(buffer, Integer.toString(value));
+		}
+		final int digits = getStringLength(value);
+		if (buffer.remaining() < digits) {
+			throw new BufferOverflowException();
+		}
+		final int start = buffer.position();
+		int sum = 0;
+		for (int i = start + digits - 1; i >= start; i--) {
+			final int digit = '0' + value % 10;
+			buffer.put(i, (byte) digit);
+			sum += digit;
+			value /= 10;
+		}
+		buffer.position(start + digits);
+		return sum;
+	}
+
 	private static final boolean IS_STRING_EQUIVALENT = CharsetSupport.isStringEquivalent(CharsetSupport.getCharsetInstance());
 
 	int calculateLength() {
+		materializeLazyFields();
 		int result = 0;
-		for (final Field<?> field : fields.values()) {
+		for (final Field<?> field : fields) {
 			int tag = field.getField();
 			if (tag != BeginString.FIELD && tag != BodyLength.FIELD
 					&& tag != CheckSum.FIELD && !isGroupField(tag)) {
@@ -539,15 +735,16 @@ public abstract class FieldMap implements Serializable {
 		return result;
 	}
 
-	private static int getStringLength(int num) {
+	static int getStringLength(int num) {
 		if(num == 0)
 			return 1;
 		return (int)(num > 0 ? Math.log10(num) + 1 : Math.log10(-num) + 2);
 	}
 
 	int calculateChecksum() {
+		materializeLazyFields();
 		int result = 0;
-		for (final Field<?> field : fields.values()) {
+		for (final Field<?> field : fields) {
 			if (field.getField() != CheckSum.FIELD && !isGroupField(field.getField())) {
 				result += field.getChecksum();
 			}
@@ -608,6 +805,7 @@ public abstract class FieldMap implements Serializable {
 	}
 
 	protected void setGroupCount(int countTag, int groupSize) {
+		modified = true;
 		try {
 			StringField count;
 			if (groupSize == 1) {
@@ -653,6 +851,7 @@ public abstract class FieldMap implements Serializable {
 			return;
 		}
 		groupList.set(offset, new Group(group));
+		modified = true;
 	}
 
 	public void removeGroup(int field) {
@@ -664,6 +863,7 @@ public abstract class FieldMap implements Serializable {
 		final List<Group> groupList = getGroups(field);
 		if (num <= groupList.size()) {
 			groupList.remove(num - 1);
+			modified = true;
 		}
 		if (!groupList.isEmpty()) {
 			setGroupCount(field, groupList.size());
@@ -694,5 +894,191 @@ public abstract class FieldMap implements Serializable {
 		return hasGroup(group.getFieldTag());
 	}
 
+	/**
+	 * Adds a field whose value has not been decoded yet. The value is only
+	 * decoded, and the field only created, when it is first accessed.
+	 *
+	 * @param messageBytes the message containing the value
+	 * @param tag the tag number
+	 * @param valueOffset the offset of the value in the backing array of the message
+	 * @param valueLength the length of the value in bytes
+	 */
+	void setLazyField(MessageBytes messageBytes, int tag, int valueOffset, int valueLength) {
+		if (lazyFields == null) {
+			lazyFields = new int[3 * 32];
+			lazyTable = new int[64];
+		} else if (lazyFieldEnd * 3 == lazyFields.length) {
+			lazyFields = Arrays.copyOf(lazyFields, lazyFields.length * 2);
+			lazyTable = new int[lazyTable.length * 2];
+			for (int entry = 0; entry < lazyFieldEnd; entry++) {
+				if (lazyFields[entry * 3] != -1) {
+					insertLazyEntry(entry);
+				}
+			}
+		}
+		lazyBytes = messageBytes;
+		final int entry = lazyFieldEnd++;
+		lazyFieldCount++;
+		final int index = entry * 3;
+		lazyFields[index] = tag;
+		lazyFields[index + 1] = valueOffset;
+		lazyFields[index + 2] = valueLength;
+		insertLazyEntry(entry);
+	}
+
+	private static int lazySlot(int tag, int mask) {
+		return (tag * 0x9E3779B9 >>> 16) & mask;
+	}
+
+	private void insertLazyEntry(int entry) {
+		final int mask = lazyTable.length - 1;
+		int slot = lazySlot(lazyFields[entry * 3], mask);
+		while (lazyTable[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		lazyTable[slot] = entry + 1;
+	}
+
+	private int lazyIndexOf(int tag) {
+		if (lazyFieldCount == 0) {
+			return -1;
+		}
+		final int mask = lazyTable.length - 1;
+		for (int slot = lazySlot(tag, mask); lazyTable[slot] != 0; slot = (slot + 1) & mask) {
+			// the slots of removed entries stay taken, so that the search
+			// goes on past them
+			final int index = (lazyTable[slot] - 1) * 3;
+			if (lazyFields[index] == tag) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	private Field<?> lookupField(int tag) {
+		Field<?> field = fields.get(tag);
+		if (field == null && lazyFieldCount > 0) {
+			final int index = lazyIndexOf(tag);
+			if (index != -1) {
+				field = newLazyField(index);
+				fields.put(tag, field);
+				removeLazyFieldAt(index);
+			}
+		}
+		return field;
+	}
+
+	private StringField newLazyField(int index) {
+		return new StringField(lazyFields[index], new String(lazyBytes.array(), lazyFields[index + 1],
+				lazyFields[index + 2], lazyBytes.charset()));
+	}
+
+	private void removeLazyField(int tag) {
+		if (lazyFieldCount > 0) {
+			final int index = lazyIndexOf(tag);
+			if (index != -1) {
+				removeLazyFieldAt(index);
+			}
+		}
+	}
+
+	private void removeLazyFieldAt(int index) {
+		lazyFields[index] = -1;
+		if (--lazyFieldCount == 0) {
+			clearLazyFields();
+		}
+	}
+
+	private void materializeLazyFields() {
+		for (int i = 0, n = lazyFieldEnd * 3; i < n; i += 3) {
+			if (lazyFields[i] != -1) {
+				fields.put(lazyFields[i], newLazyField(i));
+			}
+		}
+		clearLazyFields();
+	}
+
+	private void clearLazyFields() {
+		if (lazyFieldEnd > 0) {
+			Arrays.fill(lazyTable, 0);
+		}
+		lazyFieldEnd = 0;
+		lazyFieldCount = 0;
+		lazyBytes = null;
+	}
+
+	/**
+	 * @return whether this map or any of its groups has been changed since
+	 *         {@link #setUnmodified()} was last called
+	 */
+	boolean isModified() {
+		if (modified) {
+			return true;
+		}
+		for (List<Group> groupList : groups.values()) {
+			for (Group group : groupList) {
+				if (group.isModified()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	void setUnmodified() {
+		modified = false;
+		for (List<Group> groupList : groups.values()) {
+			for (Group group : groupList) {
+				group.setUnmodified();
+			}
+		}
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		materializeLazyFields();
+		final TreeMap<Integer, Field<?>> serialFields = new TreeMap<>(
+				fieldOrder != null ? new FieldOrderComparator() : null);
+		fields.forEachEntry(serialFields::put);
+		final ObjectOutputStream.PutField putField = out.putFields();
+		putField.put("fieldOrder", fieldOrder);
+		putField.put("fields", serialFields);
+		putField.put("groups", groups);
+		out.writeFields();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		final ObjectInputStream.GetField getField = in.readFields();
+		fieldOrder = (int[]) getField.get("fieldOrder", null);
+		groups = (TreeMap<Integer, List<Group>>) getField.get("groups", null);
+		fields = defaultFieldStorageType.create(fieldOrder);
+		final TreeMap<Integer, Field<?>> serialFields = (TreeMap<Integer, Field<?>>) getField.get("fields", null);
+		for (Entry<Integer, Field<?>> entry : serialFields.entrySet()) {
+			fields.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * The comparator of the serialized fields, which has to keep the class
+	 * name and serialVersionUID of older versions.
+	 */
+	private class FieldOrderComparator implements Comparator<Integer>, Serializable {
+		static final long serialVersionUID = 3416006398018829270L;
+
+		private int rank(int field, int[] fieldOrder) {
+			int index = indexOf(field, fieldOrder);
+			return index > -1 ? index : Integer.MAX_VALUE; // unspecified fields are last
+		}
+
+		@Override
+		public int compare(Integer tag1, Integer tag2) {
+			int rank1 = rank(tag1, getFieldOrder());
+			int rank2 = rank(tag2, getFieldOrder());
+
+			return rank1 != Integer.MAX_VALUE || rank2 != Integer.MAX_VALUE
+					? rank1 - rank2 // order by rank if it is specified for either tag
+					: tag1 - tag2; // order by tag if both tags have unspecified ordering
+		}
+	}
 
 }
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+/**
+ * Storage for the fields of a {@link FieldMap}, keyed by tag number.
+ * Iteration returns the fields in the order defined by the field order of the
+ * map, followed by the unordered fields sorted by tag.
+ *
+ * @see FieldStorageType
+ */
+interface FieldStorage extends Iterable<Field<?>> {
+
+    interface EntryConsumer {
+        void accept(int tag, Field<?> field);
+    }
+
+    Field<?> get(int tag);
+
+    void put(int tag, Field<?> field);
+
+    void remove(int tag);
+
+    boolean containsKey(int tag);
+
+    boolean isEmpty();
+
+    void clear();
+
+    /**
+     * Copies all entries of the given storage into this one.
+     *
+     * @param source the storage to copy from
+     */
+    void putAll(FieldStorage source);
+
+    void forEachEntry(EntryConsumer consumer);
+}
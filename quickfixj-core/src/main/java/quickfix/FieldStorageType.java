@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+/**
+ * Selects how {@link FieldMap} stores its fields.
+ *
+ * @see FieldMap#setDefaultFieldStorageType(FieldStorageType)
+ */
+public enum FieldStorageType {
+
+    /**
+     * A red-black tree keyed by boxed tag numbers. This is the default.
+     */
+    TREE_MAP {
+        @Override
+        FieldStorage create(int[] fieldOrder) {
+            return new TreeMapFieldStorage(fieldOrder);
+        }
+    },
+
+    /**
+     * Sorted parallel arrays of primitive tags and fields. Lookups and inserts
+     * neither box the tag nor allocate tree nodes, which favours the small
+     * field counts of typical messages and groups.
+     */
+    ARRAY {
+        @Override
+        FieldStorage create(int[] fieldOrder) {
+            return new ArrayFieldStorage(fieldOrder);
+        }
+    };
+
+    abstract FieldStorage create(int[] fieldOrder);
+}
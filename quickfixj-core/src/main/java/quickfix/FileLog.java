@@ -25,6 +25,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.quickfixj.CharsetSupport;
 
@@ -50,8 +52,8 @@ public class FileLog extends AbstractLog {
     private final String messagesFileName;
     private final String eventFileName;
     private boolean syncAfterWrite;
-    private final Object messagesLock = new Object();
-    private final Object eventsLock = new Object();
+    private final Lock messagesLock = new ReentrantLock();
+    private final Lock eventsLock = new ReentrantLock();
 
     private FileOutputStream messages;
     private FileOutputStream events;
@@ -94,24 +96,27 @@ public class FileLog extends AbstractLog {
         writeMessage(messages, messagesLock, message, false);
     }
 
-    private void writeMessage(FileOutputStream stream, Object lock, String message, boolean forceTimestamp) {
+    private void writeMessage(FileOutputStream stream, Lock lock, String message, boolean forceTimestamp) {
+        // a lock rather than a monitor, so that a session dispatched on a
+        // virtual thread does not pin its carrier thread while writing
+        lock.lock();
         try {
-            synchronized(lock) {
-                if (forceTimestamp || includeTimestampForMessages) {
-                    writeTimeStamp(stream);
-                }
-                stream.write(message.getBytes(CharsetSupport.getCharset()));
-                stream.write('\n');
-                stream.flush();
-                if (syncAfterWrite) {
-                    stream.getFD().sync();
-                }
+            if (forceTimestamp || includeTimestampForMessages) {
+                writeTimeStamp(stream);
+            }
+            stream.write(message.getBytes(CharsetSupport.getCharset()));
+            stream.write('\n');
+            stream.flush();
+            if (syncAfterWrite) {
+                stream.getFD().sync();
             }
         } catch (IOException e) {
             // QFJ-459: no point trying to log the error in the file if we had an IOException
             // we will end up with a java.lang.StackOverflowError
             System.err.println("error writing message to log : " + message);
             e.printStackTrace(System.err);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -33,12 +33,15 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * File store implementation. THIS CLASS IS PUBLIC ONLY TO MAINTAIN
@@ -53,6 +56,16 @@ public class FileStore implements MessageStore, Closeable {
     private static final String SYNC_OPTION = "d";
     private static final String NOSYNC_OPTION = "";
 
+    static final String BODY_SUFFIX = "body";
+    static final String HEADER_SUFFIX = "header";
+    static final String SENDER_SEQ_NUM_SUFFIX = "senderseqnums";
+    static final String TARGET_SEQ_NUM_SUFFIX = "targetseqnums";
+    static final String SESSION_SUFFIX = "session";
+    static final String INDEX_SUFFIX = "index";
+
+    // the size of an entry of the header file: sequence number, offset and size
+    static final int HEADER_ENTRY_SIZE = 16;
+
     private final TreeMap<Long, long[]> messageIndex;
     private final MemoryStore cache = new MemoryStore();
 
@@ -61,8 +74,20 @@ public class FileStore implements MessageStore, Closeable {
     private final String senderSeqNumFileName;
     private final String targetSeqNumFileName;
     private final String sessionFileName;
+    private final String indexSnapshotFileName;
+    private final String filePrefix;
     private final boolean syncWrites;
+    // with a journal, the writes are recorded in it instead of syncing the files
+    private final FileStoreJournal journal;
+    private final long journalMaxWait;
+    // a lock rather than a monitor, so that a virtual thread opening or closing
+    // the files does not pin its carrier thread
+    private final ReentrantLock filesLock = new ReentrantLock();
     private final int maxCachedMsgs;
+    private final MessageCache messageCache;
+    private final boolean compressMessages;
+    private final boolean indexSnapshot;
+    private final MessageCompressor compressor = new MessageCompressor();
     private final String charsetEncoding = CharsetSupport.getCharset();
     private RandomAccessFile messageFileReader;
     private RandomAccessFile messageFileWriter;
@@ -70,23 +95,45 @@ public class FileStore implements MessageStore, Closeable {
     private FileOutputStream headerFileOutputStream;
     private RandomAccessFile senderSequenceNumberFile;
     private RandomAccessFile targetSequenceNumberFile;
+    private boolean filesOpen;
+    private long headerPosition;
+    // every message stored with a sequence number from this on is in the message index
+    private long indexedFrom;
 
     FileStore(String path, SessionID sessionID, boolean syncWrites, int maxCachedMsgs)
             throws IOException {
+        this(path, sessionID, syncWrites, maxCachedMsgs, null, false, false);
+    }
+
+    FileStore(String path, SessionID sessionID, boolean syncWrites, int maxCachedMsgs,
+            MessageCache messageCache, boolean compressMessages, boolean indexSnapshot)
+            throws IOException {
+        this(path, sessionID, syncWrites, maxCachedMsgs, messageCache, compressMessages, indexSnapshot, null, 0);
+    }
+
+    FileStore(String path, SessionID sessionID, boolean syncWrites, int maxCachedMsgs,
+            MessageCache messageCache, boolean compressMessages, boolean indexSnapshot,
+            FileStoreJournal journal, long journalMaxWait) throws IOException {
+        this.messageCache = messageCache;
+        this.compressMessages = compressMessages;
+        this.indexSnapshot = indexSnapshot;
         this.syncWrites = syncWrites;
         this.maxCachedMsgs = maxCachedMsgs;
+        this.journal = journal;
+        this.journalMaxWait = journalMaxWait;
 
         messageIndex = maxCachedMsgs > 0 ? new TreeMap<>() : null;
 
         final String fullPath = new File(path == null ? "." : path).getAbsolutePath();
         final String sessionName = FileUtil.sessionIdFileName(sessionID);
-        final String prefix = FileUtil.fileAppendPath(fullPath, sessionName + ".");
+        filePrefix = FileUtil.fileAppendPath(fullPath, sessionName + ".");
 
-        msgFileName = prefix + "body";
-        headerFileName = prefix + "header";
-        senderSeqNumFileName = prefix + "senderseqnums";
-        targetSeqNumFileName = prefix + "targetseqnums";
-        sessionFileName = prefix + "session";
+        msgFileName = filePrefix + BODY_SUFFIX;
+        headerFileName = filePrefix + HEADER_SUFFIX;
+        senderSeqNumFileName = filePrefix + SENDER_SEQ_NUM_SUFFIX;
+        targetSeqNumFileName = filePrefix + TARGET_SEQ_NUM_SUFFIX;
+        sessionFileName = filePrefix + SESSION_SUFFIX;
+        indexSnapshotFileName = filePrefix + INDEX_SUFFIX;
 
         final File directory = new File(msgFileName).getParentFile();
         if (!directory.exists()) {
@@ -97,23 +144,39 @@ public class FileStore implements MessageStore, Closeable {
     }
 
     void initialize(boolean deleteFiles) throws IOException {
-        if (deleteFiles) {
-            closeAndDeleteFiles();
-        } else {
-            close();
+        if (deleteFiles && journal != null) {
+            // so that recovery does not replay the earlier writes into the new
+            // files. Waited for without the files lock, a checkpoint needs it.
+            journal.appendReset(filePrefix);
+            journal.awaitCommit(journalMaxWait);
         }
+        filesLock.lock();
+        try {
+            if (deleteFiles) {
+                closeAndDeleteFiles();
+            } else {
+                closeFiles();
+            }
 
-        String mode = READ_OPTION + WRITE_OPTION + (syncWrites ? SYNC_OPTION : NOSYNC_OPTION);
-        messageFileWriter = new RandomAccessFile(msgFileName, mode); // also creates file
-        messageFileReader = new RandomAccessFile(msgFileName, READ_OPTION);
-        senderSequenceNumberFile = new RandomAccessFile(senderSeqNumFileName, mode);
-        targetSequenceNumberFile = new RandomAccessFile(targetSeqNumFileName, mode);
-
-        initializeCache();
+            String mode = READ_OPTION + WRITE_OPTION
+                    + (syncWrites && journal == null ? SYNC_OPTION : NOSYNC_OPTION);
+            messageFileWriter = new RandomAccessFile(msgFileName, mode); // also creates file
+            messageFileReader = new RandomAccessFile(msgFileName, READ_OPTION);
+            senderSequenceNumberFile = new RandomAccessFile(senderSeqNumFileName, mode);
+            targetSequenceNumberFile = new RandomAccessFile(targetSeqNumFileName, mode);
+            filesOpen = true;
+
+            initializeCache();
+        } finally {
+            filesLock.unlock();
+        }
     }
 
     private void initializeCache() throws IOException {
         cache.reset();
+        if (messageCache != null) {
+            messageCache.clear();
+        }
         initializeMessageIndex();
         initializeSequenceNumbers();
         initializeSessionCreateTime();
@@ -171,8 +234,16 @@ public class FileStore implements MessageStore, Closeable {
         // this part is unnecessary if no offsets are being stored in memory
         if (messageIndex != null) {
             messageIndex.clear();
+            indexedFrom = 0;
+            final FileStoreIndexSnapshot snapshot = FileStoreIndexSnapshot.read(indexSnapshotFileName,
+                    headerFileName, msgFileName);
             final File headerFile = new File(headerFileName);
-            if (headerFile.exists()) {
+            if (snapshot != null) {
+                for (final Map.Entry<Long, long[]> entry : snapshot.getIndex().entrySet()) {
+                    updateMessageIndex(entry.getKey(), entry.getValue()[0], (int) entry.getValue()[1]);
+                }
+                indexedFrom = Math.max(indexedFrom, snapshot.getIndexedFrom());
+            } else if (headerFile.exists()) {
                 try (DataInputStream headerDataInputStream = new DataInputStream(
                         new BufferedInputStream(new FileInputStream(headerFile)))) {
                     while (headerDataInputStream.available() > 0) {
@@ -184,6 +255,7 @@ public class FileStore implements MessageStore, Closeable {
                 }
             }
         }
+        headerPosition = new File(headerFileName).length();
         headerFileOutputStream = new FileOutputStream(headerFileName, true);
         headerDataOutputStream = new DataOutputStream(new BufferedOutputStream(
                 headerFileOutputStream));
@@ -193,24 +265,82 @@ public class FileStore implements MessageStore, Closeable {
         // Remove the lowest indexed sequence number if this addition
         // would result the index growing to larger than maxCachedMsgs.
         if (messageIndex.size() >= maxCachedMsgs && messageIndex.get(sequenceNum) == null) {
-            messageIndex.pollFirstEntry();
+            indexedFrom = Math.max(indexedFrom, messageIndex.pollFirstEntry().getKey() + 1);
         }
 
         messageIndex.put(sequenceNum, new long[] { offset, size });
     }
 
     /**
-     * Close the store's files.
+     * Close the store's files. If enabled, the message index is written to a
+     * snapshot file, which is read instead of the header file when the store
+     * is created again.
      *
      * @throws IOException
      */
     @Override
     public void close() throws IOException {
-        close(headerDataOutputStream);
-        close(messageFileWriter);
-        close(messageFileReader);
-        close(senderSequenceNumberFile);
-        close(targetSequenceNumberFile);
+        filesLock.lock();
+        try {
+            closeFiles();
+            if (indexSnapshot && messageIndex != null) {
+                FileStoreIndexSnapshot.write(indexSnapshotFileName, headerFileName, msgFileName,
+                        messageIndex, indexedFrom);
+            }
+        } finally {
+            filesLock.unlock();
+        }
+    }
+
+    private void closeFiles() throws IOException {
+        filesLock.lock();
+        try {
+            if (journal != null) {
+                // a checkpoint of the journal skips the closed files
+                syncFiles();
+            }
+            filesOpen = false;
+            close(headerDataOutputStream);
+            close(messageFileWriter);
+            close(messageFileReader);
+            close(senderSequenceNumberFile);
+            close(targetSequenceNumberFile);
+            compressor.close();
+        } finally {
+            filesLock.unlock();
+        }
+    }
+
+    /**
+     * Syncs the open files of the store, so that the journal no longer needs
+     * the records of their writes.
+     */
+    void syncFiles() throws IOException {
+        filesLock.lock();
+        try {
+            if (filesOpen) {
+                headerFileOutputStream.getFD().sync();
+                messageFileWriter.getFD().sync();
+                senderSequenceNumberFile.getFD().sync();
+                targetSequenceNumberFile.getFD().sync();
+            }
+        } finally {
+            filesLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the writes of the store, and those of the other stores
+     * sharing its journal, are committed by the journal. The wait is bounded
+     * by the maximum wait of the store. Returns at once if the store has no
+     * journal.
+     *
+     * @throws IOException if the journal failed to commit the writes
+     */
+    void awaitGroupCommit() throws IOException {
+        if (journal != null) {
+            journal.awaitCommit(journalMaxWait);
+        }
     }
 
     private static void close(Closeable closeable) throws IOException {
@@ -220,7 +350,8 @@ public class FileStore implements MessageStore, Closeable {
     }
 
     public void closeAndDeleteFiles() throws IOException {
-        close();
+        closeFiles();
+        FileStoreIndexSnapshot.delete(indexSnapshotFileName);
         deleteFile(headerFileName);
         deleteFile(msgFileName);
         deleteFile(senderSeqNumFileName);
@@ -293,6 +424,19 @@ public class FileStore implements MessageStore, Closeable {
     @Override
     public void get(int startSequence, int endSequence, Collection<String> messages)
             throws IOException {
+        if (messageCache != null) {
+            final long cached = messageCache.getFirstSequence();
+            if (startSequence < cached) {
+                getFromFiles(startSequence, (int) Math.min(endSequence, cached - 1), messages);
+            }
+            messageCache.get(startSequence, endSequence, messages);
+        } else {
+            getFromFiles(startSequence, endSequence, messages);
+        }
+    }
+
+    private void getFromFiles(int startSequence, int endSequence, Collection<String> messages)
+            throws IOException {
         final Set<Integer> uncachedOffsetMsgIds = new HashSet<>();
         // Use a treemap to make sure the messages are sorted by sequence num
         final TreeMap<Integer, String> messagesFound = new TreeMap<>();
@@ -325,6 +469,39 @@ public class FileStore implements MessageStore, Closeable {
         messages.addAll(messagesFound.values());
     }
 
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#get(int, int, quickfix.MessageStore.MessageConsumer)
+     */
+    @Override
+    public void get(int startSequence, int endSequence, MessageConsumer consumer)
+            throws IOException {
+        final long cached = messageCache != null ? messageCache.getFirstSequence() : Long.MAX_VALUE;
+        final int fileEnd = (int) Math.min(endSequence, cached - 1);
+        if (startSequence <= fileEnd) {
+            // the index holds the offsets of the most recent messages, those of
+            // older messages are only in the header file
+            final long indexed = messageIndex != null ? indexedFrom : Long.MAX_VALUE;
+            if (startSequence < indexed) {
+                // as in getFromFiles, the first message stored for a sequence number is read
+                FileStoreHeaderScan.read(headerFileName, startSequence, (int) Math.min(fileEnd, indexed - 1),
+                        true, (sequence, offset, size) -> consumer.accept(getMessage(offset, size, sequence)));
+            }
+            for (long i = Math.max(startSequence, indexed); i <= fileEnd; i++) {
+                final String message = getMessage((int) i);
+                if (message != null) {
+                    consumer.accept(message);
+                }
+            }
+        }
+        if (messageCache != null) {
+            final ArrayList<String> messages = new ArrayList<>();
+            messageCache.get(startSequence, endSequence, messages);
+            for (final String message : messages) {
+                consumer.accept(message);
+            }
+        }
+    }
+
     /**
      * This method is here for JNI API consistency but it's not
      * implemented. Use get(int, int, Collection) with the same
@@ -350,6 +527,9 @@ public class FileStore implements MessageStore, Closeable {
             final byte[] data = new byte[size];
             messageFileReader.seek(offset);
             messageFileReader.readFully(data);
+            if (MessageCompressor.isCompressed(data, 0, size)) {
+                return compressor.decompress(data, 0, size);
+            }
             return new String(data, charsetEncoding);
         } catch (EOFException eofe) { // can't read fully
             throw new IOException("Truncated input while reading message: messageIndex=" + i
@@ -363,7 +543,8 @@ public class FileStore implements MessageStore, Closeable {
     @Override
     public boolean set(int sequence, String message) throws IOException {
         final long offset = messageFileWriter.getFilePointer();
-        final int size = message.length();
+        final byte[] compressed = compressMessages ? compressor.compress(message) : null;
+        final int size = compressed != null ? compressed.length : message.length();
         if (messageIndex != null) {
             updateMessageIndex(sequence, offset, size);
         }
@@ -371,21 +552,39 @@ public class FileStore implements MessageStore, Closeable {
         headerDataOutputStream.writeLong(offset);
         headerDataOutputStream.writeInt(size);
         headerDataOutputStream.flush();
-        if (syncWrites) {
+        if (syncWrites && journal == null) {
             headerFileOutputStream.getFD().sync();
         }
-        messageFileWriter.write(message.getBytes(CharsetSupport.getCharset()));
+        final byte[] data = compressed != null ? compressed : message.getBytes(CharsetSupport.getCharset());
+        messageFileWriter.write(data);
+        if (journal != null) {
+            journal.appendMessage(this, filePrefix, headerPosition, sequence, offset, size, data);
+        }
+        headerPosition += HEADER_ENTRY_SIZE;
+        if (messageCache != null) {
+            messageCache.put(sequence, message);
+        }
         return true;
     }
 
     private void storeSenderSequenceNumber() throws IOException {
         senderSequenceNumberFile.seek(0);
         senderSequenceNumberFile.writeUTF("" + cache.getNextSenderMsgSeqNum());
+        if (journal != null) {
+            journal.appendSenderSeqNum(this, filePrefix, cache.getNextSenderMsgSeqNum());
+        }
     }
 
     private void storeTargetSequenceNumber() throws IOException {
         targetSequenceNumberFile.seek(0);
         targetSequenceNumberFile.writeUTF("" + cache.getNextTargetMsgSeqNum());
+        if (journal != null) {
+            journal.appendTargetSeqNum(this, filePrefix, cache.getNextTargetMsgSeqNum());
+        }
+    }
+
+    String getMsgFileName() {
+        return msgFileName;
     }
 
     /*
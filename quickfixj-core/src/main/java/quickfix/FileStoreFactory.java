@@ -19,6 +19,9 @@
 
 package quickfix;
 
+import java.io.File;
+import java.io.IOException;
+
 /**
  * Creates a message store that stores messages in a file.
  *
@@ -48,6 +51,70 @@ public class FileStoreFactory implements MessageStoreFactory {
 	 */
 	public static final String SETTING_FILE_STORE_MAX_CACHED_MSGS = "FileStoreMaxCachedMsgs";
 
+	/**
+	 * Numeric option for the number of recent messages a file store keeps in
+	 * memory, so that resend requests for them are served without reading
+	 * the files. The default of 0 disables the cache.
+	 */
+	public static final String SETTING_FILE_STORE_CACHE_MAX_MESSAGES = "FileStoreCacheMaxMessages";
+
+	/**
+	 * Numeric option limiting the total size (in characters) of the messages
+	 * kept by {@link #SETTING_FILE_STORE_CACHE_MAX_MESSAGES}. The oldest
+	 * messages are evicted first. The default is 1048576.
+	 */
+	public static final String SETTING_FILE_STORE_CACHE_MAX_BYTES = "FileStoreCacheMaxBytes";
+
+	/**
+	 * Boolean option for compressing each message before it is written to the
+	 * message file. Compressed and uncompressed messages are read alike, so the
+	 * option can be changed for existing files. The default is N.
+	 *
+	 * @see MessageCompressor
+	 */
+	public static final String SETTING_FILE_STORE_COMPRESSION = "FileStoreCompression";
+
+	/**
+	 * Boolean option for writing the in-memory message index to a snapshot file
+	 * when a store is closed. On the next start the store reads the snapshot
+	 * instead of scanning the header file, unless the files have changed since.
+	 * The default is N.
+	 */
+	public static final String SETTING_FILE_STORE_INDEX_SNAPSHOT = "FileStoreIndexSnapshot";
+
+	/**
+	 * Boolean option for a store that syncs its writes (see
+	 * {@link #SETTING_FILE_STORE_SYNC}) to record them in a journal shared by
+	 * all sessions instead. The journal is synced once for the writes of many
+	 * sessions and is replayed into the store files after a crash. A send waits
+	 * for the sync of its message after releasing the sender sequence number,
+	 * at most for {@link #SETTING_FILE_STORE_GROUP_COMMIT_MAX_WAIT}. The journal
+	 * file is kept in the {@link #SETTING_FILE_STORE_PATH} of the default
+	 * section. The default is N.
+	 */
+	public static final String SETTING_FILE_STORE_GROUP_COMMIT = "FileStoreGroupCommit";
+
+	/**
+	 * Numeric option for the time in milliseconds the journal collects writes
+	 * before syncing them. The default of 0 syncs them as soon as the previous
+	 * sync has finished. Only read from the default section.
+	 */
+	public static final String SETTING_FILE_STORE_GROUP_COMMIT_INTERVAL = "FileStoreGroupCommitInterval";
+
+	/**
+	 * Numeric option for the size of the collected writes in bytes that syncs
+	 * the journal before the end of the interval. The default is 262144. Only
+	 * read from the default section.
+	 */
+	public static final String SETTING_FILE_STORE_GROUP_COMMIT_BYTES = "FileStoreGroupCommitBytes";
+
+	/**
+	 * Numeric option for the maximum time in milliseconds a send waits for the
+	 * journal to sync its message. The message is still synced when the wait
+	 * times out, so 0 does not wait at all. The default is 1000.
+	 */
+	public static final String SETTING_FILE_STORE_GROUP_COMMIT_MAX_WAIT = "FileStoreGroupCommitMaxWait";
+
 	protected final SessionSettings settings;
 
 	/**
@@ -78,9 +145,72 @@ public class FileStoreFactory implements MessageStoreFactory {
 					maxCachedMsgs = (int) maxCachedMsgsSetting;
 				}
 			}
-			return new FileStore(settings.getString(sessionID, FileStoreFactory.SETTING_FILE_STORE_PATH), sessionID, syncWrites, maxCachedMsgs);
+			final FileStoreJournal journal = syncWrites ? getJournal(sessionID) : null;
+			if (journal == null) {
+				FileStoreJournal.recoverIfClosed(getJournalFile());
+			}
+			long maxWait = 1000;
+			if (settings.isSetting(sessionID, SETTING_FILE_STORE_GROUP_COMMIT_MAX_WAIT)) {
+				maxWait = settings.getLong(sessionID, SETTING_FILE_STORE_GROUP_COMMIT_MAX_WAIT);
+			}
+			return new FileStore(settings.getString(sessionID, FileStoreFactory.SETTING_FILE_STORE_PATH), sessionID, syncWrites, maxCachedMsgs,
+					getMessageCache(sessionID), isCompression(sessionID), isIndexSnapshot(sessionID), journal, maxWait);
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
 	}
+
+	/**
+	 * Returns the journal shared by the stores that group commit, or null if
+	 * the stores of the session do not.
+	 */
+	FileStoreJournal getJournal(SessionID sessionID) throws ConfigError, FieldConvertError, IOException {
+		if (!settings.isSetting(sessionID, SETTING_FILE_STORE_GROUP_COMMIT)
+				|| !settings.getBool(sessionID, SETTING_FILE_STORE_GROUP_COMMIT)) {
+			return null;
+		}
+		long interval = 0;
+		if (settings.isSetting(SETTING_FILE_STORE_GROUP_COMMIT_INTERVAL)) {
+			interval = settings.getLong(SETTING_FILE_STORE_GROUP_COMMIT_INTERVAL);
+		}
+		long bytes = 262144;
+		if (settings.isSetting(SETTING_FILE_STORE_GROUP_COMMIT_BYTES)) {
+			bytes = settings.getLong(SETTING_FILE_STORE_GROUP_COMMIT_BYTES);
+		}
+		return FileStoreJournal.open(getJournalFile(), interval, bytes);
+	}
+
+	File getJournalFile() throws ConfigError {
+		final String path = settings.isSetting(SETTING_FILE_STORE_PATH) ? settings.getString(SETTING_FILE_STORE_PATH) : ".";
+		return new File(path, FileStoreJournal.FILE_NAME);
+	}
+
+	boolean isCompression(SessionID sessionID) throws ConfigError, FieldConvertError {
+		return settings.isSetting(sessionID, SETTING_FILE_STORE_COMPRESSION)
+				&& settings.getBool(sessionID, SETTING_FILE_STORE_COMPRESSION);
+	}
+
+	boolean isIndexSnapshot(SessionID sessionID) throws ConfigError, FieldConvertError {
+		return settings.isSetting(sessionID, SETTING_FILE_STORE_INDEX_SNAPSHOT)
+				&& settings.getBool(sessionID, SETTING_FILE_STORE_INDEX_SNAPSHOT);
+	}
+
+	/**
+	 * Returns a new message cache for a store of the session, or null if the
+	 * session does not use one.
+	 */
+	MessageCache getMessageCache(SessionID sessionID) throws ConfigError, FieldConvertError {
+		if (!settings.isSetting(sessionID, SETTING_FILE_STORE_CACHE_MAX_MESSAGES)) {
+			return null;
+		}
+		final long maxMessages = settings.getLong(sessionID, SETTING_FILE_STORE_CACHE_MAX_MESSAGES);
+		if (maxMessages <= 0) {
+			return null;
+		}
+		long maxBytes = 1048576;
+		if (settings.isSetting(sessionID, SETTING_FILE_STORE_CACHE_MAX_BYTES)) {
+			maxBytes = settings.getLong(sessionID, SETTING_FILE_STORE_CACHE_MAX_BYTES);
+		}
+		return new MessageCache((int) Math.min(maxMessages, Integer.MAX_VALUE), maxBytes);
+	}
 }
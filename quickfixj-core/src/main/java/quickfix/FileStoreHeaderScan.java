@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads the messages of a range from the header file of a file store, for
+ * ranges whose offsets are not held in memory. The range is read in windows
+ * of 65536 sequence numbers, so only the offsets of one window are held at a
+ * time.
+ * <p>
+ * The first window is found in a pass over the whole header file, which also
+ * checks whether the sequence numbers are stored in ascending order, as they
+ * are unless the sequence numbers were set back without a reset. In that case
+ * each following window is read from where the previous one ended, otherwise
+ * each window takes another pass over the whole file.
+ */
+final class FileStoreHeaderScan {
+    private static final int WINDOW = 65536;
+    private static final int RECORD_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    /**
+     * Reads the message stored at an offset of the message file.
+     */
+    interface MessageReader {
+        void read(int sequence, long offset, int size) throws IOException;
+    }
+
+    private FileStoreHeaderScan() {
+    }
+
+    /**
+     * Passes the offsets of the messages of a range to a reader, in order of
+     * their sequence numbers.
+     *
+     * @param headerFileName the header file
+     * @param startSequence the first sequence number of the range
+     * @param endSequence the last sequence number of the range
+     * @param firstStored whether the first or the last message stored for a
+     * sequence number is read
+     * @param reader the reader of the messages
+     */
+    static void read(String headerFileName, int startSequence, int endSequence, boolean firstStored,
+            MessageReader reader) throws IOException {
+        final File headerFile = new File(headerFileName);
+        if (!headerFile.exists() || startSequence > endSequence) {
+            return;
+        }
+        final int window = (int) Math.min(WINDOW, (long) endSequence - startSequence + 1);
+        final long[] offsets = new long[window];
+        final int[] sizes = new int[window];
+        boolean ascending = false;
+        long resumePosition = 0;
+        for (long first = startSequence; first <= endSequence; first += window) {
+            final long last = Math.min(first + window - 1, endSequence);
+            Arrays.fill(sizes, -1);
+            final long startPosition = ascending ? resumePosition : 0;
+            boolean inOrder = true;
+            int previous = Integer.MIN_VALUE;
+            long position = startPosition;
+            // the position of the first record of a later window
+            long nextPosition = -1;
+            try (FileInputStream headerInputStream = new FileInputStream(headerFile)) {
+                headerInputStream.getChannel().position(startPosition);
+                final DataInputStream headerDataInputStream = new DataInputStream(
+                        new BufferedInputStream(headerInputStream));
+                while (headerDataInputStream.available() > 0) {
+                    final int sequenceNumber = headerDataInputStream.readInt();
+                    final long offset = headerDataInputStream.readLong();
+                    final int size = headerDataInputStream.readInt();
+                    if (sequenceNumber > last && nextPosition < 0) {
+                        nextPosition = position;
+                        if (ascending) {
+                            break;
+                        }
+                    }
+                    inOrder &= sequenceNumber >= previous;
+                    previous = sequenceNumber;
+                    position += RECORD_SIZE;
+                    if (sequenceNumber >= first && sequenceNumber <= last
+                            && (!firstStored || sizes[(int) (sequenceNumber - first)] < 0)) {
+                        offsets[(int) (sequenceNumber - first)] = offset;
+                        sizes[(int) (sequenceNumber - first)] = size;
+                    }
+                }
+            }
+            if (first == startSequence) {
+                // the first pass has read the whole file
+                ascending = inOrder;
+            }
+            resumePosition = nextPosition < 0 ? position : nextPosition;
+            for (int i = 0; i <= last - first; i++) {
+                if (sizes[i] >= 0) {
+                    reader.read((int) (first + i), offsets[i], sizes[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Snapshot of the in-memory message index of a file store, written when the
+ * store is closed. On the next start the store reads the snapshot instead of
+ * scanning its header file, as long as the header and message files still have
+ * the lengths recorded in the snapshot. The snapshot is deleted once it is read,
+ * so that it is never used for files that were written after it.
+ */
+final class FileStoreIndexSnapshot {
+    private static final int VERSION = 2;
+
+    private final TreeMap<Long, long[]> index;
+    private final long indexedFrom;
+
+    private FileStoreIndexSnapshot(TreeMap<Long, long[]> index, long indexedFrom) {
+        this.index = index;
+        this.indexedFrom = indexedFrom;
+    }
+
+    /**
+     * Returns the index, mapping sequence numbers to offset and size.
+     */
+    TreeMap<Long, long[]> getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the sequence number from which on every stored message was in
+     * the index.
+     */
+    long getIndexedFrom() {
+        return indexedFrom;
+    }
+
+    /**
+     * Writes the index, replacing an existing snapshot.
+     *
+     * @param snapshotFileName the snapshot file
+     * @param headerFileName the header file the index was read from
+     * @param msgFileName the message file the index points into
+     * @param index the index, mapping sequence numbers to offset and size
+     * @param indexedFrom the sequence number from which on every stored message
+     * is in the index
+     */
+    static void write(String snapshotFileName, String headerFileName, String msgFileName,
+            Map<Long, long[]> index, long indexedFrom) throws IOException {
+        final File headerFile = new File(headerFileName);
+        if (!headerFile.exists()) {
+            return;
+        }
+        final File tempFile = new File(snapshotFileName + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tempFile)))) {
+            out.writeInt(VERSION);
+            out.writeLong(headerFile.length());
+            out.writeLong(new File(msgFileName).length());
+            out.writeLong(indexedFrom);
+            out.writeInt(index.size());
+            for (final Map.Entry<Long, long[]> entry : index.entrySet()) {
+                out.writeInt(entry.getKey().intValue());
+                out.writeLong(entry.getValue()[0]);
+                out.writeInt((int) entry.getValue()[1]);
+            }
+        }
+        Files.move(tempFile.toPath(), new File(snapshotFileName).toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads and deletes the snapshot.
+     *
+     * @param snapshotFileName the snapshot file
+     * @param headerFileName the header file the index was read from
+     * @param msgFileName the message file the index points into
+     * @return the snapshot, or null if there is no snapshot or it does not match the files
+     */
+    static FileStoreIndexSnapshot read(String snapshotFileName, String headerFileName,
+            String msgFileName) {
+        final File snapshotFile = new File(snapshotFileName);
+        if (!snapshotFile.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(snapshotFile)))) {
+            if (in.readInt() != VERSION || in.readLong() != new File(headerFileName).length()
+                    || in.readLong() != new File(msgFileName).length()) {
+                return null;
+            }
+            final long indexedFrom = in.readLong();
+            final int size = in.readInt();
+            final TreeMap<Long, long[]> index = new TreeMap<>();
+            for (int i = 0; i < size; i++) {
+                final int sequenceNumber = in.readInt();
+                final long offset = in.readLong();
+                final int messageSize = in.readInt();
+                index.put((long) sequenceNumber, new long[] { offset, messageSize });
+            }
+            return new FileStoreIndexSnapshot(index, indexedFrom);
+        } catch (final IOException e) {
+            // a damaged snapshot is ignored and the header file is read instead
+            return null;
+        } finally {
+            delete(snapshotFileName);
+        }
+    }
+
+    static void delete(String snapshotFileName) {
+        final File snapshotFile = new File(snapshotFileName);
+        if (snapshotFile.exists() && !snapshotFile.delete()) {
+            System.err.println("File delete failed: " + snapshotFileName);
+        }
+    }
+}
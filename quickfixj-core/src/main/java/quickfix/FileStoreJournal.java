@@ -0,0 +1,523 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * A redo journal shared by all file stores that group commit their writes.
+ * A store writes its own files without syncing them and then appends a record
+ * of the write to the journal. A background thread writes the records of all
+ * stores to the journal file and syncs it once per group, so a single sync
+ * makes the writes of every session durable. Once the journal file has grown
+ * large, the stores are synced and the journal is truncated instead.
+ * <p>
+ * When the journal is opened after a crash, its records are replayed into the
+ * store files before any store opens them. Every record holds the position of
+ * what it wrote, so replaying records that already made it to the store files
+ * is harmless. Replay stops at the first record that was not completely
+ * written.
+ * <p>
+ * There is one journal per journal file in a JVM. It stays open once opened.
+ */
+final class FileStoreJournal {
+
+    static final String FILE_NAME = "filestore.journal";
+
+    // once the journal file has grown this long, the stores are synced and the journal truncated
+    static final long CHECKPOINT_BYTES = 64L * 1024 * 1024;
+
+    private static final byte MESSAGE = 1;
+    private static final byte SENDER_SEQ_NUM = 2;
+    private static final byte TARGET_SEQ_NUM = 3;
+    private static final byte RESET = 4;
+
+    // a record is its length and CRC followed by its data
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    // the commit thread stops after being idle for this long
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileStoreJournal.class);
+
+    private static final Lock OPEN_LOCK = new ReentrantLock();
+    private static final Map<File, FileStoreJournal> OPEN = new HashMap<>();
+
+    private final File file;
+    private final long intervalNanos;
+    private final long commitBytes;
+    private final long checkpointBytes;
+    private final FileChannel channel;
+    private final OutputStream channelOutput;
+    private final Lock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition committed = lock.newCondition();
+    private final RecordBuffer record = new RecordBuffer();
+    private final DataOutputStream recordOutput = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+    private RecordBuffer pending = new RecordBuffer();
+    private Set<FileStore> dirtyStores = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long appendedPosition;
+    private long committedPosition;
+    private long failedPosition = -1;
+    private IOException failure;
+    private boolean running;
+
+    // only used by the commit thread
+    private RecordBuffer writing = new RecordBuffer();
+    private long fileLength;
+
+    private FileStoreJournal(File file, long intervalMillis, long commitBytes, long checkpointBytes)
+            throws IOException {
+        this.file = file;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.commitBytes = commitBytes;
+        this.checkpointBytes = checkpointBytes;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        channelOutput = Channels.newOutputStream(channel);
+    }
+
+    /**
+     * Returns the journal of the file, opening it if it is not open yet. A
+     * journal left by a previous run is recovered before it is opened.
+     *
+     * @param file the journal file
+     * @param intervalMillis the time the records are collected before they are
+     *            committed, zero to commit them as soon as the previous commit
+     *            has finished
+     * @param commitBytes the size of the collected records that commits them
+     *            before the end of the interval
+     */
+    static FileStoreJournal open(File file, long intervalMillis, long commitBytes) throws IOException {
+        return open(file, intervalMillis, commitBytes, CHECKPOINT_BYTES);
+    }
+
+    static FileStoreJournal open(File file, long intervalMillis, long commitBytes, long checkpointBytes)
+            throws IOException {
+        final File key = file.getCanonicalFile();
+        OPEN_LOCK.lock();
+        try {
+            FileStoreJournal journal = OPEN.get(key);
+            if (journal == null) {
+                recover(key);
+                final File directory = key.getParentFile();
+                if (directory != null && !directory.exists()) {
+                    directory.mkdirs();
+                }
+                journal = new FileStoreJournal(key, intervalMillis, commitBytes, checkpointBytes);
+                OPEN.put(key, journal);
+            }
+            return journal;
+        } finally {
+            OPEN_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Recovers the journal left by a previous run in the file, unless the
+     * journal is open. Used by stores that do not group commit, so that they
+     * do not open files that still miss writes recorded in the journal.
+     */
+    static void recoverIfClosed(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        final File key = file.getCanonicalFile();
+        OPEN_LOCK.lock();
+        try {
+            if (!OPEN.containsKey(key)) {
+                recover(key);
+            }
+        } finally {
+            OPEN_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Replays the records of the journal file into the store files, syncs them
+     * and deletes the journal file.
+     */
+    static void recover(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        final Map<String, RandomAccessFile> files = new LinkedHashMap<>();
+        final Set<String> prefixes = new LinkedHashSet<>();
+        try {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                final CRC32 checksum = new CRC32();
+                long remaining = file.length();
+                while (remaining >= RECORD_HEADER_SIZE) {
+                    final int length = input.readInt();
+                    final int crc = input.readInt();
+                    remaining -= RECORD_HEADER_SIZE;
+                    if (length <= 0 || length > remaining) {
+                        break;
+                    }
+                    final byte[] data = new byte[length];
+                    input.readFully(data);
+                    remaining -= length;
+                    checksum.reset();
+                    checksum.update(data, 0, length);
+                    if ((int) checksum.getValue() != crc) {
+                        break;
+                    }
+                    replay(new DataInputStream(new ByteArrayInputStream(data)), files, prefixes);
+                }
+            }
+            for (final Map.Entry<String, RandomAccessFile> entry : files.entrySet()) {
+                final RandomAccessFile storeFile = entry.getValue();
+                if (entry.getKey().endsWith(FileStore.HEADER_SUFFIX)) {
+                    // drops an entry that was torn by the crash after the last record
+                    storeFile.setLength(storeFile.length() - storeFile.length() % FileStore.HEADER_ENTRY_SIZE);
+                }
+                storeFile.getFD().sync();
+            }
+        } finally {
+            closeAll(files);
+        }
+        for (final String prefix : prefixes) {
+            // the replayed files no longer match the snapshot
+            FileStoreIndexSnapshot.delete(prefix + FileStore.INDEX_SUFFIX);
+        }
+        if (!file.delete()) {
+            throw new IOException("Failed to delete the recovered journal " + file);
+        }
+    }
+
+    private static void replay(DataInputStream input, Map<String, RandomAccessFile> files,
+            Set<String> prefixes) throws IOException {
+        final byte type = input.readByte();
+        final String prefix = input.readUTF();
+        prefixes.add(prefix);
+        switch (type) {
+        case MESSAGE:
+            final RandomAccessFile header = open(files, prefix + FileStore.HEADER_SUFFIX);
+            header.seek(input.readLong());
+            header.writeInt(input.readInt());
+            final long offset = input.readLong();
+            header.writeLong(offset);
+            header.writeInt(input.readInt());
+            final byte[] body = new byte[input.readInt()];
+            input.readFully(body);
+            final RandomAccessFile bodyFile = open(files, prefix + FileStore.BODY_SUFFIX);
+            bodyFile.seek(offset);
+            bodyFile.write(body);
+            break;
+        case SENDER_SEQ_NUM:
+            writeSequenceNumber(open(files, prefix + FileStore.SENDER_SEQ_NUM_SUFFIX), input.readInt());
+            break;
+        case TARGET_SEQ_NUM:
+            writeSequenceNumber(open(files, prefix + FileStore.TARGET_SEQ_NUM_SUFFIX), input.readInt());
+            break;
+        case RESET:
+            for (final String suffix : new String[] { FileStore.HEADER_SUFFIX, FileStore.BODY_SUFFIX,
+                    FileStore.SENDER_SEQ_NUM_SUFFIX, FileStore.TARGET_SEQ_NUM_SUFFIX }) {
+                final RandomAccessFile storeFile = files.remove(prefix + suffix);
+                if (storeFile != null) {
+                    storeFile.close();
+                }
+                final File deleted = new File(prefix + suffix);
+                if (deleted.exists() && !deleted.delete()) {
+                    throw new IOException("Failed to delete " + deleted);
+                }
+            }
+            break;
+        default:
+            throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    private static RandomAccessFile open(Map<String, RandomAccessFile> files, String fileName)
+            throws IOException {
+        RandomAccessFile storeFile = files.get(fileName);
+        if (storeFile == null) {
+            storeFile = new RandomAccessFile(fileName, "rw");
+            files.put(fileName, storeFile);
+        }
+        return storeFile;
+    }
+
+    private static void writeSequenceNumber(RandomAccessFile storeFile, int next) throws IOException {
+        storeFile.seek(0);
+        storeFile.writeUTF("" + next);
+    }
+
+    private static void closeAll(Map<String, RandomAccessFile> files) throws IOException {
+        IOException failure = null;
+        for (final Iterator<RandomAccessFile> i = files.values().iterator(); i.hasNext();) {
+            try {
+                i.next().close();
+            } catch (IOException e) {
+                failure = e;
+            }
+            i.remove();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Records a message written to the header and message files of a store.
+     */
+    void appendMessage(FileStore store, String prefix, long headerOffset, int sequence, long offset,
+            int size, byte[] data) throws IOException {
+        lock.lock();
+        try {
+            begin(MESSAGE, prefix);
+            recordOutput.writeLong(headerOffset);
+            recordOutput.writeInt(sequence);
+            recordOutput.writeLong(offset);
+            recordOutput.writeInt(size);
+            recordOutput.writeInt(data.length);
+            recordOutput.write(data);
+            end(store);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the next sender sequence number written to the file of a store.
+     */
+    void appendSenderSeqNum(FileStore store, String prefix, int next) throws IOException {
+        appendSequenceNumber(store, SENDER_SEQ_NUM, prefix, next);
+    }
+
+    /**
+     * Records the next target sequence number written to the file of a store.
+     */
+    void appendTargetSeqNum(FileStore store, String prefix, int next) throws IOException {
+        appendSequenceNumber(store, TARGET_SEQ_NUM, prefix, next);
+    }
+
+    /**
+     * Records that the files of a store are about to be deleted by a reset, so
+     * that the records before are not replayed into the files of the reset
+     * store.
+     */
+    void appendReset(String prefix) throws IOException {
+        lock.lock();
+        try {
+            begin(RESET, prefix);
+            end(null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void appendSequenceNumber(FileStore store, byte type, String prefix, int next) throws IOException {
+        lock.lock();
+        try {
+            begin(type, prefix);
+            recordOutput.writeInt(next);
+            end(store);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void begin(byte type, String prefix) throws IOException {
+        record.reset();
+        recordOutput.writeByte(type);
+        recordOutput.writeUTF(prefix);
+    }
+
+    private void end(FileStore store) throws IOException {
+        recordOutput.flush();
+        crc.reset();
+        crc.update(record.array(), 0, record.size());
+        pending.writeInt(record.size());
+        pending.writeInt((int) crc.getValue());
+        record.writeTo(pending);
+        appendedPosition += RECORD_HEADER_SIZE + record.size();
+        if (store != null) {
+            dirtyStores.add(store);
+        }
+        if (!running) {
+            running = true;
+            final Thread thread = new Thread(this::run, "QFJ FileStore Journal");
+            thread.setDaemon(true);
+            thread.start();
+        } else if (pending.size() == RECORD_HEADER_SIZE + record.size() || pending.size() >= commitBytes) {
+            appended.signal();
+        }
+    }
+
+    /**
+     * Waits until the records appended so far are committed, at most for the
+     * given time.
+     *
+     * @throws IOException if the commit of the records failed
+     */
+    void awaitCommit(long maxWaitMillis) throws IOException {
+        lock.lock();
+        try {
+            final long position = appendedPosition;
+            long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+            while (true) {
+                if (failure != null && failedPosition >= position) {
+                    throw new IOException("Failed to commit the journal " + file, failure);
+                }
+                if (committedPosition >= position || remaining <= 0) {
+                    return;
+                }
+                remaining = committed.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            final long position;
+            Set<FileStore> stores = null;
+            lock.lock();
+            try {
+                long idle = IDLE_NANOS;
+                while (pending.size() == 0) {
+                    if (idle <= 0) {
+                        running = false;
+                        return;
+                    }
+                    idle = appended.awaitNanos(idle);
+                }
+                long remaining = intervalNanos;
+                while (remaining > 0 && pending.size() < commitBytes) {
+                    remaining = appended.awaitNanos(remaining);
+                }
+                final RecordBuffer records = pending;
+                pending = writing;
+                writing = records;
+                position = appendedPosition;
+                if (fileLength + writing.size() >= checkpointBytes) {
+                    stores = dirtyStores;
+                    dirtyStores = Collections.newSetFromMap(new IdentityHashMap<>());
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            final IOException error = commit(stores);
+            writing.reset();
+
+            lock.lock();
+            try {
+                if (error == null) {
+                    committedPosition = position;
+                } else {
+                    failure = error;
+                    failedPosition = position;
+                }
+                committed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private IOException commit(Set<FileStore> stores) {
+        if (stores != null) {
+            try {
+                // the stores hold every record in the journal, so neither the
+                // journal nor the records being committed are needed anymore
+                for (final FileStore store : stores) {
+                    store.syncFiles();
+                }
+                channel.truncate(0);
+                channel.force(true);
+                fileLength = 0;
+                return null;
+            } catch (IOException e) {
+                LOG.error("Failed to checkpoint the journal " + file, e);
+                lock.lock();
+                try {
+                    // tried again with the next checkpoint
+                    dirtyStores.addAll(stores);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        try {
+            writing.writeTo(channelOutput);
+            channel.force(false);
+            fileLength += writing.size();
+            return null;
+        } catch (IOException e) {
+            LOG.error("Failed to commit the journal " + file, e);
+            return e;
+        }
+    }
+
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+
+        byte[] array() {
+            return buf;
+        }
+
+        void writeInt(int v) {
+            write(v >>> 24);
+            write(v >>> 16);
+            write(v >>> 8);
+            write(v);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+/**
+ * Writes rows for a JDBC store or log on a background thread. Entries are
+ * collected until the batch size is reached or the flush interval since the
+ * first entry has passed, and are then written with
+ * {@link PreparedStatement#addBatch()} and committed together. The writer keeps
+ * its connection and prepared statements while entries keep arriving and
+ * returns the connection to the pool once it runs out of work.
+ */
+final class JdbcBatchWriter {
+
+    /**
+     * A row to be written.
+     */
+    abstract static class Entry {
+        private final String sql;
+
+        Entry(String sql) {
+            this.sql = sql;
+        }
+
+        String getSql() {
+            return sql;
+        }
+
+        /**
+         * Sets the parameters of the statement prepared for the SQL of this entry.
+         */
+        abstract void bind(PreparedStatement statement) throws SQLException;
+
+        /**
+         * Writes the entry on its own. This is used when a batch fails, so that
+         * a single bad row (a duplicate key, for example) only affects itself.
+         */
+        abstract void write(Connection connection) throws SQLException;
+
+        /**
+         * Called when the entry could not be written.
+         */
+        abstract void failed(Exception e);
+    }
+
+    // the writer thread stops after being idle for this long
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final DataSource dataSource;
+    private final SessionID sessionID;
+    private final int batchSize;
+    private final long intervalNanos;
+    private final Lock lock = new ReentrantLock();
+    private final Condition added = lock.newCondition();
+    private final Condition written = lock.newCondition();
+    private List<Entry> pending = new ArrayList<>();
+    private long addedCount;
+    private long writtenCount;
+    private long flushTarget;
+    private boolean running;
+
+    // only used by the writer thread
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private Connection connection;
+    private boolean autoCommit;
+
+    JdbcBatchWriter(DataSource dataSource, SessionID sessionID, int batchSize, long intervalMillis) {
+        this.dataSource = dataSource;
+        this.sessionID = sessionID;
+        this.batchSize = batchSize;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+
+    void add(Entry entry) {
+        lock.lock();
+        try {
+            pending.add(entry);
+            addedCount++;
+            if (!running) {
+                running = true;
+                final Thread thread = new Thread(this::run, "QFJ JDBC Batch Writer " + sessionID);
+                thread.setDaemon(true);
+                thread.start();
+            } else if (pending.size() == 1 || pending.size() >= batchSize) {
+                added.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the entries added so far without waiting for the flush interval
+     * and waits until they have been written.
+     */
+    void flush() throws InterruptedException {
+        lock.lock();
+        try {
+            final long target = addedCount;
+            if (writtenCount < target) {
+                flushTarget = Math.max(flushTarget, target);
+                added.signal();
+                while (writtenCount < target) {
+                    written.await();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            final List<Entry> entries;
+            lock.lock();
+            try {
+                long idle = IDLE_NANOS;
+                while (pending.isEmpty()) {
+                    if (idle <= 0) {
+                        running = false;
+                        return;
+                    }
+                    idle = added.awaitNanos(idle);
+                }
+                long remaining = intervalNanos;
+                while (remaining > 0 && pending.size() < batchSize && writtenCount >= flushTarget) {
+                    remaining = added.awaitNanos(remaining);
+                }
+                if (pending.size() <= batchSize) {
+                    entries = pending;
+                    pending = new ArrayList<>();
+                } else {
+                    final List<Entry> head = pending.subList(0, batchSize);
+                    entries = new ArrayList<>(head);
+                    head.clear();
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            write(entries);
+
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    releaseConnection();
+                }
+                writtenCount += entries.size();
+                written.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void write(List<Entry> entries) {
+        try {
+            if (connection == null) {
+                connection = dataSource.getConnection();
+                autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+            }
+            int start = 0;
+            while (start < entries.size()) {
+                final String sql = entries.get(start).sql;
+                PreparedStatement statement = statements.get(sql);
+                if (statement == null) {
+                    statement = connection.prepareStatement(sql);
+                    statements.put(sql, statement);
+                }
+                int end = start;
+                while (end < entries.size() && entries.get(end).sql.equals(sql)) {
+                    entries.get(end).bind(statement);
+                    statement.addBatch();
+                    end++;
+                }
+                statement.executeBatch();
+                start = end;
+            }
+            connection.commit();
+            return;
+        } catch (SQLException | RuntimeException e) {
+            if (connection != null) {
+                try {
+                    connection.rollback();
+                } catch (SQLException re) {
+                    LogUtil.logThrowable(sessionID, re.getMessage(), re);
+                }
+            }
+        }
+
+        releaseConnection();
+        Connection single = null;
+        int index = 0;
+        try {
+            single = dataSource.getConnection();
+            for (; index < entries.size(); index++) {
+                try {
+                    entries.get(index).write(single);
+                } catch (SQLException | RuntimeException e) {
+                    entries.get(index).failed(e);
+                }
+            }
+        } catch (SQLException e) {
+            for (; index < entries.size(); index++) {
+                entries.get(index).failed(e);
+            }
+        } finally {
+            JdbcUtil.close(sessionID, single);
+        }
+    }
+
+    private void releaseConnection() {
+        for (PreparedStatement statement : statements.values()) {
+            JdbcUtil.close(sessionID, statement);
+        }
+        statements.clear();
+        if (connection != null) {
+            try {
+                connection.setAutoCommit(autoCommit);
+            } catch (SQLException e) {
+                LogUtil.logThrowable(sessionID, e.getMessage(), e);
+            }
+            JdbcUtil.close(sessionID, connection);
+            connection = null;
+        }
+    }
+}
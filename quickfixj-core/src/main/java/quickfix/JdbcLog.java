@@ -19,7 +19,11 @@
 
 package quickfix;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javax.sql.DataSource;
+import java.io.Closeable;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -27,6 +31,8 @@ import java.sql.Timestamp;
 import java.util.HashMap;
 import java.util.Map;
 
+import static quickfix.JdbcSetting.SETTING_JDBC_BATCH_FLUSH_INTERVAL;
+import static quickfix.JdbcSetting.SETTING_JDBC_LOG_BATCH_SIZE;
 import static quickfix.JdbcSetting.SETTING_JDBC_LOG_HEARTBEATS;
 import static quickfix.JdbcSetting.SETTING_JDBC_SESSION_ID_DEFAULT_PROPERTY_VALUE;
 import static quickfix.JdbcSetting.SETTING_LOG_EVENT_TABLE;
@@ -37,9 +43,11 @@ import static quickfix.JdbcUtil.getIDColumns;
 import static quickfix.JdbcUtil.getIDPlaceholders;
 import static quickfix.JdbcUtil.getIDWhereClause;
 
-class JdbcLog extends AbstractLog {
+class JdbcLog extends AbstractLog implements Closeable {
     private static final String DEFAULT_MESSAGES_LOG_TABLE = "messages_log";
     private static final String DEFAULT_EVENT_LOG_TABLE = "event_log";
+    private static final long DEFAULT_BATCH_FLUSH_INTERVAL = 100;
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcLog.class);
     private final String outgoingMessagesTableName;
     private final String incomingMessagesTableName;
     private final String eventTableName;
@@ -48,6 +56,7 @@ class JdbcLog extends AbstractLog {
     private final boolean logHeartbeats;
     private final boolean extendedSessionIdSupported;
     private final String defaultSessionIdPropertyValue;
+    private final JdbcBatchWriter batchWriter;
 
     private Throwable recursiveException = null;
 
@@ -96,6 +105,18 @@ class JdbcLog extends AbstractLog {
                 outgoingMessagesTableName);
 
         createCachedSql();
+
+        final int batchSize = settings.isSetting(sessionID, SETTING_JDBC_LOG_BATCH_SIZE)
+                ? settings.getInt(sessionID, SETTING_JDBC_LOG_BATCH_SIZE)
+                : 0;
+        if (batchSize > 0) {
+            final long flushInterval = settings.isSetting(sessionID, SETTING_JDBC_BATCH_FLUSH_INTERVAL)
+                    ? settings.getLong(sessionID, SETTING_JDBC_BATCH_FLUSH_INTERVAL)
+                    : DEFAULT_BATCH_FLUSH_INTERVAL;
+            batchWriter = new JdbcBatchWriter(dataSource, sessionID, batchSize, flushInterval);
+        } else {
+            batchWriter = null;
+        }
     }
 
     private void createCachedSql() {
@@ -151,6 +172,11 @@ class JdbcLog extends AbstractLog {
      * @param value
      */
     private void insert(String tableName, String value) {
+        if (batchWriter != null) {
+            batchWriter.add(new LogEntry(tableName, value,
+                    new Timestamp(SystemTime.getUtcCalendar().getTimeInMillis())));
+            return;
+        }
         Connection connection = null;
         PreparedStatement insert = null;
         if (recursiveException != null) {
@@ -163,9 +189,7 @@ class JdbcLog extends AbstractLog {
         try {
             connection = dataSource.getConnection();
             insert = connection.prepareStatement(getInsertItemSql(tableName));
-            insert.setTimestamp(1, new Timestamp(SystemTime.getUtcCalendar().getTimeInMillis()));
-            int offset = setSessionIdParameters(insert, 2);
-            insert.setString(offset, value);
+            bindInsertItem(insert, new Timestamp(SystemTime.getUtcCalendar().getTimeInMillis()), value);
             insert.execute();
         } catch (SQLException e) {
             recursiveException = e;
@@ -176,11 +200,69 @@ class JdbcLog extends AbstractLog {
         }
     }
 
+    private void bindInsertItem(PreparedStatement insert, Timestamp time, String value)
+            throws SQLException {
+        insert.setTimestamp(1, time);
+        int offset = setSessionIdParameters(insert, 2);
+        insert.setString(offset, value);
+    }
+
+    /**
+     * A log record waiting to be written by the batch writer.
+     */
+    private class LogEntry extends JdbcBatchWriter.Entry {
+        private final Timestamp time;
+        private final String value;
+
+        LogEntry(String tableName, String value, Timestamp time) {
+            super(getInsertItemSql(tableName));
+            this.time = time;
+            this.value = value;
+        }
+
+        @Override
+        void bind(PreparedStatement statement) throws SQLException {
+            bindInsertItem(statement, time, value);
+        }
+
+        @Override
+        void write(Connection connection) throws SQLException {
+            PreparedStatement insert = null;
+            try {
+                insert = connection.prepareStatement(getSql());
+                bind(insert);
+                insert.execute();
+            } finally {
+                JdbcUtil.close(sessionID, insert);
+            }
+        }
+
+        @Override
+        void failed(Exception e) {
+            // not logged to the session log, which would queue another record for the failing table
+            LOG.error(sessionID + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Waits until the batched log records have been written.
+     */
+    private void flushBatch() {
+        if (batchWriter != null) {
+            try {
+                batchWriter.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     /**
      * Deletes all rows from the log tables.
      */
     @Override
 	public void clear() {
+        flushBatch();
         clearTable(eventTableName);
         clearTable(incomingMessagesTableName);
         if (!incomingMessagesTableName.equals(outgoingMessagesTableName)) {
@@ -225,4 +307,12 @@ class JdbcLog extends AbstractLog {
 	public void onErrorEvent(String text) {
         onEvent(text);
     }
+
+    /**
+     * Writes the batched log records, if any.
+     */
+    @Override
+    public void close() {
+        flushBatch();
+    }
 }
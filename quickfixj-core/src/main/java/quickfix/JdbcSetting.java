@@ -139,4 +139,44 @@ public class JdbcSetting {
      */
     public static final String SETTING_JDBC_SIMULTANEOUS_BUILD_THROTTLE = "JdbcSimultaneousBuildThrottle";
 
+    /**
+     * Specifies the number of messages the JDBC store writes in one batch. If set
+     * to a positive value, messages are written on a background thread with a JDBC
+     * batch insert and set() returns before the message has been written. Resend
+     * requests, resets and closing the store wait for the pending messages. The
+     * default is 0, which writes every message before set() returns.
+     */
+    public static final String SETTING_JDBC_STORE_BATCH_SIZE = "JdbcStoreBatchSize";
+
+    /**
+     * Specifies the number of records the JDBC log writes in one batch. If set to a
+     * positive value, records are written on a background thread with a JDBC batch
+     * insert. The default is 0, which writes every record as it is logged.
+     */
+    public static final String SETTING_JDBC_LOG_BATCH_SIZE = "JdbcLogBatchSize";
+
+    /**
+     * Specifies the maximum time in milliseconds that a batched message or log record
+     * waits for its batch to fill up before it is written. The default is 100.
+     */
+    public static final String SETTING_JDBC_BATCH_FLUSH_INTERVAL = "JdbcBatchFlushInterval";
+
+    /**
+     * Specifies the number of rows the JDBC store fetches per round trip when reading
+     * messages for a resend request, so that large ranges are streamed from the
+     * database instead of being loaded at once by the driver. The default is 0,
+     * which uses the default of the driver.
+     */
+    public static final String SETTING_JDBC_STORE_FETCH_SIZE = "JdbcStoreFetchSize";
+
+    /**
+     * Specifies whether the JDBC store compresses messages. Compressed messages are
+     * stored as Base64 text in the message column. Compressed and uncompressed
+     * messages are read alike, so the setting can be changed for existing tables.
+     * The default is N.
+     *
+     * @see MessageCompressor
+     */
+    public static final String SETTING_JDBC_STORE_COMPRESSION = "JdbcStoreCompression";
+
 }
@@ -21,7 +21,9 @@ package quickfix;
 
 import static quickfix.JdbcSetting.*;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.sql.*;
 import java.util.Calendar;
 import java.util.Collection;
@@ -30,9 +32,10 @@ import java.util.TimeZone;
 
 import javax.sql.DataSource;
 
-class JdbcStore implements MessageStore {
+class JdbcStore implements MessageStore, Closeable {
     private final static String DEFAULT_SESSION_TABLE_NAME = "sessions";
     private final static String DEFAULT_MESSAGE_TABLE_NAME = "messages";
+    private final static long DEFAULT_BATCH_FLUSH_INTERVAL = 100;
 
     private final MemoryStore cache = new MemoryStore();
     private final boolean extendedSessionIdSupported;
@@ -41,6 +44,11 @@ class JdbcStore implements MessageStore {
     private final String sessionTableName;
     private final String messageTableName;
     private final String defaultSessionIdPropertyValue;
+    private final int fetchSize;
+    private final JdbcBatchWriter batchWriter;
+    private final boolean compressMessages;
+    private final MessageCompressor compressor = new MessageCompressor();
+    private volatile Exception batchFailure;
 
     private String SQL_UPDATE_SEQNUMS;
     private String SQL_INSERT_SESSION;
@@ -76,6 +84,27 @@ class JdbcStore implements MessageStore {
 
         dataSource = ds == null ? JdbcUtil.getDataSource(settings, sessionID) : ds;
 
+        if (settings.isSetting(sessionID, SETTING_JDBC_STORE_FETCH_SIZE)) {
+            fetchSize = settings.getInt(sessionID, SETTING_JDBC_STORE_FETCH_SIZE);
+        } else {
+            fetchSize = 0;
+        }
+
+        compressMessages = settings.isSetting(sessionID, SETTING_JDBC_STORE_COMPRESSION)
+                && settings.getBool(sessionID, SETTING_JDBC_STORE_COMPRESSION);
+
+        final int batchSize = settings.isSetting(sessionID, SETTING_JDBC_STORE_BATCH_SIZE)
+                ? settings.getInt(sessionID, SETTING_JDBC_STORE_BATCH_SIZE)
+                : 0;
+        if (batchSize > 0) {
+            final long flushInterval = settings.isSetting(sessionID, SETTING_JDBC_BATCH_FLUSH_INTERVAL)
+                    ? settings.getLong(sessionID, SETTING_JDBC_BATCH_FLUSH_INTERVAL)
+                    : DEFAULT_BATCH_FLUSH_INTERVAL;
+            batchWriter = new JdbcBatchWriter(dataSource, sessionID, batchSize, flushInterval);
+        } else {
+            batchWriter = null;
+        }
+
         // One table is sampled for the extended session ID columns. Be sure
         // that all tables are extended if you extend any of them.
         extendedSessionIdSupported = JdbcUtil.determineSessionIdSupport(dataSource,
@@ -180,6 +209,7 @@ class JdbcStore implements MessageStore {
 
     @Override
 	public void reset() throws IOException {
+        flushBatch();
         cache.reset();
         Connection connection = null;
         PreparedStatement deleteMessages = null;
@@ -209,65 +239,162 @@ class JdbcStore implements MessageStore {
     @Override
 	public void get(int startSequence, int endSequence, Collection<String> messages)
             throws IOException {
+        get(startSequence, endSequence, messages::add);
+    }
+
+    /**
+     * Passes the messages as they are read from the result set, which fetches
+     * them in chunks if {@link JdbcSetting#SETTING_JDBC_STORE_FETCH_SIZE} is set.
+     */
+    @Override
+	public void get(int startSequence, int endSequence, MessageConsumer consumer)
+            throws IOException {
+        flushBatch();
         Connection connection = null;
         PreparedStatement query = null;
         ResultSet rs = null;
+        boolean restoreAutoCommit = false;
         try {
             connection = dataSource.getConnection();
-            query = connection.prepareStatement(SQL_GET_MESSAGES);
+            if (fetchSize > 0 && connection.getAutoCommit()) {
+                // some drivers (PostgreSQL, for one) only fetch in chunks within a transaction
+                connection.setAutoCommit(false);
+                restoreAutoCommit = true;
+            }
+            query = connection.prepareStatement(SQL_GET_MESSAGES, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            if (fetchSize > 0) {
+                query.setFetchSize(fetchSize);
+            }
             int offset = setSessionIdParameters(query, 1);
             query.setInt(offset++, startSequence);
             query.setInt(offset, endSequence);
             rs = query.executeQuery();
             while (rs.next()) {
                 String message = rs.getString(1);
-                messages.add(message);
+                consumer.accept(compressor.decompressText(message));
             }
         } catch (SQLException e) {
             throw new IOException(e.getMessage(), e);
         } finally {
             JdbcUtil.close(sessionID, rs);
             JdbcUtil.close(sessionID, query);
+            if (restoreAutoCommit) {
+                try {
+                    connection.commit();
+                    connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    LogUtil.logThrowable(sessionID, e.getMessage(), e);
+                }
+            }
             JdbcUtil.close(sessionID, connection);
         }
     }
 
     @Override
 	public boolean set(int sequence, String message) throws IOException {
+        final String storedMessage = compressMessages ? compressor.compressToText(message) : message;
+        if (batchWriter != null) {
+            checkBatchFailure();
+            batchWriter.add(new MessageEntry(sequence, storedMessage));
+            return true;
+        }
         Connection connection = null;
-        PreparedStatement insert = null;
-        ResultSet rs = null;
         try {
             connection = dataSource.getConnection();
+            return writeMessage(connection, sequence, storedMessage);
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            JdbcUtil.close(sessionID, connection);
+        }
+    }
+
+    private boolean writeMessage(Connection connection, int sequence, String message)
+            throws SQLException {
+        PreparedStatement insert = null;
+        try {
             insert = connection.prepareStatement(SQL_INSERT_MESSAGE);
-            int offset = setSessionIdParameters(insert, 1);
-            insert.setInt(offset++, sequence);
-            insert.setString(offset, message);
+            bindInsertMessage(insert, sequence, message);
             insert.execute();
         } catch (SQLException ex) {
-            if (connection != null) {
-                PreparedStatement update = null;
-                try {
-                    update = connection.prepareStatement(SQL_UPDATE_MESSAGE);
-                    update.setString(1, message);
-                    int offset = setSessionIdParameters(update, 2);
-                    update.setInt(offset, sequence);
-                    boolean status = update.execute();
-                    return !status && update.getUpdateCount() > 0;
-                } catch (SQLException e) {
-                    throw new IOException(e.getMessage(), e);
-                } finally {
-                    JdbcUtil.close(sessionID, update);
-                }
+            PreparedStatement update = null;
+            try {
+                update = connection.prepareStatement(SQL_UPDATE_MESSAGE);
+                update.setString(1, message);
+                int offset = setSessionIdParameters(update, 2);
+                update.setInt(offset, sequence);
+                boolean status = update.execute();
+                return !status && update.getUpdateCount() > 0;
+            } finally {
+                JdbcUtil.close(sessionID, update);
             }
         } finally {
-            JdbcUtil.close(sessionID, rs);
             JdbcUtil.close(sessionID, insert);
-            JdbcUtil.close(sessionID, connection);
         }
         return true;
     }
 
+    private void bindInsertMessage(PreparedStatement insert, int sequence, String message)
+            throws SQLException {
+        int offset = setSessionIdParameters(insert, 1);
+        insert.setInt(offset++, sequence);
+        insert.setString(offset, message);
+    }
+
+    /**
+     * A message waiting to be written by the batch writer.
+     */
+    private class MessageEntry extends JdbcBatchWriter.Entry {
+        private final int sequence;
+        private final String message;
+
+        MessageEntry(int sequence, String message) {
+            super(SQL_INSERT_MESSAGE);
+            this.sequence = sequence;
+            this.message = message;
+        }
+
+        @Override
+        void bind(PreparedStatement statement) throws SQLException {
+            bindInsertMessage(statement, sequence, message);
+        }
+
+        @Override
+        void write(Connection connection) throws SQLException {
+            writeMessage(connection, sequence, message);
+        }
+
+        @Override
+        void failed(Exception e) {
+            batchFailure = e;
+            LogUtil.logThrowable(sessionID, "Failed to store message " + sequence, e);
+        }
+    }
+
+    /**
+     * Waits until the batched messages have been written.
+     */
+    private void flushBatch() throws IOException {
+        if (batchWriter != null) {
+            try {
+                batchWriter.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing batched messages");
+            }
+            checkBatchFailure();
+        }
+    }
+
+    private void checkBatchFailure() throws IOException {
+        final Exception failure = batchFailure;
+        if (failure != null) {
+            batchFailure = null;
+            throw new IOException("Failed to store batched messages: " + failure.getMessage(), failure);
+        }
+    }
+
     @Override
 	public void setNextSenderMsgSeqNum(int next) throws IOException {
         cache.setNextSenderMsgSeqNum(next);
@@ -300,6 +427,7 @@ class JdbcStore implements MessageStore {
 
     @Override
 	public void refresh() throws IOException {
+        flushBatch();
         try {
             loadCache();
         } catch (SQLException e) {
@@ -307,6 +435,15 @@ class JdbcStore implements MessageStore {
         }
     }
 
+    /**
+     * Writes the batched messages, if any.
+     */
+    @Override
+    public void close() throws IOException {
+        flushBatch();
+        compressor.close();
+    }
+
     DataSource getDataSource() {
         return dataSource;
     }
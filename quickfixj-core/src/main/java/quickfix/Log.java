@@ -36,6 +36,16 @@ public interface Log {
      */
     void onIncoming(String message);
 
+    /**
+     * Returns false if incoming messages are not logged at all, so that the
+     * message string does not have to be built for {@link #onIncoming(String)}.
+     *
+     * @return whether incoming messages may be logged
+     */
+    default boolean isIncomingEnabled() {
+        return true;
+    }
+
     /**
      * Logs an outgoing message
      *
@@ -0,0 +1,550 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import org.quickfixj.CharsetSupport;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Message store that appends messages to memory-mapped segment files.
+ * <p>
+ * Each message is written as a record of its length, its sequence number, a
+ * CRC32 checksum of both and its bytes to the end of the active segment, which is rolled over to a new
+ * segment file once it cannot hold the next record. The location of the last
+ * record of a sequence number is kept in a fixed-width index that is mapped in
+ * chunks of 65536 sequence numbers, so a message is looked up without any
+ * search. Sequence numbers and the creation time are kept in a small mapped
+ * state file.
+ * <p>
+ * The length of a record is written after its bytes. On initialization the
+ * records of the active segment are indexed again and the segment is cut
+ * before the first record with an invalid length or checksum, which recovers
+ * from a crash in the middle of a write. Segments that have been rolled over
+ * are forced to disk with their index, so only the active segment has to be
+ * scanned. A record whose checksum does not match when it is read fails the
+ * read with an {@link IOException}.
+ * <p>
+ * A reset starts a new generation of segment and index files rather than
+ * truncating the mapped files, the files of older generations are deleted.
+ * All mappings are released when the store is closed, which happens before
+ * any of its files are deleted.
+ *
+ * @see quickfix.MappedFileStoreFactory
+ */
+public class MappedFileStore implements MessageStore, Closeable {
+    private static final int INDEX_CHUNK_BITS = 16;
+    private static final int INDEX_CHUNK_ENTRIES = 1 << INDEX_CHUNK_BITS;
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES;
+    private static final int RECORD_HEADER_SIZE = 3 * Integer.BYTES;
+    private static final int RECORD_SEQUENCE = Integer.BYTES;
+    private static final int RECORD_CHECKSUM = 2 * Integer.BYTES;
+
+    private static final int STATE_GENERATION = 0;
+    private static final int STATE_SENDER_SEQNUM = 4;
+    private static final int STATE_TARGET_SEQNUM = 8;
+    private static final int STATE_CREATION_TIME = 16;
+    private static final int STATE_SIZE = 24;
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            unsafe = field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // mappings are released by the garbage collector
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final MemoryStore cache = new MemoryStore();
+
+    private final File directory;
+    private final String filePrefix;
+    private final File stateFile;
+    private final boolean syncWrites;
+    private final int segmentSize;
+    private final Charset charset = CharsetSupport.getCharsetInstance();
+
+    private MappedByteBuffer state;
+    private int generation;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private MappedByteBuffer[] indexChunks = new MappedByteBuffer[0];
+    private int activeSegmentNumber;
+    private MappedByteBuffer activeSegment;
+    private int position;
+
+    MappedFileStore(String path, SessionID sessionID, boolean syncWrites, int segmentSize)
+            throws IOException {
+        this.syncWrites = syncWrites;
+        this.segmentSize = segmentSize;
+
+        directory = new File(path == null ? "." : path).getAbsoluteFile();
+        filePrefix = FileUtil.sessionIdFileName(sessionID) + ".mmap.";
+        stateFile = new File(directory, filePrefix + "state");
+
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        initialize(false);
+    }
+
+    synchronized void initialize(boolean reset) throws IOException {
+        close();
+        cache.reset();
+
+        final boolean newState = stateFile.length() < STATE_SIZE;
+        state = map(stateFile, STATE_SIZE);
+        if (newState || reset) {
+            generation = newState ? 0 : state.getInt(STATE_GENERATION) + 1;
+            if (newState) {
+                // files left without a state file cannot be trusted
+                deleteFiles(-1);
+            }
+            final Date date = SystemTime.getDate();
+            cache.setCreationTime(SystemTime.getUtcCalendar(date));
+            state.putInt(STATE_GENERATION, generation);
+            state.putInt(STATE_SENDER_SEQNUM, cache.getNextSenderMsgSeqNum());
+            state.putInt(STATE_TARGET_SEQNUM, cache.getNextTargetMsgSeqNum());
+            state.putLong(STATE_CREATION_TIME, date.getTime());
+            state.force();
+        } else {
+            generation = state.getInt(STATE_GENERATION);
+            cache.setNextSenderMsgSeqNum(state.getInt(STATE_SENDER_SEQNUM));
+            cache.setNextTargetMsgSeqNum(state.getInt(STATE_TARGET_SEQNUM));
+            cache.setCreationTime(SystemTime.getUtcCalendar(state.getLong(STATE_CREATION_TIME)));
+        }
+        // files still mapped by another store are deleted on a later initialization
+        deleteFiles(generation);
+
+        int segmentCount = 0;
+        while (segmentFile(segmentCount).exists()) {
+            segmentCount++;
+        }
+        if (segmentCount == 0) {
+            activeSegmentNumber = 0;
+            activeSegment = createSegment(0, segmentSize);
+            position = 0;
+        } else {
+            activeSegmentNumber = segmentCount - 1;
+            activeSegment = getSegment(activeSegmentNumber);
+            position = recoverSegment(activeSegmentNumber, activeSegment);
+        }
+    }
+
+    /**
+     * Indexes the records of a segment and returns the offset following the
+     * last complete record. Anything after it is cleared.
+     */
+    private int recoverSegment(int segmentNumber, MappedByteBuffer segment) throws IOException {
+        final int capacity = segment.capacity();
+        int offset = 0;
+        while (offset <= capacity - RECORD_HEADER_SIZE) {
+            final int length = segment.getInt(offset) - 1;
+            if (length == -1) {
+                break;
+            }
+            if (length < 0 || length > capacity - offset - RECORD_HEADER_SIZE
+                    || segment.getInt(offset + RECORD_CHECKSUM) != checksum(segment, offset, length)) {
+                // record torn by a crash, nothing after it is trusted
+                for (int i = offset; i < capacity; i++) {
+                    segment.put(i, (byte) 0);
+                }
+                break;
+            }
+            putIndexEntry(segment.getInt(offset + RECORD_SEQUENCE), segmentNumber, offset);
+            offset += RECORD_HEADER_SIZE + length;
+        }
+        return offset;
+    }
+
+    /**
+     * Close the store's files. The mappings are forced to disk and released.
+     */
+    @Override
+    public synchronized void close() {
+        if (state != null) {
+            state.force();
+            unmap(state);
+            state = null;
+        }
+        if (activeSegment != null) {
+            activeSegment.force();
+            activeSegment = null;
+        }
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                unmap(segment);
+            }
+        }
+        segments.clear();
+        for (MappedByteBuffer chunk : indexChunks) {
+            if (chunk != null) {
+                chunk.force();
+                unmap(chunk);
+            }
+        }
+        indexChunks = new MappedByteBuffer[0];
+    }
+
+    /**
+     * Releases a mapping without waiting for it to be garbage collected. If
+     * the runtime does not allow this the mapping is left to the collector.
+     * The buffer must not be used afterwards.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (UNSAFE == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // released once the buffer is garbage collected
+        }
+    }
+
+    /**
+     * Computes the checksum of the sequence number and the data of the record
+     * at the given offset.
+     */
+    private static int checksum(ByteBuffer segment, int offset, int length) {
+        final ByteBuffer data = segment.duplicate();
+        data.limit(offset + RECORD_HEADER_SIZE + length);
+        data.position(offset + RECORD_SEQUENCE);
+        final CRC32 crc = new CRC32();
+        final int sequence = data.getInt();
+        crc.update(sequence >>> 24);
+        crc.update(sequence >>> 16);
+        crc.update(sequence >>> 8);
+        crc.update(sequence);
+        data.position(offset + RECORD_HEADER_SIZE);
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    public synchronized void closeAndDeleteFiles() {
+        close();
+        deleteFiles(-1);
+        if (stateFile.exists() && !stateFile.delete()) {
+            System.err.println("File delete failed: " + stateFile);
+        }
+    }
+
+    /**
+     * Deletes the segment and index files of all generations except the given one.
+     */
+    private void deleteFiles(int keepGeneration) {
+        final String[] names = directory.list();
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            if (!name.startsWith(filePrefix)) {
+                continue;
+            }
+            final int end = name.indexOf('.', filePrefix.length());
+            if (end == -1) {
+                continue;
+            }
+            final int fileGeneration;
+            try {
+                fileGeneration = Integer.parseInt(name.substring(filePrefix.length(), end));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (fileGeneration != keepGeneration) {
+                new File(directory, name).delete();
+            }
+        }
+    }
+
+    private File segmentFile(int segmentNumber) {
+        return new File(directory, filePrefix + generation + ".segment." + segmentNumber);
+    }
+
+    private File indexFile(int chunkNumber) {
+        return new File(directory, filePrefix + generation + ".index." + chunkNumber);
+    }
+
+    private static MappedByteBuffer map(File file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size < 0 ? channel.size() : size);
+        }
+    }
+
+    private MappedByteBuffer createSegment(int segmentNumber, int capacity) throws IOException {
+        final MappedByteBuffer segment = map(segmentFile(segmentNumber), capacity);
+        while (segments.size() <= segmentNumber) {
+            segments.add(null);
+        }
+        segments.set(segmentNumber, segment);
+        return segment;
+    }
+
+    private MappedByteBuffer getSegment(int segmentNumber) throws IOException {
+        MappedByteBuffer segment = segmentNumber < segments.size() ? segments.get(segmentNumber) : null;
+        if (segment == null) {
+            final File file = segmentFile(segmentNumber);
+            if (segmentNumber < 0 || !file.exists()) {
+                return null;
+            }
+            segment = map(file, -1);
+            while (segments.size() <= segmentNumber) {
+                segments.add(null);
+            }
+            segments.set(segmentNumber, segment);
+        }
+        return segment;
+    }
+
+    private MappedByteBuffer getIndexChunk(int chunkNumber, boolean create) throws IOException {
+        if (chunkNumber < indexChunks.length && indexChunks[chunkNumber] != null) {
+            return indexChunks[chunkNumber];
+        }
+        final File file = indexFile(chunkNumber);
+        if (!create && !file.exists()) {
+            return null;
+        }
+        final MappedByteBuffer chunk = map(file, (long) INDEX_CHUNK_ENTRIES * INDEX_ENTRY_SIZE);
+        if (chunkNumber >= indexChunks.length) {
+            indexChunks = Arrays.copyOf(indexChunks, chunkNumber + 1);
+        }
+        indexChunks[chunkNumber] = chunk;
+        return chunk;
+    }
+
+    private MappedByteBuffer putIndexEntry(int sequence, int segmentNumber, int offset) throws IOException {
+        final MappedByteBuffer chunk = getIndexChunk(sequence >>> INDEX_CHUNK_BITS, true);
+        // zero marks an empty entry, hence the segment number is stored plus one
+        chunk.putLong((sequence & (INDEX_CHUNK_ENTRIES - 1)) * INDEX_ENTRY_SIZE,
+                ((long) (segmentNumber + 1) << 32) | offset);
+        return chunk;
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#getCreationTime()
+     */
+    @Override
+    public synchronized Date getCreationTime() throws IOException {
+        return cache.getCreationTime();
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#getNextSenderMsgSeqNum()
+     */
+    @Override
+    public synchronized int getNextSenderMsgSeqNum() throws IOException {
+        return cache.getNextSenderMsgSeqNum();
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#getNextTargetMsgSeqNum()
+     */
+    @Override
+    public synchronized int getNextTargetMsgSeqNum() throws IOException {
+        return cache.getNextTargetMsgSeqNum();
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#setNextSenderMsgSeqNum(int)
+     */
+    @Override
+    public synchronized void setNextSenderMsgSeqNum(int next) throws IOException {
+        cache.setNextSenderMsgSeqNum(next);
+        storeSequenceNumber(STATE_SENDER_SEQNUM, next);
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#setNextTargetMsgSeqNum(int)
+     */
+    @Override
+    public synchronized void setNextTargetMsgSeqNum(int next) throws IOException {
+        cache.setNextTargetMsgSeqNum(next);
+        storeSequenceNumber(STATE_TARGET_SEQNUM, next);
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#incrNextSenderMsgSeqNum()
+     */
+    @Override
+    public synchronized void incrNextSenderMsgSeqNum() throws IOException {
+        cache.incrNextSenderMsgSeqNum();
+        storeSequenceNumber(STATE_SENDER_SEQNUM, cache.getNextSenderMsgSeqNum());
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#incrNextTargetMsgSeqNum()
+     */
+    @Override
+    public synchronized void incrNextTargetMsgSeqNum() throws IOException {
+        cache.incrNextTargetMsgSeqNum();
+        storeSequenceNumber(STATE_TARGET_SEQNUM, cache.getNextTargetMsgSeqNum());
+    }
+
+    private void storeSequenceNumber(int stateOffset, int next) {
+        state.putInt(stateOffset, next);
+        if (syncWrites) {
+            state.force();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#get(int, int, java.util.Collection)
+     */
+    @Override
+    public synchronized void get(int startSequence, int endSequence, Collection<String> messages)
+            throws IOException {
+        int sequence = Math.max(startSequence, 0);
+        while (sequence <= endSequence) {
+            final int chunkNumber = sequence >>> INDEX_CHUNK_BITS;
+            final int chunkStart = chunkNumber << INDEX_CHUNK_BITS;
+            final int last = Math.min(endSequence, chunkStart + (INDEX_CHUNK_ENTRIES - 1));
+            final MappedByteBuffer chunk = getIndexChunk(chunkNumber, false);
+            if (chunk != null) {
+                for (int i = sequence - chunkStart; i <= last - chunkStart; i++) {
+                    final long entry = chunk.getLong(i * INDEX_ENTRY_SIZE);
+                    if (entry != 0) {
+                        final String message = getMessage(entry, chunkStart + i);
+                        if (message != null) {
+                            messages.add(message);
+                        }
+                    }
+                }
+            }
+            if (last == Integer.MAX_VALUE) {
+                break;
+            }
+            sequence = last + 1;
+        }
+    }
+
+    private String getMessage(long entry, int sequence) throws IOException {
+        final int segmentNumber = (int) (entry >>> 32) - 1;
+        final int offset = (int) entry;
+        final MappedByteBuffer segment = getSegment(segmentNumber);
+        if (segment == null || offset < 0 || offset > segment.capacity() - RECORD_HEADER_SIZE) {
+            throw new IOException("Invalid index entry for message: messageIndex=" + sequence
+                    + ", segment=" + segmentNumber + ", offset=" + offset);
+        }
+        final int length = segment.getInt(offset) - 1;
+        // the entry may be stale if the record was cut off during recovery
+        if (length < 0 || length > segment.capacity() - offset - RECORD_HEADER_SIZE
+                || segment.getInt(offset + RECORD_SEQUENCE) != sequence) {
+            return null;
+        }
+        if (segment.getInt(offset + RECORD_CHECKSUM) != checksum(segment, offset, length)) {
+            throw new IOException("Checksum mismatch for message: messageIndex=" + sequence
+                    + ", segment=" + segmentNumber + ", offset=" + offset);
+        }
+        final byte[] data = new byte[length];
+        segment.position(offset + RECORD_HEADER_SIZE);
+        segment.get(data);
+        return new String(data, charset);
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#set(int, java.lang.String)
+     */
+    @Override
+    public synchronized boolean set(int sequence, String message) throws IOException {
+        if (sequence < 0) {
+            return false;
+        }
+        final byte[] data = message.getBytes(charset);
+        final int recordSize = RECORD_HEADER_SIZE + data.length;
+        if (recordSize > activeSegment.capacity() - position) {
+            rollSegment(recordSize);
+        }
+        final MappedByteBuffer segment = activeSegment;
+        final int offset = position;
+        segment.putInt(offset + RECORD_SEQUENCE, sequence);
+        segment.position(offset + RECORD_HEADER_SIZE);
+        segment.put(data);
+        segment.putInt(offset + RECORD_CHECKSUM, checksum(segment, offset, data.length));
+        // the length completes the record
+        segment.putInt(offset, data.length + 1);
+        position = offset + recordSize;
+        final MappedByteBuffer chunk = putIndexEntry(sequence, activeSegmentNumber, offset);
+        if (syncWrites) {
+            segment.force();
+            chunk.force();
+        }
+        return true;
+    }
+
+    private void rollSegment(int recordSize) throws IOException {
+        activeSegment.force();
+        for (MappedByteBuffer chunk : indexChunks) {
+            if (chunk != null) {
+                chunk.force();
+            }
+        }
+        final MappedByteBuffer segment = createSegment(activeSegmentNumber + 1, Math.max(segmentSize, recordSize));
+        activeSegmentNumber++;
+        activeSegment = segment;
+        position = 0;
+    }
+
+    int getSegmentCount() {
+        return activeSegmentNumber + 1;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see quickfix.RefreshableMessageStore#refresh()
+     */
+    @Override
+    public void refresh() throws IOException {
+        initialize(false);
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#reset()
+     */
+    @Override
+    public void reset() throws IOException {
+        initialize(true);
+    }
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+/**
+ * Creates a message store that appends messages to memory-mapped files. The
+ * {@link FileStoreFactory#SETTING_FILE_STORE_PATH} and
+ * {@link FileStoreFactory#SETTING_FILE_STORE_SYNC} settings apply as for the
+ * {@link FileStore}, the file formats are not compatible with it.
+ */
+public class MappedFileStoreFactory extends FileStoreFactory {
+
+    /**
+     * Numeric option for the size in bytes of the segment files messages are
+     * appended to. A new segment is started once a message does not fit into
+     * the current one. The default is 64 MB.
+     */
+    public static final String SETTING_MAPPED_FILE_STORE_SEGMENT_SIZE = "MappedFileStoreSegmentSize";
+
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Create the factory with configuration in session settings.
+     *
+     * @param settings
+     */
+    public MappedFileStoreFactory(SessionSettings settings) {
+        super(settings);
+    }
+
+    /**
+     * Creates a memory-mapped file message store.
+     *
+     * @param sessionID session ID for the message store.
+     */
+    @Override
+    public MessageStore create(SessionID sessionID) {
+        try {
+            boolean syncWrites = false;
+            if (settings.isSetting(sessionID, SETTING_FILE_STORE_SYNC)) {
+                syncWrites = settings.getBool(sessionID, SETTING_FILE_STORE_SYNC);
+            }
+            int segmentSize = DEFAULT_SEGMENT_SIZE;
+            if (settings.isSetting(sessionID, SETTING_MAPPED_FILE_STORE_SEGMENT_SIZE)) {
+                long segmentSizeSetting = settings.getLong(sessionID, SETTING_MAPPED_FILE_STORE_SEGMENT_SIZE);
+                if (segmentSizeSetting > 0 && segmentSizeSetting <= Integer.MAX_VALUE) {
+                    segmentSize = (int) segmentSizeSetting;
+                }
+            }
+            return new MappedFileStore(settings.getString(sessionID, SETTING_FILE_STORE_PATH), sessionID, syncWrites, segmentSize);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
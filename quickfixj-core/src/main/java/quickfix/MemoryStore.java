@@ -22,34 +22,57 @@ package quickfix;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 
 /**
- * In-memory message store implementation.
+ * In-memory message store implementation. By default it keeps every message;
+ * a bounded store keeps only the most recent messages in a {@link MessageCache}.
  *
  * @see quickfix.MemoryStoreFactory
  */
 public class MemoryStore implements MessageStore {
     private final HashMap<Integer, String> messages = new HashMap<>();
+    private final MessageCache messageCache;
     private int nextSenderMsgSeqNum;
     private int nextTargetMsgSeqNum;
     private SessionID sessionID;
     private Calendar creationTime = SystemTime.getUtcCalendar();
 
     public MemoryStore() throws IOException {
+        messageCache = null;
         reset();
     }
 
     public MemoryStore(SessionID sessionID) throws IOException  {
         this.sessionID = sessionID;
+        messageCache = null;
+        reset();
+    }
+
+    /**
+     * Creates a store that keeps only the most recent messages. Older messages
+     * are dropped and will be gap filled if a resend is requested for them.
+     *
+     * @param sessionID the session ID
+     * @param maxMessages the maximum number of messages to keep
+     * @param maxBytes the maximum total length of the messages to keep
+     */
+    public MemoryStore(SessionID sessionID, int maxMessages, long maxBytes) throws IOException {
+        this.sessionID = sessionID;
+        messageCache = new MessageCache(maxMessages, maxBytes);
         reset();
     }
 
     @Override
 	public void get(int startSequence, int endSequence, Collection<String> messages) throws IOException {
+        if (messageCache != null) {
+            messageCache.get(startSequence, endSequence, messages);
+            return;
+        }
         for (int i = startSequence; i <= endSequence; i++) {
             String message = this.messages.get(i);
             if (message != null) {
@@ -58,6 +81,26 @@ public class MemoryStore implements MessageStore {
         }
     }
 
+    @Override
+	public void get(int startSequence, int endSequence, MessageConsumer consumer) throws IOException {
+        if (messageCache != null) {
+            // the cache is bounded, so it is copied rather than read while
+            // the consumer runs
+            final ArrayList<String> cached = new ArrayList<>();
+            messageCache.get(startSequence, endSequence, cached);
+            for (final String message : cached) {
+                consumer.accept(message);
+            }
+            return;
+        }
+        for (int i = startSequence; i <= endSequence; i++) {
+            String message = this.messages.get(i);
+            if (message != null) {
+                consumer.accept(message);
+            }
+        }
+    }
+
     /**
      * This method is here for JNI API consistency but it's not
      * implemented. Use get(int, int, Collection) with the same
@@ -101,11 +144,18 @@ public class MemoryStore implements MessageStore {
         setNextSenderMsgSeqNum(1);
         setNextTargetMsgSeqNum(1);
         messages.clear();
+        if (messageCache != null) {
+            messageCache.clear();
+        }
         creationTime = SystemTime.getUtcCalendar();
     }
 
     @Override
 	public boolean set(int sequence, String message) throws IOException {
+        if (messageCache != null) {
+            messageCache.put(sequence, message);
+            return true;
+        }
         return messages.put(sequence, message) == null;
     }
 
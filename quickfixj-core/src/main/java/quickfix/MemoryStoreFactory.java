@@ -28,11 +28,53 @@ import java.io.IOException;
  */
 public class MemoryStoreFactory implements MessageStoreFactory {
 
+    /**
+     * Numeric option limiting the number of messages a memory store keeps. Once
+     * the limit is reached the oldest messages are dropped. By default all
+     * messages are kept.
+     */
+    public static final String SETTING_MEMORY_STORE_MAX_MESSAGES = "MemoryStoreMaxMessages";
+
+    /**
+     * Numeric option limiting the total size (in characters) of the messages a
+     * memory store keeps. Once the limit is reached the oldest messages are
+     * dropped. By default all messages are kept.
+     */
+    public static final String SETTING_MEMORY_STORE_MAX_BYTES = "MemoryStoreMaxBytes";
+
+    private final SessionSettings settings;
+
+    public MemoryStoreFactory() {
+        this(null);
+    }
+
+    /**
+     * Create the factory with configuration in session settings.
+     *
+     * @param settings
+     */
+    public MemoryStoreFactory(SessionSettings settings) {
+        this.settings = settings;
+    }
+
     @Override
 	public MessageStore create(SessionID sessionID) {
         try {
+            if (settings != null && (settings.isSetting(sessionID, SETTING_MEMORY_STORE_MAX_MESSAGES)
+                    || settings.isSetting(sessionID, SETTING_MEMORY_STORE_MAX_BYTES))) {
+                long maxMessages = Integer.MAX_VALUE;
+                if (settings.isSetting(sessionID, SETTING_MEMORY_STORE_MAX_MESSAGES)) {
+                    maxMessages = settings.getLong(sessionID, SETTING_MEMORY_STORE_MAX_MESSAGES);
+                }
+                long maxBytes = Long.MAX_VALUE;
+                if (settings.isSetting(sessionID, SETTING_MEMORY_STORE_MAX_BYTES)) {
+                    maxBytes = settings.getLong(sessionID, SETTING_MEMORY_STORE_MAX_BYTES);
+                }
+                return new MemoryStore(sessionID, (int) Math.min(maxMessages, Integer.MAX_VALUE),
+                        maxBytes);
+            }
             return new MemoryStore(sessionID);
-        } catch (IOException e) {
+        } catch (IOException | ConfigError | FieldConvertError e) {
             throw new RuntimeError(e);
         }
     }
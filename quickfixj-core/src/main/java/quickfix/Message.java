@@ -20,7 +20,11 @@
 package quickfix;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -83,6 +87,10 @@ public class Message extends FieldMap {
 
 	private volatile FieldException exception;
 
+	private transient MessagePool.TypePool pool;
+	private transient volatile boolean retained;
+	private transient List<Group> spareGroups;
+
 	public Message() {
 		initializeHeader();
 	}
@@ -166,10 +174,16 @@ public class Message extends FieldMap {
 	 *
 	 * Use toRawString() to get the raw message data.
 	 *
+	 * A lazily parsed message that has not been modified since it was parsed
+	 * returns the original message data without rebuilding it.
+	 *
 	 * @return Message as String with calculated body length and checksum.
 	 */
 	@Override
 	public String toString() {
+		if (parsedLazily && !header.isModified() && !isModified() && !trailer.isModified()) {
+			return messageBytes.toString();
+		}
 		final Context context = stringContexts.get();
 		if (CharsetSupport.isStringEquivalent()) { // length & checksum can easily be calculated after message is built
 			header.setField(context.bodyLength);
@@ -217,6 +231,93 @@ public class Message extends FieldMap {
 		stringBuilder.replace(checkSumIndex + (3 - checkSumValue.length()), checkSumIndex + 3, checkSumValue);
 	}
 
+	/**
+	 * Writes the encoded message into the buffer, starting at its position, and
+	 * advances the position to the end of the message. BodyLength and CheckSum
+	 * are calculated while writing, without setting them in the message.
+	 * <p>
+	 * Unlike {@link #toString()}, this neither builds a string nor allocates
+	 * when the {@link CharsetSupport#setCharset charset} is string-equivalent
+	 * (e.g. ISO-8859-1), and the values of BytesFields are written as they are.
+	 * The same caveats about concurrent modification apply.
+	 *
+	 * @param buffer the buffer to write to
+	 * @throws BufferOverflowException if the message does not fit in the
+	 *         remaining buffer, in which case the position is not changed
+	 */
+	public void writeTo(final ByteBuffer buffer) {
+		final int start = buffer.position();
+		try {
+			if (parsedLazily && !header.isModified() && !isModified() && !trailer.isModified()) {
+				buffer.put(messageBytes.array(), messageBytes.offset(), messageBytes.length());
+				return;
+			}
+			int sum = 0;
+			final Field<?> beginString = header.getField(BeginString.FIELD, null);
+			if (beginString != null) {
+				sum += FieldMap.writeInt(buffer, BeginString.FIELD);
+				buffer.put((byte) '=');
+				sum += FieldMap.writeString(buffer, beginString.getObject().toString());
+				buffer.put((byte) '\001');
+				sum += '=' + '\001';
+			}
+			// the body length is not known yet, so assume three digits and move the body if needed
+			final int bodyLengthStart = buffer.position();
+			final int bodyStart = bodyLengthStart + 6; // "9=" + three digits + SOH
+			if (bodyStart > buffer.limit()) {
+				throw new BufferOverflowException();
+			}
+			buffer.position(bodyStart);
+			sum += header.writeTo(buffer, null, null);
+			sum += writeTo(buffer, null, null);
+			sum += trailer.writeTo(buffer, null, null);
+
+			final int bodyLength = buffer.position() - bodyStart;
+			final int shift = FieldMap.getStringLength(bodyLength) - 3;
+			if (shift != 0) {
+				if (buffer.position() + shift > buffer.limit()) {
+					throw new BufferOverflowException();
+				}
+				move(buffer, bodyStart, bodyStart + shift, bodyLength);
+			}
+			buffer.position(bodyLengthStart);
+			sum += FieldMap.writeInt(buffer, BodyLength.FIELD);
+			buffer.put((byte) '=');
+			sum += FieldMap.writeInt(buffer, bodyLength);
+			buffer.put((byte) '\001');
+			sum += '=' + '\001';
+			buffer.position(buffer.position() + bodyLength);
+
+			final int checkSum = sum & 0xFF;
+			if (buffer.remaining() < 7) {
+				throw new BufferOverflowException();
+			}
+			buffer.put((byte) '1').put((byte) '0').put((byte) '=')
+					.put((byte) ('0' + checkSum / 100))
+					.put((byte) ('0' + checkSum / 10 % 10))
+					.put((byte) ('0' + checkSum % 10))
+					.put((byte) '\001');
+		} catch (final BufferOverflowException e) {
+			buffer.position(start);
+			throw e;
+		}
+	}
+
+	private static void move(final ByteBuffer buffer, final int from, final int to, final int length) {
+		if (buffer.hasArray()) {
+			final int offset = buffer.arrayOffset();
+			System.arraycopy(buffer.array(), offset + from, buffer.array(), offset + to, length);
+		} else if (to < from) {
+			for (int i = 0; i < length; i++) {
+				buffer.put(to + i, buffer.get(from + i));
+			}
+		} else {
+			for (int i = length - 1; i >= 0; i--) {
+				buffer.put(to + i, buffer.get(from + i));
+			}
+		}
+	}
+
 	/**
 	 * Return the raw message data as it was passed to the Message class.
 	 *
@@ -229,6 +330,9 @@ public class Message extends FieldMap {
 	 * @return Message as String without recalculating body length and checksum.
 	 */
 	public String toRawString() {
+		if (messageData == null && messageBytes != null) {
+			return messageBytes.toString();
+		}
 		return messageData;
 	}
 
@@ -440,6 +544,58 @@ public class Message extends FieldMap {
 		this.position = 0;
 	}
 
+	/**
+	 * Keeps a pooled message from being reused after it has been processed.
+	 * <p>
+	 * When the session has a {@link MessagePool}, the messages passed to
+	 * {@link Application#fromAdmin} and {@link Application#fromApp} are only
+	 * valid until the callback returns; afterwards they are cleared and reused
+	 * for later messages. Applications that keep a reference to the message,
+	 * its groups or its fields (e.g. by handing it over to another thread)
+	 * must call this method before returning. It has no effect on messages
+	 * that are not pooled.
+	 *
+	 * @return this message
+	 */
+	public Message retain() {
+		retained = true;
+		return this;
+	}
+
+	public boolean isRetained() {
+		return retained;
+	}
+
+	void setPool(final MessagePool.TypePool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * (Internal use only) Clears a pooled message and returns it to its pool,
+	 * unless it has been retained.
+	 */
+	void release() {
+		final MessagePool.TypePool pool = this.pool;
+		if (pool == null || retained) {
+			return;
+		}
+		if (spareGroups == null) {
+			spareGroups = new ArrayList<>();
+		}
+		header.recycleGroups(spareGroups);
+		recycleGroups(spareGroups);
+		trailer.recycleGroups(spareGroups);
+		clear();
+		exception = null;
+		messageData = null;
+		messageBytes = null;
+		parsedLazily = false;
+		parseValidator = null;
+		pushedBackField = null;
+		isGarbled = false;
+		pool.offer(this);
+	}
+
 	public static class Header extends FieldMap {
 		private static final long serialVersionUID = -3193357271891865972L;
 		private static final int[] EXCLUDED_HEADER_FIELDS = { BeginString.FIELD, BodyLength.FIELD,
@@ -457,6 +613,11 @@ public class Message extends FieldMap {
 		protected void calculateString(final StringBuilder buffer, final int[] excludedFields, final int[] postFields) {
 			super.calculateString(buffer, EXCLUDED_HEADER_FIELDS, postFields);
 		}
+
+		@Override
+		int writeTo(final ByteBuffer buffer, final int[] excludedFields, final int[] postFields) {
+			return super.writeTo(buffer, EXCLUDED_HEADER_FIELDS, postFields);
+		}
 	}
 
 	public static class Trailer extends FieldMap {
@@ -477,6 +638,11 @@ public class Message extends FieldMap {
 		protected void calculateString(final StringBuilder buffer, final int[] excludedFields, final int[] postFields) {
 			super.calculateString(buffer, null, TRAILER_POST_FIELDS);
 		}
+
+		@Override
+		int writeTo(final ByteBuffer buffer, final int[] excludedFields, final int[] postFields) {
+			return super.writeTo(buffer, null, TRAILER_POST_FIELDS);
+		}
 	}
 
 	public void reverseRoute(final Header header) throws FieldNotFound {
@@ -568,34 +734,163 @@ public class Message extends FieldMap {
 		parse(messageData, sessionDictionary, applicationDictionary, doValidation, validateChecksum);
 	}
 
+	/**
+	 * Parses the message from its encoded bytes without building the message
+	 * string first. Tag numbers are parsed directly from the bytes and only the
+	 * field values are decoded.
+	 *
+	 * @param messageBytes the raw message
+	 * @param dd the data dictionary used for both header and body, or null
+	 * @param doValidation whether to validate the message structure
+	 * @throws InvalidMessage if the message cannot be parsed
+	 */
+	public void fromBytes(final MessageBytes messageBytes, final DataDictionary dd, final boolean doValidation)
+			throws InvalidMessage {
+		parse(messageBytes, dd, dd, doValidation, true, false);
+	}
+
+	public void fromBytes(final MessageBytes messageBytes, final DataDictionary sessionDictionary,
+			DataDictionary applicationDictionary, final boolean doValidation, final boolean validateChecksum)
+					throws InvalidMessage {
+		fromBytes(messageBytes, sessionDictionary, applicationDictionary, doValidation, validateChecksum, false);
+	}
+
+	/**
+	 * Parses the message from its encoded bytes, optionally without decoding
+	 * the body fields.
+	 * <p>
+	 * When parsing lazily, plain body fields are only indexed and each value is
+	 * decoded when the field is first accessed. Header, trailer and repeating
+	 * group fields are always decoded. The given bytes must not be changed while
+	 * the message is in use.
+	 *
+	 * @param messageBytes the raw message
+	 * @param sessionDictionary the data dictionary for the header and trailer, or null
+	 * @param applicationDictionary the data dictionary for the body, or null
+	 * @param doValidation whether to validate the message structure
+	 * @param validateChecksum whether to validate the checksum
+	 * @param lazy whether to defer decoding the body fields until they are accessed
+	 * @throws InvalidMessage if the message cannot be parsed
+	 */
+	public void fromBytes(final MessageBytes messageBytes, final DataDictionary sessionDictionary,
+			DataDictionary applicationDictionary, final boolean doValidation, final boolean validateChecksum,
+			final boolean lazy) throws InvalidMessage {
+		final String msgType = messageBytes.getStringField(MsgType.FIELD);
+		if (msgType != null && sessionDictionary != null && sessionDictionary.isAdminMessage(msgType)) {
+			applicationDictionary = sessionDictionary;
+		}
+		parse(messageBytes, sessionDictionary, applicationDictionary, doValidation, validateChecksum, lazy);
+	}
+
+	/**
+	 * Parses the message from the remaining bytes of the buffer, which are
+	 * encoded with the {@link CharsetSupport#setCharset global charset}.
+	 * The buffer position is advanced to its limit.
+	 *
+	 * @param buffer the buffer containing exactly one message
+	 * @param dd the data dictionary used for both header and body, or null
+	 * @param doValidation whether to validate the message structure
+	 * @throws InvalidMessage if the message cannot be parsed
+	 */
+	public void fromBytes(final ByteBuffer buffer, final DataDictionary dd, final boolean doValidation)
+			throws InvalidMessage {
+		final MessageBytes messageBytes;
+		if (buffer.hasArray()) {
+			messageBytes = new MessageBytes(buffer.array(), buffer.arrayOffset() + buffer.position(),
+					buffer.remaining(), CharsetSupport.getCharsetInstance());
+			buffer.position(buffer.limit());
+		} else {
+			final byte[] data = new byte[buffer.remaining()];
+			buffer.get(data);
+			messageBytes = MessageBytes.wrap(data);
+		}
+		fromBytes(messageBytes, dd, doValidation);
+	}
+
 	void parse(final String messageData, final DataDictionary sessionDataDictionary,
 			final DataDictionary applicationDataDictionary, final boolean doValidation,
 			final boolean validateChecksum) throws InvalidMessage {
+		parse(messageData, sessionDataDictionary, applicationDataDictionary, doValidation, validateChecksum, false);
+	}
+
+	/**
+	 * @param validateFields whether to also make the checks of
+	 *            {@link DataDictionary#validate(Message, DataDictionary, DataDictionary)}
+	 *            while parsing, which are then reported by the first validation
+	 *            of the message with the same dictionaries
+	 */
+	void parse(final String messageData, final DataDictionary sessionDataDictionary,
+			final DataDictionary applicationDataDictionary, final boolean doValidation,
+			final boolean validateChecksum, final boolean validateFields) throws InvalidMessage {
 		this.messageData = messageData;
+		this.messageBytes = null;
+		this.parsedLazily = false;
+		parse(sessionDataDictionary, applicationDataDictionary, doValidation, validateChecksum, validateFields);
+	}
 
+	void parse(final MessageBytes messageBytes, final DataDictionary sessionDataDictionary,
+			final DataDictionary applicationDataDictionary, final boolean doValidation,
+			final boolean validateChecksum, final boolean lazy) throws InvalidMessage {
+		parse(messageBytes, sessionDataDictionary, applicationDataDictionary, doValidation, validateChecksum, lazy,
+				false);
+	}
+
+	/**
+	 * @param validateFields whether to also make the checks of
+	 *            {@link DataDictionary#validate(Message, DataDictionary, DataDictionary)}
+	 *            while parsing, in which case the body is never parsed lazily
+	 */
+	void parse(final MessageBytes messageBytes, final DataDictionary sessionDataDictionary,
+			final DataDictionary applicationDataDictionary, final boolean doValidation,
+			final boolean validateChecksum, boolean lazy, final boolean validateFields) throws InvalidMessage {
+		// every field value is needed for validation
+		lazy = lazy && !validateFields;
+		this.messageData = null;
+		this.messageBytes = messageBytes;
+		this.parsedLazily = lazy;
+		parse(sessionDataDictionary, applicationDataDictionary, doValidation, validateChecksum, validateFields);
+		if (lazy) {
+			header.setUnmodified();
+			setUnmodified();
+			trailer.setUnmodified();
+		}
+	}
+
+	private void parse(final DataDictionary sessionDataDictionary,
+			final DataDictionary applicationDataDictionary, final boolean doValidation,
+			final boolean validateChecksum, final boolean validateFields) throws InvalidMessage {
+		parseValidator = validateFields && applicationDataDictionary != null
+				? new ParseValidator(sessionDataDictionary, applicationDataDictionary)
+				: null;
 		try {
 			parseHeader(sessionDataDictionary, doValidation);
 			parseBody(applicationDataDictionary, doValidation);
 			parseTrailer(sessionDataDictionary);
+			if (parseValidator != null) {
+				parseValidator.checkMessage(this, getMsgType());
+			}
 			if (doValidation && validateChecksum) {
-				validateCheckSum(messageData);
+				validateCheckSum();
 			}
 		} catch (final FieldException e) {
 			exception = e;
 		}
 	}
 
-	private void validateCheckSum(final String messageData) throws InvalidMessage {
+	private void validateCheckSum() throws InvalidMessage {
 		try {
 			// Body length is checked at the protocol layer
 			final int checksum = trailer.getInt(CheckSum.FIELD);
-			if (checksum != MessageUtils.checksum(messageData)) {
+			final int expectedChecksum = messageBytes != null
+					? MessageUtils.checksum(messageBytes.array(), messageBytes.offset(), messageBytes.length(), true)
+					: MessageUtils.checksum(messageData);
+			if (checksum != expectedChecksum) {
 				// message will be ignored if checksum is wrong or missing
-				throw MessageUtils.newInvalidMessageException("Expected CheckSum=" + MessageUtils.checksum(messageData)
-				+ ", Received CheckSum=" + checksum + " in " + messageData, this);
+				throw MessageUtils.newInvalidMessageException("Expected CheckSum=" + expectedChecksum
+				+ ", Received CheckSum=" + checksum + " in " + toRawString(), this);
 			}
 		} catch (final FieldNotFound e) {
-			throw MessageUtils.newInvalidMessageException("Field not found: " + e.field + " in " + messageData, this);
+			throw MessageUtils.newInvalidMessageException("Field not found: " + e.field + " in " + toRawString(), this);
 		}
 	}
 
@@ -607,13 +902,14 @@ public class Message extends FieldMap {
 			if (!validHeaderFieldOrder) {
 				// Invalid message preamble (first three fields) is a serious
 				// condition and is handled differently from other message parsing errors.
-				throw MessageUtils.newInvalidMessageException("Header fields out of order in " + messageData, MessageUtils.getMinimalMessage(messageData));
+				throw MessageUtils.newInvalidMessageException("Header fields out of order in " + toRawString(), MessageUtils.getMinimalMessage(toRawString()));
 			}
 		}
 
 		StringField field = extractField(dd, header);
 		while (field != null && isHeaderField(field, dd)) {
 			header.setField(field);
+			checkParsedField(field, header, DataDictionary.HEADER_ID);
 
 			if (dd != null && dd.isGroup(DataDictionary.HEADER_ID, field.getField())) {
 				parseGroup(DataDictionary.HEADER_ID, field, dd, dd, header, doValidation);
@@ -630,6 +926,7 @@ public class Message extends FieldMap {
 			return false;
 		}
 		fields.setField(field);
+		checkParsedField(field, fields, DataDictionary.HEADER_ID);
 		return true;
 	}
 
@@ -637,12 +934,12 @@ public class Message extends FieldMap {
 		try {
 			return header.getString(MsgType.FIELD);
 		} catch (final FieldNotFound e) {
-			throw MessageUtils.newInvalidMessageException(e.getMessage() + " in " + messageData, this);
+			throw MessageUtils.newInvalidMessageException(e.getMessage() + " in " + toRawString(), this);
 		}
 	}
 
 	private void parseBody(final DataDictionary dd, final boolean doValidation) throws InvalidMessage {
-		StringField field = extractField(dd, this);
+		StringField field = extractBodyField(dd);
 		while (field != null) {
 			if (isTrailerField(field.getField())) {
 				pushBack(field);
@@ -653,6 +950,7 @@ public class Message extends FieldMap {
 				// An acceptance test requires the sequence number to
 				// be available even if the related field is out of order
 				setField(header, field);
+				checkParsedField(field, header, DataDictionary.HEADER_ID);
 				// Group case
 				if (dd != null && dd.isGroup(DataDictionary.HEADER_ID, field.getField())) {
 					parseGroup(DataDictionary.HEADER_ID, field, dd, dd, header, doValidation);
@@ -663,13 +961,40 @@ public class Message extends FieldMap {
 				}
 			} else {
 				setField(this, field);
+				if (parseValidator != null) {
+					parseValidator.checkField(field, this, getMsgType());
+				}
 				// Group case
 				if (dd != null && dd.isGroup(getMsgType(), field.getField())) {
 					parseGroup(getMsgType(), field, dd, dd, this, doValidation);
 				}
 			}
 
-			field = extractField(dd, this);
+			field = extractBodyField(dd);
+		}
+	}
+
+	/**
+	 * When parsing lazily, indexes the plain body fields without decoding them
+	 * and returns the next field that needs to be processed by the caller.
+	 */
+	private StringField extractBodyField(final DataDictionary dd) throws InvalidMessage {
+		if (!parsedLazily || pushedBackField != null) {
+			return extractField(dd, this);
+		}
+		final String msgType = dd != null ? getMsgType() : null;
+		while (true) {
+			final int tag = extractFieldBounds(messageBytes, dd, this);
+			if (tag == -1) {
+				return null;
+			}
+			if (isTrailerField(tag) || isHeaderField(tag) || (dd != null && dd.isGroup(msgType, tag))) {
+				return newExtractedField(tag);
+			}
+			if (isSetField(tag)) {
+				throw new FieldException(SessionRejectReason.TAG_APPEARS_MORE_THAN_ONCE, tag);
+			}
+			setLazyField(messageBytes, tag, valueOffset, valueLength);
 		}
 	}
 
@@ -692,7 +1017,7 @@ public class Message extends FieldMap {
 		try {
 			declaredGroupCount = Integer.parseInt(field.getValue());
 		} catch (final NumberFormatException e) {
-			throw MessageUtils.newInvalidMessageException("Repeating group count requires an Integer but found '" + field.getValue() + "' in " + messageData, this);
+			throw MessageUtils.newInvalidMessageException("Repeating group count requires an Integer but found '" + field.getValue() + "' in " + toRawString(), this);
 		}
 		parent.setField(groupCountTag, field);
 		final int firstField = rg.getDelimiterField();
@@ -708,8 +1033,9 @@ public class Message extends FieldMap {
 			final int tag = field.getTag();
 			if (tag == firstField) {
 				addGroupRefToParent(group, parent);
-				group = new Group(groupCountTag, firstField, groupDataDictionary.getOrderedFields());
+				group = newGroup(groupCountTag, firstField, groupDataDictionary.getOrderedFields());
 				group.setField(field);
+				checkParsedGroupField(field, msgType, groupDataDictionary);
 				firstFieldFound = true;
 				previousOffset = -1;
 				// QFJ-742
@@ -719,6 +1045,7 @@ public class Message extends FieldMap {
 			} else if (groupDataDictionary.isGroup(msgType, tag)) {
 				// QFJ-934: message should be rejected and not ignored when first field not found
 				checkFirstFieldFound(firstFieldFound, groupCountTag, firstField, tag);
+				checkParsedGroupField(field, msgType, groupDataDictionary);
 				parseGroup(msgType, field, groupDataDictionary, parentDD, group, doValidation);
 			} else if (groupDataDictionary.isField(tag)) {
 				checkFirstFieldFound(firstFieldFound, groupCountTag, firstField, tag);
@@ -736,10 +1063,12 @@ public class Message extends FieldMap {
 					}
 				}
 				group.setField(field);
+				checkParsedGroupField(field, msgType, groupDataDictionary);
 			} else {
 				// QFJ-169/QFJ-791: handle unknown repeating group fields in the body
 				if (!isTrailerField(tag) && !(DataDictionary.HEADER_ID.equals(msgType))) {
 					if (checkFieldValidation(parent, parentDD, field, msgType, doValidation, group)) {
+						checkParsedGroupField(field, msgType, groupDataDictionary);
 						continue;
 					}
 				}
@@ -751,6 +1080,49 @@ public class Message extends FieldMap {
 		addGroupRefToParent(group, parent);
 		// For later validation that the group size matches the parsed group count
 		parent.setGroupCount(groupCountTag, declaredGroupCount);
+		if (parseValidator != null) {
+			parseValidator.checkGroupCount(groupCountTag, declaredGroupCount, parent, msgType);
+		}
+	}
+
+	private void checkParsedField(final StringField field, final FieldMap fields, final String msgType) {
+		if (parseValidator != null) {
+			parseValidator.checkField(field, fields, msgType);
+		}
+	}
+
+	private void checkParsedGroupField(final StringField field, final String msgType,
+			final DataDictionary groupDataDictionary) {
+		if (parseValidator != null) {
+			parseValidator.checkGroupField(field, msgType, groupDataDictionary);
+		}
+	}
+
+	/**
+	 * Returns the outcome of the checks made while parsing, if any, which is
+	 * only used by the first validation of the message.
+	 */
+	ParseValidator takeParseValidator() {
+		final ParseValidator parseValidator = this.parseValidator;
+		this.parseValidator = null;
+		return parseValidator;
+	}
+
+	private Group newGroup(final int groupCountTag, final int firstField, final int[] fieldOrder) {
+		final List<Group> spareGroups = this.spareGroups;
+		if (spareGroups != null) {
+			for (int i = spareGroups.size() - 1; i >= 0; i--) {
+				final Group group = spareGroups.get(i);
+				if (group.getFieldTag() == groupCountTag && group.delim() == firstField
+						&& (group.getFieldOrder() == fieldOrder || Arrays.equals(group.getFieldOrder(), fieldOrder))) {
+					final int last = spareGroups.size() - 1;
+					spareGroups.set(i, spareGroups.get(last));
+					spareGroups.remove(last);
+					return group;
+				}
+			}
+		}
+		return new Group(groupCountTag, firstField, fieldOrder);
 	}
 
 	private void addGroupRefToParent(final Group group, final FieldMap parent) {
@@ -794,6 +1166,7 @@ public class Message extends FieldMap {
 						field.getTag());
 			}
 			trailer.setField(field);
+			checkParsedField(field, trailer, DataDictionary.TRAILER_ID);
 			field = extractField(dd, trailer);
 		}
 	}
@@ -861,7 +1234,12 @@ public class Message extends FieldMap {
 	// Extract field
 	//
 	private String messageData;
+	private transient MessageBytes messageBytes;
+	private transient boolean parsedLazily;
+	private transient ParseValidator parseValidator;
 	private int position;
+	private transient int valueOffset;
+	private transient int valueLength;
 	private StringField pushedBackField;
 	private boolean isGarbled = false;
 
@@ -877,6 +1255,10 @@ public class Message extends FieldMap {
 			return f;
 		}
 
+		if (messageBytes != null) {
+			return extractField(messageBytes, dataDictionary, fields);
+		}
+
 		if (position >= messageData.length()) {
 			return null;
 		}
@@ -930,6 +1312,97 @@ public class Message extends FieldMap {
 		return new StringField(tag, messageData.substring(equalsOffset + 1, sohOffset));
 	}
 
+	private StringField extractField(final MessageBytes messageBytes, final DataDictionary dataDictionary,
+			final FieldMap fields) throws InvalidMessage {
+		final int tag = extractFieldBounds(messageBytes, dataDictionary, fields);
+		return tag == -1 ? null : newExtractedField(tag);
+	}
+
+	private StringField newExtractedField(final int tag) {
+		return new StringField(tag, new String(messageBytes.array(), valueOffset, valueLength, messageBytes.charset()));
+	}
+
+	/**
+	 * Finds the next field without decoding its value. The bounds of the value
+	 * are stored in valueOffset and valueLength.
+	 *
+	 * @return the tag of the field, or -1 if the end of the message was reached
+	 */
+	private int extractFieldBounds(final MessageBytes messageBytes, final DataDictionary dataDictionary,
+			final FieldMap fields) throws InvalidMessage {
+		final byte[] data = messageBytes.array();
+		final int start = messageBytes.offset() + position;
+		final int end = messageBytes.offset() + messageBytes.length();
+		if (start >= end) {
+			return -1;
+		}
+
+		final int equalsOffset = indexOf(data, (byte) '=', start, end);
+		if (equalsOffset == -1) {
+			throw MessageUtils.newInvalidMessageException("Equal sign not found in field in " + toRawString(), this);
+		}
+
+		int tag = 0;
+		boolean isValidTag = equalsOffset > start;
+		for (int i = start; i < equalsOffset && isValidTag; i++) {
+			final int digit = data[i] - '0';
+			isValidTag = digit >= 0 && digit <= 9 && tag <= (Integer.MAX_VALUE - digit) / 10;
+			tag = tag * 10 + digit;
+		}
+		if (!isValidTag) {
+			final int nextSohOffset = indexOf(data, SOH_BYTE, start + 1, end);
+			position = (nextSohOffset == -1 ? end : nextSohOffset + 1) - messageBytes.offset();
+			throw MessageUtils.newInvalidMessageException("Bad tag format: For input string: \""
+					+ new String(data, start, equalsOffset - start, messageBytes.charset()) + "\" in "
+					+ toRawString(), this);
+		}
+
+		final int valueOffset = equalsOffset + 1;
+		int sohOffset = indexOf(data, SOH_BYTE, valueOffset, end);
+		if (sohOffset == -1) {
+			throw MessageUtils.newInvalidMessageException("SOH not found at end of field: " + tag + " in " + toRawString(), this);
+		}
+
+		if (dataDictionary != null && dataDictionary.isDataField(tag)) {
+			/* Assume length field is 1 less. */
+			int lengthField = tag - 1;
+			/* Special case for Signature which violates above assumption. */
+			if (tag == 89) {
+				lengthField = 93;
+			}
+			int fieldLength;
+			try {
+				fieldLength = fields.getInt(lengthField);
+			} catch (final FieldNotFound e) {
+				throw MessageUtils.newInvalidMessageException("Did not find length field " + e.field + " required to parse data field " + tag + " in " + toRawString(), this);
+			}
+
+			// the length is given in bytes, so the data may contain SOH characters
+			while (sohOffset - valueOffset < fieldLength) {
+				sohOffset = indexOf(data, SOH_BYTE, sohOffset + 1, end);
+				if (sohOffset == -1) {
+					throw MessageUtils.newInvalidMessageException("SOH not found at end of field: " + tag + " in " + toRawString(), this);
+				}
+			}
+		}
+
+		position = sohOffset + 1 - messageBytes.offset();
+		this.valueOffset = valueOffset;
+		this.valueLength = sohOffset - valueOffset;
+		return tag;
+	}
+
+	private static final byte SOH_BYTE = '\001';
+
+	private static int indexOf(final byte[] data, final byte b, final int from, final int to) {
+		for (int i = from; i < to; i++) {
+			if (data[i] == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
 	/**
 	 * Queries message structural validity.
 	 *
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.nio.charset.Charset;
+
+import org.quickfixj.CharsetSupport;
+
+/**
+ * A length-delimited view of the encoded bytes of a single FIX message.
+ * <p>
+ * The backing array may be shared with other views (e.g. the decoder carves
+ * consecutive messages out of one larger buffer), so the bytes within the view
+ * must never be modified. The message string is only decoded when
+ * {@link #toString()} is first called and is cached afterwards.
+ */
+public final class MessageBytes {
+
+    private static final byte SOH = '\001';
+
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+    private final Charset charset;
+    private String string;
+
+    public MessageBytes(byte[] data, int offset, int length, Charset charset) {
+        if (offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length
+                    + ", array length=" + data.length);
+        }
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+        this.charset = charset;
+    }
+
+    /**
+     * Wraps a whole array, using the {@link CharsetSupport#setCharset global charset}.
+     *
+     * @param data the message bytes
+     * @return a view of the given array
+     */
+    public static MessageBytes wrap(byte[] data) {
+        return new MessageBytes(data, 0, data.length, CharsetSupport.getCharsetInstance());
+    }
+
+    /**
+     * @return the backing array; only the bytes from {@link #offset()} to
+     *         {@link #offset()} + {@link #length()} belong to this message
+     */
+    public byte[] array() {
+        return data;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    /**
+     * @param index the index relative to the start of the message
+     * @return the byte at the given index
+     */
+    public byte byteAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index=" + index + ", length=" + length);
+        }
+        return data[offset + index];
+    }
+
+    /**
+     * Copies the message bytes into a new array.
+     *
+     * @return a copy of the message bytes
+     */
+    public byte[] toByteArray() {
+        final byte[] copy = new byte[length];
+        System.arraycopy(data, offset, copy, 0, length);
+        return copy;
+    }
+
+    /**
+     * Scans the message for the first occurrence of the given tag and decodes
+     * only its value. This does not handle data fields containing SOH and is
+     * intended for header lookups (e.g. session identification) before parsing.
+     *
+     * @param tag the tag number
+     * @return the field value, or null if the field was not found
+     */
+    public String getStringField(int tag) {
+        final int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            int fieldTag = 0;
+            int j = i;
+            while (j < end && data[j] >= '0' && data[j] <= '9') {
+                fieldTag = fieldTag * 10 + (data[j++] - '0');
+            }
+            if (j == end) {
+                return null;
+            }
+            final boolean isTag = j > i && data[j] == '=';
+            int valueStart = j + 1;
+            int valueEnd = valueStart;
+            while (valueEnd < end && data[valueEnd] != SOH) {
+                valueEnd++;
+            }
+            if (isTag && fieldTag == tag) {
+                return valueEnd < end ? new String(data, valueStart, valueEnd - valueStart, charset) : null;
+            }
+            i = valueEnd + 1;
+        }
+        return null;
+    }
+
+    /**
+     * @return the message string, decoded with the view's charset
+     */
+    @Override
+    public String toString() {
+        String s = string;
+        if (s == null) {
+            s = new String(data, offset, length, charset);
+            string = s;
+        }
+        return s;
+    }
+}
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.util.Collection;
+
+/**
+ * A bounded cache of the most recent messages of a session, held in a ring
+ * indexed by sequence number. The cache keeps a contiguous window of sequence
+ * numbers and evicts the oldest messages once either the number of messages
+ * or their total size (in characters) exceeds its limits.
+ * <p>
+ * A store that puts every message it stores into the cache can serve any
+ * request starting at or above {@link #getFirstSequence()} from memory, since
+ * the cache then holds the latest version of every message in that range.
+ * Older messages must be read from the store itself.
+ * <p>
+ * The cache is not thread safe. Stores use it under their own locking.
+ */
+public final class MessageCache {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final int maxMessages;
+    private final long maxBytes;
+    private String[] ring;
+    private int mask;
+    // the cache holds the window [first, next) and no messages at or above next
+    private long first = Long.MAX_VALUE;
+    private long next = Long.MAX_VALUE;
+    private long bytes;
+
+    /**
+     * @param maxMessages the maximum number of sequence numbers in the window
+     * @param maxBytes the maximum total length of the cached messages
+     */
+    public MessageCache(int maxMessages, long maxBytes) {
+        if (maxMessages < 1) {
+            throw new IllegalArgumentException("maxMessages must be positive: " + maxMessages);
+        }
+        this.maxMessages = Math.min(maxMessages, MAX_CAPACITY);
+        this.maxBytes = maxBytes;
+        ring = new String[capacityFor(Math.min(maxMessages, INITIAL_CAPACITY))];
+        mask = ring.length - 1;
+    }
+
+    /**
+     * Adds or replaces a message. Messages below the window are not cached,
+     * unless they directly precede it and fit without eviction. A message
+     * more than a window ahead starts a new window.
+     *
+     * @param sequence the sequence number of the message
+     * @param message the message
+     */
+    public void put(int sequence, String message) {
+        final int size = message.length();
+        if (size > maxBytes) {
+            // too large to cache: the window must not claim the sequence number any more
+            if (sequence >= next || first == Long.MAX_VALUE) {
+                clear();
+                first = next = sequence + 1L;
+            } else {
+                while (first <= sequence) {
+                    evictFirst();
+                }
+            }
+        } else if (first == Long.MAX_VALUE || sequence - next >= maxMessages) {
+            clear();
+            first = next = sequence;
+            append(sequence, message);
+        } else if (sequence >= next) {
+            while (next < sequence) {
+                append(next, null);
+            }
+            append(sequence, message);
+        } else if (sequence >= first) {
+            final int index = sequence & mask;
+            final String previous = ring[index];
+            ring[index] = message;
+            bytes += size - (previous != null ? previous.length() : 0);
+            while (bytes > maxBytes) {
+                evictFirst();
+            }
+        } else if (sequence == first - 1 && next - first < maxMessages && bytes + size <= maxBytes) {
+            ensureCapacity(next - first + 1);
+            first--;
+            ring[(int) (first & mask)] = message;
+            bytes += size;
+        }
+    }
+
+    private void append(long sequence, String message) {
+        final int size = message != null ? message.length() : 0;
+        while (next > first && (next - first >= maxMessages || bytes + size > maxBytes)) {
+            evictFirst();
+        }
+        ensureCapacity(next - first + 1);
+        ring[(int) (sequence & mask)] = message;
+        bytes += size;
+        next = sequence + 1;
+    }
+
+    private void evictFirst() {
+        final int index = (int) (first & mask);
+        final String message = ring[index];
+        if (message != null) {
+            bytes -= message.length();
+            ring[index] = null;
+        }
+        first++;
+    }
+
+    private void ensureCapacity(long count) {
+        if (count > ring.length) {
+            final String[] grown = new String[capacityFor((int) count)];
+            final int grownMask = grown.length - 1;
+            for (long sequence = first; sequence < next; sequence++) {
+                grown[(int) (sequence & grownMask)] = ring[(int) (sequence & mask)];
+            }
+            ring = grown;
+            mask = grownMask;
+        }
+    }
+
+    private static int capacityFor(int count) {
+        return count <= 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+    }
+
+    /**
+     * Adds the cached messages of a range to a collection, in sequence number
+     * order. Only the part of the range from {@link #getFirstSequence()} on is
+     * served.
+     *
+     * @param startSequence the first sequence number of the range
+     * @param endSequence the last sequence number of the range
+     * @param messages the collection to add the messages to
+     */
+    public void get(int startSequence, int endSequence, Collection<String> messages) {
+        final long end = Math.min(endSequence, next - 1);
+        for (long sequence = Math.max(startSequence, first); sequence <= end; sequence++) {
+            final String message = ring[(int) (sequence & mask)];
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+    }
+
+    /**
+     * Returns the lowest sequence number from which on the cache holds every
+     * message put into it, or {@link Long#MAX_VALUE} if it holds none.
+     */
+    public long getFirstSequence() {
+        return first;
+    }
+
+    /**
+     * Returns the number of cached messages.
+     */
+    public int size() {
+        int size = 0;
+        for (long sequence = first; sequence < next; sequence++) {
+            if (ring[(int) (sequence & mask)] != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the total length of the cached messages.
+     */
+    public long getByteSize() {
+        return bytes;
+    }
+
+    /**
+     * Removes all messages.
+     */
+    public void clear() {
+        for (long sequence = first; sequence < next; sequence++) {
+            ring[(int) (sequence & mask)] = null;
+        }
+        first = next = Long.MAX_VALUE;
+        bytes = 0;
+    }
+}
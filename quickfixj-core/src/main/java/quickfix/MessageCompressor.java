@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.quickfixj.CharsetSupport;
+
+/**
+ * Compresses messages for storage. Each message is compressed on its own with
+ * deflate, using a preset dictionary of common FIX header and body fields so
+ * that even short messages shrink.
+ * <p>
+ * A compressed message starts with a short header that no FIX message starts
+ * with. Stores therefore read compressed and uncompressed messages alike, and
+ * compression can be switched on for existing data. The dictionary must never
+ * change, since stored messages can only be read with the dictionary they were
+ * compressed with; a new dictionary needs a new header version.
+ * <p>
+ * An instance is used by one store and reuses its deflater and inflater.
+ */
+public final class MessageCompressor {
+
+    // the most common strings come last, where they are cheapest to reference
+    private static final byte[] DICTIONARY = ("58=\001354=\001355=\001"
+            + "1=\00111=\00114=\00117=\00131=\00132=\00137=\00138=\00139=0\00139=2\001"
+            + "40=1\00140=2\00144=\00154=1\00154=2\00155=\00159=0\00160=\0016=\001"
+            + "150=0\001150=F\001151=\001"
+            + "8=FIX.4.0\0018=FIX.4.1\0018=FIX.4.2\0018=FIX.4.3\0018=FIXT.1.1\0011128=\001"
+            + "10=\00143=Y\00197=Y\001122=\00135=0\00135=D\00135=8\001"
+            + "8=FIX.4.4\0019=\00135=\00134=\00149=\00152=\00156=\001")
+            .getBytes(StandardCharsets.US_ASCII);
+
+    // SOH, 'Z' and the dictionary version; three bytes encode into exactly four Base64 characters
+    private static final byte[] HEADER = { 0x01, 'Z', 0x01 };
+    private static final String TEXT_HEADER = Base64.getEncoder().encodeToString(HEADER);
+
+    private Deflater deflater;
+    private Inflater inflater;
+
+    /**
+     * Compresses a message using the charset of the engine.
+     *
+     * @param message the message
+     * @return the compressed message
+     */
+    public synchronized byte[] compress(String message) throws UnsupportedEncodingException {
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED, true);
+        }
+        final byte[] data = message.getBytes(CharsetSupport.getCharset());
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY);
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[HEADER.length + data.length / 2 + 64];
+        System.arraycopy(HEADER, 0, buffer, 0, HEADER.length);
+        int length = HEADER.length;
+        while (!deflater.finished()) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Returns whether stored bytes hold a compressed message.
+     */
+    public static boolean isCompressed(byte[] data, int offset, int length) {
+        if (length < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (data[offset + i] != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decompresses a message using the charset of the engine.
+     *
+     * @param data the compressed message
+     * @param offset the offset of the message in the array
+     * @param length the length of the compressed message
+     * @return the message
+     * @throws IOException if the data is not a valid compressed message
+     */
+    public synchronized String decompress(byte[] data, int offset, int length) throws IOException {
+        if (!isCompressed(data, offset, length)) {
+            throw new IOException("Not a compressed message");
+        }
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        inflater.reset();
+        inflater.setDictionary(DICTIONARY);
+        inflater.setInput(data, offset + HEADER.length, length - HEADER.length);
+        byte[] buffer = new byte[length * 4 + 64];
+        int size = 0;
+        boolean padded = false;
+        try {
+            while (!inflater.finished()) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                final int inflated = inflater.inflate(buffer, size, buffer.length - size);
+                if (inflated == 0 && inflater.needsInput()) {
+                    if (padded) {
+                        throw new IOException("Truncated compressed message");
+                    }
+                    // raw inflation may need an extra byte to detect the end of the stream
+                    inflater.setInput(new byte[1]);
+                    padded = true;
+                }
+                size += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid compressed message: " + e.getMessage(), e);
+        }
+        return new String(buffer, 0, size, CharsetSupport.getCharset());
+    }
+
+    /**
+     * Compresses a message into text, for stores that keep messages in text
+     * columns. The text is the Base64 encoding of the compressed message.
+     */
+    public String compressToText(String message) throws UnsupportedEncodingException {
+        return Base64.getEncoder().encodeToString(compress(message));
+    }
+
+    /**
+     * Returns the message of a text produced by {@link #compressToText(String)},
+     * or the text itself if it is not a compressed message.
+     *
+     * @throws IOException if the text is not a valid compressed message
+     */
+    public String decompressText(String text) throws IOException {
+        if (!text.startsWith(TEXT_HEADER)) {
+            return text;
+        }
+        final byte[] data;
+        try {
+            data = Base64.getDecoder().decode(text);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid compressed message: " + e.getMessage(), e);
+        }
+        return decompress(data, 0, data.length);
+    }
+
+    /**
+     * Releases the native resources of the deflater and inflater. The
+     * compressor can still be used afterwards.
+     */
+    public synchronized void close() {
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+}
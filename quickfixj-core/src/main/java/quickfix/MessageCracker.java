@@ -23,15 +23,31 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Helper class for delegating message types for various FIX versions to
  * type-safe onMessage methods.
+ * <p>
+ * Handler methods are bound, when the cracker is initialized, to generated
+ * classes that call them directly. A class is generated once per handler
+ * method and shared by all crackers. Only when that is not possible, e.g.
+ * because of module access restrictions, the methods are called by reflection.
  */
 public class MessageCracker {
     private final Map<Class<?>, Invoker> invokers = new HashMap<>();
@@ -97,22 +113,86 @@ public class MessageCracker {
         return method.getName().equals("onMessage") || method.isAnnotationPresent(Handler.class);
     }
 
-    private class Invoker {
+    private static class Invoker {
+        private static final Logger LOG = LoggerFactory.getLogger(MessageCracker.class);
+        private static final MethodType CONSUMER_TYPE = MethodType.methodType(void.class, Object.class,
+                Object.class);
+        // the factories of the consumers of the handler methods of each class,
+        // empty if a method is called by reflection
+        private static final ClassValue<Map<Method, Optional<MethodHandle>>> FACTORIES =
+                new ClassValue<Map<Method, Optional<MethodHandle>>>() {
+                    @Override
+                    protected Map<Method, Optional<MethodHandle>> computeValue(Class<?> type) {
+                        return new ConcurrentHashMap<>();
+                    }
+                };
+
         private final Object target;
         private final Method method;
+        // checked exceptions thrown by the handler pass through the consumer unchecked
+        private final BiConsumer<Message, SessionID> handler;
 
         public Invoker(Object target, Method method) {
             this.target = target;
             this.method = method;
+            this.handler = bind(target, method);
+        }
+
+        /**
+         * Returns a consumer calling the handler method on the target without
+         * reflection, or null if it cannot be created.
+         */
+        @SuppressWarnings("unchecked")
+        private static BiConsumer<Message, SessionID> bind(Object target, Method method) {
+            final Optional<MethodHandle> factory = FACTORIES.get(method.getDeclaringClass())
+                    .computeIfAbsent(method, Invoker::createFactory);
+            if (!factory.isPresent()) {
+                return null;
+            }
+            try {
+                return (BiConsumer<Message, SessionID>) factory.get().invoke(target);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                // the factory only creates the consumer, so this is not expected
+                throw new IllegalStateException("Could not bind handler method " + method, e);
+            }
+        }
+
+        /**
+         * Returns a method handle creating a consumer for the handler method
+         * from the target, or an empty result if the method has to be called
+         * by reflection.
+         */
+        private static Optional<MethodHandle> createFactory(Method method) {
+            try {
+                final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(),
+                        MethodHandles.lookup());
+                final MethodHandle methodHandle = lookup.unreflect(method);
+                return Optional.of(LambdaMetafactory.metafactory(lookup, "accept",
+                        MethodType.methodType(BiConsumer.class, method.getDeclaringClass()), CONSUMER_TYPE,
+                        methodHandle, MethodType.methodType(void.class, method.getParameterTypes()))
+                        .getTarget());
+            } catch (ReflectiveOperationException | LambdaConversionException | RuntimeException e) {
+                LOG.warn("Handler method {} is called by reflection: {}", method, e.toString());
+                return Optional.empty();
+            }
         }
 
         public Method getMethod() {
             return method;
         }
 
-        public void Invoke(Message message, SessionID sessionID) throws IllegalArgumentException,
-                IllegalAccessException, InvocationTargetException {
-            method.invoke(target, message, sessionID);
+        public void Invoke(Message message, SessionID sessionID) throws Throwable {
+            if (handler != null) {
+                handler.accept(message, sessionID);
+                return;
+            }
+            try {
+                method.invoke(target, message, sessionID);
+            } catch (InvocationTargetException ite) {
+                throw ite.getTargetException();
+            }
         }
     }
 
@@ -125,32 +205,17 @@ public class MessageCracker {
         if (invoker != null) {
             try {
                 invoker.Invoke(message, sessionID);
-            } catch (InvocationTargetException ite) {
-                try {
-                    throw ite.getTargetException();
-                } catch (UnsupportedMessageType | IncorrectTagValue | FieldNotFound e) {
-                    throw e;
-                } catch (Throwable t) {
-                    propagate(t);
-                }
-            } catch (Exception e) {
-                propagate(e);
+            } catch (UnsupportedMessageType | IncorrectTagValue | FieldNotFound | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                // other checked exceptions of the handler
+                throw new RuntimeException(t);
             }
         } else {
             onMessage(message, sessionID);
         }
     }
 
-    private void propagate(Throwable e) {
-        if (e instanceof RuntimeException) {
-            throw (RuntimeException) e;
-        } else if (e instanceof Error) {
-            throw (Error) e;
-        } else {
-            throw new RuntimeException(e);
-        }
-    }
-
     /**
      * Fallback method that is called if no invokers are found.
      */
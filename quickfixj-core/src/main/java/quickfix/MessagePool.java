@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import quickfix.field.ApplVerID;
+
+/**
+ * Keeps idle instances of the inbound messages of a session for reuse.
+ * <p>
+ * Messages are acquired when they are parsed and {@link Message#release()
+ * released} by the session once the application callbacks have returned,
+ * unless the application {@link Message#retain() retained} them. Released
+ * messages are cleared and kept together with their header, trailer, field
+ * storage and repeating groups, which are reused when the next message of the
+ * same type is parsed.
+ * <p>
+ * Messages are usually parsed on a different thread than the one processing
+ * them, so the pool is shared by both and bounded per message type.
+ */
+public class MessagePool {
+
+    private final MessageFactory messageFactory;
+    private final int capacity;
+    private final Map<String, Map<String, TypePool>> pools = new ConcurrentHashMap<>();
+
+    /**
+     * @param messageFactory the factory for creating messages if the pool is empty
+     * @param capacity the maximum number of idle messages kept per message type
+     */
+    public MessagePool(MessageFactory messageFactory, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.messageFactory = messageFactory;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns an idle message of the given type, or creates one if there is none.
+     *
+     * @param beginString the BeginString of the message
+     * @param applVerID the ApplVerID of the message, may be null
+     * @param msgType the MsgType of the message
+     * @return an empty message which is returned to this pool when released
+     */
+    public Message acquire(String beginString, ApplVerID applVerID, String msgType) {
+        final String version = applVerID != null ? applVerID.getValue() : beginString;
+        if (version == null || msgType == null) {
+            return messageFactory.create(beginString, applVerID, msgType);
+        }
+        final TypePool typePool = getTypePool(version, msgType);
+        final Message message = typePool.poll();
+        if (message != null) {
+            return message;
+        }
+        final Message created = messageFactory.create(beginString, applVerID, msgType);
+        created.setPool(typePool);
+        return created;
+    }
+
+    private TypePool getTypePool(String version, String msgType) {
+        Map<String, TypePool> versionPools = pools.get(version);
+        if (versionPools == null) {
+            versionPools = pools.computeIfAbsent(version, k -> new ConcurrentHashMap<>());
+        }
+        TypePool typePool = versionPools.get(msgType);
+        if (typePool == null) {
+            typePool = versionPools.computeIfAbsent(msgType, k -> new TypePool(capacity));
+        }
+        return typePool;
+    }
+
+    /**
+     * The idle messages of a single message type.
+     */
+    static final class TypePool {
+        private final ArrayBlockingQueue<Message> messages;
+
+        TypePool(int capacity) {
+            messages = new ArrayBlockingQueue<>(capacity);
+        }
+
+        Message poll() {
+            return messages.poll();
+        }
+
+        /**
+         * @return false if the pool is full and the message was dropped
+         */
+        boolean offer(Message message) {
+            return messages.offer(message);
+        }
+
+        int size() {
+            return messages.size();
+        }
+    }
+}
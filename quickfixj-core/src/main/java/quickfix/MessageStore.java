@@ -19,6 +19,7 @@
 
 package quickfix;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.io.IOException;
@@ -53,6 +54,48 @@ public interface MessageStore {
      */
     void get(int startSequence, int endSequence, Collection<String> messages) throws IOException;
 
+    /**
+     * Get messages within sequence number range (inclusive) one by one, in
+     * sequence number order. Unlike {@link #get(int, int, Collection)} the
+     * range is not held in memory at once, so this is used for resend requests
+     * that may span many messages. The default implementation reads the range
+     * in chunks of {@link #GET_CHUNK_SIZE} sequence numbers.
+     *
+     * @param startSequence the starting message sequence number.
+     * @param endSequence the ending message sequence number.
+     * @param consumer receives each retrieved message
+     * @throws IOException IO error, or thrown by the consumer
+     */
+    default void get(int startSequence, int endSequence, MessageConsumer consumer) throws IOException {
+        final ArrayList<String> messages = new ArrayList<>();
+        for (long first = startSequence; first <= endSequence; first += GET_CHUNK_SIZE) {
+            get((int) first, (int) Math.min(first + GET_CHUNK_SIZE - 1, endSequence), messages);
+            for (final String message : messages) {
+                consumer.accept(message);
+            }
+            messages.clear();
+        }
+    }
+
+    /**
+     * The number of sequence numbers read at once by the default
+     * implementation of {@link #get(int, int, MessageConsumer)}.
+     */
+    int GET_CHUNK_SIZE = 1000;
+
+    /**
+     * Receives the messages retrieved by {@link MessageStore#get(int, int, MessageConsumer)}.
+     */
+    @FunctionalInterface
+    interface MessageConsumer {
+
+        /**
+         * @param message the raw FIX message string
+         * @throws IOException to abort the retrieval
+         */
+        void accept(String message) throws IOException;
+    }
+
     int getNextSenderMsgSeqNum() throws IOException;
 
     int getNextTargetMsgSeqNum() throws IOException;
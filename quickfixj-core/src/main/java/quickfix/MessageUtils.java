@@ -24,16 +24,24 @@ import org.quickfixj.QFJException;
 import quickfix.Message.Header;
 import quickfix.field.ApplVerID;
 import quickfix.field.BeginString;
+import quickfix.field.BodyLength;
 import quickfix.field.DefaultApplVerID;
 import quickfix.field.MsgType;
+import quickfix.field.OrigSendingTime;
+import quickfix.field.PossDupFlag;
+import quickfix.field.SecureDataLen;
 import quickfix.field.SenderCompID;
 import quickfix.field.SenderLocationID;
 import quickfix.field.SenderSubID;
+import quickfix.field.SendingTime;
 import quickfix.field.TargetCompID;
 import quickfix.field.TargetLocationID;
 import quickfix.field.TargetSubID;
+import quickfix.field.XmlDataLen;
+import quickfix.field.converter.UtcTimestampConverter;
 
 import java.nio.charset.Charset;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -77,6 +85,22 @@ public class MessageUtils {
                         SenderLocationID.FIELD), null);
     }
 
+    /**
+     * Determines the reverse session ID from the raw message bytes, decoding
+     * only the header values that identify the session.
+     *
+     * @param messageBytes the raw message
+     * @return the reverse session ID
+     */
+    public static SessionID getReverseSessionID(final MessageBytes messageBytes) {
+        return new SessionID(messageBytes.getStringField(BeginString.FIELD), messageBytes.getStringField(
+                TargetCompID.FIELD),
+                messageBytes.getStringField(TargetSubID.FIELD), messageBytes.getStringField(
+                        TargetLocationID.FIELD), messageBytes.getStringField(SenderCompID.FIELD),
+                messageBytes.getStringField(SenderSubID.FIELD), messageBytes.getStringField(
+                        SenderLocationID.FIELD), null);
+    }
+
     private static String getFieldOrDefault(final FieldMap fields, final int tag, final String defaultValue) {
         if (fields.isSetField(tag)) {
             try {
@@ -138,28 +162,88 @@ public class MessageUtils {
             applVerID = toApplVerID(beginString);
         }
 
-        final MessageFactory messageFactory = session.getMessageFactory();
+        final quickfix.Message message = newMessage(session, beginString, applVerID, msgType);
+        final DataDictionary sessionDataDictionary = getSessionDataDictionary(session, beginString);
+        final DataDictionary payloadDictionary = getPayloadDictionary(session, sessionDataDictionary, applVerID, msgType);
 
-        final DataDictionaryProvider ddProvider = session.getDataDictionaryProvider();
-        final DataDictionary sessionDataDictionary = ddProvider == null ? null : ddProvider
-                .getSessionDataDictionary(beginString);
-        final DataDictionary applicationDataDictionary = ddProvider == null ? null : ddProvider
-                .getApplicationDataDictionary(applVerID);
+        message.parse(messageString, sessionDataDictionary, payloadDictionary, payloadDictionary != null,
+                session.isValidateChecksum(), isValidateWhileParsing(session));
 
-        final quickfix.Message message = messageFactory.create(beginString, applVerID, msgType);
-        final DataDictionary payloadDictionary = MessageUtils.isAdminMessage(msgType)
-                ? sessionDataDictionary
-                : applicationDataDictionary;
+        return message;
+    }
+
+    /**
+     * NOTE: This method is intended for internal use.
+     *
+     * Parses the raw message bytes without building the message string.
+     *
+     * @param session the Session that will process the message
+     * @param messageBytes the raw message as framed by the decoder
+     * @return the parsed message
+     * @throws InvalidMessage
+     */
+    public static Message parse(final Session session, final MessageBytes messageBytes) throws InvalidMessage {
+        final String beginString = messageBytes.getStringField(BeginString.FIELD);
+        final String msgType = messageBytes.getStringField(MsgType.FIELD);
+        if (msgType == null) {
+            throw newInvalidMessageException("Missing or garbled message type in " + messageBytes,
+                    getMinimalMessage(messageBytes.toString()));
+        }
+
+        ApplVerID applVerID;
+
+        if (FixVersions.BEGINSTRING_FIXT11.equals(beginString)) {
+            final String applVerIdString = messageBytes.getStringField(ApplVerID.FIELD);
+            if (applVerIdString != null) {
+                applVerID = new ApplVerID(applVerIdString);
+            } else {
+                // rarely hit (no ApplVerID and no default yet), so defer to the string based lookup
+                applVerID = session.getTargetDefaultApplicationVersionID();
+                if (applVerID == null) {
+                    applVerID = getApplVerID(session, messageBytes.toString());
+                }
+            }
+        } else {
+            applVerID = toApplVerID(beginString);
+        }
 
-        final boolean doValidation = payloadDictionary != null;
-        final boolean validateChecksum = session.isValidateChecksum();
+        final quickfix.Message message = newMessage(session, beginString, applVerID, msgType);
+        final DataDictionary sessionDataDictionary = getSessionDataDictionary(session, beginString);
+        final DataDictionary payloadDictionary = getPayloadDictionary(session, sessionDataDictionary, applVerID, msgType);
 
-        message.parse(messageString, sessionDataDictionary, payloadDictionary, doValidation,
-                validateChecksum);
+        message.parse(messageBytes, sessionDataDictionary, payloadDictionary, payloadDictionary != null,
+                session.isValidateChecksum(), session.isLazyFieldParsing(), isValidateWhileParsing(session));
 
         return message;
     }
 
+    private static Message newMessage(final Session session, final String beginString,
+            final ApplVerID applVerID, final String msgType) {
+        final MessagePool messagePool = session.getMessagePool();
+        return messagePool != null
+                ? messagePool.acquire(beginString, applVerID, msgType)
+                : session.getMessageFactory().create(beginString, applVerID, msgType);
+    }
+
+    private static boolean isValidateWhileParsing(final Session session) {
+        return session.isValidateWhileParsing() && session.isValidateIncomingMessage();
+    }
+
+    private static DataDictionary getSessionDataDictionary(final Session session, final String beginString) {
+        final DataDictionaryProvider ddProvider = session.getDataDictionaryProvider();
+        return ddProvider == null ? null : ddProvider.getSessionDataDictionary(beginString);
+    }
+
+    private static DataDictionary getPayloadDictionary(final Session session,
+            final DataDictionary sessionDataDictionary, final ApplVerID applVerID, final String msgType) {
+        final DataDictionaryProvider ddProvider = session.getDataDictionaryProvider();
+        final DataDictionary applicationDataDictionary = ddProvider == null ? null : ddProvider
+                .getApplicationDataDictionary(applVerID);
+        return MessageUtils.isAdminMessage(msgType)
+                ? sessionDataDictionary
+                : applicationDataDictionary;
+    }
+
     private static ApplVerID getApplVerID(final Session session, final String messageString)
             throws InvalidMessage {
         ApplVerID applVerID = null;
@@ -266,6 +350,140 @@ public class MessageUtils {
         return value;
     }
 
+    /**
+     * Sets the header fields of a stored message that change when it is resent,
+     * without parsing the message. SendingTime is replaced, PossDupFlag is set and
+     * OrigSendingTime is set to the former SendingTime. Both are written with the
+     * given precision. BodyLength and CheckSum are adjusted by the changes, so they
+     * must be correct in the stored message.
+     *
+     * @param messageString the stored message
+     * @param sendingTime the new SendingTime
+     * @param precision the precision of SendingTime and OrigSendingTime
+     * @return the message to resend, or null if the header cannot be patched
+     *         and the message has to be parsed
+     */
+    static String patchResendFields(final String messageString, final LocalDateTime sendingTime,
+            final UtcTimestampPrecision precision) {
+        int bodyLengthStart = -1;
+        int headerStart = -1;
+        int sendingTimeField = -1;
+        int sendingTimeValue = -1;
+        int sendingTimeEnd = -1;
+        int possDupFlagField = -1;
+        int origSendingTimeField = -1;
+        // the header ends at the first field that is not a standard header field
+        int headerEnd = 0;
+        while (headerEnd < messageString.length()) {
+            int tag = 0;
+            int position = headerEnd;
+            char c;
+            while (position < messageString.length() && (c = messageString.charAt(position)) != '=') {
+                if (c < '0' || c > '9' || position - headerEnd > 9) {
+                    return null;
+                }
+                tag = tag * 10 + (c - '0');
+                position++;
+            }
+            if (position == headerEnd) {
+                return null;
+            }
+            if (!Message.isHeaderField(tag)) {
+                break;
+            }
+            final int end = messageString.indexOf(FIELD_SEPARATOR, position);
+            if (end < 0) {
+                return null;
+            }
+            switch (tag) {
+            case BodyLength.FIELD:
+                bodyLengthStart = position + 1;
+                headerStart = end + 1;
+                break;
+            case SendingTime.FIELD:
+                sendingTimeField = headerEnd;
+                sendingTimeValue = position + 1;
+                sendingTimeEnd = end;
+                break;
+            case PossDupFlag.FIELD:
+                possDupFlagField = headerEnd;
+                break;
+            case OrigSendingTime.FIELD:
+                origSendingTimeField = headerEnd;
+                break;
+            case SecureDataLen.FIELD:
+            case XmlDataLen.FIELD:
+                // the data field may contain the field separator
+                return null;
+            default:
+                break;
+            }
+            headerEnd = end + 1;
+        }
+        final int checkSumValue = messageString.length() - 4;
+        if (headerStart < 0 || sendingTimeField < headerStart || checkSumValue < headerEnd
+                || !messageString.startsWith("\00110=", checkSumValue - 4)
+                || messageString.charAt(checkSumValue + 3) != FIELD_SEPARATOR) {
+            return null;
+        }
+        final int bodyLength;
+        final int checkSum;
+        final String origSendingTime;
+        try {
+            bodyLength = Integer.parseInt(messageString.substring(bodyLengthStart, headerStart - 1));
+            checkSum = Integer.parseInt(messageString.substring(checkSumValue, checkSumValue + 3));
+            origSendingTime = UtcTimestampConverter.convert(UtcTimestampConverter.convertToLocalDateTime(
+                    messageString.substring(sendingTimeValue, sendingTimeEnd)), precision);
+        } catch (final NumberFormatException | FieldConvertError e) {
+            return null;
+        }
+
+        final StringBuilder header = new StringBuilder(headerEnd - headerStart + 48);
+        int field = headerStart;
+        while (field < headerEnd) {
+            final int end = messageString.indexOf(FIELD_SEPARATOR, field) + 1;
+            if (field == sendingTimeField) {
+                header.append("52=").append(UtcTimestampConverter.convert(sendingTime, precision))
+                        .append(FIELD_SEPARATOR)
+                        .append("43=Y").append(FIELD_SEPARATOR)
+                        .append("122=").append(origSendingTime).append(FIELD_SEPARATOR);
+            } else if (field != possDupFlagField && field != origSendingTimeField) {
+                header.append(messageString, field, end);
+            }
+            field = end;
+        }
+        // the changed fields are ASCII, so their characters are their bytes
+        int sum = 0;
+        for (int i = headerStart; i < headerEnd; i++) {
+            final char c = messageString.charAt(i);
+            if (c > 0x7F) {
+                return null;
+            }
+            sum -= c;
+        }
+        for (int i = 0; i < header.length(); i++) {
+            sum += header.charAt(i);
+        }
+        final String oldBodyLength = messageString.substring(bodyLengthStart, headerStart - 1);
+        final String newBodyLength = Integer.toString(bodyLength + header.length() - (headerEnd - headerStart));
+        for (int i = 0; i < oldBodyLength.length(); i++) {
+            sum -= oldBodyLength.charAt(i);
+        }
+        for (int i = 0; i < newBodyLength.length(); i++) {
+            sum += newBodyLength.charAt(i);
+        }
+        final int newCheckSum = (checkSum + sum) & 0xFF;
+
+        final StringBuilder patched = new StringBuilder(messageString.length() + header.length()
+                - (headerEnd - headerStart) + 2);
+        patched.append(messageString, 0, bodyLengthStart).append(newBodyLength).append(FIELD_SEPARATOR)
+                .append(header).append(messageString, headerEnd, checkSumValue);
+        if (newCheckSum < 100) {
+            patched.append(newCheckSum < 10 ? "00" : "0");
+        }
+        return patched.append(newCheckSum).append(FIELD_SEPARATOR).toString();
+    }
+
     private static final Map<String, String> applVerIDtoBeginString = new HashMap<String, String>() {
         {
             // No support for earlier versions of FIX
@@ -336,13 +554,28 @@ public class MessageUtils {
      * @return the calculated checksum
      */
     public static int checksum(final byte[] data, final boolean isEntireMessage) {
+        return checksum(data, 0, data.length, isEntireMessage);
+    }
+
+    /**
+     * Calculates the checksum for a range of the given data.
+     *
+     * @param data the data to calculate the checksum on
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     * @param isEntireMessage specifies whether the data range is an entire message;
+     *        if true, and it ends with a checksum field, that checksum
+     *        field is excluded from the current checksum calculation
+     * @return the calculated checksum
+     */
+    public static int checksum(final byte[] data, final int offset, final int length, final boolean isEntireMessage) {
         int sum = 0;
-        int len = data.length;
-        if (isEntireMessage && data[len - 8] == '\001' && data[len - 7] == '1'
-                && data[len - 6] == '0' && data[len - 5] == '=') {
-			len = len - 7;
+        int end = offset + length;
+        if (isEntireMessage && length >= 8 && data[end - 8] == '\001' && data[end - 7] == '1'
+                && data[end - 6] == '0' && data[end - 5] == '=') {
+			end = end - 7;
 		}
-        for (int i = 0; i < len; ++i) {
+        for (int i = offset; i < end; ++i) {
             sum += (data[i] & 0xFF);
         }
         return sum & 0xFF; // better than sum % 256 since it avoids overflow issues
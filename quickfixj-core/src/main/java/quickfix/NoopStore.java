@@ -38,6 +38,10 @@ public class NoopStore implements MessageStore {
 	public void get(int startSequence, int endSequence, Collection<String> messages) {
     }
 
+    @Override
+	public void get(int startSequence, int endSequence, MessageConsumer consumer) {
+    }
+
     @Override
 	public Date getCreationTime() {
         return creationTime;
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+
+import quickfix.field.SessionRejectReason;
+
+/**
+ * Makes the checks of {@link DataDictionary#validate(Message, DataDictionary, DataDictionary)}
+ * while a message is being parsed, so that the message is traversed only once.
+ * <p>
+ * The first failure of each message section is recorded instead of thrown, and
+ * reported by the validation of the message in the order that a validation of
+ * the parsed message would report it: message type and required fields first,
+ * then the header, trailer and body fields.
+ */
+final class ParseValidator {
+
+    private final DataDictionary sessionDataDictionary;
+    private final DataDictionary applicationDataDictionary;
+    private Exception messageFailure;
+    private Exception headerFailure;
+    private Exception trailerFailure;
+    private Exception bodyFailure;
+
+    /**
+     * @param sessionDataDictionary the dictionary for the header and trailer, or
+     *            null to check the body only
+     * @param applicationDataDictionary the dictionary for the body
+     */
+    ParseValidator(DataDictionary sessionDataDictionary, DataDictionary applicationDataDictionary) {
+        this.sessionDataDictionary = sessionDataDictionary;
+        this.applicationDataDictionary = applicationDataDictionary;
+    }
+
+    boolean isFor(DataDictionary sessionDataDictionary, DataDictionary applicationDataDictionary) {
+        return this.sessionDataDictionary == sessionDataDictionary
+                && this.applicationDataDictionary == applicationDataDictionary;
+    }
+
+    private static boolean isHeader(String msgType) {
+        return DataDictionary.HEADER_ID.equals(msgType);
+    }
+
+    private static boolean isTrailer(String msgType) {
+        return DataDictionary.TRAILER_ID.equals(msgType);
+    }
+
+    private DataDictionary getDataDictionary(String msgType) {
+        return isHeader(msgType) || isTrailer(msgType) ? sessionDataDictionary : applicationDataDictionary;
+    }
+
+    private boolean hasFailed(String msgType) {
+        if (isHeader(msgType)) {
+            return headerFailure != null;
+        }
+        return isTrailer(msgType) ? trailerFailure != null : bodyFailure != null;
+    }
+
+    private void setFailure(String msgType, Exception failure) {
+        if (isHeader(msgType)) {
+            headerFailure = failure;
+        } else if (isTrailer(msgType)) {
+            trailerFailure = failure;
+        } else {
+            bodyFailure = failure;
+        }
+    }
+
+    /**
+     * Checks a field of the header, the trailer or the message body.
+     *
+     * @param field the field
+     * @param map the header, trailer or message
+     * @param msgType the message type, or the header or trailer id
+     */
+    void checkField(StringField field, FieldMap map, String msgType) {
+        checkField(field, map instanceof Message, msgType, getDataDictionary(msgType));
+    }
+
+    /**
+     * Checks a field of a repeating group.
+     *
+     * @param field the field
+     * @param msgType the message type, or the header id for header groups
+     * @param groupDataDictionary the dictionary of the group
+     */
+    void checkGroupField(StringField field, String msgType, DataDictionary groupDataDictionary) {
+        checkField(field, false, msgType, groupDataDictionary);
+    }
+
+    private void checkField(StringField field, boolean message, String msgType, DataDictionary dd) {
+        final DataDictionary dataDictionary = getDataDictionary(msgType);
+        if (dataDictionary == null || dd == null || hasFailed(msgType)) {
+            return;
+        }
+        try {
+            dataDictionary.validateField(field, msgType, message, dd);
+        } catch (FieldException | IncorrectTagValue | IncorrectDataFormat e) {
+            setFailure(msgType, e);
+        }
+    }
+
+    /**
+     * Checks the declared count of a repeating group once all of its instances
+     * have been parsed.
+     *
+     * @param countTag the group count tag
+     * @param declaredCount the count declared in the message
+     * @param parent the field map containing the group
+     * @param msgType the message type, or the header id for header groups
+     */
+    void checkGroupCount(int countTag, int declaredCount, FieldMap parent, String msgType) {
+        final DataDictionary dataDictionary = getDataDictionary(msgType);
+        if (dataDictionary == null || dataDictionary.getVersion() == null || hasFailed(msgType)) {
+            return;
+        }
+        if (parent.getGroupCount(countTag) != declaredCount) {
+            setFailure(msgType, new FieldException(
+                    SessionRejectReason.INCORRECT_NUMINGROUP_COUNT_FOR_REPEATING_GROUP, countTag));
+        }
+    }
+
+    /**
+     * Checks the message type and the required fields once the message has been
+     * parsed.
+     *
+     * @param message the parsed message
+     * @param msgType the message type
+     */
+    void checkMessage(Message message, String msgType) {
+        if (!DataDictionary.isVersionSpecified(applicationDataDictionary)) {
+            return;
+        }
+        try {
+            applicationDataDictionary.checkMsgType(msgType);
+            applicationDataDictionary.checkHasRequired(message.getHeader(), message, message.getTrailer(),
+                    msgType, sessionDataDictionary == null);
+        } catch (FieldException e) {
+            messageFailure = e;
+        }
+    }
+
+    /**
+     * Throws the first failure found while parsing, if any.
+     */
+    void throwFailure() throws IncorrectTagValue, IncorrectDataFormat {
+        throwFailure(messageFailure);
+        throwFailure(headerFailure);
+        throwFailure(trailerFailure);
+        throwFailure(bodyFailure);
+    }
+
+    private static void throwFailure(Exception failure) throws IncorrectTagValue, IncorrectDataFormat {
+        if (failure instanceof FieldException) {
+            throw (FieldException) failure;
+        } else if (failure instanceof IncorrectTagValue) {
+            throw (IncorrectTagValue) failure;
+        } else if (failure instanceof IncorrectDataFormat) {
+            throw (IncorrectDataFormat) failure;
+        }
+    }
+}
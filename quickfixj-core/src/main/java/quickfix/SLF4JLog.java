@@ -121,6 +121,11 @@ public class SLF4JLog extends AbstractLog {
         logError(errorEventLog, text);
     }
 
+    @Override
+    public boolean isIncomingEnabled() {
+        return incomingMsgLog.isInfoEnabled();
+    }
+
     @Override
     protected void logIncoming(final String message) {
         log(incomingMsgLog, message);
@@ -62,6 +62,11 @@ public class ScreenLog extends AbstractLog {
         this.includeMillis = includeMillis;
     }
 
+    @Override
+    public boolean isIncomingEnabled() {
+        return incoming;
+    }
+
     @Override
 	protected void logIncoming(String message) {
         if (incoming) {
@@ -69,6 +69,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static quickfix.LogUtil.logThrowable;
 
@@ -362,6 +364,31 @@ public class Session implements Closeable {
 
     public static final String SETTING_VALIDATE_CHECKSUM = "ValidateChecksum";
 
+    /**
+     * Session setting to defer decoding the body fields of incoming messages until they are accessed.
+     * Only applies when the acceptor or initiator decodes message bytes (SocketDecodeMessageBytes=Y).
+     */
+    public static final String SETTING_LAZY_FIELD_PARSING = "LazyFieldParsing";
+
+    /**
+     * Session setting for the number of idle inbound messages kept per message type for reuse.
+     * Pooling is disabled if it is 0. See {@link Message#retain()} for the contract with the application.
+     */
+    public static final String SETTING_MESSAGE_POOL_SIZE = "MessagePoolSize";
+
+    /**
+     * Session setting to validate incoming messages while they are parsed instead of
+     * traversing the parsed message again. Only applies when ValidateIncomingMessage is enabled.
+     */
+    public static final String SETTING_VALIDATE_WHILE_PARSING = "ValidateWhileParsing";
+
+    /**
+     * Session setting to resend stored application messages by patching the header fields
+     * that change on resend instead of parsing and re-serializing them. Application.toApp
+     * is not called for the messages resent this way.
+     */
+    public static final String SETTING_PATCH_RESENT_MESSAGES = "PatchResentMessages";
+
     private static final ConcurrentMap<SessionID, Session> sessions = new ConcurrentHashMap<>();
 
     private final Application application;
@@ -372,15 +399,19 @@ public class Session implements Closeable {
     // @GuardedBy(this)
     private final SessionState state;
 
-    private boolean enabled;
+    private volatile boolean enabled;
 
-    private final Object responderLock = new Object(); // unique instance
+    // a lock rather than a monitor, so that a session dispatched on a virtual
+    // thread does not pin its carrier thread while disconnecting
+    private final Lock responderLock = new ReentrantLock();
     // @GuardedBy(responderLock)
     private Responder responder;
 
     // The session time checks were causing performance problems
     // so we are checking only once per second.
     private long lastSessionTimeCheck = 0;
+    // run when the session has to be timed earlier than its last timer deadline
+    private volatile Runnable timerRescheduler;
     private int logonAttempts = 0;
     private long lastSessionLogon = 0;
 
@@ -408,6 +439,10 @@ public class Session implements Closeable {
     private boolean enableNextExpectedMsgSeqNum = false;
     private boolean enableLastMsgSeqNumProcessed = false;
     private boolean validateChecksum = true;
+    private boolean lazyFieldParsing = false;
+    private boolean validateWhileParsing = false;
+    private boolean patchResentMessages = false;
+    private MessagePool messagePool;
 
     private int maxScheduledWriteRequests = 0;
 
@@ -543,19 +578,26 @@ public class Session implements Closeable {
      * @param responder a responder implementation
      */
     public void setResponder(Responder responder) {
-        synchronized (responderLock) {
+        responderLock.lock();
+        try {
             this.responder = responder;
             if (responder != null) {
                 stateListener.onConnect();
             } else {
                 stateListener.onDisconnect();
             }
+        } finally {
+            responderLock.unlock();
         }
+        rescheduleTimer();
     }
 
     public Responder getResponder() {
-        synchronized (responderLock) {
+        responderLock.lock();
+        try {
             return responder;
+        } finally {
+            responderLock.unlock();
         }
     }
 
@@ -729,8 +771,9 @@ public class Session implements Closeable {
         setEnabled(true);
     }
 
-    private synchronized void setEnabled(boolean enabled) {
+    private void setEnabled(boolean enabled) {
         this.enabled = enabled;
+        rescheduleTimer();
     }
 
     private void initializeHeader(Message.Header header) {
@@ -786,7 +829,7 @@ public class Session implements Closeable {
      *
      * @return true if session is enabled, false otherwise.
      */
-    public synchronized boolean isEnabled() {
+    public boolean isEnabled() {
         return enabled;
     }
 
@@ -1196,17 +1239,34 @@ public class Session implements Closeable {
         return resetOrDisconnectIfRequired;
     }
 
+    /**
+     * (Internal use only) Called after a batch of messages of this session
+     * has been passed to {@link #next(Message)}.
+     *
+     * @see ApplicationBatchAware
+     */
+    public void endOfBatch() {
+        if (application instanceof ApplicationBatchAware) {
+            ((ApplicationBatchAware) application).onEndOfBatch(sessionID);
+        }
+    }
+
     /**
      * (Internal use only)
      */
     public void next(Message message) throws FieldNotFound, RejectLogon, IncorrectDataFormat,
             IncorrectTagValue, UnsupportedMessageType, IOException, InvalidMessage {
 
-        if (rejectGarbledMessage && message.isGarbled()) {
-            generateReject(message, "Message failed basic validity check");
-            return;
+        try {
+            if (rejectGarbledMessage && message.isGarbled()) {
+                generateReject(message, "Message failed basic validity check");
+                return;
+            }
+            next(message, false);
+        } finally {
+            // pooled messages are only valid until they have been processed
+            message.release();
         }
-        next(message, false);
     }
 
     private boolean resetOrDisconnectIfRequired(Message msg) {
@@ -1462,6 +1522,7 @@ public class Session implements Closeable {
         }
         sendRaw(logout, 0);
         state.setLogoutSent(true);
+        rescheduleTimer();
     }
 
     private void nextSequenceReset(Message sequenceReset) throws IOException, RejectLogon,
@@ -1771,15 +1832,19 @@ public class Session implements Closeable {
 
             if (checkTooHigh && state.isResendRequested()) {
                 final ResendRange range;
+                String satisfied = null;
                 synchronized (state.getLock()) {
                     range = state.getResendRange();
                     if (msgSeqNum >= range.getEndSeqNo()) {
-                        getLog().onEvent(
-                                "ResendRequest for messages FROM " + range.getBeginSeqNo() + " TO " + range.getEndSeqNo()
-                                        + " has been satisfied.");
+                        satisfied = "ResendRequest for messages FROM " + range.getBeginSeqNo() + " TO "
+                                + range.getEndSeqNo() + " has been satisfied.";
                         state.setResendRange(0, 0, 0);
                     }
                 }
+                // logged outside of the state lock, which is a monitor
+                if (satisfied != null) {
+                    getLog().onEvent(satisfied);
+                }
                 if (msgSeqNum < range.getEndSeqNo() && range.isChunkedResendRequest() && msgSeqNum >= range.getCurrentEndSeqNo()) {
                     final String beginString = header.getString(BeginString.FIELD);
                     sendResendRequest(beginString, range.getEndSeqNo() + 1, msgSeqNum + 1, range.getEndSeqNo());
@@ -1853,7 +1918,7 @@ public class Session implements Closeable {
         }
     }
 
-    private synchronized boolean validLogonState(String msgType) {
+    private boolean validLogonState(String msgType) {
         return MsgType.LOGON.equals(msgType) && state.isResetSent() || state.isResetReceived() ||
                 MsgType.LOGON.equals(msgType) && !state.isLogonReceived() ||
                 !MsgType.LOGON.equals(msgType) && state.isLogonReceived() ||
@@ -1958,6 +2023,64 @@ public class Session implements Closeable {
         }
     }
 
+    /**
+     * (Internal use only) Returns the time by which {@link #next()} has to be
+     * called again, in milliseconds of {@link SystemTime}. While the session is
+     * logged on this is the earliest heartbeat, test request, timeout or
+     * session schedule check. Otherwise, as for logons and reconnects, it is
+     * one second from now.
+     *
+     * @return the time of the next call, or Long.MAX_VALUE if there is none
+     */
+    public long getNextTimerDeadline() {
+        final long now = SystemTime.currentTimeMillis();
+        if (!isEnabled() || !hasResponder() || !isLoggedOn()) {
+            return now + 1000L;
+        }
+        long deadline = Long.MAX_VALUE;
+        if (sessionSchedule != null && !sessionSchedule.isNonStopSession()) {
+            // the session time is checked at most once per second in next()
+            deadline = Math.max(sessionSchedule.getNextSessionTimeChange(), lastSessionTimeCheck + 1000L);
+        }
+        final long heartBeatMillis = state.getHeartBeatMillis();
+        if (heartBeatMillis > 0) {
+            final long lastReceivedTime = state.getLastReceivedTime();
+            final long lastSentTime = state.getLastSentTime();
+            if (state.isLogoutSent()) {
+                deadline = Math.min(deadline, lastSentTime + state.getLogoutTimeoutMs());
+            }
+            deadline = Math.min(deadline, lastReceivedTime + (long) Math.ceil(2.4 * heartBeatMillis));
+            final int testRequests = state.getTestRequestCounter();
+            deadline = Math.min(deadline, lastReceivedTime + (long) Math.ceil(
+                    (1 + state.getTestRequestDelayMultiplier()) * (testRequests + 1) * heartBeatMillis));
+            if (testRequests == 0) {
+                // see the leeway of SessionState.isHeartBeatNeeded()
+                deadline = Math.min(deadline, lastSentTime + heartBeatMillis - 9);
+            }
+        }
+        // a check that is due but did not act (e.g. a disabled heartbeat check)
+        // is repeated every second, as before
+        return deadline > now ? deadline : now + 1000L;
+    }
+
+    /**
+     * (Internal use only) Sets the task that is run when the session has to be
+     * timed earlier than the deadline last returned by {@link #getNextTimerDeadline()},
+     * e.g. when it is connected, logged on or logged out.
+     *
+     * @param timerRescheduler the task, or null
+     */
+    public void setTimerRescheduler(Runnable timerRescheduler) {
+        this.timerRescheduler = timerRescheduler;
+    }
+
+    private void rescheduleTimer() {
+        final Runnable rescheduler = timerRescheduler;
+        if (rescheduler != null) {
+            rescheduler.run();
+        }
+    }
+
     private long computeNextLogonDelayMillis() {
         int index = logonAttempts - 1;
         if (index < 0) {
@@ -2040,7 +2163,8 @@ public class Session implements Closeable {
             final boolean logonReceived = state.isLogonReceived();
             final boolean logonSent = state.isLogonSent();
 
-            synchronized (responderLock) {
+            responderLock.lock();
+            try {
                 if (!hasResponder()) {
                     if (!ENCOUNTERED_END_OF_STREAM.equals(reason)) {
                         getLog().onEvent("Already disconnected: " + reason);
@@ -2055,6 +2179,8 @@ public class Session implements Closeable {
                 }
                 responder.disconnect();
                 setResponder(null);
+            } finally {
+                responderLock.unlock();
             }
 
             if (logonReceived || logonSent) {
@@ -2082,6 +2208,14 @@ public class Session implements Closeable {
             state.clearLogoutReason();
             state.setResendRange(0, 0);
 
+            if (getStore() instanceof WriteBehindMessageStore) {
+                try {
+                    ((WriteBehindMessageStore) getStore()).onLogout();
+                } catch (final IOException e) {
+                    logThrowable(getLog(), "Error flushing MessageStore", e);
+                }
+            }
+
             if (resetOnDisconnect) {
                 resetState();
             }
@@ -2252,37 +2386,108 @@ public class Session implements Closeable {
             stateListener.onLogon();
             lastSessionLogon = SystemTime.currentTimeMillis();
             logonAttempts = 0;
+            rescheduleTimer();
         }
     }
 
     private void resendMessages(Message receivedMessage, int beginSeqNo, int endSeqNo)
             throws IOException, InvalidMessage, FieldNotFound {
 
-        final ArrayList<String> messages = new ArrayList<>();
+        // the messages are resent as they are read, so that the range is not held in memory
+        final MessageResender resender = new MessageResender(receivedMessage, beginSeqNo);
         try {
-            state.get(beginSeqNo, endSeqNo, messages);
+            state.get(beginSeqNo, endSeqNo, resender);
+        } catch (final ResendException e) {
+            if (e.getCause() instanceof FieldNotFound) {
+                throw (FieldNotFound) e.getCause();
+            }
+            throw (IOException) e.getCause();
         } catch (final IOException e) {
             if (forceResendWhenCorruptedStore) {
                 LOG.error("Cannot read messages from stores, resend HeartBeats", e);
-                for (int i = beginSeqNo; i < endSeqNo; i++) {
+                for (int i = resender.current; i < endSeqNo; i++) {
                     final Message heartbeat = messageFactory.create(sessionID.getBeginString(),
                             MsgType.HEARTBEAT);
                     initializeHeader(heartbeat.getHeader());
                     heartbeat.getHeader().setInt(MsgSeqNum.FIELD, i);
-                    messages.add(heartbeat.toString());
+                    resender.resend(heartbeat.toString());
                 }
             } else {
                 throw e;
             }
         }
 
-        int msgSeqNum = 0;
-        int begin = 0;
-        int current = beginSeqNo;
-        boolean appMessageJustSent = false;
+        final int msgSeqNum = resender.msgSeqNum;
+        final int begin = resender.begin;
+        final boolean appMessageJustSent = resender.appMessageJustSent;
+
+        int newBegin = beginSeqNo;
+        if (appMessageJustSent) {
+            newBegin = msgSeqNum + 1;
+        }
+        if (enableNextExpectedMsgSeqNum) {
+            if (begin != 0) {
+                generateSequenceReset(receivedMessage, begin, msgSeqNum + 1);
+            } else {
+                /*
+                 * I've added an else here as I managed to fail this without it in a unit test, however the unit test data
+                 * may not have been realistic to production on the other hand.
+                 * Apart from the else
+                 */
+            generateSequenceResetIfNeeded(receivedMessage, newBegin, endSeqNo, msgSeqNum);
+            }
+        } else {
+            if (begin != 0) {
+                generateSequenceReset(receivedMessage, begin, msgSeqNum + 1);
+            }
+            generateSequenceResetIfNeeded(receivedMessage, newBegin, endSeqNo, msgSeqNum);
+        }
+    }
+
+    private void generateSequenceResetIfNeeded(Message receivedMessage, int beginSeqNo, int endSeqNo, int msgSeqNum)
+            throws IOException, FieldNotFound {
+        if (endSeqNo > msgSeqNum) {
+            endSeqNo = endSeqNo + 1;
+            final int next = state.getNextSenderMsgSeqNum();
+            if (endSeqNo > next) {
+                endSeqNo = next;
+            }
+            generateSequenceReset(receivedMessage, beginSeqNo, endSeqNo);
+        }
+    }
 
-        for (final String message : messages) {
+    /**
+     * Resends the messages of a ResendRequest as they are read from the message
+     * store. Administrative messages and messages that are not approved for resend
+     * are replaced by a SequenceReset-GapFill.
+     */
+    private class MessageResender implements MessageStore.MessageConsumer {
+        private final Message receivedMessage;
+        private int msgSeqNum;
+        private int begin;
+        private int current;
+        private boolean appMessageJustSent;
+
+        MessageResender(Message receivedMessage, int beginSeqNo) {
+            this.receivedMessage = receivedMessage;
+            current = beginSeqNo;
+        }
+
+        @Override
+        public void accept(String message) throws IOException {
+            try {
+                resend(message);
+            } catch (final IOException | FieldNotFound e) {
+                // not to be taken for a failure of the message store
+                throw new ResendException(e);
+            }
+        }
+
+        void resend(String message) throws IOException, FieldNotFound {
             appMessageJustSent = false;
+            if (patchResentMessages && !forceResendWhenCorruptedStore && resendPatched(message)) {
+                return;
+            }
             final Message msg;
             try {
                 // QFJ-626
@@ -2293,7 +2498,7 @@ public class Session implements Closeable {
                         "Error handling ResendRequest: failed to parse message (" + e.getMessage()
                         + "): " + message);
                 // Note: a SequenceReset message will be generated to fill the gap
-                continue;
+                return;
             }
 
             if ((current != msgSeqNum) && begin == 0) {
@@ -2325,38 +2530,61 @@ public class Session implements Closeable {
             current = msgSeqNum + 1;
         }
 
-        int newBegin = beginSeqNo;
-        if (appMessageJustSent) {
-            newBegin = msgSeqNum + 1;
-        }
-        if (enableNextExpectedMsgSeqNum) {
-            if (begin != 0) {
-                generateSequenceReset(receivedMessage, begin, msgSeqNum + 1);
-            } else {
-                /*
-                 * I've added an else here as I managed to fail this without it in a unit test, however the unit test data
-                 * may not have been realistic to production on the other hand.
-                 * Apart from the else
-                 */
-            generateSequenceResetIfNeeded(receivedMessage, newBegin, endSeqNo, msgSeqNum);
+        /**
+         * Resends a message without parsing it, see {@link Session#SETTING_PATCH_RESENT_MESSAGES}.
+         *
+         * @return false if the message has to be parsed
+         */
+        private boolean resendPatched(String message) throws FieldNotFound {
+            final String msgType = MessageUtils.getStringField(message, MsgType.FIELD);
+            final String msgSeqNumValue = MessageUtils.getStringField(message, MsgSeqNum.FIELD);
+            if (msgType == null || msgSeqNumValue == null) {
+                return false;
             }
-        } else {
-            if (begin != 0) {
-                generateSequenceReset(receivedMessage, begin, msgSeqNum + 1);
+            final int resentSeqNum;
+            try {
+                resentSeqNum = Integer.parseInt(msgSeqNumValue);
+            } catch (final NumberFormatException e) {
+                return false;
             }
-            generateSequenceResetIfNeeded(receivedMessage, newBegin, endSeqNo, msgSeqNum);
+            final boolean admin = MessageUtils.isAdminMessage(msgType);
+            String resent = null;
+            if (!admin) {
+                resent = MessageUtils.patchResendFields(message, SystemTime.getLocalDateTime(),
+                        getTimestampPrecision());
+                if (resent == null) {
+                    return false;
+                }
+            }
+
+            msgSeqNum = resentSeqNum;
+            if ((current != msgSeqNum) && begin == 0) {
+                begin = current;
+            }
+            if (admin) {
+                if (begin == 0) {
+                    begin = msgSeqNum;
+                }
+            } else {
+                if (begin != 0) {
+                    generateSequenceReset(receivedMessage, begin, msgSeqNum);
+                }
+                getLog().onEvent("Resending message: " + msgSeqNum);
+                send(resent);
+                begin = 0;
+                appMessageJustSent = true;
+            }
+            current = msgSeqNum + 1;
+            return true;
         }
     }
 
-    private void generateSequenceResetIfNeeded(Message receivedMessage, int beginSeqNo, int endSeqNo, int msgSeqNum)
-            throws IOException, FieldNotFound {
-        if (endSeqNo > msgSeqNum) {
-            endSeqNo = endSeqNo + 1;
-            final int next = state.getNextSenderMsgSeqNum();
-            if (endSeqNo > next) {
-                endSeqNo = next;
-            }
-            generateSequenceReset(receivedMessage, beginSeqNo, endSeqNo);
+    /**
+     * Carries an error of a {@link MessageResender} through the message store.
+     */
+    private static class ResendException extends IOException {
+        ResendException(Exception cause) {
+            super(cause);
         }
     }
 
@@ -2546,6 +2774,7 @@ public class Session implements Closeable {
      * @return
      */
     private boolean sendRaw(Message message, int num) {
+        boolean stored = false;
         // sequence number must be locked until application
         // callback returns since it may be effectively rolled
         // back if the callback fails.
@@ -2616,6 +2845,7 @@ public class Session implements Closeable {
                     state.set(msgSeqNum, messageString);
                 }
                 state.incrNextSenderMsgSeqNum();
+                stored = true;
             }
 
             return result;
@@ -2627,11 +2857,30 @@ public class Session implements Closeable {
             return false;
         } finally {
             state.unlockSenderMsgSeqNum();
+            if (stored) {
+                awaitGroupCommit();
+            }
+        }
+    }
+
+    /**
+     * Waits for a file store that group commits to make the stored message
+     * and sequence number durable. Called after the sender sequence number is
+     * unlocked, so that other senders of the session do not wait as well.
+     */
+    private void awaitGroupCommit() {
+        final MessageStore store = getStore();
+        if (store instanceof FileStore) {
+            try {
+                ((FileStore) store).awaitGroupCommit();
+            } catch (final IOException e) {
+                logThrowable(getLog(), "Error reading/writing in MessageStore", e);
+            }
         }
     }
 
     private void enqueueMessage(final Message msg, final int msgSeqNum) {
-        state.enqueue(msgSeqNum, msg);
+        state.enqueue(msgSeqNum, msg.retain());
         getLog().onEvent("Enqueued at pos " + msgSeqNum + ": " + msg);
     }
 
@@ -2670,8 +2919,11 @@ public class Session implements Closeable {
     private boolean send(String messageString) {
         getLog().onOutgoing(messageString);
         Responder responder;
-        synchronized (responderLock) {
+        responderLock.lock();
+        try {
             responder = this.responder;
+        } finally {
+            responderLock.unlock();
         }
         if (responder == null) {
             getLog().onEvent("No responder, not sending message: " + messageString);
@@ -2762,6 +3014,7 @@ public class Session implements Closeable {
      */
     public void setHeartBeatInterval(int heartbeatInterval) {
         state.setHeartBeatInterval(heartbeatInterval);
+        rescheduleTimer();
     }
 
     public boolean getCheckCompID() {
@@ -2828,6 +3081,29 @@ public class Session implements Closeable {
         return validateChecksum;
     }
 
+    public boolean isLazyFieldParsing() {
+        return lazyFieldParsing;
+    }
+
+    public boolean isValidateIncomingMessage() {
+        return validateIncomingMessage;
+    }
+
+    public boolean isValidateWhileParsing() {
+        return validateWhileParsing;
+    }
+
+    public boolean isPatchResentMessages() {
+        return patchResentMessages;
+    }
+
+    /**
+     * @return the pool of inbound messages, or null if pooling is disabled
+     */
+    public MessagePool getMessagePool() {
+        return messagePool;
+    }
+
     public boolean isRejectGarbledMessage() {
         return rejectGarbledMessage;
     }
@@ -2950,6 +3226,22 @@ public class Session implements Closeable {
         this.validateChecksum = validateChecksum;
     }
 
+    public void setLazyFieldParsing(final boolean lazyFieldParsing) {
+        this.lazyFieldParsing = lazyFieldParsing;
+    }
+
+    public void setValidateWhileParsing(final boolean validateWhileParsing) {
+        this.validateWhileParsing = validateWhileParsing;
+    }
+
+    public void setPatchResentMessages(final boolean patchResentMessages) {
+        this.patchResentMessages = patchResentMessages;
+    }
+
+    public void setMessagePoolSize(final int messagePoolSize) {
+        this.messagePool = messagePoolSize > 0 ? new MessagePool(messageFactory, messagePoolSize) : null;
+    }
+
     public void setRejectInvalidMessage(boolean rejectInvalidMessage) {
         this.rejectInvalidMessage = rejectInvalidMessage;
     }
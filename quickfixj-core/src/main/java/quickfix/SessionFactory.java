@@ -37,6 +37,68 @@ public interface SessionFactory {
      */
     String SETTING_CONTINUE_INIT_ON_ERROR = "ContinueInitializationOnError";
 
+    /**
+     * Number of threads a connector uses to create its sessions on startup,
+     * which includes loading their message stores. It is read from the default
+     * section. The default of 1 creates the sessions one after another. With
+     * more threads, Application.onCreate may be called concurrently for
+     * different sessions.
+     */
+    String SETTING_SESSION_CREATION_THREADS = "SessionCreationThreads";
+
+    /**
+     * Number of threads a SocketAcceptor or SocketInitiator uses to process
+     * messages. It is read from the default section. The default of 1 processes
+     * the messages of all sessions on one thread. With more threads, each
+     * session is assigned to one of them, so the messages of a session are still
+     * processed in order. A value of 0 uses one thread per available processor.
+     *
+     * @see quickfix.mina.ShardedEventHandlingStrategy
+     */
+    String SETTING_MESSAGE_PROCESSOR_THREADS = "MessageProcessorThreads";
+
+    /**
+     * Wait strategy of the ring buffer a connector uses to queue the received
+     * messages for processing: BLOCKING, YIELDING or BUSY_SPIN. The ring buffer
+     * takes no locks and allocates no nodes, but YIELDING and BUSY_SPIN keep the
+     * processing threads busy while they wait. It is read from the default
+     * section. If it is not set, a LinkedBlockingQueue is used.
+     */
+    String SETTING_RING_BUFFER_WAIT_STRATEGY = "RingBufferWaitStrategy";
+
+    /**
+     * Maximum number of queued messages a SocketAcceptor or SocketInitiator
+     * thread takes and processes at once. After each batch, an application
+     * implementing {@link ApplicationBatchAware} is notified for every session
+     * that had messages in it. It is read from the default section. The default
+     * is 1.
+     */
+    String SETTING_MESSAGE_PROCESSOR_BATCH_SIZE = "MessageProcessorBatchSize";
+
+    /**
+     * Runs the dispatcher of each session of a ThreadedSocketAcceptor or
+     * ThreadedSocketInitiator on a virtual thread instead of a platform thread,
+     * so that many sessions do not need as many platform threads. It needs
+     * Java 21 or later and is read from the default section. The default is N.
+     */
+    String SETTING_USE_VIRTUAL_THREADS = "UseVirtualThreads";
+
+    /**
+     * Times the sessions of a connector with a timer wheel, which calls
+     * Session.next() for a session only when its next heartbeat, test request,
+     * timeout or schedule check is due, instead of every second for every
+     * session. It is read from the default section. The default is N.
+     */
+    String SETTING_SESSION_TIMER_WHEEL = "SessionTimerWheel";
+
+    /**
+     * The number of threads on which the timer wheel of a connector runs the
+     * due sessions, see {@link #SETTING_SESSION_TIMER_WHEEL}. With 1 they run on
+     * the timer thread itself. It is read from the default section and is not
+     * used with an ExecutorFactory. The default is 1.
+     */
+    String SETTING_SESSION_TIMER_THREADS = "SessionTimerThreads";
+
     String ACCEPTOR_CONNECTION_TYPE = "acceptor";
     String INITIATOR_CONNECTION_TYPE = "initiator";
 
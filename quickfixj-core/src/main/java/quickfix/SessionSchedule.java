@@ -43,4 +43,16 @@ public interface SessionSchedule {
      */
     boolean isSessionTime();
 
+    /**
+     * Returns the time after which {@link #isSessionTime()} may change, i.e. the
+     * next start or end of the session. The default implementation does not
+     * know the boundaries of the schedule and returns one second from now.
+     *
+     * @return the time in milliseconds, or Long.MAX_VALUE if the session time
+     *         never changes
+     */
+    default long getNextSessionTimeChange() {
+        return isNonStopSession() ? Long.MAX_VALUE : SystemTime.currentTimeMillis() + 1000L;
+    }
+
 }
@@ -207,7 +207,7 @@ public final class SessionState {
         }
     }
 
-    private long getLogoutTimeoutMs() {
+    long getLogoutTimeoutMs() {
         synchronized (lock) {
             return logoutTimeoutMs;
         }
@@ -257,7 +257,7 @@ public final class SessionState {
         return messageStore;
     }
 
-    private int getTestRequestCounter() {
+    int getTestRequestCounter() {
         synchronized (lock) {
             return testRequestCounter;
         }
@@ -302,6 +302,10 @@ public final class SessionState {
         messageStore.get(first, last, messages);
     }
 
+    public void get(int first, int last, MessageStore.MessageConsumer consumer) throws IOException {
+        messageStore.get(first, last, consumer);
+    }
+
     public void enqueue(int sequence, Message message) {
         messageQueue.put(sequence, message);
     }
@@ -511,6 +515,11 @@ public final class SessionState {
 		public void onIncoming(String message) {
         }
 
+        @Override
+        public boolean isIncomingEnabled() {
+            return false;
+        }
+
         @Override
 		public void onEvent(String text) {
         }
@@ -217,8 +217,8 @@ public class SleepycatStore implements MessageStore {
         try {
             DatabaseEntry sequenceKey = new DatabaseEntry();
             EntryBinding sequenceBinding = TupleBinding.getPrimitiveBinding(Integer.class);
-            // Must start at start-1 because db will look for next record larger
-            sequenceBinding.objectToEntry(startSequence - 1, sequenceKey);
+            // the db looks for the first record at or after the key
+            sequenceBinding.objectToEntry(startSequence, sequenceKey);
 
             cursor = messageDatabase.openCursor(null, null);
             DatabaseEntry messageBytes = new DatabaseEntry();
@@ -235,7 +235,10 @@ public class SleepycatStore implements MessageStore {
                         log.debug("Found record {}=>{} for search key/data: {}=>{}",
                                 sequenceNumber, new String(messageBytes.getData(), charsetEncoding), sequenceKey, messageBytes);
                     }
-                    cursor.getNext(sequenceKey, messageBytes, LockMode.DEFAULT);
+                    // the key is left unchanged after the last record
+                    if (cursor.getNext(sequenceKey, messageBytes, LockMode.DEFAULT) == OperationStatus.NOTFOUND) {
+                        break;
+                    }
                     sequenceNumber = (Integer) sequenceBinding.entryToObject(sequenceKey);
                 }
             }
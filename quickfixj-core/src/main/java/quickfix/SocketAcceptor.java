@@ -20,16 +20,17 @@
 package quickfix;
 
 import quickfix.mina.EventHandlingStrategy;
-import quickfix.mina.SingleThreadedEventHandlingStrategy;
+import quickfix.mina.AbstractQueuedEventHandlingStrategy;
 import quickfix.mina.acceptor.AbstractSocketAcceptor;
 
 /**
  * Accepts connections and uses a single thread to process messages for all
- * sessions.
+ * sessions. With {@link SessionFactory#SETTING_MESSAGE_PROCESSOR_THREADS} the
+ * sessions are spread over a fixed number of threads instead.
  */
 public class SocketAcceptor extends AbstractSocketAcceptor {
     private volatile Boolean isStarted = Boolean.FALSE;
-    private final SingleThreadedEventHandlingStrategy eventHandlingStrategy;
+    private final AbstractQueuedEventHandlingStrategy eventHandlingStrategy;
 
     private SocketAcceptor(Builder builder) throws ConfigError {
         super(builder.application, builder.messageStoreFactory, builder.settings,
@@ -37,10 +38,10 @@ public class SocketAcceptor extends AbstractSocketAcceptor {
 
         if (builder.queueCapacity >= 0) {
             eventHandlingStrategy
-                    = new SingleThreadedEventHandlingStrategy(this, builder.queueCapacity);
+                    = newQueuedEventHandlingStrategy(builder.queueCapacity);
         } else {
             eventHandlingStrategy
-                    = new SingleThreadedEventHandlingStrategy(this, builder.queueLowerWatermark, builder.queueUpperWatermark);
+                    = newQueuedEventHandlingStrategy(builder.queueLowerWatermark, builder.queueUpperWatermark);
         }
     }
 
@@ -64,37 +65,37 @@ public class SocketAcceptor extends AbstractSocketAcceptor {
             int queueCapacity)
             throws ConfigError {
         super(application, messageStoreFactory, settings, logFactory, messageFactory);
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, queueCapacity);
+        eventHandlingStrategy = newQueuedEventHandlingStrategy(queueCapacity);
     }
 
     public SocketAcceptor(Application application, MessageStoreFactory messageStoreFactory,
             SessionSettings settings, LogFactory logFactory, MessageFactory messageFactory)
             throws ConfigError {
         super(application, messageStoreFactory, settings, logFactory, messageFactory);
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, DEFAULT_QUEUE_CAPACITY);
+        eventHandlingStrategy = newQueuedEventHandlingStrategy(DEFAULT_QUEUE_CAPACITY);
     }
 
     public SocketAcceptor(Application application, MessageStoreFactory messageStoreFactory,
             SessionSettings settings, MessageFactory messageFactory, int queueCapacity) throws ConfigError {
         super(application, messageStoreFactory, settings, messageFactory);
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, queueCapacity);
+        eventHandlingStrategy = newQueuedEventHandlingStrategy(queueCapacity);
     }
 
     public SocketAcceptor(Application application, MessageStoreFactory messageStoreFactory,
             SessionSettings settings, MessageFactory messageFactory) throws ConfigError {
         super(application, messageStoreFactory, settings, messageFactory);
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, DEFAULT_QUEUE_CAPACITY);
+        eventHandlingStrategy = newQueuedEventHandlingStrategy(DEFAULT_QUEUE_CAPACITY);
     }
 
     public SocketAcceptor(SessionFactory sessionFactory, SessionSettings settings,
             int queueCapacity) throws ConfigError {
         super(settings, sessionFactory);
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, queueCapacity);
+        eventHandlingStrategy = newQueuedEventHandlingStrategy(queueCapacity);
     }
 
     public SocketAcceptor(SessionFactory sessionFactory, SessionSettings settings) throws ConfigError {
         super(settings, sessionFactory);
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, DEFAULT_QUEUE_CAPACITY);
+        eventHandlingStrategy = newQueuedEventHandlingStrategy(DEFAULT_QUEUE_CAPACITY);
     }
 
     @Override
@@ -20,16 +20,17 @@
 package quickfix;
 
 import quickfix.mina.EventHandlingStrategy;
-import quickfix.mina.SingleThreadedEventHandlingStrategy;
+import quickfix.mina.AbstractQueuedEventHandlingStrategy;
 import quickfix.mina.initiator.AbstractSocketInitiator;
 
 /**
  * Initiates connections and uses a single thread to process messages for all
- * sessions.
+ * sessions. With {@link SessionFactory#SETTING_MESSAGE_PROCESSOR_THREADS} the
+ * sessions are spread over a fixed number of threads instead.
  */
 public class SocketInitiator extends AbstractSocketInitiator {
     private volatile Boolean isStarted = Boolean.FALSE;
-    private final SingleThreadedEventHandlingStrategy eventHandlingStrategy;
+    private final AbstractQueuedEventHandlingStrategy eventHandlingStrategy;
 
     private SocketInitiator(Builder builder) throws ConfigError {
         super(builder.application, builder.messageStoreFactory, builder.settings,
@@ -37,10 +38,10 @@ public class SocketInitiator extends AbstractSocketInitiator {
 
         if (builder.queueCapacity >= 0) {
             eventHandlingStrategy
-                    = new SingleThreadedEventHandlingStrategy(this, builder.queueCapacity);
+                    = newQueuedEventHandlingStrategy(builder.queueCapacity);
         } else {
             eventHandlingStrategy
-                    = new SingleThreadedEventHandlingStrategy(this, builder.queueLowerWatermark, builder.queueUpperWatermark);
+                    = newQueuedEventHandlingStrategy(builder.queueLowerWatermark, builder.queueUpperWatermark);
         }
     }
 
@@ -66,7 +67,7 @@ public class SocketInitiator extends AbstractSocketInitiator {
         if (settings == null) {
             throw new ConfigError("no settings");
         }
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, queueCapacity);
+        eventHandlingStrategy = newQueuedEventHandlingStrategy(queueCapacity);
     }
 
     public SocketInitiator(Application application, MessageStoreFactory messageStoreFactory,
@@ -76,7 +77,7 @@ public class SocketInitiator extends AbstractSocketInitiator {
         if (settings == null) {
             throw new ConfigError("no settings");
         }
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, DEFAULT_QUEUE_CAPACITY);
+        eventHandlingStrategy = newQueuedEventHandlingStrategy(DEFAULT_QUEUE_CAPACITY);
     }
 
     public SocketInitiator(Application application, MessageStoreFactory messageStoreFactory,
@@ -86,7 +87,7 @@ public class SocketInitiator extends AbstractSocketInitiator {
         if (settings == null) {
             throw new ConfigError("no settings");
         }
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, DEFAULT_QUEUE_CAPACITY);
+        eventHandlingStrategy = newQueuedEventHandlingStrategy(DEFAULT_QUEUE_CAPACITY);
     }
 
     public SocketInitiator(Application application, MessageStoreFactory messageStoreFactory,
@@ -97,13 +98,13 @@ public class SocketInitiator extends AbstractSocketInitiator {
         if (settings == null) {
             throw new ConfigError("no settings");
         }
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, queueCapacity);
+        eventHandlingStrategy = newQueuedEventHandlingStrategy(queueCapacity);
     }
 
     public SocketInitiator(SessionFactory sessionFactory, SessionSettings settings,
            int queueCapacity) throws ConfigError {
         super(settings, sessionFactory);
-        eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(this, queueCapacity);
+        eventHandlingStrategy = newQueuedEventHandlingStrategy(queueCapacity);
     }
 
     @Override
@@ -99,6 +99,7 @@ public class ThreadedSocketAcceptor extends AbstractSocketAcceptor {
 
     @Override
     public void start() throws ConfigError, RuntimeError {
+    	eventHandlingStrategy.setVirtualThreads(isUseVirtualThreads());
     	eventHandlingStrategy.setExecutor(longLivedExecutor);
         startAcceptingConnections();
     }
@@ -101,6 +101,7 @@ public class ThreadedSocketInitiator extends AbstractSocketInitiator {
 
     @Override
     public void start() throws ConfigError, RuntimeError {
+    	eventHandlingStrategy.setVirtualThreads(isUseVirtualThreads());
     	eventHandlingStrategy.setExecutor(longLivedExecutor);
         createSessionInitiators();
         startInitiators();
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Field storage backed by a {@link TreeMap}.
+ */
+final class TreeMapFieldStorage implements FieldStorage {
+
+    private final TreeMap<Integer, Field<?>> fields;
+
+    TreeMapFieldStorage(int[] fieldOrder) {
+        fields = new TreeMap<>(fieldOrder != null ? new FieldOrderComparator(fieldOrder) : null);
+    }
+
+    @Override
+    public Field<?> get(int tag) {
+        return fields.get(tag);
+    }
+
+    @Override
+    public void put(int tag, Field<?> field) {
+        fields.put(tag, field);
+    }
+
+    @Override
+    public void remove(int tag) {
+        fields.remove(tag);
+    }
+
+    @Override
+    public boolean containsKey(int tag) {
+        return fields.containsKey(tag);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return fields.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        fields.clear();
+    }
+
+    @Override
+    public void putAll(FieldStorage source) {
+        if (source instanceof TreeMapFieldStorage) {
+            fields.putAll(((TreeMapFieldStorage) source).fields);
+        } else {
+            source.forEachEntry(this::put);
+        }
+    }
+
+    @Override
+    public void forEachEntry(EntryConsumer consumer) {
+        for (Map.Entry<Integer, Field<?>> entry : fields.entrySet()) {
+            consumer.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public Iterator<Field<?>> iterator() {
+        return fields.values().iterator();
+    }
+
+    private static final class FieldOrderComparator implements Comparator<Integer> {
+
+        private final int[] fieldOrder;
+
+        FieldOrderComparator(int[] fieldOrder) {
+            this.fieldOrder = fieldOrder;
+        }
+
+        private int rank(int field) {
+            int index = FieldMap.indexOf(field, fieldOrder);
+            return index > -1 ? index : Integer.MAX_VALUE; // unspecified fields are last
+        }
+
+        @Override
+        public int compare(Integer tag1, Integer tag2) {
+            int rank1 = rank(tag1);
+            int rank2 = rank(tag2);
+
+            return rank1 != Integer.MAX_VALUE || rank2 != Integer.MAX_VALUE
+                    ? rank1 - rank2 // order by rank if it is specified for either tag
+                    : tag1 - tag2; // order by tag if both tags have unspecified ordering
+        }
+    }
+}
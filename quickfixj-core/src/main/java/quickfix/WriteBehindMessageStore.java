@@ -0,0 +1,560 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Message store that acknowledges writes once they are in memory and writes
+ * them to another store on a background thread.
+ * <p>
+ * Messages are kept in a ring of bounded capacity. A background thread
+ * writes the messages and sequence numbers set since its last batch to the
+ * underlying store, where only the last of several sequence number updates
+ * is written. The background threads are shared by the stores of a factory,
+ * each batch is written by a separate task so that the stores take turns.
+ * A writer blocks while the ring is full of messages that have not been
+ * written yet. Messages are read from the ring if it holds every message of
+ * the requested range, otherwise from the underlying store once all pending
+ * writes have been written.
+ * <p>
+ * Pending writes are lost in a crash. They are flushed before a reset or a
+ * refresh and, if configured, on logout and close. If the underlying store
+ * fails, the error is logged and the batch is retried. From then on every
+ * write, read and flush fails with the error, even once a retry succeeded,
+ * until the store is refreshed or reset.
+ *
+ * @see quickfix.WriteBehindMessageStoreFactory
+ */
+public class WriteBehindMessageStore implements MessageStore, Closeable {
+
+    // the background threads stop after being idle for this long
+    private static final long IDLE_SECONDS = 60;
+    private static final long RETRY_MILLIS = 1000;
+
+    private final MessageStore store;
+    private final SessionID sessionID;
+    private final boolean flushOnLogout;
+    private final boolean flushOnClose;
+    private final ScheduledExecutorService executor;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition drained = lock.newCondition();
+    // serializes the calls to the underlying store
+    private final Lock storeLock = new ReentrantLock();
+
+    private final int capacity;
+    private final int[] ringSequences;
+    private final String[] ringMessages;
+    // positions of the next message to add and of the next message to write,
+    // the ring index is the position modulo the capacity
+    private long head;
+    private long tail;
+    private int nextSenderMsgSeqNum;
+    private int nextTargetMsgSeqNum;
+    private boolean senderMsgSeqNumPending;
+    private boolean targetMsgSeqNumPending;
+    private Date creationTime;
+    private boolean draining;
+    private boolean closed;
+    // kept until a refresh or reset, so that no failure goes unreported
+    private IOException failure;
+
+    WriteBehindMessageStore(MessageStore store, SessionID sessionID, int capacity,
+            boolean flushOnLogout, boolean flushOnClose) throws IOException {
+        this(store, sessionID, capacity, flushOnLogout, flushOnClose, newExecutor(1));
+    }
+
+    WriteBehindMessageStore(MessageStore store, SessionID sessionID, int capacity,
+            boolean flushOnLogout, boolean flushOnClose, ScheduledExecutorService executor)
+            throws IOException {
+        this.store = store;
+        this.sessionID = sessionID;
+        this.capacity = capacity;
+        this.flushOnLogout = flushOnLogout;
+        this.flushOnClose = flushOnClose;
+        this.executor = executor;
+        ringSequences = new int[capacity];
+        ringMessages = new String[capacity];
+        load();
+    }
+
+    /**
+     * Loads the sequence numbers and the creation time of the underlying
+     * store and clears the ring. Requires that nothing is pending.
+     */
+    private void load() throws IOException {
+        nextSenderMsgSeqNum = store.getNextSenderMsgSeqNum();
+        nextTargetMsgSeqNum = store.getNextTargetMsgSeqNum();
+        creationTime = store.getCreationTime();
+        Arrays.fill(ringMessages, null);
+        head = 0;
+        tail = 0;
+    }
+
+    /**
+     * Creates an executor for the background writes of several stores. Its
+     * threads are daemon threads that stop while there is nothing to write.
+     *
+     * @param threads the maximum number of stores written concurrently
+     */
+    static ScheduledExecutorService newExecutor(int threads) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "QFJ Write-Behind-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(IDLE_SECONDS, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Returns the store the writes are written to.
+     */
+    public MessageStore getStore() {
+        return store;
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#set(int, java.lang.String)
+     */
+    @Override
+    public boolean set(int sequence, String message) throws IOException {
+        lock.lock();
+        try {
+            checkFailure();
+            while (head - tail == capacity) {
+                checkFailure();
+                drained.await();
+            }
+            final int index = (int) (head % capacity);
+            ringSequences[index] = sequence;
+            ringMessages[index] = message;
+            head++;
+            signalWritten();
+            return true;
+        } catch (InterruptedException e) {
+            throw interrupted();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#get(int, int, java.util.Collection)
+     */
+    @Override
+    public void get(int startSequence, int endSequence, Collection<String> messages)
+            throws IOException {
+        lock.lock();
+        try {
+            checkFailure();
+            if (startSequence <= endSequence && (long) endSequence - startSequence < capacity) {
+                // the latest message of each sequence number, sorted
+                final TreeMap<Integer, String> messagesFound = new TreeMap<>();
+                for (long position = Math.max(0, head - capacity); position < head; position++) {
+                    final int index = (int) (position % capacity);
+                    final int sequence = ringSequences[index];
+                    if (sequence >= startSequence && sequence <= endSequence) {
+                        messagesFound.put(sequence, ringMessages[index]);
+                    }
+                }
+                if (messagesFound.size() == endSequence - startSequence + 1) {
+                    messages.addAll(messagesFound.values());
+                    return;
+                }
+            }
+            awaitDrained();
+        } finally {
+            lock.unlock();
+        }
+        storeLock.lock();
+        try {
+            store.get(startSequence, endSequence, messages);
+        } finally {
+            storeLock.unlock();
+        }
+    }
+
+    /**
+     * Passes the messages from the ring if it holds every message of the range,
+     * otherwise from the underlying store once all pending writes have been
+     * written. The underlying store is read without serializing it with the
+     * background thread, as the consumer may wait for a writer that waits for
+     * the background thread. The stores allow a read concurrent to a write as
+     * they do without write-behind.
+     *
+     * @see quickfix.MessageStore#get(int, int, quickfix.MessageStore.MessageConsumer)
+     */
+    @Override
+    public void get(int startSequence, int endSequence, MessageConsumer consumer)
+            throws IOException {
+        if (startSequence <= endSequence && (long) endSequence - startSequence < capacity) {
+            final ArrayList<String> messages = new ArrayList<>();
+            get(startSequence, endSequence, messages);
+            for (final String message : messages) {
+                consumer.accept(message);
+            }
+            return;
+        }
+        lock.lock();
+        try {
+            awaitDrained();
+        } finally {
+            lock.unlock();
+        }
+        store.get(startSequence, endSequence, consumer);
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#getNextSenderMsgSeqNum()
+     */
+    @Override
+    public int getNextSenderMsgSeqNum() throws IOException {
+        lock.lock();
+        try {
+            return nextSenderMsgSeqNum;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#getNextTargetMsgSeqNum()
+     */
+    @Override
+    public int getNextTargetMsgSeqNum() throws IOException {
+        lock.lock();
+        try {
+            return nextTargetMsgSeqNum;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#setNextSenderMsgSeqNum(int)
+     */
+    @Override
+    public void setNextSenderMsgSeqNum(int next) throws IOException {
+        lock.lock();
+        try {
+            checkFailure();
+            nextSenderMsgSeqNum = next;
+            senderMsgSeqNumPending = true;
+            signalWritten();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#setNextTargetMsgSeqNum(int)
+     */
+    @Override
+    public void setNextTargetMsgSeqNum(int next) throws IOException {
+        lock.lock();
+        try {
+            checkFailure();
+            nextTargetMsgSeqNum = next;
+            targetMsgSeqNumPending = true;
+            signalWritten();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#incrNextSenderMsgSeqNum()
+     */
+    @Override
+    public void incrNextSenderMsgSeqNum() throws IOException {
+        lock.lock();
+        try {
+            checkFailure();
+            nextSenderMsgSeqNum++;
+            senderMsgSeqNumPending = true;
+            signalWritten();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#incrNextTargetMsgSeqNum()
+     */
+    @Override
+    public void incrNextTargetMsgSeqNum() throws IOException {
+        lock.lock();
+        try {
+            checkFailure();
+            nextTargetMsgSeqNum++;
+            targetMsgSeqNumPending = true;
+            signalWritten();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#getCreationTime()
+     */
+    @Override
+    public Date getCreationTime() throws IOException {
+        lock.lock();
+        try {
+            return creationTime;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see quickfix.MessageStore#reset()
+     */
+    @Override
+    public void reset() throws IOException {
+        lock.lock();
+        try {
+            // the pending writes are retried
+            failure = null;
+            awaitDrained();
+            storeLock.lock();
+            try {
+                store.reset();
+                load();
+            } finally {
+                storeLock.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see quickfix.RefreshableMessageStore#refresh()
+     */
+    @Override
+    public void refresh() throws IOException {
+        lock.lock();
+        try {
+            // the pending writes are retried
+            failure = null;
+            awaitDrained();
+            storeLock.lock();
+            try {
+                store.refresh();
+                load();
+            } finally {
+                storeLock.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until all pending writes have been written to the underlying store.
+     *
+     * @throws IOException if writing to the underlying store failed
+     */
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            awaitDrained();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called by the session on logout.
+     */
+    void onLogout() throws IOException {
+        if (flushOnLogout) {
+            flush();
+        }
+    }
+
+    /**
+     * Flushes the pending writes if configured, otherwise they are discarded,
+     * and closes the underlying store if it is closeable. Writes that cannot
+     * be flushed are discarded as well and the failure is thrown once the
+     * underlying store is closed.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException flushFailure = null;
+        lock.lock();
+        try {
+            if (flushOnClose) {
+                try {
+                    awaitDrained();
+                } catch (IOException e) {
+                    flushFailure = e;
+                }
+            }
+            tail = head;
+            senderMsgSeqNumPending = false;
+            targetMsgSeqNumPending = false;
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        if (store instanceof Closeable) {
+            storeLock.lock();
+            try {
+                ((Closeable) store).close();
+            } finally {
+                storeLock.unlock();
+            }
+        }
+        if (flushFailure != null) {
+            throw flushFailure;
+        }
+    }
+
+    private boolean isPending() {
+        return tail != head || senderMsgSeqNumPending || targetMsgSeqNumPending;
+    }
+
+    private void signalWritten() {
+        if (!draining) {
+            draining = true;
+            executor.execute(this::drain);
+        }
+    }
+
+    private void awaitDrained() throws IOException {
+        try {
+            checkFailure();
+            while (isPending()) {
+                drained.await();
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            throw interrupted();
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Writing to the message store failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    private static IOException interrupted() {
+        Thread.currentThread().interrupt();
+        return new InterruptedIOException("Interrupted while waiting for the message store");
+    }
+
+    /**
+     * Writes one batch to the underlying store. The task is submitted again
+     * while there are pending writes, or scheduled for a retry if the batch
+     * failed.
+     */
+    private void drain() {
+        final long start;
+        final long end;
+        final boolean writeSenderMsgSeqNum;
+        final boolean writeTargetMsgSeqNum;
+        final int senderMsgSeqNum;
+        final int targetMsgSeqNum;
+        lock.lock();
+        try {
+            if (closed || !isPending()) {
+                draining = false;
+                return;
+            }
+            start = tail;
+            end = head;
+            writeSenderMsgSeqNum = senderMsgSeqNumPending;
+            writeTargetMsgSeqNum = targetMsgSeqNumPending;
+            senderMsgSeqNum = nextSenderMsgSeqNum;
+            targetMsgSeqNum = nextTargetMsgSeqNum;
+            senderMsgSeqNumPending = false;
+            targetMsgSeqNumPending = false;
+        } finally {
+            lock.unlock();
+        }
+
+        // the messages are not overwritten before the tail has moved past them
+        IOException error = null;
+        try {
+            storeLock.lock();
+            try {
+                for (long position = start; position < end; position++) {
+                    final int index = (int) (position % capacity);
+                    store.set(ringSequences[index], ringMessages[index]);
+                }
+                if (writeSenderMsgSeqNum) {
+                    store.setNextSenderMsgSeqNum(senderMsgSeqNum);
+                }
+                if (writeTargetMsgSeqNum) {
+                    store.setNextTargetMsgSeqNum(targetMsgSeqNum);
+                }
+            } finally {
+                storeLock.unlock();
+            }
+        } catch (IOException | RuntimeException e) {
+            error = e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+
+        lock.lock();
+        try {
+            if (error == null) {
+                // the tail may have been moved by discarding on close
+                tail = Math.max(tail, end);
+            } else {
+                senderMsgSeqNumPending |= writeSenderMsgSeqNum;
+                targetMsgSeqNumPending |= writeTargetMsgSeqNum;
+                failure = error;
+            }
+            drained.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (error != null) {
+            LogUtil.logThrowable(sessionID, "Error writing to message store, retrying", error);
+            executor.schedule(this::drain, RETRY_MILLIS, TimeUnit.MILLISECONDS);
+        } else {
+            // lets the stores sharing the executor take turns
+            executor.execute(this::drain);
+        }
+    }
+}
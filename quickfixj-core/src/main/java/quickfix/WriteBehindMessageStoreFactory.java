@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Creates message stores that write to the stores of another factory on
+ * background threads, which are shared by the stores of the factory.
+ *
+ * @see quickfix.WriteBehindMessageStore
+ */
+public class WriteBehindMessageStoreFactory implements MessageStoreFactory {
+
+    /**
+     * Numeric option for the number of messages kept in memory. Writers block
+     * while this many messages have not been written to the underlying store.
+     * The default is 8192.
+     */
+    public static final String SETTING_WRITE_BEHIND_STORE_CAPACITY = "WriteBehindStoreCapacity";
+
+    /**
+     * Boolean option for waiting until the pending writes have been written
+     * to the underlying store on logout. The default is Y.
+     */
+    public static final String SETTING_WRITE_BEHIND_STORE_FLUSH_ON_LOGOUT = "WriteBehindStoreFlushOnLogout";
+
+    /**
+     * Boolean option for waiting until the pending writes have been written
+     * to the underlying store when the session is closed. Otherwise they are
+     * discarded. The default is Y.
+     */
+    public static final String SETTING_WRITE_BEHIND_STORE_FLUSH_ON_CLOSE = "WriteBehindStoreFlushOnClose";
+
+    /**
+     * Numeric option for the number of background threads writing to the
+     * underlying stores. The threads are shared by all stores of the factory,
+     * so the option is read from the default section. The default is 1.
+     */
+    public static final String SETTING_WRITE_BEHIND_STORE_THREADS = "WriteBehindStoreThreads";
+
+    private final MessageStoreFactory factory;
+    private final SessionSettings settings;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Create the factory with configuration in session settings.
+     *
+     * @param factory the factory of the underlying stores
+     * @param settings
+     */
+    public WriteBehindMessageStoreFactory(MessageStoreFactory factory, SessionSettings settings) {
+        this.factory = factory;
+        this.settings = settings;
+    }
+
+    /**
+     * Creates a write-behind message store.
+     *
+     * @param sessionID session ID for the message store.
+     */
+    @Override
+    public MessageStore create(SessionID sessionID) {
+        try {
+            int capacity = 8192;
+            if (settings.isSetting(sessionID, SETTING_WRITE_BEHIND_STORE_CAPACITY)) {
+                long capacitySetting = settings.getLong(sessionID, SETTING_WRITE_BEHIND_STORE_CAPACITY);
+                if (capacitySetting > 0 && capacitySetting <= Integer.MAX_VALUE) {
+                    capacity = (int) capacitySetting;
+                }
+            }
+            boolean flushOnLogout = true;
+            if (settings.isSetting(sessionID, SETTING_WRITE_BEHIND_STORE_FLUSH_ON_LOGOUT)) {
+                flushOnLogout = settings.getBool(sessionID, SETTING_WRITE_BEHIND_STORE_FLUSH_ON_LOGOUT);
+            }
+            boolean flushOnClose = true;
+            if (settings.isSetting(sessionID, SETTING_WRITE_BEHIND_STORE_FLUSH_ON_CLOSE)) {
+                flushOnClose = settings.getBool(sessionID, SETTING_WRITE_BEHIND_STORE_FLUSH_ON_CLOSE);
+            }
+            return new WriteBehindMessageStore(factory.create(sessionID), sessionID, capacity,
+                    flushOnLogout, flushOnClose, getExecutor());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private synchronized ScheduledExecutorService getExecutor() throws ConfigError, FieldConvertError {
+        if (executor == null) {
+            int threads = 1;
+            if (settings.isSetting(SETTING_WRITE_BEHIND_STORE_THREADS)) {
+                threads = (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+                        settings.getLong(SETTING_WRITE_BEHIND_STORE_THREADS)));
+            }
+            executor = WriteBehindMessageStore.newExecutor(threads);
+        }
+        return executor;
+    }
+}
@@ -30,6 +30,7 @@ import quickfix.InvalidMessage;
 import quickfix.Log;
 import quickfix.LogUtil;
 import quickfix.Message;
+import quickfix.MessageBytes;
 import quickfix.MessageUtils;
 import static quickfix.MessageUtils.parse;
 import quickfix.Session;
@@ -124,31 +125,23 @@ public abstract class AbstractIoHandler extends IoHandlerAdapter {
 
     @Override
     public void messageReceived(IoSession ioSession, Object message) throws Exception {
+        if (deferParsing(ioSession, message)) {
+            return;
+        }
+        if (message instanceof MessageBytes) {
+            messageBytesReceived(ioSession, (MessageBytes) message);
+            return;
+        }
         String messageString = (String) message;
         SessionID remoteSessionID = MessageUtils.getReverseSessionID(messageString);
         Session quickFixSession = findQFSession(ioSession, remoteSessionID);
         if (quickFixSession != null) {
-            final boolean rejectGarbledMessage = quickFixSession.isRejectGarbledMessage();
-            final Log sessionLog = quickFixSession.getLog();
-            sessionLog.onIncoming(messageString);
+            quickFixSession.getLog().onIncoming(messageString);
             try {
                 Message fixMessage = parse(quickFixSession, messageString);
                 processMessage(ioSession, fixMessage);
             } catch (InvalidMessage e) {
-                if (rejectGarbledMessage) {
-                    final Message fixMessage = e.getFixMessage();
-                    if ( fixMessage != null ) {
-                        sessionLog.onErrorEvent("Processing garbled message: " + e.getMessage());
-                        processMessage(ioSession, fixMessage);
-                        return;
-                    }
-                }
-                if (MessageUtils.isLogon(messageString)) {
-                    sessionLog.onErrorEvent("Invalid LOGON message, disconnecting: " + e.getMessage());
-                    ioSession.closeNow();
-                } else {
-                    sessionLog.onErrorEvent("Invalid message: " + e.getMessage());
-                }
+                processGarbledMessage(ioSession, handleInvalidMessage(ioSession, quickFixSession, messageString, e));
             }
         } else {
             log.error("Disconnecting; received message for unknown session: {}", messageString);
@@ -156,6 +149,111 @@ public abstract class AbstractIoHandler extends IoHandlerAdapter {
         }
     }
 
+    private void messageBytesReceived(IoSession ioSession, MessageBytes messageBytes) throws Exception {
+        Session quickFixSession = findQFSession(ioSession);
+        if (quickFixSession == null) {
+            // only identify the session from the message until it has been bound
+            quickFixSession = findQFSession(ioSession, MessageUtils.getReverseSessionID(messageBytes));
+        }
+        if (quickFixSession != null) {
+            // the message string is only built here if the log needs it
+            if (quickFixSession.getLog().isIncomingEnabled()) {
+                quickFixSession.getLog().onIncoming(messageBytes.toString());
+            }
+            try {
+                Message fixMessage = parse(quickFixSession, messageBytes);
+                processMessage(ioSession, fixMessage);
+            } catch (InvalidMessage e) {
+                processGarbledMessage(ioSession,
+                        handleInvalidMessage(ioSession, quickFixSession, messageBytes.toString(), e));
+            }
+        } else {
+            log.error("Disconnecting; received message for unknown session: {}", messageBytes);
+            ioSession.closeNow();
+        }
+    }
+
+    /**
+     * Passes the message on unparsed if parsing is deferred and the session of
+     * the connection is known. Until then, the messages (the logon of an
+     * acceptor) are parsed here, as they are needed to find the session.
+     * Only the event handling strategies of QFJ take unparsed messages,
+     * other strategies get them parsed here.
+     */
+    private boolean deferParsing(IoSession ioSession, Object message) {
+        if (!Boolean.TRUE.equals(networkingOptions.getDeferMessageParsing())) {
+            return false;
+        }
+        final Session quickFixSession = findQFSession(ioSession);
+        if (quickFixSession == null) {
+            return false;
+        }
+        if (eventHandlingStrategy instanceof AbstractQueuedEventHandlingStrategy) {
+            ((AbstractQueuedEventHandlingStrategy) eventHandlingStrategy).onUnparsedMessage(this, ioSession,
+                    quickFixSession, message);
+            return true;
+        }
+        if (eventHandlingStrategy instanceof ThreadPerSessionEventHandlingStrategy) {
+            ((ThreadPerSessionEventHandlingStrategy) eventHandlingStrategy).onUnparsedMessage(this, ioSession,
+                    quickFixSession, message);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Logs and parses a message that was passed on unparsed, on the thread
+     * processing the messages of the session.
+     *
+     * @return the message to process, or null if it is invalid
+     */
+    Message parseDeferred(IoSession ioSession, Session quickFixSession, Object message) {
+        if (quickFixSession.getLog().isIncomingEnabled()) {
+            quickFixSession.getLog().onIncoming(message.toString());
+        }
+        try {
+            final Message fixMessage = message instanceof MessageBytes
+                    ? parse(quickFixSession, (MessageBytes) message)
+                    : parse(quickFixSession, (String) message);
+            messageParsed(ioSession, quickFixSession, fixMessage);
+            return fixMessage;
+        } catch (InvalidMessage e) {
+            final Message fixMessage = handleInvalidMessage(ioSession, quickFixSession, message.toString(), e);
+            if (fixMessage != null) {
+                messageParsed(ioSession, quickFixSession, fixMessage);
+            }
+            return fixMessage;
+        }
+    }
+
+    private void processGarbledMessage(IoSession ioSession, Message fixMessage) throws Exception {
+        if (fixMessage != null) {
+            processMessage(ioSession, fixMessage);
+        }
+    }
+
+    /**
+     * @return the garbled message if it is to be processed (and rejected), otherwise null
+     */
+    private Message handleInvalidMessage(IoSession ioSession, Session quickFixSession, String messageString,
+            InvalidMessage e) {
+        final Log sessionLog = quickFixSession.getLog();
+        if (quickFixSession.isRejectGarbledMessage()) {
+            final Message fixMessage = e.getFixMessage();
+            if ( fixMessage != null ) {
+                sessionLog.onErrorEvent("Processing garbled message: " + e.getMessage());
+                return fixMessage;
+            }
+        }
+        if (MessageUtils.isLogon(messageString)) {
+            sessionLog.onErrorEvent("Invalid LOGON message, disconnecting: " + e.getMessage());
+            ioSession.closeNow();
+        } else {
+            sessionLog.onErrorEvent("Invalid message: " + e.getMessage());
+        }
+        return null;
+    }
+
     protected Session findQFSession(IoSession ioSession, SessionID sessionID) {
         Session quickfixSession = findQFSession(ioSession);
         if (quickfixSession == null) {
@@ -174,4 +272,13 @@ public abstract class AbstractIoHandler extends IoHandlerAdapter {
 
     protected abstract void processMessage(IoSession ioSession, Message message) throws Exception;
 
+    /**
+     * Called for a message of a connection with a known session that was
+     * parsed after being passed on unparsed, before it is processed by the
+     * session. It is called by the thread processing the messages of the
+     * session and takes the place of {@link #processMessage(IoSession, Message)}.
+     */
+    protected void messageParsed(IoSession ioSession, Session quickFixSession, Message message) {
+    }
+
 }
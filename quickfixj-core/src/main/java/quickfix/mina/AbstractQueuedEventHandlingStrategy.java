@@ -0,0 +1,383 @@
+/*
+ ******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.mina;
+
+import org.apache.mina.core.session.IoSession;
+import quickfix.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static quickfix.mina.QueueTrackers.newDefaultQueueTracker;
+import static quickfix.mina.QueueTrackers.newEvent;
+import static quickfix.mina.QueueTrackers.newMultiSessionWatermarkTracker;
+import static quickfix.mina.QueueTrackers.releaseEvents;
+
+/**
+ * Base of the strategies that put the messages of the sessions on queues and
+ * process each queue on a message processor thread, in batches of up to
+ * {@link SessionFactory#SETTING_MESSAGE_PROCESSOR_BATCH_SIZE} events.
+ */
+public abstract class AbstractQueuedEventHandlingStrategy implements EventHandlingStrategy {
+    final SessionConnector sessionConnector;
+    private final int batchSize;
+    private volatile boolean isStopped;
+    private Executor executor;
+    private long stopTime = 0L;
+
+    AbstractQueuedEventHandlingStrategy(SessionConnector connector) {
+        sessionConnector = connector;
+        batchSize = getBatchSize(connector);
+    }
+
+    /**
+     * @return the batch size given by {@link SessionFactory#SETTING_MESSAGE_PROCESSOR_BATCH_SIZE}
+     */
+    static int getBatchSize(SessionConnector connector) {
+        final SessionSettings settings = connector != null ? connector.getSettings() : null;
+        if (settings == null || !settings.isSetting(SessionFactory.SETTING_MESSAGE_PROCESSOR_BATCH_SIZE)) {
+            return 1;
+        }
+        try {
+            return (int) Math.min(Integer.MAX_VALUE,
+                    Math.max(1, settings.getLong(SessionFactory.SETTING_MESSAGE_PROCESSOR_BATCH_SIZE)));
+        } catch (ConfigError | FieldConvertError e) {
+            throw new RuntimeError(e);
+        }
+    }
+
+    /**
+     * @return a watermark tracker if both watermarks are set, otherwise a default tracker
+     */
+    static QueueTracker<SessionMessageEvent> newQueueTracker(BlockingQueue<SessionMessageEvent> eventQueue,
+            int queueLowerWatermark, int queueUpperWatermark) {
+        if (queueLowerWatermark > 0 && queueUpperWatermark > 0) {
+            return newMultiSessionWatermarkTracker(eventQueue, queueLowerWatermark, queueUpperWatermark,
+                    SessionMessageEvent::getSession);
+        }
+        return newDefaultQueueTracker(eventQueue);
+    }
+
+    /**
+     * Sets the executor that runs the message processors. Each of them takes
+     * a thread of the executor for as long as messages are handled.
+     *
+     * @param executor the executor, or null to run them on dedicated threads
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return the queue that the events of the session are put on
+     */
+    abstract BlockingQueue<SessionMessageEvent> getEventQueue(Session quickfixSession);
+
+    /**
+     * @return the tracker of the queue that the events of the session are put on
+     */
+    abstract QueueTracker<SessionMessageEvent> getQueueTracker(Session quickfixSession);
+
+    @Override
+    public void onMessage(Session quickfixSession, Message message) {
+        if (message == END_OF_STREAM && isStopped) {
+            return;
+        }
+        try {
+            final SessionMessageEvent event = newEvent(getEventQueue(quickfixSession));
+            event.set(quickfixSession, message);
+            getQueueTracker(quickfixSession).put(event);
+        } catch (InterruptedException e) {
+            isStopped = true;
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Queues a received message whose parsing is deferred to the message
+     * processor thread.
+     */
+    void onUnparsedMessage(AbstractIoHandler ioHandler, IoSession ioSession, Session quickfixSession,
+            Object frame) {
+        try {
+            final SessionMessageEvent event = newEvent(getEventQueue(quickfixSession));
+            event.setUnparsed(ioHandler, ioSession, quickfixSession, frame);
+            getQueueTracker(quickfixSession).put(event);
+        } catch (InterruptedException e) {
+            isStopped = true;
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public SessionConnector getSessionConnector() {
+        return sessionConnector;
+    }
+
+    /**
+     * Start handling of messages by the message processor threads.
+     * If threads are still alive, an attempt is made to stop them.
+     * An IllegalStateException is thrown if stopping the old threads
+     * was not successful.
+     *
+     * This method must not be called by several threads concurrently.
+     */
+    public abstract void blockInThread();
+
+    synchronized void startHandlingMessages() {
+        isStopped = false;
+    }
+
+    /**
+     * Starts a message processor thread for a queue. It processes the events
+     * of the queue until handling of messages is stopped.
+     *
+     * @param name the name of the thread
+     * @param eventQueue the queue
+     * @param queueTracker the tracker of the queue
+     * @return the started thread
+     */
+    ThreadAdapter startMessageProcessor(String name, BlockingQueue<SessionMessageEvent> eventQueue,
+            QueueTracker<SessionMessageEvent> queueTracker) {
+        final ThreadAdapter thread = new ThreadAdapter(() -> {
+            sessionConnector.log.info("Started {}", name);
+            block(eventQueue, queueTracker);
+            sessionConnector.log.info("Stopped {}", name);
+        }, name, executor);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void block(BlockingQueue<SessionMessageEvent> eventQueue,
+            QueueTracker<SessionMessageEvent> queueTracker) {
+        final EventBatch eventBatch = new EventBatch(batchSize);
+        while (true) {
+            // only the stop is synchronized, the threads of a sharded strategy
+            // do not contend for the lock while they process messages
+            if (isStopped) {
+                synchronized (this) {
+                    if (!eventQueue.isEmpty()) {
+                        final List<SessionMessageEvent> tempList = new ArrayList<>(eventQueue.size());
+                        queueTracker.drainTo(tempList);
+                        eventBatch.processAll(tempList);
+                        releaseEvents(eventQueue);
+                    }
+                    if (stopTime == 0) {
+                        stopTime = SystemTime.currentTimeMillis();
+                    }
+                    if (!sessionConnector.isLoggedOn() || SystemTime.currentTimeMillis() - stopTime > 5000L) {
+                        sessionConnector.stopSessionTimer();
+                        // reset the stoptime
+                        stopTime = 0;
+                    }
+                }
+                return;
+            }
+            try {
+                SessionMessageEvent event = queueTracker.poll(THREAD_WAIT_FOR_MESSAGE_MS, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    eventBatch.process(event, queueTracker);
+                    releaseEvents(eventQueue);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Stops processing of messages without waiting for the message processing
+     * threads to finish.
+     *
+     * It is advised to call stopHandlingMessages(true) instead of this method.
+     */
+    public synchronized void stopHandlingMessages() {
+        for (Session session : sessionConnector.getSessionMap().values()) {
+            onMessage(session, END_OF_STREAM);
+        }
+        isStopped = true;
+    }
+
+    /**
+     * Stops processing of messages and optionally waits for the message
+     * processing threads to finish.
+     *
+     * @param join true to wait for the threads to finish
+     */
+    public abstract void stopHandlingMessages(boolean join);
+
+    /**
+     * Processes an event together with the events queued behind it, up to the
+     * batch size, and then ends the batch for the sessions of the events. The
+     * events are cleared afterwards. It is used by a single message processing
+     * thread.
+     */
+    static final class EventBatch {
+        private final int batchSize;
+        private final List<SessionMessageEvent> events = new ArrayList<>();
+        private final Set<Session> sessions = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        EventBatch(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        void process(SessionMessageEvent first, QueueTracker<SessionMessageEvent> queueTracker) {
+            events.add(first);
+            if (batchSize > 1) {
+                queueTracker.drainTo(events, batchSize - 1);
+            }
+            process();
+        }
+
+        /**
+         * Processes the events drained from the queue when handling of
+         * messages is stopped, in batches of the batch size.
+         */
+        void processAll(List<SessionMessageEvent> drained) {
+            for (int i = 0; i < drained.size(); i += batchSize) {
+                events.addAll(drained.subList(i, (int) Math.min(drained.size(), (long) i + batchSize)));
+                process();
+            }
+        }
+
+        private void process() {
+            try {
+                for (SessionMessageEvent event : events) {
+                    event.processMessage();
+                    sessions.add(event.getSession());
+                }
+                for (Session session : sessions) {
+                    try {
+                        session.endOfBatch();
+                    } catch (Throwable e) {
+                        LogUtil.logThrowable(session.getSessionID(), e.getMessage(), e);
+                    }
+                }
+            } finally {
+                for (SessionMessageEvent event : events) {
+                    event.clear();
+                }
+                events.clear();
+                sessions.clear();
+            }
+        }
+    }
+
+	/**
+	 * A stand-in for the Thread class that delegates to an Executor.
+	 * Implements all the API required by pre-existing QFJ code.
+	 */
+	static final class ThreadAdapter {
+
+		private final Executor executor;
+		private final RunnableWrapper wrapper;
+
+		ThreadAdapter(Runnable command, String name, Executor executor) {
+                    wrapper = new RunnableWrapper(command, name);
+                    this.executor = executor != null ? executor : new DedicatedThreadExecutor(name);
+		}
+
+		public void join() throws InterruptedException {
+                    wrapper.join();
+		}
+
+		public void setDaemon(boolean b) {
+                    /* No-Op. Already set for DedicatedThreadExecutor. Not relevant for externally supplied Executors. */
+		}
+
+		public boolean isAlive() {
+                    return wrapper.isAlive();
+		}
+
+		public void start() {
+                    executor.execute(wrapper);
+		}
+                
+		/**
+		 * Provides the Thread::join and Thread::isAlive semantics on the nested Runnable.
+		 */
+		static final class RunnableWrapper implements Runnable {
+
+			private final CountDownLatch latch = new CountDownLatch(1);
+			private final Runnable command;
+			private final String name;
+
+			public RunnableWrapper(Runnable command, String name) {
+                            this.command = command;
+                            this.name = name;
+			}
+
+                        @Override
+                        public void run() {
+                            Thread currentThread = Thread.currentThread();
+                            String threadName = currentThread.getName();
+                            try {
+                                if (!name.equals(threadName)) {
+                                    currentThread.setName(name + " (" + threadName + ")");
+                                }
+                                command.run();
+                            } finally {
+                                latch.countDown();
+                                currentThread.setName(threadName);
+                            }
+                        }
+
+			public void join() throws InterruptedException {
+                            latch.await();
+			}
+
+			public boolean isAlive() {
+                            return latch.getCount() > 0;
+			}
+		}
+
+		/**
+		 * An Executor that uses its own dedicated Thread.
+		 * Provides equivalent behavior to the prior non-Executor approach.
+		 */
+		static final class DedicatedThreadExecutor implements Executor {
+
+			private final String name;
+                        private Thread thread;
+			
+			DedicatedThreadExecutor(String name) {
+				this.name = name;
+			}
+
+			@Override
+			public void execute(Runnable command) {
+				thread = new Thread(command, name);
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+
+	}
+
+}
@@ -48,6 +48,8 @@ public class NetworkingOptions {
     private final Integer trafficClass;
     private final Boolean synchronousWrites;
     private final Integer synchronousWriteTimeout;
+    private final Boolean decodeMessageBytes;
+    private final Boolean deferMessageParsing;
 
     public static final String SETTING_SOCKET_KEEPALIVE = "SocketKeepAlive";
     public static final String SETTING_SOCKET_OOBINLINE = "SocketOobInline";
@@ -59,6 +61,8 @@ public class NetworkingOptions {
     public static final String SETTING_SOCKET_TRAFFIC_CLASS = "SocketTrafficClass";
     public static final String SETTING_SOCKET_SYNCHRONOUS_WRITES = "SocketSynchronousWrites";
     public static final String SETTING_SOCKET_SYNCHRONOUS_WRITE_TIMEOUT = "SocketSynchronousWriteTimeout";
+    public static final String SETTING_SOCKET_DECODE_MESSAGE_BYTES = "SocketDecodeMessageBytes";
+    public static final String SETTING_SOCKET_DEFER_MESSAGE_PARSING = "SocketDeferMessageParsing";
 
     public static final String IPTOC_LOWCOST = "IPTOS_LOWCOST";
     public static final String IPTOC_RELIABILITY = "IPTOS_RELIABILITY";
@@ -83,6 +87,8 @@ public class NetworkingOptions {
         tcpNoDelay = getBoolean(properties, SETTING_SOCKET_TCP_NODELAY, Boolean.TRUE);
         synchronousWrites = getBoolean(properties, SETTING_SOCKET_SYNCHRONOUS_WRITES, Boolean.FALSE);
         synchronousWriteTimeout = getInteger(properties, SETTING_SOCKET_SYNCHRONOUS_WRITE_TIMEOUT, 30000);
+        decodeMessageBytes = getBoolean(properties, SETTING_SOCKET_DECODE_MESSAGE_BYTES, Boolean.FALSE);
+        deferMessageParsing = getBoolean(properties, SETTING_SOCKET_DEFER_MESSAGE_PARSING, Boolean.FALSE);
 
         Integer trafficClassSetting;
         try {
@@ -165,4 +171,21 @@ public class NetworkingOptions {
     public Integer getSynchronousWriteTimeout() {
         return synchronousWriteTimeout;
     }
+
+    /**
+     * @return whether the codec passes incoming messages on as
+     *         {@link quickfix.MessageBytes} instead of strings
+     */
+    public Boolean getDecodeMessageBytes() {
+        return decodeMessageBytes;
+    }
+
+    /**
+     * @return whether the messages of a connection are passed on unparsed once
+     *         its session is known, so that they are logged and parsed by the
+     *         thread processing them instead of the I/O thread
+     */
+    public Boolean getDeferMessageParsing() {
+        return deferMessageParsing;
+    }
 }
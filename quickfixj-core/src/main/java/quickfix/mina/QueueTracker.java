@@ -7,4 +7,5 @@ interface QueueTracker<E> {
     void put(E e) throws InterruptedException;
     E poll(long timeout, TimeUnit unit) throws InterruptedException;
     int drainTo(Collection<E> collection);
+    int drainTo(Collection<E> collection, int maxElements);
 }
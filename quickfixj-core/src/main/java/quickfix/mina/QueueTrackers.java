@@ -1,11 +1,16 @@
 package quickfix.mina;
 
 import org.apache.mina.core.session.IoSession;
+import quickfix.ConfigError;
 import quickfix.Responder;
+import quickfix.RuntimeError;
 import quickfix.Session;
+import quickfix.SessionFactory;
+import quickfix.SessionSettings;
 
 import java.util.Collection;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
@@ -17,6 +22,7 @@ import static java.lang.String.format;
 final class QueueTrackers {
 	private static final String LOWER_WATERMARK_FMT = "inbound queue size < lower watermark (%d), socket reads resumed";
 	private static final String UPPER_WATERMARK_FMT = "inbound queue size > upper watermark (%d), socket reads suspended";
+	private static final int DEFAULT_RING_BUFFER_CAPACITY = 16384;
 
 	/**
 	 * Watermarks-based queue tracker
@@ -30,6 +36,84 @@ final class QueueTrackers {
 				qfSession -> suspendReads(qfSession, (int)upperWatermark));
 	}
 
+	/**
+	 * Queue of the given capacity. It is a {@link RingBufferQueue} if the
+	 * connector sets {@link SessionFactory#SETTING_RING_BUFFER_WAIT_STRATEGY}.
+	 */
+	static BlockingQueue<SessionMessageEvent> newQueue(SessionConnector connector, int capacity) {
+		final RingBufferQueue.WaitStrategy waitStrategy = getRingBufferWaitStrategy(connector);
+		return waitStrategy != null ? new RingBufferQueue<>(capacity, waitStrategy, SessionMessageEvent::new)
+				: new LinkedBlockingQueue<>(capacity);
+	}
+
+	/**
+	 * Queue without a capacity, which is used with watermarks. A
+	 * {@link RingBufferQueue} is bounded, so it gets a default capacity.
+	 */
+	static BlockingQueue<SessionMessageEvent> newQueue(SessionConnector connector) {
+		final RingBufferQueue.WaitStrategy waitStrategy = getRingBufferWaitStrategy(connector);
+		return waitStrategy != null
+				? new RingBufferQueue<>(DEFAULT_RING_BUFFER_CAPACITY, waitStrategy, SessionMessageEvent::new)
+				: new LinkedBlockingQueue<>();
+	}
+
+	/**
+	 * Queue without a capacity for the messages of a single session. As the reads
+	 * of the session are suspended above the upper watermark, a {@link RingBufferQueue}
+	 * gets twice the upper watermark, but not more than the default capacity.
+	 */
+	static BlockingQueue<SessionMessageEvent> newSingleSessionQueue(SessionConnector connector,
+			int queueUpperWatermark) {
+		final RingBufferQueue.WaitStrategy waitStrategy = getRingBufferWaitStrategy(connector);
+		if (waitStrategy == null) {
+			return new LinkedBlockingQueue<>();
+		}
+		final int capacity = queueUpperWatermark > 0
+				? (int) Math.min(DEFAULT_RING_BUFFER_CAPACITY, 2L * queueUpperWatermark)
+				: DEFAULT_RING_BUFFER_CAPACITY;
+		return new RingBufferQueue<>(capacity, waitStrategy, SessionMessageEvent::new);
+	}
+
+	/**
+	 * Event to fill in and put on the queue: the event of a claimed slot of a
+	 * {@link RingBufferQueue}, waiting for a free slot if it is full, otherwise
+	 * a new event.
+	 */
+	static SessionMessageEvent newEvent(BlockingQueue<SessionMessageEvent> queue) throws InterruptedException {
+		if (queue instanceof RingBufferQueue) {
+			return ((RingBufferQueue<SessionMessageEvent>) queue).claim();
+		}
+		return new SessionMessageEvent();
+	}
+
+	/**
+	 * Frees the slots of the events taken from a {@link RingBufferQueue}, which
+	 * have to be cleared by now.
+	 */
+	static void releaseEvents(BlockingQueue<SessionMessageEvent> queue) {
+		if (queue instanceof RingBufferQueue) {
+			((RingBufferQueue<SessionMessageEvent>) queue).release();
+		}
+	}
+
+	private static RingBufferQueue.WaitStrategy getRingBufferWaitStrategy(SessionConnector connector) {
+		final SessionSettings settings = connector != null ? connector.getSettings() : null;
+		if (settings == null || !settings.isSetting(SessionFactory.SETTING_RING_BUFFER_WAIT_STRATEGY)) {
+			return null;
+		}
+		try {
+			final String waitStrategy = settings.getString(SessionFactory.SETTING_RING_BUFFER_WAIT_STRATEGY);
+			try {
+				return RingBufferQueue.WaitStrategy.valueOf(waitStrategy.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				throw new RuntimeError("Invalid " + SessionFactory.SETTING_RING_BUFFER_WAIT_STRATEGY + ": "
+						+ waitStrategy);
+			}
+		} catch (ConfigError e) {
+			throw new RuntimeError(e);
+		}
+	}
+
 	/**
 	 * Default no-op queue tracker
 	 */
@@ -49,6 +133,11 @@ final class QueueTrackers {
 			public int drainTo(Collection<E> collection) {
 				return queue.drainTo(collection);
 			}
+
+			@Override
+			public int drainTo(Collection<E> collection, int maxElements) {
+				return queue.drainTo(collection, maxElements);
+			}
 		};
 	}
 
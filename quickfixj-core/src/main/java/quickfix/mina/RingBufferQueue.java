@@ -0,0 +1,377 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix.mina;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * A bounded queue for many producers and a single consumer, backed by a
+ * pre-allocated array. Unlike a {@link java.util.concurrent.LinkedBlockingQueue}
+ * it neither allocates a node per element nor takes a lock, and the elements
+ * themselves are reused: each slot owns an element, a {@link Slot}.
+ * <p>
+ * A producer claims a slot with {@link #claim()}, which increments the tail,
+ * fills in the element of the slot and puts it on the queue with
+ * {@link #put(Slot)} or {@link #offer(Slot)}. Other elements cannot be put on
+ * the queue. The consumer takes elements with poll, take or drainTo, processes
+ * them and clears them, and then frees their slots with {@link #release()},
+ * which advances the head. Only one thread may take elements from the queue,
+ * which is the message processing thread of the event handling strategies.
+ * How the consumer waits for elements, and the producers for free slots,
+ * is given by the {@link WaitStrategy}.
+ * <p>
+ * The array has the capacity rounded up to a power of two, so a queue of the
+ * default capacity of 10000 takes 16384 slots, 64 KB with compressed
+ * references, even while it is empty. The element of a slot is created when
+ * the slot is first claimed, so the elements take memory for as many
+ * elements as the queue has held at once.
+ *
+ * @param <E> element type
+ */
+final class RingBufferQueue<E extends RingBufferQueue.Slot> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    /**
+     * How a thread waits for the queue.
+     */
+    enum WaitStrategy {
+        /**
+         * Parks the waiting thread until it is woken by the other side. Uses
+         * the least CPU but adds the latency of waking a thread.
+         */
+        BLOCKING,
+        /**
+         * Yields the CPU while waiting.
+         */
+        YIELDING,
+        /**
+         * Spins while waiting, which gives the lowest latency but occupies a
+         * CPU core. It yields now and then, so that it does not starve a thread
+         * of the other side running on the same core.
+         */
+        BUSY_SPIN
+    }
+
+    /**
+     * The element owned by a slot of the queue.
+     */
+    abstract static class Slot {
+        // the position of the claimed slot, or -1 if the element is not claimed
+        long sequence = -1;
+    }
+
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int SPINS_PER_YIELD = 1024;
+
+    private final Object[] elements;
+    // 1 while the element of the slot is on the queue
+    private final AtomicIntegerArray published;
+    private final Supplier<E> elementFactory;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    // the slots before the head are free, those from the head to the tail are claimed
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    // the next element to take, the elements from the head to it are taken but not released
+    private final AtomicLong next = new AtomicLong();
+    private volatile Thread waitingConsumer;
+
+    /**
+     * @param capacity the minimum capacity, which is rounded up to a power of two
+     * @param waitStrategy how to wait for elements or free slots
+     * @param elementFactory creates the element of a slot
+     */
+    RingBufferQueue(int capacity, WaitStrategy waitStrategy, Supplier<E> elementFactory) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        final int size = Integer.highestOneBit(capacity) == capacity ? capacity
+                : Integer.highestOneBit(capacity) << 1;
+        elements = new Object[size];
+        published = new AtomicIntegerArray(size);
+        mask = size - 1;
+        this.waitStrategy = waitStrategy;
+        this.elementFactory = elementFactory;
+    }
+
+    /**
+     * Claims a slot, waiting for a free one if the queue is full.
+     *
+     * @return the element of the slot, which has to be put on the queue
+     * @throws InterruptedException if interrupted while waiting
+     */
+    E claim() throws InterruptedException {
+        int spins = 0;
+        E e;
+        while ((e = tryClaim()) == null) {
+            waitForSlot(++spins);
+        }
+        return e;
+    }
+
+    /**
+     * Claims a slot if the queue is not full.
+     *
+     * @return the element of the slot, which has to be put on the queue,
+     *         or null if the queue is full
+     */
+    E tryClaim() {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head.get() > mask) {
+                return null;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        final int index = (int) t & mask;
+        E e = elementAt(index);
+        if (e == null) {
+            // only the producer that claimed the slot writes it
+            e = elementFactory.get();
+            elements[index] = e;
+        }
+        e.sequence = t;
+        return e;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E elementAt(int index) {
+        return (E) elements[index];
+    }
+
+    /**
+     * Puts a claimed element on the queue, which always succeeds.
+     *
+     * @throws IllegalArgumentException if the element has not been claimed
+     */
+    @Override
+    public boolean offer(E e) {
+        final long sequence = e.sequence;
+        final int index = (int) sequence & mask;
+        if (sequence < 0 || elements[index] != e) {
+            throw new IllegalArgumentException("Element not claimed from the queue: " + e);
+        }
+        e.sequence = -1;
+        published.set(index, 1);
+        final Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    @Override
+    public void put(E e) {
+        offer(e);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) {
+        return offer(e);
+    }
+
+    private void waitForSlot(int spins) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (waitStrategy == WaitStrategy.BLOCKING) {
+            // the consumer does not wake producers, a full queue is rare
+            LockSupport.parkNanos(this, PARK_NANOS);
+        } else {
+            spin(spins);
+        }
+    }
+
+    private void spin(int spins) {
+        if (waitStrategy == WaitStrategy.YIELDING || spins % SPINS_PER_YIELD == 0) {
+            Thread.yield();
+        } else {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Takes the next element. Its slot stays claimed until it is released
+     * with {@link #release()}.
+     */
+    @Override
+    public E poll() {
+        final long n = next.get();
+        final int index = (int) n & mask;
+        if (published.get(index) == 0) {
+            // empty, or the producer has claimed the slot but not yet put its element
+            return null;
+        }
+        published.lazySet(index, 0);
+        next.lazySet(n + 1);
+        return elementAt(index);
+    }
+
+    /**
+     * Frees the slots of the elements taken so far. The consumer has to be
+     * done with the elements, as producers reuse them from now on.
+     */
+    void release() {
+        head.lazySet(next.get());
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = poll();
+        if (e != null) {
+            return e;
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int spins = 0;
+        while (true) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            if (waitStrategy == WaitStrategy.BLOCKING) {
+                waitingConsumer = Thread.currentThread();
+                try {
+                    // check again, a producer may have missed the waiting consumer
+                    if (peek() == null) {
+                        LockSupport.parkNanos(this, remaining);
+                    }
+                } finally {
+                    waitingConsumer = null;
+                }
+            } else {
+                spin(++spins);
+            }
+            e = poll();
+            if (e != null) {
+                return e;
+            }
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e;
+        do {
+            e = poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } while (e == null);
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        final int index = (int) next.get() & mask;
+        return published.get(index) != 0 ? elementAt(index) : null;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * @return the number of elements that are claimed or on the queue, but
+     *         not yet taken
+     */
+    @Override
+    public int size() {
+        final long size = tail.get() - next.get();
+        return (int) Math.max(0, Math.min(size, mask + 1));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        final long used = tail.get() - head.get();
+        return (int) Math.max(0, mask + 1 - used);
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements that are on the
+     * queue. It may miss elements that are put or taken while iterating, and
+     * it does not support removal, so neither does {@link #remove(Object)}.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    private final class Itr implements Iterator<E> {
+        private final long end = tail.get();
+        private long position = RingBufferQueue.this.next.get();
+        private E next;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && position < end) {
+                final int index = (int) position & mask;
+                final E e = published.get(index) != 0 ? elementAt(index) : null;
+                final long n = RingBufferQueue.this.next.get();
+                if (n > position) {
+                    // taken meanwhile, the slot may already hold a later element
+                    position = n;
+                } else if (e == null) {
+                    // claimed, but not yet on the queue
+                    return false;
+                } else {
+                    next = e;
+                    position++;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final E e = next;
+            next = null;
+            return e;
+        }
+    }
+}
@@ -38,19 +38,24 @@ import java.beans.PropertyChangeSupport;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.mina.core.future.CloseFuture;
 import org.apache.mina.core.service.IoService;
 
@@ -74,7 +79,13 @@ public abstract class SessionConnector implements Connector {
     private final static ScheduledExecutorService scheduledExecutorService = Executors
             .newSingleThreadScheduledExecutor(new QFTimerThreadFactory());
     private ScheduledFuture<?> sessionTimerFuture;
+    private final boolean useSessionTimerWheel;
+    private final int sessionTimerThreads;
+    private volatile SessionTimerWheel sessionTimerWheel;
+    private ExecutorService sessionTimerExecutor;
     private IoFilterChainBuilder ioFilterChainBuilder;
+    private volatile int sessionsToCreate;
+    private final AtomicInteger createdSessionCount = new AtomicInteger();
 
     protected Executor longLivedExecutor;
     protected Executor shortLivedExecutor;
@@ -85,6 +96,14 @@ public abstract class SessionConnector implements Connector {
         if (settings == null) {
             throw new ConfigError("no settings");
         }
+        try {
+            useSessionTimerWheel = settings.isSetting(SessionFactory.SETTING_SESSION_TIMER_WHEEL)
+                    && settings.getBool(SessionFactory.SETTING_SESSION_TIMER_WHEEL);
+        } catch (FieldConvertError e) {
+            throw (ConfigError) new ConfigError(e.getMessage()).fillInStackTrace();
+        }
+        sessionTimerThreads = settings.isSetting(SessionFactory.SETTING_SESSION_TIMER_THREADS)
+                ? getIntSetting(SessionFactory.SETTING_SESSION_TIMER_THREADS) : 1;
     }
 
     /**
@@ -120,6 +139,10 @@ public abstract class SessionConnector implements Connector {
     protected void setSessions(Map<SessionID, Session> sessions) {
         clearConnectorSessions();
         this.sessions.putAll(sessions);
+        final SessionTimerWheel timerWheel = sessionTimerWheel;
+        if (timerWheel != null) {
+            sessions.values().forEach(timerWheel::add);
+        }
         propertyChangeSupport.firePropertyChange(SESSIONS_PROPERTY, null, sessions);
     }
 
@@ -129,6 +152,10 @@ public abstract class SessionConnector implements Connector {
      * Session.unregisterSessions().
      */
     protected void clearConnectorSessions() {
+        final SessionTimerWheel timerWheel = sessionTimerWheel;
+        if (timerWheel != null) {
+            sessions.keySet().forEach(timerWheel::remove);
+        }
         this.sessions.clear();
     }
 
@@ -165,12 +192,20 @@ public abstract class SessionConnector implements Connector {
 
     public void addDynamicSession(Session inSession) {
         sessions.put(inSession.getSessionID(), inSession);
+        final SessionTimerWheel timerWheel = sessionTimerWheel;
+        if (timerWheel != null) {
+            timerWheel.add(inSession);
+        }
         log.debug("adding session for {}", inSession.getSessionID());
         propertyChangeSupport.firePropertyChange(SESSIONS_PROPERTY, null, sessions);
     }
 
     public void removeDynamicSession(SessionID inSessionID) {
         sessions.remove(inSessionID);
+        final SessionTimerWheel timerWheel = sessionTimerWheel;
+        if (timerWheel != null) {
+            timerWheel.remove(inSessionID);
+        }
         log.debug("removing session for {}", inSessionID);
         propertyChangeSupport.firePropertyChange(SESSIONS_PROPERTY, null, sessions);
     }
@@ -183,6 +218,148 @@ public abstract class SessionConnector implements Connector {
         return sessionFactory.create(sessionID, settings);
     }
 
+    /**
+     * Creates the sessions with the given IDs, on the number of threads given by
+     * {@link SessionFactory#SETTING_SESSION_CREATION_THREADS}. The progress can be
+     * followed with {@link #getSessionsToCreate()} and {@link #getCreatedSessionCount()}.
+     *
+     * @param sessionIDs the IDs of the sessions to create
+     * @param continueOnError if true, a session that cannot be created is logged and left out
+     * @return the created sessions
+     * @throws ConfigError if a session cannot be created and continueOnError is false
+     */
+    protected Map<SessionID, Session> createSessions(List<SessionID> sessionIDs, boolean continueOnError)
+            throws ConfigError {
+        final long start = System.currentTimeMillis();
+        sessionsToCreate = sessionIDs.size();
+        createdSessionCount.set(0);
+        final int threads = Math.min(getSessionCreationThreads(), sessionIDs.size());
+        final Map<SessionID, Session> createdSessions = new HashMap<>();
+        if (threads <= 1) {
+            for (final SessionID sessionID : sessionIDs) {
+                try {
+                    createdSessions.put(sessionID, createSessionAndCount(sessionID));
+                } catch (final Throwable e) {
+                    sessionCreationFailed(e, continueOnError);
+                }
+            }
+        } else {
+            final ExecutorService executor = Executors.newFixedThreadPool(threads, new QFSessionCreatorThreadFactory());
+            try {
+                final List<Future<Session>> futures = new ArrayList<>(sessionIDs.size());
+                for (final SessionID sessionID : sessionIDs) {
+                    futures.add(executor.submit(() -> createSessionAndCount(sessionID)));
+                }
+                for (int i = 0; i < sessionIDs.size(); i++) {
+                    try {
+                        createdSessions.put(sessionIDs.get(i), futures.get(i).get());
+                    } catch (final ExecutionException e) {
+                        sessionCreationFailed(e.getCause(), continueOnError);
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConfigError("interrupted during session initialization", e);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        log.info("Created {} of {} sessions in {} ms", createdSessions.size(), sessionIDs.size(),
+                System.currentTimeMillis() - start);
+        return createdSessions;
+    }
+
+    private Session createSessionAndCount(SessionID sessionID) throws ConfigError {
+        final Session session = createSession(sessionID);
+        final int created = createdSessionCount.incrementAndGet();
+        // log about every tenth of the sessions
+        if (created % Math.max(1, sessionsToCreate / 10) == 0) {
+            log.info("Created {} of {} sessions", created, sessionsToCreate);
+        }
+        return session;
+    }
+
+    private void sessionCreationFailed(Throwable e, boolean continueOnError) throws ConfigError {
+        if (continueOnError) {
+            log.error("error during session initialization, continuing...", e);
+        } else if (e instanceof ConfigError) {
+            throw (ConfigError) e;
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        } else {
+            throw new ConfigError("error during session initialization", e);
+        }
+    }
+
+    private int getSessionCreationThreads() throws ConfigError {
+        if (settings.isSetting(SessionFactory.SETTING_SESSION_CREATION_THREADS)) {
+            return getIntSetting(SessionFactory.SETTING_SESSION_CREATION_THREADS);
+        }
+        return 1;
+    }
+
+    /**
+     * Returns the number of sessions being created on startup.
+     *
+     * @return the number of sessions to create
+     */
+    public int getSessionsToCreate() {
+        return sessionsToCreate;
+    }
+
+    /**
+     * Returns the number of sessions created so far on startup, which is less than
+     * {@link #getSessionsToCreate()} while the message stores are being loaded.
+     *
+     * @return the number of created sessions
+     */
+    public int getCreatedSessionCount() {
+        return createdSessionCount.get();
+    }
+
+    /**
+     * Creates the strategy of a connector that processes the messages of its
+     * sessions on the threads given by {@link SessionFactory#SETTING_MESSAGE_PROCESSOR_THREADS}.
+     *
+     * @param queueCapacity the capacity of the queue of each thread
+     * @return a single threaded or, with more than one thread, a sharded strategy
+     * @throws ConfigError if the setting is not a number
+     */
+    protected AbstractQueuedEventHandlingStrategy newQueuedEventHandlingStrategy(int queueCapacity)
+            throws ConfigError {
+        final int threads = getMessageProcessorThreads();
+        return threads > 1 ? new ShardedEventHandlingStrategy(this, queueCapacity, threads)
+                : new SingleThreadedEventHandlingStrategy(this, queueCapacity);
+    }
+
+    /**
+     * Creates the strategy of a connector that processes the messages of its
+     * sessions on the threads given by {@link SessionFactory#SETTING_MESSAGE_PROCESSOR_THREADS},
+     * using watermarks for the queue of each thread.
+     *
+     * @param queueLowerWatermark the watermark below which reads are resumed
+     * @param queueUpperWatermark the watermark above which reads are suspended
+     * @return a single threaded or, with more than one thread, a sharded strategy
+     * @throws ConfigError if the setting is not a number
+     */
+    protected AbstractQueuedEventHandlingStrategy newQueuedEventHandlingStrategy(int queueLowerWatermark,
+            int queueUpperWatermark) throws ConfigError {
+        final int threads = getMessageProcessorThreads();
+        return threads > 1
+                ? new ShardedEventHandlingStrategy(this, queueLowerWatermark, queueUpperWatermark, threads)
+                : new SingleThreadedEventHandlingStrategy(this, queueLowerWatermark, queueUpperWatermark);
+    }
+
+    private int getMessageProcessorThreads() throws ConfigError {
+        if (!settings.isSetting(SessionFactory.SETTING_MESSAGE_PROCESSOR_THREADS)) {
+            return 1;
+        }
+        final int threads = getIntSetting(SessionFactory.SETTING_MESSAGE_PROCESSOR_THREADS);
+        return threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+
     protected int getIntSetting(String key) throws ConfigError {
         try {
             return IntConverter.convert(settings.getString(key));
@@ -191,6 +368,22 @@ public abstract class SessionConnector implements Connector {
         }
     }
 
+    /**
+     * Returns whether a thread-per-session connector runs the dispatchers of
+     * its sessions on virtual threads, see {@link SessionFactory#SETTING_USE_VIRTUAL_THREADS}.
+     *
+     * @return true to use virtual threads
+     * @throws ConfigError if the setting is not a boolean
+     */
+    protected boolean isUseVirtualThreads() throws ConfigError {
+        try {
+            return settings.isSetting(SessionFactory.SETTING_USE_VIRTUAL_THREADS)
+                    && settings.getBool(SessionFactory.SETTING_USE_VIRTUAL_THREADS);
+        } catch (FieldConvertError e) {
+            throw (ConfigError) new ConfigError(e.getMessage()).fillInStackTrace();
+        }
+    }
+
     /**
      * Check if we have at least one session and that all the sessions are logged on
      *
@@ -316,6 +509,10 @@ public abstract class SessionConnector implements Connector {
     }
 
     protected void startSessionTimer() {
+        if (useSessionTimerWheel) {
+            startSessionTimerWheel();
+            return;
+        }
         Runnable timerTask = new SessionTimerTask();
         if (shortLivedExecutor != null) {
             timerTask = new DelegatingTask(timerTask, shortLivedExecutor);
@@ -325,21 +522,56 @@ public abstract class SessionConnector implements Connector {
         log.info("SessionTimer started");
     }
 
+    private void startSessionTimerWheel() {
+        Executor executor = shortLivedExecutor;
+        if (executor == null && sessionTimerThreads > 1) {
+            sessionTimerExecutor = Executors.newFixedThreadPool(sessionTimerThreads,
+                    new QFTimerWorkerThreadFactory());
+            executor = sessionTimerExecutor;
+        }
+        final SessionTimerWheel timerWheel = new SessionTimerWheel("QFJ Timer", executor,
+                SessionTimerWheel.DEFAULT_TICK_MILLIS);
+        timerWheel.start();
+        sessionTimerWheel = timerWheel;
+        // sessions added meanwhile are already in the wheel
+        sessions.values().forEach(timerWheel::add);
+        log.info("SessionTimer started with timer wheel");
+    }
+
     protected void stopSessionTimer() {
         if (sessionTimerFuture != null) {
             if (sessionTimerFuture.cancel(true))
                 log.info("SessionTimer canceled");
         }
+        final SessionTimerWheel timerWheel = sessionTimerWheel;
+        if (timerWheel != null) {
+            sessionTimerWheel = null;
+            timerWheel.stop();
+            if (sessionTimerExecutor != null) {
+                sessionTimerExecutor.shutdownNow();
+                sessionTimerExecutor = null;
+            }
+            log.info("SessionTimer canceled");
+        }
     }
 
     // visible for testing
     boolean checkSessionTimerRunning() {
+        final SessionTimerWheel timerWheel = sessionTimerWheel;
+        if (timerWheel != null) {
+            return timerWheel.isRunning();
+        }
         if ( sessionTimerFuture != null ) {
             return !sessionTimerFuture.isDone();
         }
         return false;
     }
 
+    // visible for testing
+    SessionTimerWheel getSessionTimerWheel() {
+        return sessionTimerWheel;
+    }
+
     protected ScheduledExecutorService getScheduledExecutorService() {
         return scheduledExecutorService;
     }
@@ -412,6 +644,28 @@ public abstract class SessionConnector implements Connector {
         }
     }
 
+    private static class QFSessionCreatorThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "QFJ Session Creator-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private static class QFTimerWorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "QFJ Timer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     private static class QFTimerThreadFactory implements ThreadFactory {
 
         @Override
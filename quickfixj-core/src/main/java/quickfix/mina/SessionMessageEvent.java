@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix.mina;
+
+import org.apache.mina.core.session.IoSession;
+import quickfix.FieldNotFound;
+import quickfix.IncorrectDataFormat;
+import quickfix.IncorrectTagValue;
+import quickfix.InvalidMessage;
+import quickfix.LogUtil;
+import quickfix.Message;
+import quickfix.RejectLogon;
+import quickfix.Session;
+import quickfix.UnsupportedMessageType;
+
+import java.io.IOException;
+
+/**
+ * A message queued for a session by the event handling strategies of QFJ.
+ * <p>
+ * The event holds either a parsed message, or a received message that has
+ * only been framed when parsing is deferred (see
+ * {@link NetworkingOptions#SETTING_SOCKET_DEFER_MESSAGE_PARSING}), so that
+ * the I/O thread does not log and parse it. The frame is parsed by the thread
+ * processing the event, which keeps the order of the messages of a session.
+ * <p>
+ * On a {@link RingBufferQueue} each slot owns an event, which the producer
+ * fills in and the consumer clears after processing it, so queuing a message
+ * does not allocate. Other queues get a new event per message.
+ */
+final class SessionMessageEvent extends RingBufferQueue.Slot {
+    private Session quickfixSession;
+    private Message message;
+    private AbstractIoHandler ioHandler;
+    private IoSession ioSession;
+    // a String or MessageBytes
+    private Object frame;
+
+    /**
+     * Sets a parsed message.
+     */
+    void set(Session session, Message message) {
+        quickfixSession = session;
+        this.message = message;
+    }
+
+    /**
+     * Sets a received message whose parsing is deferred.
+     */
+    void setUnparsed(AbstractIoHandler ioHandler, IoSession ioSession, Session session, Object frame) {
+        this.ioHandler = ioHandler;
+        this.ioSession = ioSession;
+        quickfixSession = session;
+        this.frame = frame;
+    }
+
+    Session getSession() {
+        return quickfixSession;
+    }
+
+    /**
+     * @return the parsed message, or null if parsing is deferred
+     */
+    Message getMessage() {
+        return message;
+    }
+
+    /**
+     * Passes the message to the session. A deferred message is parsed first;
+     * an invalid one is handled like on the I/O thread and is not passed on,
+     * unless it is a garbled message to be rejected.
+     */
+    void process() throws FieldNotFound, RejectLogon, IncorrectDataFormat, IncorrectTagValue,
+            UnsupportedMessageType, IOException, InvalidMessage {
+        if (frame == null) {
+            quickfixSession.next(message);
+            return;
+        }
+        final Message parsedMessage = ioHandler.parseDeferred(ioSession, quickfixSession, frame);
+        if (parsedMessage != null) {
+            quickfixSession.next(parsedMessage);
+        }
+    }
+
+    /**
+     * Passes the message to the session and logs an error it throws.
+     */
+    void processMessage() {
+        try {
+            process();
+        } catch (Throwable e) {
+            LogUtil.logThrowable(quickfixSession.getSessionID(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Drops the references of the event once it has been processed.
+     */
+    void clear() {
+        quickfixSession = null;
+        message = null;
+        ioHandler = null;
+        ioSession = null;
+        frame = null;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(frame != null ? frame : message);
+    }
+}
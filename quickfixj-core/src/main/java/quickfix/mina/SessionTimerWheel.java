@@ -0,0 +1,353 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix.mina;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import quickfix.LogUtil;
+import quickfix.Session;
+import quickfix.SessionID;
+import quickfix.SystemTime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A hashed timer wheel calling {@link Session#next()} for each of its sessions
+ * when the deadline returned by {@link Session#getNextTimerDeadline()} is due,
+ * instead of calling it for every session every second. Sessions that are
+ * logged on and idle are therefore only timed for their heartbeats.
+ * <p>
+ * The wheel is advanced by its own timer thread. The due sessions are run on
+ * the given executor, or on the timer thread if there is none, and are put
+ * back into the wheel with their next deadline afterwards. A session is never
+ * run by two threads at the same time.
+ * <p>
+ * The wheel is driven by {@link System#nanoTime()}. A deadline is converted to
+ * a delay from the current wall clock time when the session is put into the
+ * wheel, so that a step of the wall clock does not stop or skip the timing.
+ */
+final class SessionTimerWheel {
+
+    static final long DEFAULT_TICK_MILLIS = 100L;
+
+    // a power of two, for ticks of 100ms the wheel turns every 51.2s
+    private static final int WHEEL_SIZE = 512;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final Lock lock = new ReentrantLock();
+    private final Timeout[] wheel = new Timeout[WHEEL_SIZE];
+    private final Map<SessionID, Timeout> timeouts = new HashMap<>();
+    private final String name;
+    private final Executor executor;
+    private final long tickNanos;
+    private final LongSupplier nanoClock;
+    private final long origin;
+    private long tick;
+    private Thread thread;
+    private volatile boolean stopped;
+
+    /**
+     * @param name the name of the timer thread
+     * @param executor the executor running the due sessions, or null to run
+     *        them on the timer thread
+     * @param tickMillis the resolution of the wheel in milliseconds
+     */
+    SessionTimerWheel(String name, Executor executor, long tickMillis) {
+        this(name, executor, tickMillis, System::nanoTime);
+    }
+
+    SessionTimerWheel(String name, Executor executor, long tickMillis, LongSupplier nanoClock) {
+        this.name = name;
+        this.executor = executor;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.nanoClock = nanoClock;
+        origin = nanoClock.getAsLong();
+    }
+
+    void start() {
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        stopped = true;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        final List<Session> removed;
+        lock.lock();
+        try {
+            removed = new ArrayList<>(timeouts.size());
+            for (Timeout timeout : timeouts.values()) {
+                cancel(timeout);
+                removed.add(timeout.session);
+            }
+            timeouts.clear();
+        } finally {
+            lock.unlock();
+        }
+        for (Session session : removed) {
+            session.setTimerRescheduler(null);
+        }
+    }
+
+    boolean isRunning() {
+        return thread != null && !stopped && thread.isAlive();
+    }
+
+    /**
+     * Adds a session, which is run on the next tick.
+     */
+    void add(Session session) {
+        final Timeout timeout;
+        lock.lock();
+        try {
+            if (stopped || timeouts.containsKey(session.getSessionID())) {
+                return;
+            }
+            timeout = new Timeout(session);
+            timeouts.put(session.getSessionID(), timeout);
+            insert(timeout, tick + 1);
+        } finally {
+            lock.unlock();
+        }
+        session.setTimerRescheduler(() -> reschedule(timeout));
+    }
+
+    void remove(SessionID sessionID) {
+        final Timeout timeout;
+        lock.lock();
+        try {
+            timeout = timeouts.remove(sessionID);
+            if (timeout == null) {
+                return;
+            }
+            cancel(timeout);
+        } finally {
+            lock.unlock();
+        }
+        timeout.session.setTimerRescheduler(null);
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return timeouts.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the session to the next tick, or has it run again right after
+     * its current run.
+     */
+    private void reschedule(Timeout timeout) {
+        lock.lock();
+        try {
+            if (timeout.cancelled) {
+                return;
+            }
+            if (timeout.running) {
+                timeout.rescheduleRequested = true;
+            } else if (timeout.deadlineTick > tick + 1) {
+                unlink(timeout);
+                insert(timeout, tick + 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        long nextTickNanos = nanoClock.getAsLong() + tickNanos;
+        while (!stopped) {
+            final long sleepNanos = nextTickNanos - nanoClock.getAsLong();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+            nextTickNanos += tickNanos;
+            advance();
+        }
+        log.info("{} stopped", name);
+    }
+
+    /**
+     * Advances the wheel to the current time and runs the sessions that are due.
+     */
+    void advance() {
+        for (Timeout timeout : expire(nanoClock.getAsLong())) {
+            dispatch(timeout);
+        }
+    }
+
+    private List<Timeout> expire(long nowNanos) {
+        final List<Timeout> due = new ArrayList<>();
+        lock.lock();
+        try {
+            final long currentTick = Math.floorDiv(nowNanos - origin, tickNanos);
+            // every bucket is visited at most once, also after a jump of the clock
+            for (long t = Math.max(tick + 1, currentTick - WHEEL_SIZE + 1); t <= currentTick; t++) {
+                Timeout timeout = wheel[(int) (t & (WHEEL_SIZE - 1))];
+                while (timeout != null) {
+                    final Timeout next = timeout.next;
+                    if (timeout.deadlineTick <= currentTick) {
+                        unlink(timeout);
+                        timeout.running = true;
+                        due.add(timeout);
+                    }
+                    timeout = next;
+                }
+            }
+            if (currentTick > tick) {
+                tick = currentTick;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return due;
+    }
+
+    private void dispatch(Timeout timeout) {
+        if (executor == null) {
+            runSession(timeout);
+            return;
+        }
+        try {
+            executor.execute(() -> runSession(timeout));
+        } catch (RejectedExecutionException e) {
+            log.error("Error during timer processing", e);
+            complete(timeout, SystemTime.currentTimeMillis() + 1000L);
+        }
+    }
+
+    private void runSession(Timeout timeout) {
+        final Session session = timeout.session;
+        try {
+            session.next();
+        } catch (Throwable e) {
+            LogUtil.logThrowable(session.getSessionID(), "Error in session timer processing", e);
+        }
+        long deadline;
+        try {
+            deadline = session.getNextTimerDeadline();
+        } catch (Throwable e) {
+            deadline = SystemTime.currentTimeMillis() + 1000L;
+        }
+        complete(timeout, deadline);
+    }
+
+    private void complete(Timeout timeout, long deadline) {
+        lock.lock();
+        try {
+            timeout.running = false;
+            if (timeout.cancelled) {
+                return;
+            }
+            if (timeout.rescheduleRequested) {
+                timeout.rescheduleRequested = false;
+                insert(timeout, tick + 1);
+            } else {
+                insert(timeout, toTick(deadline));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long toTick(long deadline) {
+        final long delayNanos = TimeUnit.MILLISECONDS.toNanos(deadline - SystemTime.currentTimeMillis());
+        if (deadline == Long.MAX_VALUE || delayNanos >= Long.MAX_VALUE / 2) {
+            return Long.MAX_VALUE;
+        }
+        final long elapsedNanos = nanoClock.getAsLong() - origin + delayNanos;
+        // rounded up, so that a session does not run before its deadline
+        final long deadlineTick = -Math.floorDiv(-elapsedNanos, tickNanos);
+        return Math.max(deadlineTick, tick + 1);
+    }
+
+    private void insert(Timeout timeout, long deadlineTick) {
+        timeout.deadlineTick = deadlineTick;
+        // a session without a deadline is parked in the bucket of the current
+        // tick, where it is skipped until it is rescheduled
+        final int bucket = (int) ((deadlineTick == Long.MAX_VALUE ? tick : deadlineTick) & (WHEEL_SIZE - 1));
+        timeout.bucket = bucket;
+        timeout.prev = null;
+        timeout.next = wheel[bucket];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        wheel[bucket] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.bucket < 0) {
+            return;
+        }
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            wheel[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+    }
+
+    private void cancel(Timeout timeout) {
+        timeout.cancelled = true;
+        unlink(timeout);
+    }
+
+    /**
+     * The entry of a session in the wheel, guarded by the lock of the wheel.
+     */
+    static final class Timeout {
+        final Session session;
+        long deadlineTick;
+        int bucket = -1;
+        Timeout prev;
+        Timeout next;
+        boolean running;
+        boolean rescheduleRequested;
+        boolean cancelled;
+
+        Timeout(Session session) {
+            this.session = session;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix.mina;
+
+import quickfix.Session;
+import quickfix.SessionID;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static quickfix.mina.QueueTrackers.newDefaultQueueTracker;
+import static quickfix.mina.QueueTrackers.newQueue;
+import static quickfix.mina.SingleThreadedEventHandlingStrategy.MESSAGE_PROCESSOR_THREAD_NAME;
+
+/**
+ * Processes messages on a fixed number of threads. Each session is assigned to
+ * one of the threads by the hash of its session ID, so the messages of a session
+ * are processed in order by a single thread while different sessions are
+ * processed in parallel.
+ * <p>
+ * It is started and stopped like the {@link SingleThreadedEventHandlingStrategy},
+ * which allows the socket acceptor and initiator to use it in its place.
+ */
+public class ShardedEventHandlingStrategy extends AbstractQueuedEventHandlingStrategy {
+    private final Shard[] shards;
+
+    public ShardedEventHandlingStrategy(SessionConnector connector, int queueCapacity, int threads) {
+        super(connector);
+        shards = new Shard[threads];
+        for (int i = 0; i < threads; i++) {
+            final BlockingQueue<SessionMessageEvent> eventQueue = newQueue(connector, queueCapacity);
+            shards[i] = new Shard(MESSAGE_PROCESSOR_THREAD_NAME + "-" + (i + 1), eventQueue,
+                    newDefaultQueueTracker(eventQueue));
+        }
+    }
+
+    public ShardedEventHandlingStrategy(SessionConnector connector, int queueLowerWatermark,
+            int queueUpperWatermark, int threads) {
+        super(connector);
+        shards = new Shard[threads];
+        for (int i = 0; i < threads; i++) {
+            final BlockingQueue<SessionMessageEvent> eventQueue = newQueue(connector);
+            shards[i] = new Shard(MESSAGE_PROCESSOR_THREAD_NAME + "-" + (i + 1), eventQueue,
+                    newQueueTracker(eventQueue, queueLowerWatermark, queueUpperWatermark));
+        }
+    }
+
+    /**
+     * Sets the executor that runs the message processors. Each of them takes a
+     * thread of the executor for as long as messages are handled, so the
+     * executor has to run {@link #getThreads()} tasks at once. Otherwise the
+     * sessions of the processors that do not get a thread are never processed.
+     *
+     * @param executor the executor, or null to run them on dedicated threads
+     * @throws IllegalArgumentException if the executor is a ThreadPoolExecutor
+     *         that cannot run that many tasks at once
+     */
+    @Override
+    public void setExecutor(Executor executor) {
+        if (executor instanceof ThreadPoolExecutor) {
+            final ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            // more threads than the core threads are only started when the queue is full
+            final int poolSize = pool.getQueue() instanceof SynchronousQueue
+                    ? pool.getMaximumPoolSize() : pool.getCorePoolSize();
+            if (poolSize < shards.length) {
+                throw new IllegalArgumentException("The executor runs " + poolSize + " tasks at once, but "
+                        + shards.length + " message processor threads are used");
+            }
+        }
+        super.setExecutor(executor);
+    }
+
+    private Shard getShard(SessionID sessionID) {
+        return shards[(sessionID.hashCode() & Integer.MAX_VALUE) % shards.length];
+    }
+
+    @Override
+    BlockingQueue<SessionMessageEvent> getEventQueue(Session quickfixSession) {
+        return getShard(quickfixSession.getSessionID()).eventQueue;
+    }
+
+    @Override
+    QueueTracker<SessionMessageEvent> getQueueTracker(Session quickfixSession) {
+        return getShard(quickfixSession.getSessionID()).queueTracker;
+    }
+
+    @Override
+    public void blockInThread() {
+        if (isAlive()) {
+            sessionConnector.log.warn("Trying to stop still running {} threads", MESSAGE_PROCESSOR_THREAD_NAME);
+            stopHandlingMessages(true);
+            if (isAlive()) {
+                throw new IllegalStateException("Still running " + MESSAGE_PROCESSOR_THREAD_NAME
+                        + " threads could not be stopped!");
+            }
+        }
+
+        startHandlingMessages();
+        for (final Shard shard : shards) {
+            shard.thread = startMessageProcessor(shard.name, shard.eventQueue, shard.queueTracker);
+        }
+    }
+
+    private boolean isAlive() {
+        for (final Shard shard : shards) {
+            if (shard.thread != null && shard.thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void stopHandlingMessages(boolean join) {
+        stopHandlingMessages();
+        if (join) {
+            for (final Shard shard : shards) {
+                if (shard.thread != null) {
+                    try {
+                        shard.thread.join();
+                    } catch (InterruptedException e) {
+                        sessionConnector.log.error("{} interrupted.", shard.name);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getQueueSize() {
+        int queueSize = 0;
+        for (final Shard shard : shards) {
+            queueSize += shard.eventQueue.size();
+        }
+        return queueSize;
+    }
+
+    @Override
+    public int getQueueSize(SessionID sessionID) {
+        // the sessions of a thread share its queue
+        return getShard(sessionID).eventQueue.size();
+    }
+
+    /**
+     * @return the number of message processor threads
+     */
+    public int getThreads() {
+        return shards.length;
+    }
+
+    private static final class Shard {
+        private final String name;
+        private final BlockingQueue<SessionMessageEvent> eventQueue;
+        private final QueueTracker<SessionMessageEvent> queueTracker;
+        private volatile ThreadAdapter thread;
+
+        private Shard(String name, BlockingQueue<SessionMessageEvent> eventQueue,
+                QueueTracker<SessionMessageEvent> queueTracker) {
+            this.name = name;
+            this.eventQueue = eventQueue;
+            this.queueTracker = queueTracker;
+        }
+    }
+}
@@ -22,104 +22,40 @@ package quickfix.mina;
 
 import quickfix.*;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
 
 import static quickfix.mina.QueueTrackers.newDefaultQueueTracker;
-import static quickfix.mina.QueueTrackers.newMultiSessionWatermarkTracker;
+import static quickfix.mina.QueueTrackers.newQueue;
 
 /**
  * Processes messages for all sessions in a single thread.
  */
-public class SingleThreadedEventHandlingStrategy implements EventHandlingStrategy {
+public class SingleThreadedEventHandlingStrategy extends AbstractQueuedEventHandlingStrategy {
     public static final String MESSAGE_PROCESSOR_THREAD_NAME = "QFJ Message Processor";
     private final BlockingQueue<SessionMessageEvent> eventQueue;
     private final QueueTracker<SessionMessageEvent> queueTracker;
-    private final SessionConnector sessionConnector;
     private volatile ThreadAdapter messageProcessingThread;
-    private volatile boolean isStopped;
-    private Executor executor;
-    private long stopTime = 0L;
 
     public SingleThreadedEventHandlingStrategy(SessionConnector connector, int queueCapacity) {
-        sessionConnector = connector;
-        eventQueue = new LinkedBlockingQueue<>(queueCapacity);
+        super(connector);
+        eventQueue = newQueue(connector, queueCapacity);
         queueTracker = newDefaultQueueTracker(eventQueue);
     }
 
     public SingleThreadedEventHandlingStrategy(SessionConnector connector, int queueLowerWatermark, int queueUpperWatermark) {
-        sessionConnector = connector;
-        eventQueue = new LinkedBlockingQueue<>();
-        if (queueLowerWatermark > 0 && queueUpperWatermark > 0) {
-            queueTracker = newMultiSessionWatermarkTracker(eventQueue, queueLowerWatermark, queueUpperWatermark,
-                    evt -> evt.quickfixSession);
-        } else {
-            queueTracker = newDefaultQueueTracker(eventQueue);
-        }
-    }
-
-    public void setExecutor(Executor executor) {
-        this.executor = executor;
+        super(connector);
+        eventQueue = newQueue(connector);
+        queueTracker = newQueueTracker(eventQueue, queueLowerWatermark, queueUpperWatermark);
     }
 
     @Override
-    public void onMessage(Session quickfixSession, Message message) {
-        if (message == END_OF_STREAM && isStopped) {
-            return;
-        }
-        try {
-            queueTracker.put(new SessionMessageEvent(quickfixSession, message));
-        } catch (InterruptedException e) {
-            isStopped = true;
-            throw new RuntimeException(e);
-        }
+    BlockingQueue<SessionMessageEvent> getEventQueue(Session quickfixSession) {
+        return eventQueue;
     }
 
     @Override
-    public SessionConnector getSessionConnector() {
-        return sessionConnector;
-    }
-
-    private void block() {
-        while (true) {
-            synchronized (this) {
-                if (isStopped) {
-                    if (!eventQueue.isEmpty()) {
-                        final List<SessionMessageEvent> tempList = new ArrayList<>(eventQueue.size());
-                        queueTracker.drainTo(tempList);
-                        for (SessionMessageEvent event : tempList) {
-                            event.processMessage();
-                        }
-                    }
-                    if (stopTime == 0) {
-                        stopTime = SystemTime.currentTimeMillis();
-                    }
-                    if (!sessionConnector.isLoggedOn() || SystemTime.currentTimeMillis() - stopTime > 5000L) {
-                        sessionConnector.stopSessionTimer();
-                        // reset the stoptime
-                        stopTime = 0;
-                    }
-                    return;
-                }
-            }
-            try {
-                SessionMessageEvent event = getMessage();
-                if (event != null) {
-                    event.processMessage();
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
-    }
-
-    private SessionMessageEvent getMessage() throws InterruptedException {
-        return queueTracker.poll(THREAD_WAIT_FOR_MESSAGE_MS, TimeUnit.MILLISECONDS);
+    QueueTracker<SessionMessageEvent> getQueueTracker(Session quickfixSession) {
+        return queueTracker;
     }
 
     /**
@@ -130,6 +66,7 @@ public class SingleThreadedEventHandlingStrategy implements EventHandlingStrateg
      *
      * This method must not be called by several threads concurrently.
      */
+    @Override
     public void blockInThread() {
         if (messageProcessingThread != null && messageProcessingThread.isAlive()) {
             sessionConnector.log.warn("Trying to stop still running {}", MESSAGE_PROCESSOR_THREAD_NAME);
@@ -140,48 +77,7 @@ public class SingleThreadedEventHandlingStrategy implements EventHandlingStrateg
         }
 
         startHandlingMessages();
-        messageProcessingThread = new ThreadAdapter(() -> {
-            sessionConnector.log.info("Started {}", MESSAGE_PROCESSOR_THREAD_NAME);
-            block();
-            sessionConnector.log.info("Stopped {}", MESSAGE_PROCESSOR_THREAD_NAME);
-        }, MESSAGE_PROCESSOR_THREAD_NAME, executor);
-        messageProcessingThread.setDaemon(true);
-        messageProcessingThread.start();
-    }
-
-    private static class SessionMessageEvent {
-        private final Session quickfixSession;
-        private final Message message;
-
-        public SessionMessageEvent(Session session, Message message) {
-            this.message = message;
-            quickfixSession = session;
-        }
-
-        public void processMessage() {
-            try {
-                quickfixSession.next(message);
-            } catch (Throwable e) {
-                LogUtil.logThrowable(quickfixSession.getSessionID(), e.getMessage(), e);
-            }
-        }
-    }
-
-    private synchronized void startHandlingMessages() {
-        isStopped = false;
-    }
-
-    /**
-     * Stops processing of messages without waiting for message processing
-     * thread to finish.
-     * 
-     * It is advised to call stopHandlingMessages(true) instead of this method.
-     */
-    public synchronized void stopHandlingMessages() {
-        for (Session session : sessionConnector.getSessionMap().values()) {
-            onMessage(session, END_OF_STREAM);
-        }
-        isStopped = true;
+        messageProcessingThread = startMessageProcessor(MESSAGE_PROCESSOR_THREAD_NAME, eventQueue, queueTracker);
     }
 
     /**
@@ -190,6 +86,7 @@ public class SingleThreadedEventHandlingStrategy implements EventHandlingStrateg
      *
      * @param join true to wait for thread to finish
      */
+    @Override
     public void stopHandlingMessages(boolean join) {
         stopHandlingMessages();
         if (join) {
@@ -211,96 +108,4 @@ public class SingleThreadedEventHandlingStrategy implements EventHandlingStrateg
         // we only have one queue for all sessions
         return getQueueSize();
     }
-
-	/**
-	 * A stand-in for the Thread class that delegates to an Executor.
-	 * Implements all the API required by pre-existing QFJ code.
-	 */
-	static final class ThreadAdapter {
-
-		private final Executor executor;
-		private final RunnableWrapper wrapper;
-
-		ThreadAdapter(Runnable command, String name, Executor executor) {
-                    wrapper = new RunnableWrapper(command, name);
-                    this.executor = executor != null ? executor : new DedicatedThreadExecutor(name);
-		}
-
-		public void join() throws InterruptedException {
-                    wrapper.join();
-		}
-
-		public void setDaemon(boolean b) {
-                    /* No-Op. Already set for DedicatedThreadExecutor. Not relevant for externally supplied Executors. */
-		}
-
-		public boolean isAlive() {
-                    return wrapper.isAlive();
-		}
-
-		public void start() {
-                    executor.execute(wrapper);
-		}
-                
-		/**
-		 * Provides the Thread::join and Thread::isAlive semantics on the nested Runnable.
-		 */
-		static final class RunnableWrapper implements Runnable {
-
-			private final CountDownLatch latch = new CountDownLatch(1);
-			private final Runnable command;
-			private final String name;
-
-			public RunnableWrapper(Runnable command, String name) {
-                            this.command = command;
-                            this.name = name;
-			}
-
-                        @Override
-                        public void run() {
-                            Thread currentThread = Thread.currentThread();
-                            String threadName = currentThread.getName();
-                            try {
-                                if (!name.equals(threadName)) {
-                                    currentThread.setName(name + " (" + threadName + ")");
-                                }
-                                command.run();
-                            } finally {
-                                latch.countDown();
-                                currentThread.setName(threadName);
-                            }
-                        }
-
-			public void join() throws InterruptedException {
-                            latch.await();
-			}
-
-			public boolean isAlive() {
-                            return latch.getCount() > 0;
-			}
-		}
-
-		/**
-		 * An Executor that uses its own dedicated Thread.
-		 * Provides equivalent behavior to the prior non-Executor approach.
-		 */
-		static final class DedicatedThreadExecutor implements Executor {
-
-			private final String name;
-                        private Thread thread;
-			
-			DedicatedThreadExecutor(String name) {
-				this.name = name;
-			}
-
-			@Override
-			public void execute(Runnable command) {
-				thread = new Thread(command, name);
-				thread.setDaemon(true);
-				thread.start();
-			}
-		}
-
-	}
-
 }
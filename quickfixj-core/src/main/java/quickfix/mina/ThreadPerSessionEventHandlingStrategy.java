@@ -20,6 +20,7 @@
 
 package quickfix.mina;
 
+import org.apache.mina.core.session.IoSession;
 import quickfix.*;
 
 import java.util.ArrayList;
@@ -29,14 +30,19 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import static quickfix.mina.QueueTrackers.newDefaultQueueTracker;
+import static quickfix.mina.QueueTrackers.newEvent;
+import static quickfix.mina.QueueTrackers.newQueue;
+import static quickfix.mina.QueueTrackers.newSingleSessionQueue;
 import static quickfix.mina.QueueTrackers.newSingleSessionWatermarkTracker;
+import static quickfix.mina.QueueTrackers.releaseEvents;
 
 /**
- * Processes messages in a session-specific thread.
+ * Processes messages in a session-specific thread. The threads are platform
+ * threads, the threads of a supplied executor or, see {@link #setVirtualThreads(boolean)},
+ * virtual threads.
  */
 public class ThreadPerSessionEventHandlingStrategy implements EventHandlingStrategy {
     private final ConcurrentMap<SessionID, MessageDispatchingThread> dispatchers = new ConcurrentHashMap<>();
@@ -45,6 +51,7 @@ public class ThreadPerSessionEventHandlingStrategy implements EventHandlingStrat
     private final int queueLowerWatermark;
     private final int queueUpperWatermark;
     private volatile Executor executor;
+    private volatile boolean virtualThreads;
 
     public ThreadPerSessionEventHandlingStrategy(SessionConnector connector, int queueCapacity) {
         sessionConnector = connector;
@@ -64,25 +71,66 @@ public class ThreadPerSessionEventHandlingStrategy implements EventHandlingStrat
 		this.executor = executor;
 	}
 
+    /**
+     * Runs the dispatcher of each session on its own virtual thread, which
+     * needs Java 21 or later. An executor set with {@link #setExecutor(Executor)}
+     * takes precedence.
+     *
+     * @param virtualThreads true to use virtual threads
+     * @throws ConfigError if the JVM does not support virtual threads
+     */
+    public void setVirtualThreads(boolean virtualThreads) throws ConfigError {
+        if (virtualThreads && !VirtualThreads.isSupported()) {
+            throw new ConfigError(SessionFactory.SETTING_USE_VIRTUAL_THREADS + " requires Java 21 or later");
+        }
+        this.virtualThreads = virtualThreads;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
     MessageDispatchingThread createDispatcherThread(Session quickfixSession) {
-        return new MessageDispatchingThread(quickfixSession, executor);
+        Executor dispatcherExecutor = executor;
+        if (dispatcherExecutor == null && virtualThreads) {
+            dispatcherExecutor = VirtualThreads.newExecutor(getDispatcherName(quickfixSession));
+        }
+        return new MessageDispatchingThread(quickfixSession, dispatcherExecutor);
+    }
+
+    private static String getDispatcherName(Session quickfixSession) {
+        return "QF/J Session dispatcher: " + quickfixSession.getSessionID();
     }
 
     @Override
     public void onMessage(Session quickfixSession, Message message) {
-        MessageDispatchingThread dispatcher = dispatchers.get(quickfixSession.getSessionID());
-        if (dispatcher == null) {
-            dispatcher = dispatchers.computeIfAbsent(quickfixSession.getSessionID(), sessionID -> {
-                final MessageDispatchingThread newDispatcher = createDispatcherThread(quickfixSession);
-                startDispatcherThread(newDispatcher);
-                return newDispatcher;
-            });
-        }
+        final MessageDispatchingThread dispatcher = getOrCreateDispatcher(quickfixSession);
         if (message != null) {
             dispatcher.enqueue(message);
         }
     }
 
+    /**
+     * Queues a received message whose parsing is deferred to the dispatcher
+     * of the session.
+     */
+    void onUnparsedMessage(AbstractIoHandler ioHandler, IoSession ioSession, Session quickfixSession,
+            Object frame) {
+        getOrCreateDispatcher(quickfixSession).enqueue(ioHandler, ioSession, frame);
+    }
+
+    private MessageDispatchingThread getOrCreateDispatcher(Session quickfixSession) {
+        final MessageDispatchingThread dispatcher = dispatchers.get(quickfixSession.getSessionID());
+        if (dispatcher != null) {
+            return dispatcher;
+        }
+        return dispatchers.computeIfAbsent(quickfixSession.getSessionID(), sessionID -> {
+            final MessageDispatchingThread newDispatcher = createDispatcherThread(quickfixSession);
+            startDispatcherThread(newDispatcher);
+            return newDispatcher;
+        });
+    }
+
     /**
      * The SessionConnector is not directly required for thread-per-session handler - we don't multiplex
      * between multiple sessions here.
@@ -173,19 +221,19 @@ public class ThreadPerSessionEventHandlingStrategy implements EventHandlingStrat
 
 	protected class MessageDispatchingThread extends ThreadAdapter {
         private final Session quickfixSession;
-        private final BlockingQueue<Message> messages;
-        private final QueueTracker<Message> queueTracker;
+        private final BlockingQueue<SessionMessageEvent> messages;
+        private final QueueTracker<SessionMessageEvent> queueTracker;
         private volatile boolean stopped;
         private volatile boolean stopping;
 
         private MessageDispatchingThread(Session session, Executor executor) {
-            super("QF/J Session dispatcher: " + session.getSessionID(), executor);
+            super(getDispatcherName(session), executor);
             quickfixSession = session;
             if (queueCapacity >= 0) {
-                messages = new LinkedBlockingQueue<>(queueCapacity);
+                messages = newQueue(sessionConnector, queueCapacity);
                 queueTracker = newDefaultQueueTracker(messages);
             } else {
-                messages = new LinkedBlockingQueue<>();
+                messages = newSingleSessionQueue(sessionConnector, queueUpperWatermark);
                 if (queueLowerWatermark > 0 && queueUpperWatermark > 0) {
                     queueTracker = newSingleSessionWatermarkTracker(messages, queueLowerWatermark, queueUpperWatermark,
                             quickfixSession);
@@ -200,7 +248,19 @@ public class ThreadPerSessionEventHandlingStrategy implements EventHandlingStrat
                 return;
             }
             try {
-                queueTracker.put(message);
+                final SessionMessageEvent event = newEvent(messages);
+                event.set(quickfixSession, message);
+                queueTracker.put(event);
+            } catch (final InterruptedException e) {
+                quickfixSession.getLog().onErrorEvent(e.toString());
+            }
+        }
+
+        void enqueue(AbstractIoHandler ioHandler, IoSession ioSession, Object frame) {
+            try {
+                final SessionMessageEvent event = newEvent(messages);
+                event.setUnparsed(ioHandler, ioSession, quickfixSession, frame);
+                queueTracker.put(event);
             } catch (final InterruptedException e) {
                 quickfixSession.getLog().onErrorEvent(e.toString());
             }
@@ -210,17 +270,30 @@ public class ThreadPerSessionEventHandlingStrategy implements EventHandlingStrat
             return messages.size();
         }
 
+        /**
+         * Processes the event, then clears it and frees its slot.
+         */
+        private void dispatch(SessionMessageEvent event) throws Exception {
+            try {
+                event.process();
+            } finally {
+                event.clear();
+                releaseEvents(messages);
+            }
+        }
+
         @Override
         void doRun() {
             while (!stopping) {
                 try {
-                    final Message message = getNextMessage(queueTracker);
-                    if (message == null) {
+                    final SessionMessageEvent event = getNextMessage(queueTracker);
+                    if (event == null) {
                         // no message available in polling interval
                         continue;
                     }
-                    quickfixSession.next(message);
-                    if (message == END_OF_STREAM) {
+                    final boolean endOfStream = event.getMessage() == END_OF_STREAM;
+                    dispatch(event);
+                    if (endOfStream) {
                         stopping = true;
                     }
                 } catch (final InterruptedException e) {
@@ -233,11 +306,11 @@ public class ThreadPerSessionEventHandlingStrategy implements EventHandlingStrat
                 }
             }
             if (!messages.isEmpty()) {
-                final List<Message> tempList = new ArrayList<>(messages.size());
+                final List<SessionMessageEvent> tempList = new ArrayList<>(messages.size());
                 queueTracker.drainTo(tempList);
-                for (Message message : tempList) {
+                for (SessionMessageEvent event : tempList) {
                     try {
-                        quickfixSession.next(message);
+                        dispatch(event);
                     } catch (final Throwable e) {
                         LogUtil.logThrowable(quickfixSession.getSessionID(),
                                 "Error during message processing", e);
@@ -271,10 +344,11 @@ public class ThreadPerSessionEventHandlingStrategy implements EventHandlingStrat
      *
      * @see #THREAD_WAIT_FOR_MESSAGE_MS
      * @param queueTracker
-     * @return next message or null if nothing arrived within the timeout period
+     * @return the event of the next message or null if nothing arrived within the timeout period
      * @throws InterruptedException
      */
-    protected Message getNextMessage(QueueTracker<Message> queueTracker) throws InterruptedException {
+    protected SessionMessageEvent getNextMessage(QueueTracker<SessionMessageEvent> queueTracker)
+            throws InterruptedException {
         return queueTracker.poll(THREAD_WAIT_FOR_MESSAGE_MS, TimeUnit.MILLISECONDS);
     }
 
@@ -125,8 +125,10 @@ public class WatermarkTracker<E,S> implements QueueTracker<E> {
 
     @Override
     public void put(E e) throws InterruptedException {
+        // classified first, a reused element may be taken and cleared as soon as it is put
+        final StreamTracker streamTracker = trackerForPayload(e);
         queue.put(e);
-        trackerForPayload(e).incoming(1);
+        streamTracker.incoming(1);
     }
 
     @Override
@@ -142,6 +144,11 @@ public class WatermarkTracker<E,S> implements QueueTracker<E> {
 
     @Override
     public int drainTo(Collection<E> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<E> collection, int maxElements) {
         return queue.drainTo(new AbstractCollection<E>() {
             @Override public Iterator<E> iterator() { throw new UnsupportedOperationException(); }
             @Override public int size() { throw new UnsupportedOperationException(); }
@@ -155,7 +162,7 @@ public class WatermarkTracker<E,S> implements QueueTracker<E> {
                 return added;
             }
 
-        });
+        }, maxElements);
     }
 
     public boolean isSuspended(S key) {
@@ -51,10 +51,12 @@ import quickfix.mina.ssl.SSLSupport;
 import javax.net.ssl.SSLContext;
 import java.net.SocketAddress;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -62,7 +64,6 @@ import java.util.Map;
  */
 public abstract class AbstractSocketAcceptor extends SessionConnector implements Acceptor {
     private final Map<SocketAddress, AcceptorSessionProvider> sessionProviders = new HashMap<>();
-    private final SessionFactory sessionFactory;
     private final Map<SocketAddress, AcceptorSocketDescriptor> socketDescriptorForAddress = new HashMap<>();
     private final Map<AcceptorSocketDescriptor, IoAcceptor> ioAcceptors = new HashMap<>();
 
@@ -71,7 +72,6 @@ public abstract class AbstractSocketAcceptor extends SessionConnector implements
         super(settings, sessionFactory);
         IoBuffer.setAllocator(new SimpleBufferAllocator());
         IoBuffer.setUseDirectBuffer(false);
-        this.sessionFactory = sessionFactory;
     }
 
     protected AbstractSocketAcceptor(Application application,
@@ -106,7 +106,7 @@ public abstract class AbstractSocketAcceptor extends SessionConnector implements
                 }
 
                 ioFilterChainBuilder.addLast(FIXProtocolCodecFactory.FILTER_NAME,
-                        new ProtocolCodecFilter(new FIXProtocolCodecFactory()));
+                        new ProtocolCodecFilter(new FIXProtocolCodecFactory(isDecodeMessageBytes())));
 
                 ioAcceptor.setFilterChainBuilder(ioFilterChainBuilder);
                 ioAcceptor.setCloseOnDeactivation(false);
@@ -121,6 +121,12 @@ public abstract class AbstractSocketAcceptor extends SessionConnector implements
         }
     }
 
+    private boolean isDecodeMessageBytes() throws ConfigError, FieldConvertError {
+        SessionSettings settings = getSettings();
+        return settings.isSetting(NetworkingOptions.SETTING_SOCKET_DECODE_MESSAGE_BYTES)
+                && settings.getBool(NetworkingOptions.SETTING_SOCKET_DECODE_MESSAGE_BYTES);
+    }
+
     private void installSSL(AcceptorSocketDescriptor descriptor,
             CompositeIoFilterChainBuilder ioFilterChainBuilder) throws GeneralSecurityException {
         log.info("Installing SSL filter for {}", descriptor.getAddress());
@@ -215,7 +221,7 @@ public abstract class AbstractSocketAcceptor extends SessionConnector implements
     }
 
     private void createSessions(SessionSettings settings) throws ConfigError, FieldConvertError {
-        HashMap<SessionID, Session> allSessions = new HashMap<>();
+        Map<SessionID, AcceptorSocketDescriptor> descriptors = new LinkedHashMap<>();
         for (Iterator<SessionID> i = settings.sectionIterator(); i.hasNext();) {
             SessionID sessionID = i.next();
             String connectionType = settings.getString(sessionID,
@@ -229,12 +235,14 @@ public abstract class AbstractSocketAcceptor extends SessionConnector implements
             if (connectionType.equals(SessionFactory.ACCEPTOR_CONNECTION_TYPE)) {
                 AcceptorSocketDescriptor descriptor = getAcceptorSocketDescriptor(settings, sessionID);
                 if (!isTemplate) {
-                    Session session = sessionFactory.create(sessionID, settings);
-                    descriptor.acceptSession(session);
-                    allSessions.put(sessionID, session);
+                    descriptors.put(sessionID, descriptor);
                 }
             }
         }
+        Map<SessionID, Session> allSessions = createSessions(new ArrayList<>(descriptors.keySet()), false);
+        for (Map.Entry<SessionID, AcceptorSocketDescriptor> entry : descriptors.entrySet()) {
+            entry.getValue().acceptSession(allSessions.get(entry.getKey()));
+        }
         setSessions(allSessions);
 
         if (socketDescriptorForAddress.isEmpty()) {
@@ -46,9 +46,9 @@ import quickfix.mina.ssl.SSLSupport;
 import java.net.SocketAddress;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -182,14 +182,13 @@ public abstract class AbstractSocketInitiator extends SessionConnector implement
             continueInitOnError = settings.getBool(SessionFactory.SETTING_CONTINUE_INIT_ON_ERROR);
         }
 
-        final Map<SessionID, Session> initiatorSessions = new HashMap<>();
+        final List<SessionID> sessionIDs = new ArrayList<>();
         for (final Iterator<SessionID> i = settings.sectionIterator(); i.hasNext();) {
             final SessionID sessionID = i.next();
             if (isInitiatorSession(sessionID)) {
                 try {
                     if (!settings.isSetting(sessionID, SETTING_DYNAMIC_SESSION) || !settings.getBool(sessionID, SETTING_DYNAMIC_SESSION)) {
-                        final Session quickfixSession = createSession(sessionID);
-                        initiatorSessions.put(sessionID, quickfixSession);
+                        sessionIDs.add(sessionID);
                     }
                 } catch (final Throwable e) {
                     if (continueInitOnError) {
@@ -201,6 +200,12 @@ public abstract class AbstractSocketInitiator extends SessionConnector implement
                 }
             }
         }
+        final Map<SessionID, Session> initiatorSessions;
+        try {
+            initiatorSessions = createSessions(sessionIDs, continueInitOnError);
+        } catch (final RuntimeException | Error e) {
+            throw new ConfigError("error during session initialization", e);
+        }
         setSessions(initiatorSessions);
     }
     
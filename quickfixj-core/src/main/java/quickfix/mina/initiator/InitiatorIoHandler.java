@@ -63,19 +63,25 @@ class InitiatorIoHandler extends AbstractIoHandler {
 
 	@Override
 	protected void processMessage(final IoSession protocolSession, final Message message) throws Exception {
+		messageParsed(protocolSession, quickfixSession, message);
+		eventHandlingStrategy.onMessage(quickfixSession, message);
+	}
+
+	@Override
+	protected void messageParsed(final IoSession protocolSession, final Session session, final Message message) {
 		final Optional<String> msgTypeField = message.getHeader().getOptionalString(MsgType.FIELD);
 		if (msgTypeField.isPresent() && MsgType.LOGON.equals(msgTypeField.get())) {
 			final SessionID sessionID = MessageUtils.getReverseSessionID(message);
 			if (sessionID.isFIXT()) {
-				if (message.isSetField(DefaultApplVerID.FIELD)) {
-					final ApplVerID applVerID = new ApplVerID(message.getString(DefaultApplVerID.FIELD));
-					quickfixSession.setTargetDefaultApplicationVersionID(applVerID);
-					quickfixSession.getLog().onEvent("Setting DefaultApplVerID (" + DefaultApplVerID.FIELD + "="
+				final Optional<String> defaultApplVerID = message.getOptionalString(DefaultApplVerID.FIELD);
+				if (defaultApplVerID.isPresent()) {
+					final ApplVerID applVerID = new ApplVerID(defaultApplVerID.get());
+					session.setTargetDefaultApplicationVersionID(applVerID);
+					session.getLog().onEvent("Setting DefaultApplVerID (" + DefaultApplVerID.FIELD + "="
 							+ applVerID.getValue() + ") from Logon");
 				}
 			}
 		}
-		eventHandlingStrategy.onMessage(quickfixSession, message);
 	}
 
 }
@@ -154,7 +154,8 @@ public class IoSessionInitiator {
                 sslFilter = installSslFilter(ioFilterChainBuilder, !hasProxy);
             }
 
-            ioFilterChainBuilder.addLast(FIXProtocolCodecFactory.FILTER_NAME, new ProtocolCodecFilter(new FIXProtocolCodecFactory()));
+            ioFilterChainBuilder.addLast(FIXProtocolCodecFactory.FILTER_NAME, new ProtocolCodecFilter(
+                    new FIXProtocolCodecFactory(networkingOptions.getDecodeMessageBytes())));
 
             IoConnector newConnector;
             newConnector = ProtocolFactory.createIoConnector(socketAddresses[nextSocketAddressIndex]);
@@ -29,6 +29,7 @@ import org.apache.mina.filter.codec.demux.MessageDecoderResult;
 import org.quickfixj.CharsetSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import quickfix.MessageBytes;
 import quickfix.mina.CriticalProtocolCodecException;
 
 import java.io.File;
@@ -36,6 +37,7 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
 import java.nio.MappedByteBuffer;
+import java.nio.charset.Charset;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
@@ -43,6 +45,12 @@ import java.util.List;
 /**
  * Detects and decodes FIX message strings in an incoming data stream. The
  * message string is then passed to MINA IO handlers for further processing.
+ * <p>
+ * If created with <code>decodeMessageBytes</code> enabled, the decoder does not
+ * build a String for each message but passes a {@link MessageBytes} view to the
+ * IO handlers instead, which saves decoding the charset of each message. The
+ * view has an array of its own, so a message that is kept does not keep the
+ * bytes of other messages alive.
  */
 public class FIXMessageDecoder implements MessageDecoder {
 
@@ -68,6 +76,8 @@ public class FIXMessageDecoder implements MessageDecoder {
 	private int bodyLength;
 	private int position;
 	private final String charsetEncoding;
+	private final Charset charset;
+	private final boolean decodeMessageBytes;
 
 	private void resetState() {
 		state = SEEKING_HEADER;
@@ -84,7 +94,20 @@ public class FIXMessageDecoder implements MessageDecoder {
 	}
 
 	public FIXMessageDecoder(String charset, String delimiter) throws UnsupportedEncodingException {
+		this(charset, delimiter, false);
+	}
+
+	/**
+	 * @param charset the charset of the data stream
+	 * @param delimiter the field delimiter
+	 * @param decodeMessageBytes whether to output {@link MessageBytes} instead of message strings
+	 * @throws UnsupportedEncodingException if the charset is not supported
+	 */
+	public FIXMessageDecoder(String charset, String delimiter, boolean decodeMessageBytes)
+			throws UnsupportedEncodingException {
 		charsetEncoding = CharsetSupport.validate(charset);
+		this.charset = Charset.forName(charsetEncoding);
+		this.decodeMessageBytes = decodeMessageBytes;
 		HEADER_PATTERN = new PatternMatcher("8=FIXt.?.?" + delimiter + "9=");
 		CHECKSUM_PATTERN = new PatternMatcher("10=???" + delimiter);
 		LOGON_PATTERN = new PatternMatcher(delimiter + "35=A" + delimiter);
@@ -215,11 +238,11 @@ public class FIXMessageDecoder implements MessageDecoder {
 						}
 						break;
 					}
-					String messageString = getMessageString(in);
+					final Object message = decodeMessageBytes ? getMessageBytes(in) : getMessageString(in);
 					if (log.isDebugEnabled()) {
-						log.debug("parsed message: {} {}", getBufferDebugInfo(in), messageString);
+						log.debug("parsed message: {} {}", getBufferDebugInfo(in), message);
 					}
-					out.write(messageString); // eventually invokes AbstractIoHandler.messageReceived
+					out.write(message); // eventually invokes AbstractIoHandler.messageReceived
 					state = SEEKING_HEADER;
 					bodyLength = 0;
 					messageFound = true;
@@ -246,6 +269,14 @@ public class FIXMessageDecoder implements MessageDecoder {
 		return new String(data, charsetEncoding);
 	}
 
+	private MessageBytes getMessageBytes(IoBuffer buffer) {
+		// each message gets an array of its own, as a parsed message keeps
+		// referring to it for as long as the message is in use
+		final byte[] data = new byte[position - buffer.position()];
+		buffer.get(data);
+		return new MessageBytes(data, 0, data.length, charset);
+	}
+
 	private String getMessageStringForError(IoBuffer buffer) throws UnsupportedEncodingException {
 		int initialPosition = buffer.position();
 		byte[] data = new byte[buffer.limit() - initialPosition];
@@ -322,7 +353,7 @@ public class FIXMessageDecoder implements MessageDecoder {
 			decode(null, IoBuffer.wrap(memoryMappedBuffer), new ProtocolDecoderOutput() {
 				@Override
 				public void write(Object message) {
-					listener.onMessage((String) message);
+					listener.onMessage(message.toString());
 				}
 
 				@Override
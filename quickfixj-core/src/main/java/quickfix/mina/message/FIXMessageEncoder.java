@@ -20,12 +20,20 @@
 package quickfix.mina.message;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.BufferOverflowException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.future.WriteFuture;
 import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.AbstractProtocolEncoderOutput;
 import org.apache.mina.filter.codec.ProtocolCodecException;
 import org.apache.mina.filter.codec.ProtocolEncoderOutput;
 import org.apache.mina.filter.codec.demux.MessageEncoder;
@@ -36,15 +44,34 @@ import quickfix.Message;
 /**
  * Encodes a Message object or message string as a byte array to be
  * transmitted on MINA connection.
+ * <p>
+ * Within the MINA codec filter, messages are written into pooled direct
+ * buffers that are reused once MINA has written them, so encoding a Message
+ * (using {@link Message#writeTo(java.nio.ByteBuffer)}) or a string in a
+ * string-equivalent charset does not allocate buffers. Messages that do not
+ * fit into a pooled buffer are encoded into a buffer of their own.
+ * <p>
+ * There is an encoder per connection, so the pool is shared by all encoders
+ * and bounded to {@value #MAX_POOLED_BUFFERS} buffers. Buffers that are
+ * released while the pool is full are left to the garbage collector.
  */
 public class FIXMessageEncoder implements MessageEncoder<Object> {
 
     private static final Set<Class<?>> TYPES =
             new HashSet<>(Arrays.<Class<?>>asList(Message.class, String.class));
+    static final int POOLED_BUFFER_SIZE = 4096;
+    static final int MAX_POOLED_BUFFERS = 256;
+    private static final BlockingQueue<PooledBuffer> POOL = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+
     private final String charsetEncoding;
+    private final boolean isStringEquivalent;
+    private final int maxChar;
 
     public FIXMessageEncoder() {
         charsetEncoding = CharsetSupport.getCharset();
+        final Charset charset = CharsetSupport.getCharsetInstance();
+        isStringEquivalent = CharsetSupport.isStringEquivalent(charset);
+        maxChar = charset.equals(StandardCharsets.US_ASCII) ? 0x7F : 0xFF;
     }
 
     public static Set<Class<?>> getMessageTypes() {
@@ -62,20 +89,77 @@ public class FIXMessageEncoder implements MessageEncoder<Object> {
     @Override
     public void encode(IoSession session, Object message, ProtocolEncoderOutput out)
             throws ProtocolCodecException {
-        // get message bytes
-        byte[] bytes;
-        if (message instanceof String) {
-            bytes = toBytes((String) message);
-        } else if (message instanceof Message) {
-            bytes = toBytes(message.toString());
-        } else {
+        if (!(message instanceof String) && !(message instanceof Message)) {
             throw new ProtocolCodecException("Invalid FIX message object type: "
                     + message.getClass());
         }
+        // only the codec filter's output reports when a buffer has been written
+        if (out instanceof AbstractProtocolEncoderOutput) {
+            PooledBuffer pooledBuffer = POOL.poll();
+            if (pooledBuffer == null) {
+                pooledBuffer = new PooledBuffer();
+            }
+            final IoBuffer buffer = pooledBuffer.buffer;
+            buffer.clear();
+            if (encodeInto(message, buffer)) {
+                buffer.flip();
+                out.write(buffer);
+                out.flush().addListener(pooledBuffer);
+                return;
+            }
+            POOL.offer(pooledBuffer);
+        }
+        // get message bytes
+        byte[] bytes = toBytes(message.toString());
         // write bytes to buffer and output it
         IoBuffer buffer = IoBuffer.allocate(bytes.length);
         buffer.put(bytes);
         buffer.flip();
         out.write(buffer);
     }
+
+    /**
+     * @return false if the message does not fit into the buffer or cannot be
+     *         encoded without building its bytes first
+     */
+    private boolean encodeInto(Object message, IoBuffer buffer) {
+        if (message instanceof Message) {
+            try {
+                ((Message) message).writeTo(buffer.buf());
+                return true;
+            } catch (BufferOverflowException e) {
+                return false;
+            }
+        }
+        final String str = (String) message;
+        if (!isStringEquivalent || str.length() > buffer.remaining()) {
+            return false;
+        }
+        for (int i = 0, n = str.length(); i < n; i++) {
+            final char c = str.charAt(i);
+            // unmappable characters are replaced by '?' like String.getBytes() does
+            buffer.put((byte) (c <= maxChar ? c : '?'));
+        }
+        return true;
+    }
+
+    // visible for testing
+    static int getPooledBufferCount() {
+        return POOL.size();
+    }
+
+    // visible for testing
+    static void clearPool() {
+        POOL.clear();
+    }
+
+    private static final class PooledBuffer implements IoFutureListener<WriteFuture> {
+        private final IoBuffer buffer = IoBuffer.allocate(POOLED_BUFFER_SIZE, true);
+
+        @Override
+        public void operationComplete(WriteFuture future) {
+            // written or failed, MINA does not access the buffer any more
+            POOL.offer(this);
+        }
+    }
 }
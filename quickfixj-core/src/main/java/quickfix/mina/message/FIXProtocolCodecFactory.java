@@ -20,15 +20,29 @@
 package quickfix.mina.message;
 
 import org.apache.mina.filter.codec.demux.DemuxingProtocolCodecFactory;
+import org.quickfixj.CharsetSupport;
 
 /**
  * Provides the FIX codecs to MINA.
  */
 public class FIXProtocolCodecFactory extends DemuxingProtocolCodecFactory {
     public static final String FILTER_NAME = "FIXCodec";
+    private static final String SOH = String.valueOf('\001');
 
     public FIXProtocolCodecFactory() {
-        addMessageDecoder(FIXMessageDecoder.class);
+        this(false);
+    }
+
+    /**
+     * @param decodeMessageBytes whether incoming messages are passed on as
+     *        {@link quickfix.MessageBytes} instead of strings
+     */
+    public FIXProtocolCodecFactory(boolean decodeMessageBytes) {
+        if (decodeMessageBytes) {
+            addMessageDecoder(() -> new FIXMessageDecoder(CharsetSupport.getCharset(), SOH, true));
+        } else {
+            addMessageDecoder(FIXMessageDecoder.class);
+        }
         addMessageEncoder(FIXMessageEncoder.getMessageTypes(), FIXMessageEncoder.class);
     }
 }
@@ -23,6 +23,7 @@ import junit.framework.TestCase;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public abstract class AbstractMessageStoreTest extends TestCase {
     private SessionID sessionID;
@@ -130,6 +131,51 @@ public abstract class AbstractMessageStoreTest extends TestCase {
         assertEquals("wrong message", "message2", messages.get(1));
     }
 
+    public void testMessageStorageStreamed() throws Exception {
+        if (!testEnabled) {
+            return;
+        }
+        store.reset();
+        assertTrue("set failed", store.set(1113, "message2"));
+        assertTrue("set failed", store.set(111, "message1"));
+        assertTrue("set failed", store.set(2120, "message3"));
+        assertTrue("set failed", store.set(3000, "message4"));
+
+        store.refresh();
+
+        final ArrayList<String> messages = new ArrayList<>();
+        store.get(100, 2500, messages::add);
+        assertEquals("wrong # of messages", 3, messages.size());
+        assertEquals("wrong message", "message1", messages.get(0));
+        assertEquals("wrong message", "message2", messages.get(1));
+        assertEquals("wrong message", "message3", messages.get(2));
+    }
+
+    public void testMessageStorageStreamedAcrossWindows() throws Exception {
+        if (!testEnabled) {
+            return;
+        }
+        store.reset();
+        assertTrue("set failed", store.set(5, "message1"));
+        assertTrue("set failed", store.set(70000, "message2"));
+        assertTrue("set failed", store.set(140000, "message3"));
+        assertTrue("set failed", store.set(140001, "message4"));
+
+        store.refresh();
+
+        final ArrayList<String> messages = new ArrayList<>();
+        store.get(1, 200000, messages::add);
+        assertEquals(Arrays.asList("message1", "message2", "message3", "message4"), messages);
+
+        // stored out of order
+        assertTrue("set failed", store.set(100000, "message5"));
+        store.refresh();
+
+        messages.clear();
+        store.get(1, 200000, messages::add);
+        assertEquals(Arrays.asList("message1", "message2", "message5", "message3", "message4"), messages);
+    }
+
     public void testRefreshableMessageStore() throws Exception {
         if (!testEnabled) {
             return;
@@ -20,7 +20,11 @@
 package quickfix;
 
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 public class CachedFileStoreTest extends AbstractMessageStoreTest {
 
@@ -70,4 +74,51 @@ public class CachedFileStoreTest extends AbstractMessageStoreTest {
         Date creationTime2 = store.getCreationTime();
         assertEquals("wrong time diff", 0, Math.abs(creationTime1.getTime() - creationTime2.getTime()));
     }
+
+    public void testResendServedFromMessageCache() throws Exception {
+        SessionSettings settings = new SessionSettings(getConfigurationFileName());
+        settings.setString(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_PATH, settings
+                .getString(FileStoreFactory.SETTING_FILE_STORE_PATH));
+        settings.setString(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_CACHE_MAX_MESSAGES, "2");
+        CachedFileStore store = (CachedFileStore) new CachedFileStoreFactory(settings).create(getSessionID());
+        try {
+            store.reset();
+            for (int i = 1; i <= 4; i++) {
+                store.set(i, "MESSAGE" + i);
+            }
+
+            List<String> messages = new ArrayList<>();
+            store.get(1, 4, messages);
+            assertEquals(Arrays.asList("MESSAGE1", "MESSAGE2", "MESSAGE3", "MESSAGE4"), messages);
+
+            try (RandomAccessFile file = new RandomAccessFile(store.getMsgFileName(), "rw")) {
+                file.setLength(0);
+            }
+            messages.clear();
+            store.get(3, 4, messages);
+            assertEquals(Arrays.asList("MESSAGE3", "MESSAGE4"), messages);
+        } finally {
+            store.deleteFiles();
+        }
+    }
+
+    public void testCompressedMessageStorage() throws Exception {
+        SessionSettings settings = new SessionSettings(getConfigurationFileName());
+        settings.setString(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_PATH, settings
+                .getString(FileStoreFactory.SETTING_FILE_STORE_PATH));
+        settings.setBool(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_COMPRESSION, true);
+        CachedFileStore store = (CachedFileStore) new CachedFileStoreFactory(settings).create(getSessionID());
+        try {
+            store.reset();
+            store.set(1, "MESSAGE1");
+            store.set(2, "MESSAGE2");
+            store.refresh();
+
+            List<String> messages = new ArrayList<>();
+            store.get(1, 2, messages);
+            assertEquals(Arrays.asList("MESSAGE1", "MESSAGE2"), messages);
+        } finally {
+            store.deleteFiles();
+        }
+    }
 }
@@ -20,6 +20,10 @@
 package quickfix;
 
 import static org.mockito.Mockito.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+
 import junit.framework.TestCase;
 
 public class CompositeLogTest extends TestCase {
@@ -41,4 +45,32 @@ public class CompositeLogTest extends TestCase {
         verify(mockLog1).onEvent("EVENT");
         verify(mockLog2).onEvent("EVENT");
     }
+
+    public void testClose() throws Exception {
+        Log mockLog1 = mock(Log.class);
+        Log mockLog2 = mock(Log.class, withSettings().extraInterfaces(Closeable.class));
+        Log mockLog3 = mock(Log.class, withSettings().extraInterfaces(Closeable.class));
+        doThrow(new IOException("failed")).when((Closeable) mockLog2).close();
+
+        CompositeLog log = new CompositeLog(new Log[] { mockLog1, mockLog2, mockLog3 });
+        try {
+            log.close();
+            fail("no exception");
+        } catch (IOException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        verify((Closeable) mockLog2).close();
+        verify((Closeable) mockLog3).close();
+    }
+
+    public void testIncomingEnabled() throws Exception {
+        Log mockLog1 = mock(Log.class);
+        Log mockLog2 = mock(Log.class);
+
+        CompositeLog log = new CompositeLog(new Log[] { mockLog1, mockLog2 });
+        assertFalse(log.isIncomingEnabled());
+
+        when(mockLog2.isIncomingEnabled()).thenReturn(true);
+        assertTrue(log.isIncomingEnabled());
+    }
 }
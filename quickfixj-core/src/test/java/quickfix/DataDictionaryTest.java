@@ -61,6 +61,7 @@ import static org.hamcrest.Matchers.hasProperty;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class DataDictionaryTest {
@@ -105,6 +106,37 @@ public class DataDictionaryTest {
         assertFalse(dd.isMsgField("UNKNOWN_TYPE", 1));
     }
 
+    @Test
+    public void testCompiledLookups() throws Exception {
+        DataDictionary dd = getDictionary();
+        assertCompiledLookups(dd);
+        assertCompiledLookups(new DataDictionary(dd));
+    }
+
+    private static void assertCompiledLookups(DataDictionary dd) {
+        assertEquals(FieldType.DATA, dd.getFieldType(96));
+        assertTrue(dd.isDataField(96));
+        assertNull(dd.getFieldType(-1));
+        assertNull(dd.getFieldType(Integer.MAX_VALUE));
+        assertFalse(dd.isField(-1));
+        assertFalse(dd.isField(Integer.MAX_VALUE));
+        assertFalse(dd.isMsgField("A", -1));
+        assertFalse(dd.isMsgField(null, 98));
+        assertFalse(dd.isRequiredField("A", Integer.MAX_VALUE));
+        assertTrue(dd.isRequiredHeaderField(35));
+        assertTrue(dd.isRequiredTrailerField(10));
+        assertTrue(dd.isHeaderGroup(627));
+        assertFalse(dd.isGroup("A", -1));
+        assertTrue(dd.isFieldValue(18, "1 2"));
+        assertFalse(dd.isFieldValue(18, "1 ZZ"));
+
+        // repeating group dictionaries are compiled as well
+        DataDictionary.GroupInfo legs = dd.getGroup("AB", 555);
+        assertEquals(600, legs.getDelimiterField());
+        assertTrue(legs.getDataDictionary().isField(600));
+        assertNotNull(legs.getDataDictionary().getGroup("AB", 539));
+    }
+
     @Test
     public void testMissingFieldAttributeForRequired() throws Exception {
         String data = "";
@@ -164,6 +196,45 @@ public class DataDictionaryTest {
         assertConfigErrorForMissingAttributeRequired(data);
     }
 
+    @Test
+    public void testComponentsAreIndexed() throws Exception {
+        String data = "";
+        data += "<fix major=\"4\" minor=\"4\">";
+        data += "  <header>";
+        data += "    <field name=\"BeginString\" required=\"Y\"/>";
+        data += "  </header>";
+        data += "  <trailer>";
+        data += "    <field name=\"CheckSum\" required=\"Y\"/>";
+        data += "  </trailer>";
+        data += "  <messages>";
+        data += "    <message name=\"Heartbeat\" msgtype=\"0\" msgcat=\"admin\">";
+        data += "      <component name=\"Test\" required=\"N\"/>";
+        data += "      <component name=\"Instrument\" required=\"N\"/>";
+        data += "    </message>";
+        data += "  </messages>";
+        data += "  <components>";
+        data += "    <component name=\"Test\">";
+        data += "      <field name=\"TestReqID\" required=\"N\"/>";
+        data += "    </component>";
+        data += "    <component name=\"Instrument\">";
+        data += "      <field name=\"Symbol\" required=\"N\"/>";
+        data += "    </component>";
+        data += "  </components>";
+        data += "  <fields>";
+        data += "    <field number=\"8\" name=\"BeginString\" type=\"STRING\"/>";
+        data += "    <field number=\"10\" name=\"CheckSum\" type=\"STRING\"/>";
+        data += "    <field number=\"55\" name=\"Symbol\" type=\"STRING\"/>";
+        data += "    <field number=\"112\" name=\"TestReqID\" type=\"STRING\"/>";
+        data += "  </fields>";
+        data += "</fix>";
+
+        // every component is indexed, not only as many as there are
+        // <components> sections
+        DataDictionary dd = new DataDictionary(new ByteArrayInputStream(data.getBytes()));
+        assertTrue(dd.isMsgField("0", 112));
+        assertTrue(dd.isMsgField("0", 55));
+    }
+
     @Test
     public void testMissingGroupAttributeForRequired() throws Exception {
         String data = "";
@@ -1299,6 +1370,56 @@ public class DataDictionaryTest {
         dictionary.validate(newSingle, true);
     }
 
+    @Test
+    public void testValidateWhileParsing() throws Exception {
+        final DataDictionary dd = getDictionary();
+        final String header = "8=FIX.4.4\0019=0\00135=D\00134=2\00149=TW\00152=20060319-09:08:20.881\00156=ISLD\001";
+        final String body = "11=ID\00121=1\00140=2\00144=10.5\00155=IBM\00160=20060319-09:08:19\001";
+        final String trailer = "10=000\001";
+
+        assertSameValidation(dd, header + body + "38=100\00154=1\001" + trailer);
+        assertSameValidation(dd, header + body + "38=100\00154=1\001453=1\001448=P\001447=D\001452=1\001" + trailer);
+        // invalid value, wrong format, missing required field
+        assertSameValidation(dd, header + body + "38=100\00154=Z\001" + trailer);
+        assertSameValidation(dd, header + body + "38=abc\00154=1\001" + trailer);
+        assertSameValidation(dd, header + body + "38=100\001" + trailer);
+        // field not defined for the message, user defined field, empty value
+        assertSameValidation(dd, header + body + "38=100\00154=1\00131=1.0\001" + trailer);
+        assertSameValidation(dd, header + body + "38=100\00154=1\0015001=X\001" + trailer);
+        assertSameValidation(dd, header + body + "38=100\00154=1\00158=\001" + trailer);
+        // invalid header and group fields, wrong group count
+        assertSameValidation(dd, header + "43=X\001" + body + "38=100\00154=1\001" + trailer);
+        assertSameValidation(dd, header + body + "38=100\00154=1\001453=1\001448=P\001447=D\001452=abc\001" + trailer);
+        assertSameValidation(dd, header + body + "38=100\00154=1\001453=2\001448=P\001447=D\001452=1\001" + trailer);
+        // unknown message type
+        assertSameValidation(dd, header.replace("35=D", "35=ZZ") + body + trailer);
+    }
+
+    private static void assertSameValidation(DataDictionary dd, String messageString) throws Exception {
+        final Message parsed = new Message();
+        parsed.parse(messageString, dd, dd, true, false);
+        final Message validatedWhileParsing = new Message();
+        validatedWhileParsing.parse(messageString, dd, dd, true, false, true);
+
+        assertEquals(messageString, validationResult(dd, parsed), validationResult(dd, validatedWhileParsing));
+        assertEquals(parsed.toString(), validatedWhileParsing.toString());
+    }
+
+    private static String validationResult(DataDictionary dd, Message message) {
+        try {
+            DataDictionary.validate(message, dd, dd);
+            return "valid";
+        } catch (FieldException e) {
+            return "FieldException " + e.getField() + " " + e.getSessionRejectReason();
+        } catch (IncorrectTagValue e) {
+            return "IncorrectTagValue " + e.getField();
+        } catch (IncorrectDataFormat e) {
+            return "IncorrectDataFormat " + e.getField();
+        } catch (FieldNotFound e) {
+            return "FieldNotFound " + e.field;
+        }
+    }
+
     //
     // Group Validation Tests in RepeatingGroupTest
     //
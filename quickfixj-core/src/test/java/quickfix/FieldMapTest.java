@@ -93,6 +93,54 @@ public class FieldMapTest extends TestCase {
         testOrdering(new int[] { 3, 2, 1 }, new int[] { 3, 1 }, new int[] { 3, 1, 2 });
     }
 
+    public void testOrderingWithArrayFieldStorage() {
+        FieldMap.setDefaultFieldStorageType(FieldStorageType.ARRAY);
+        try {
+            testOrdering();
+        } finally {
+            FieldMap.setDefaultFieldStorageType(FieldStorageType.TREE_MAP);
+        }
+    }
+
+    public void testArrayFieldStorage() {
+        FieldMap.setDefaultFieldStorageType(FieldStorageType.ARRAY);
+        try {
+            FieldMap map = new Message(new int[] { 5, 1 });
+            for (int tag = 20; tag > 0; tag--) {
+                map.setInt(tag, tag);
+            }
+            map.setInt(1, 100);
+            map.removeField(10);
+            assertFalse(map.isSetField(10));
+            assertEquals(100, map.getInt(1));
+
+            Iterator<Field<?>> it = map.iterator();
+            assertEquals(5, it.next().getField());
+            assertEquals(1, it.next().getField());
+            int previous = 0;
+            while (it.hasNext()) {
+                int tag = it.next().getField();
+                assertTrue(tag > previous);
+                previous = tag;
+                if (tag == 15) {
+                    it.remove();
+                }
+            }
+            assertFalse(map.isSetField(15));
+
+            FieldMap copy = new Message(new int[] { 5, 1 });
+            copy.setFields(map);
+            assertEquals(map.toString(), copy.toString());
+            copy.clear();
+            assertTrue(copy.isEmpty());
+            assertTrue(map.isSetField(20));
+        } catch (FieldNotFound e) {
+            fail(e.getMessage());
+        } finally {
+            FieldMap.setDefaultFieldStorageType(FieldStorageType.TREE_MAP);
+        }
+    }
+
     public void testOptionalString() {
         FieldMap map = new Message();
         map.setField(new StringField(128, "bigbank"));
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class FileStoreCompressionTest extends FileStoreTest {
+    @Override
+    protected MessageStoreFactory getMessageStoreFactory() throws ConfigError, FieldConvertError {
+        return getMessageStoreFactory(true);
+    }
+
+    private MessageStoreFactory getMessageStoreFactory(boolean compression) throws ConfigError, FieldConvertError {
+        SessionSettings settings = new SessionSettings(getConfigurationFileName());
+        // Initialize the session settings from the defaults
+        settings.setString(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_PATH, settings
+                .getString(FileStoreFactory.SETTING_FILE_STORE_PATH));
+        settings.setBool(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_COMPRESSION, compression);
+        return new FileStoreFactory(settings);
+    }
+
+    public void testMixedMessages() throws Exception {
+        FileStore store = (FileStore) getStore();
+        store.set(1, "MESSAGE1");
+        store.close();
+
+        FileStore uncompressed = (FileStore) getMessageStoreFactory(false).create(getSessionID());
+        uncompressed.set(2, "MESSAGE2");
+        uncompressed.close();
+
+        store.initialize(false);
+        store.set(3, "MESSAGE3");
+
+        List<String> messages = new ArrayList<>();
+        store.get(1, 3, messages);
+        assertEquals(Arrays.asList("MESSAGE1", "MESSAGE2", "MESSAGE3"), messages);
+    }
+}
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import quickfix.fix42.Heartbeat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class FileStoreGroupCommitTest extends AbstractMessageStoreTest {
+
+    private String path;
+    private SessionSettings settings;
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        ((FileStore) getStore()).closeAndDeleteFiles();
+    }
+
+    protected MessageStoreFactory getMessageStoreFactory() throws IOException {
+        // a journal of its own for every test, so that recovery only replays the writes of the test
+        if (path == null) {
+            path = Files.createTempDirectory("journal").toString();
+        }
+        settings = new SessionSettings();
+        settings.setString(FileStoreFactory.SETTING_FILE_STORE_PATH, path);
+        settings.setString(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_PATH, path);
+        settings.setBool(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_SYNC, true);
+        settings.setBool(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_GROUP_COMMIT, true);
+        return new FileStoreFactory(settings);
+    }
+
+    protected Class<?> getMessageStoreClass() {
+        return FileStore.class;
+    }
+
+    protected void closeMessageStore(MessageStore store) throws IOException {
+        ((FileStore) store).close();
+    }
+
+    public void testStoresShareJournal() throws Exception {
+        final FileStoreFactory factory = new FileStoreFactory(settings);
+        final SessionID otherSessionID = new SessionID("FIX.4.2", "OTHER-SENDER", "OTHER-TARGET");
+        settings.setBool(otherSessionID, FileStoreFactory.SETTING_FILE_STORE_SYNC, true);
+        settings.setBool(otherSessionID, FileStoreFactory.SETTING_FILE_STORE_GROUP_COMMIT, true);
+
+        assertNotNull(factory.getJournal(getSessionID()));
+        assertSame(factory.getJournal(getSessionID()), factory.getJournal(otherSessionID));
+        assertSame(factory.getJournal(getSessionID()),
+                new FileStoreFactory(settings).getJournal(getSessionID()));
+    }
+
+    public void testRecoveryReplaysJournal() throws Exception {
+        final FileStore store = (FileStore) getStore();
+        store.reset();
+        store.set(1, "MESSAGE1");
+        store.set(2, "MESSAGE2");
+        store.setNextSenderMsgSeqNum(3);
+        store.setNextTargetMsgSeqNum(7);
+        final File journal = crash(store);
+
+        FileStoreJournal.recover(journal);
+        store.initialize(false);
+
+        assertFalse(journal.exists());
+        assertEquals(3, store.getNextSenderMsgSeqNum());
+        assertEquals(7, store.getNextTargetMsgSeqNum());
+        final List<String> messages = new ArrayList<>();
+        store.get(1, 2, messages);
+        assertEquals(2, messages.size());
+        assertEquals("MESSAGE1", messages.get(0));
+        assertEquals("MESSAGE2", messages.get(1));
+    }
+
+    public void testRecoveryStopsAtTornRecord() throws Exception {
+        final FileStore store = (FileStore) getStore();
+        store.reset();
+        store.set(1, "MESSAGE1");
+        store.setNextSenderMsgSeqNum(2);
+        final File journal = crash(store);
+        try (FileOutputStream out = new FileOutputStream(journal, true)) {
+            // the length and CRC of a record whose data was not written
+            out.write(new byte[] { 0, 0, 0, 100, 1, 2, 3, 4, 5 });
+        }
+
+        FileStoreJournal.recover(journal);
+        store.initialize(false);
+
+        assertEquals(2, store.getNextSenderMsgSeqNum());
+        final List<String> messages = new ArrayList<>();
+        store.get(1, 1, messages);
+        assertEquals(1, messages.size());
+        assertEquals("MESSAGE1", messages.get(0));
+    }
+
+    public void testRecoveryReplaysReset() throws Exception {
+        final FileStore store = (FileStore) getStore();
+        store.reset();
+        store.set(1, "MESSAGE1");
+        store.setNextSenderMsgSeqNum(2);
+        store.reset();
+        store.set(1, "MESSAGE2");
+        final File journal = crash(store);
+
+        FileStoreJournal.recover(journal);
+        store.initialize(false);
+
+        assertEquals(1, store.getNextSenderMsgSeqNum());
+        final List<String> messages = new ArrayList<>();
+        store.get(1, 1, messages);
+        assertEquals(1, messages.size());
+        assertEquals("MESSAGE2", messages.get(0));
+    }
+
+    public void testRecoveryTruncatesTornHeaderEntry() throws Exception {
+        final FileStore store = (FileStore) getStore();
+        store.reset();
+        store.set(1, "MESSAGE1");
+        final File journal = crash(store);
+        final String headerFileName = headerFileName(store);
+        try (RandomAccessFile header = new RandomAccessFile(headerFileName, "rw")) {
+            // the first bytes of an entry written after the last record
+            header.seek(header.length());
+            header.writeInt(2);
+        }
+
+        FileStoreJournal.recover(journal);
+
+        assertEquals(FileStore.HEADER_ENTRY_SIZE, new File(headerFileName).length());
+    }
+
+    public void testCheckpointTruncatesJournal() throws Exception {
+        final File directory = Files.createTempDirectory("journal").toFile();
+        final File journalFile = new File(directory, FileStoreJournal.FILE_NAME);
+        final FileStoreJournal journal = FileStoreJournal.open(journalFile, 0, 1, 1);
+        final FileStore store = new FileStore(directory.getPath(), getSessionID(), true, 10,
+                null, false, false, journal, 1000);
+        try {
+            store.set(1, "MESSAGE1");
+            store.awaitGroupCommit();
+
+            // the synced files do not need the journal
+            assertEquals(0, journalFile.length());
+        } finally {
+            store.closeAndDeleteFiles();
+        }
+    }
+
+    public void testWaitIsBounded() throws Exception {
+        final File directory = Files.createTempDirectory("journal").toFile();
+        final FileStoreJournal journal = FileStoreJournal.open(
+                new File(directory, FileStoreJournal.FILE_NAME), 5000, Long.MAX_VALUE);
+        final FileStore store = new FileStore(directory.getPath(), getSessionID(), true, 10,
+                null, false, false, journal, 100);
+        try {
+            store.set(1, "MESSAGE1");
+            final long start = System.nanoTime();
+            store.awaitGroupCommit();
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+        } finally {
+            store.closeAndDeleteFiles();
+        }
+    }
+
+    public void testSendWaitsWithoutSenderSeqNumLock() throws Exception {
+        final File directory = Files.createTempDirectory("journal").toFile();
+        final SessionID sessionID = new SessionID("FIX.4.2", "JOURNAL-SENDER", "JOURNAL-TARGET");
+        final SessionSettings sessionSettings = new SessionSettings();
+        sessionSettings.setString(FileStoreFactory.SETTING_FILE_STORE_PATH, directory.getPath());
+        sessionSettings.setLong(FileStoreFactory.SETTING_FILE_STORE_GROUP_COMMIT_INTERVAL, 2000);
+        sessionSettings.setBool(sessionID, FileStoreFactory.SETTING_FILE_STORE_SYNC, true);
+        sessionSettings.setBool(sessionID, FileStoreFactory.SETTING_FILE_STORE_GROUP_COMMIT, true);
+        sessionSettings.setLong(sessionID, FileStoreFactory.SETTING_FILE_STORE_GROUP_COMMIT_MAX_WAIT, 10000);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (Session session = new SessionFactoryTestSupport.Builder().setSessionId(sessionID)
+                .setMessageStoreFactory(new FileStoreFactory(sessionSettings)).setPersistMessages(true)
+                .build()) {
+            final MessageStore store = session.getStore();
+            final Future<Boolean> first = executor.submit(() -> session.send(new Heartbeat()));
+            awaitNextSenderMsgSeqNum(store, 2);
+
+            // the first send waits for the journal, but not with the lock
+            final Future<Boolean> second = executor.submit(() -> session.send(new Heartbeat()));
+            awaitNextSenderMsgSeqNum(store, 3);
+            assertFalse(first.isDone());
+
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+            ((FileStore) store).closeAndDeleteFiles();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitNextSenderMsgSeqNum(MessageStore store, int next) throws Exception {
+        final long deadline = System.currentTimeMillis() + 1000;
+        while (store.getNextSenderMsgSeqNum() < next) {
+            assertTrue("next sender sequence number not " + next, System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Copies the journal once the writes of the store are committed and
+     * truncates the store files, as if their writes had not reached the disk.
+     */
+    private File crash(FileStore store) throws Exception {
+        store.awaitGroupCommit();
+        final File journal = File.createTempFile("filestore", ".journal");
+        Files.copy(new FileStoreFactory(settings).getJournalFile().toPath(), journal.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        store.close();
+        final String prefix = headerFileName(store).substring(0,
+                headerFileName(store).length() - FileStore.HEADER_SUFFIX.length());
+        for (final String suffix : new String[] { FileStore.HEADER_SUFFIX, FileStore.BODY_SUFFIX,
+                FileStore.SENDER_SEQ_NUM_SUFFIX, FileStore.TARGET_SEQ_NUM_SUFFIX }) {
+            try (RandomAccessFile file = new RandomAccessFile(prefix + suffix, "rw")) {
+                file.setLength(0);
+            }
+        }
+        return journal;
+    }
+
+    private static String headerFileName(FileStore store) {
+        final String msgFileName = store.getMsgFileName();
+        return msgFileName.substring(0, msgFileName.length() - FileStore.BODY_SUFFIX.length())
+                + FileStore.HEADER_SUFFIX;
+    }
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class FileStoreMessageCacheTest extends FileStoreTest {
+    @Override
+    protected MessageStoreFactory getMessageStoreFactory() throws ConfigError, FieldConvertError {
+        SessionSettings settings = new SessionSettings(getConfigurationFileName());
+        // Initialize the session settings from the defaults
+        settings.setString(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_PATH, settings
+                .getString(FileStoreFactory.SETTING_FILE_STORE_PATH));
+        settings.setString(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_CACHE_MAX_MESSAGES, "2");
+        return new FileStoreFactory(settings);
+    }
+
+    public void testResendServedFromCache() throws Exception {
+        FileStore store = (FileStore) getStore();
+        for (int i = 1; i <= 4; i++) {
+            store.set(i, "MESSAGE" + i);
+        }
+
+        List<String> messages = new ArrayList<>();
+        store.get(1, 4, messages);
+        assertEquals(Arrays.asList("MESSAGE1", "MESSAGE2", "MESSAGE3", "MESSAGE4"), messages);
+
+        try (RandomAccessFile file = new RandomAccessFile(store.getMsgFileName(), "rw")) {
+            file.setLength(0);
+        }
+        messages.clear();
+        store.get(3, 10, messages);
+        assertEquals(Arrays.asList("MESSAGE3", "MESSAGE4"), messages);
+    }
+
+    public void testOutOfSequenceMessagesAreReadFromFiles() throws Exception {
+        FileStore store = (FileStore) getStore();
+        store.set(113, "message2");
+        store.set(111, "message1");
+        store.set(112, "message3");
+
+        List<String> messages = new ArrayList<>();
+        store.get(100, 115, messages);
+        assertEquals(Arrays.asList("message1", "message3", "message2"), messages);
+    }
+}
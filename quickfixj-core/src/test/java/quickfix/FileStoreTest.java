@@ -19,6 +19,7 @@
 
 package quickfix;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -72,6 +73,34 @@ public class FileStoreTest extends AbstractMessageStoreTest {
         assertEquals(321, store.getNextTargetMsgSeqNum());
     }
 
+    public void testIndexSnapshot() throws Exception {
+        SessionSettings settings = new SessionSettings(getConfigurationFileName());
+        String path = settings.getString(FileStoreFactory.SETTING_FILE_STORE_PATH);
+        settings.setString(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_PATH, path);
+        settings.setBool(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_INDEX_SNAPSHOT, true);
+        FileStore store = (FileStore) new FileStoreFactory(settings).create(getSessionID());
+        File snapshotFile = new File(FileUtil.fileAppendPath(new File(path).getAbsolutePath(),
+                FileUtil.sessionIdFileName(getSessionID()) + ".index"));
+        try {
+            store.reset();
+            store.set(1, "MESSAGE1");
+            store.set(2, "MESSAGE2");
+            store.close();
+            assertTrue(snapshotFile.exists());
+
+            store.initialize(false);
+            assertFalse(snapshotFile.exists());
+            List<String> messages = new ArrayList<>();
+            store.get(1, 2, messages);
+            assertEquals(2, messages.size());
+            assertEquals("MESSAGE1", messages.get(0));
+            assertEquals("MESSAGE2", messages.get(1));
+        } finally {
+            store.closeAndDeleteFiles();
+        }
+        assertFalse(snapshotFile.exists());
+    }
+
     protected void closeMessageStore(MessageStore store) throws IOException {
         ((FileStore) store).close();
     }
@@ -90,6 +90,51 @@ public class JdbcLogTest {
         assertEquals(0, getRowCount(connection, log.getOutgoingMessagesTableName()));
     }
 
+    @Test
+    public void testBatchedLog() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setLong(JdbcSetting.SETTING_JDBC_LOG_BATCH_SIZE, 10);
+        settings.setLong(JdbcSetting.SETTING_JDBC_BATCH_FLUSH_INTERVAL, 10000);
+        setUpJdbcLog(settings, false, null);
+
+        log.onIncoming("INCOMING");
+        log.onOutgoing("OUTGOING");
+        log.onEvent("EVENT");
+        assertEquals(0, getRowCount(connection, "messages_log"));
+        assertEquals(0, getRowCount(connection, "event_log"));
+
+        log.close();
+        assertEquals(2, getRowCount(connection, "messages_log"));
+        assertLogData(connection, 0, sessionID, "INCOMING", log.getIncomingMessagesTableName());
+        assertLogData(connection, 0, sessionID, "OUTGOING", log.getOutgoingMessagesTableName());
+        assertLogData(connection, 0, sessionID, "EVENT", "event_log");
+
+        log.onIncoming("INCOMING");
+        log.clear();
+        assertEquals(0, getRowCount(connection, "messages_log"));
+    }
+
+    @Test
+    public void testBatchedLogThroughCompositeLog() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setLong(JdbcSetting.SETTING_JDBC_LOG_BATCH_SIZE, 10);
+        settings.setLong(JdbcSetting.SETTING_JDBC_BATCH_FLUSH_INTERVAL, 10000);
+        setUpJdbcLog(settings, false, null);
+        LogFactory compositeLogFactory = new CompositeLogFactory(new LogFactory[] { logFactory,
+                new ScreenLogFactory(false, false, false) });
+
+        // closed by the session, like any closeable log
+        try (Session session = new Session(new UnitTestApplication(), new MemoryStoreFactory(),
+                sessionID, new DefaultDataDictionaryProvider(), null, compositeLogFactory,
+                new DefaultMessageFactory(), 0)) {
+            assertTrue(session.getLog() instanceof CompositeLog);
+            session.getLog().onIncoming("INCOMING");
+            session.getLog().onOutgoing("OUTGOING");
+            assertEquals(0, getRowCount(connection, "messages_log"));
+        }
+        assertEquals(2, getRowCount(connection, "messages_log"));
+    }
+
     /**
      * Make sure the logger handles the situation where the underlying JdbcLog is misconfigured
      * (such as we can't connect ot the DB, or the tables are missing) and doesn't try
@@ -126,8 +171,11 @@ public class JdbcLogTest {
     }
 
     private void setUpJdbcLog(boolean filterHeartbeats, DataSource dataSource) throws ClassNotFoundException, SQLException, ConfigError {
+        setUpJdbcLog(new SessionSettings(), filterHeartbeats, dataSource);
+    }
+
+    private void setUpJdbcLog(SessionSettings settings, boolean filterHeartbeats, DataSource dataSource) throws ClassNotFoundException, SQLException, ConfigError {
         connection = JdbcTestSupport.getConnection();
-        SessionSettings settings = new SessionSettings();
         if (filterHeartbeats) {
             settings.setBool(JdbcSetting.SETTING_JDBC_LOG_HEARTBEATS, false);
         }
@@ -25,12 +25,19 @@ import javax.naming.NamingException;
 import javax.sql.DataSource;
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
+import static quickfix.JdbcSetting.SETTING_JDBC_BATCH_FLUSH_INTERVAL;
 import static quickfix.JdbcSetting.SETTING_JDBC_DS_NAME;
+import static quickfix.JdbcSetting.SETTING_JDBC_STORE_BATCH_SIZE;
+import static quickfix.JdbcSetting.SETTING_JDBC_STORE_COMPRESSION;
+import static quickfix.JdbcSetting.SETTING_JDBC_STORE_FETCH_SIZE;
 import static quickfix.JdbcSetting.SETTING_JDBC_STORE_MESSAGES_TABLE_NAME;
 import static quickfix.JdbcSetting.SETTING_JDBC_STORE_SESSIONS_TABLE_NAME;
 import static quickfix.JdbcTestSupport.HSQL_CONNECTION_URL;
@@ -169,4 +176,127 @@ public class JdbcStoreTest extends AbstractMessageStoreTest {
         store.get(1, 1, messages);
         assertEquals("MESSAGE2", messages.get(0));
     }
+
+    public void testBatchedMessageStorage() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setLong(SETTING_JDBC_STORE_BATCH_SIZE, 10);
+        settings.setLong(SETTING_JDBC_BATCH_FLUSH_INTERVAL, 10000);
+        JdbcStore store = createStore(settings);
+        JdbcStore reader = createStore(new SessionSettings());
+
+        assertTrue(store.set(1, "MESSAGE1"));
+        assertTrue(store.set(1, "MESSAGE2"));
+        assertTrue(store.set(2, "MESSAGE3"));
+
+        List<String> messages = new ArrayList<>();
+        reader.get(1, 2, messages);
+        assertEquals("messages written before batch was full", 0, messages.size());
+
+        store.get(1, 2, messages);
+        assertEquals(2, messages.size());
+        assertEquals("MESSAGE2", messages.get(0));
+        assertEquals("MESSAGE3", messages.get(1));
+
+        messages.clear();
+        reader.get(1, 2, messages);
+        assertEquals(2, messages.size());
+    }
+
+    public void testBatchedMessagesAreWrittenWhenBatchIsFull() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setLong(SETTING_JDBC_STORE_BATCH_SIZE, 2);
+        settings.setLong(SETTING_JDBC_BATCH_FLUSH_INTERVAL, 10000);
+        JdbcStore store = createStore(settings);
+        JdbcStore reader = createStore(new SessionSettings());
+
+        store.set(1, "MESSAGE1");
+        store.set(2, "MESSAGE2");
+
+        List<String> messages = new ArrayList<>();
+        long timeout = System.currentTimeMillis() + 10000;
+        while (messages.size() < 2 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+            messages.clear();
+            reader.get(1, 2, messages);
+        }
+        assertEquals(2, messages.size());
+        store.close();
+    }
+
+    public void testBatchedMessagesAreWrittenOnClose() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setLong(SETTING_JDBC_STORE_BATCH_SIZE, 10);
+        settings.setLong(SETTING_JDBC_BATCH_FLUSH_INTERVAL, 10000);
+        JdbcStore store = createStore(settings);
+        store.set(1, "MESSAGE1");
+        store.set(2, "MESSAGE2");
+        store.close();
+
+        List<String> messages = new ArrayList<>();
+        createStore(new SessionSettings()).get(1, 2, messages);
+        assertEquals(2, messages.size());
+    }
+
+    public void testBatchedWriteFailureIsReported() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setLong(SETTING_JDBC_STORE_BATCH_SIZE, 10);
+        JdbcStore store = createStore(settings);
+        Connection connection = getDataSource().getConnection();
+        try {
+            dropTable(connection, "messages");
+            store.set(1, "MESSAGE1");
+            try {
+                store.get(1, 1, new ArrayList<>());
+                fail("expected IOException");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            close(null, connection);
+            initializeTableDefinitions(null, null);
+        }
+    }
+
+    public void testGetWithFetchSize() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setLong(SETTING_JDBC_STORE_FETCH_SIZE, 2);
+        JdbcStore store = createStore(settings);
+        for (int i = 1; i <= 5; i++) {
+            store.set(i, "MESSAGE" + i);
+        }
+
+        List<String> messages = new ArrayList<>();
+        store.get(1, 5, messages);
+        assertEquals(5, messages.size());
+        for (int i = 1; i <= 5; i++) {
+            assertEquals("MESSAGE" + i, messages.get(i - 1));
+        }
+    }
+
+    private JdbcStore createStore(SessionSettings settings) {
+        JdbcStoreFactory factory = new JdbcStoreFactory(settings);
+        factory.setDataSource(getDataSource());
+        return (JdbcStore) factory.create(getSessionID());
+    }
+
+    public void testCompressedMessageStorage() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setBool(SETTING_JDBC_STORE_COMPRESSION, true);
+        JdbcStore store = createStore(settings);
+        store.set(1, "MESSAGE1");
+        store.set(2, "MESSAGE2");
+
+        List<String> messages = new ArrayList<>();
+        store.get(1, 2, messages);
+        assertEquals(Arrays.asList("MESSAGE1", "MESSAGE2"), messages);
+
+        Connection connection = getDataSource().getConnection();
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT message FROM messages WHERE msgseqnum=1")) {
+            assertTrue(rs.next());
+            assertFalse("message not compressed", "MESSAGE1".equals(rs.getString(1)));
+        } finally {
+            close(null, connection);
+        }
+    }
 }
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class MappedFileStoreTest extends AbstractMessageStoreTest {
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        ((MappedFileStore) getStore()).closeAndDeleteFiles();
+    }
+
+    protected MessageStoreFactory getMessageStoreFactory() throws ConfigError, FieldConvertError {
+        SessionSettings settings = new SessionSettings(getConfigurationFileName());
+        // Initialize the session settings from the defaults
+        settings.setString(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_PATH, settings
+                .getString(FileStoreFactory.SETTING_FILE_STORE_PATH));
+        settings.setLong(getSessionID(), MappedFileStoreFactory.SETTING_MAPPED_FILE_STORE_SEGMENT_SIZE, 1024);
+        return new MappedFileStoreFactory(settings);
+    }
+
+    protected Class<?> getMessageStoreClass() {
+        return MappedFileStore.class;
+    }
+
+    protected void closeMessageStore(MessageStore store) throws IOException {
+        ((MappedFileStore) store).close();
+    }
+
+    public void testMessageIndexReset() throws Exception {
+        MappedFileStore store = (MappedFileStore) getStore();
+        store.set(1, "MESSAGE");
+        store.reset();
+
+        store.set(2, "MESSAGE");
+
+        List<String> messages = new ArrayList<>();
+        store.get(1, 2, messages);
+
+        assertEquals(1, messages.size());
+    }
+
+    public void testCloseAndOpen() throws Exception {
+        MappedFileStore store = (MappedFileStore) getStore();
+        store.setNextSenderMsgSeqNum(123);
+        store.setNextTargetMsgSeqNum(321);
+        store.set(5, "MESSAGE");
+        Date creationTime = store.getCreationTime();
+        store.close();
+        store.initialize(false);
+
+        assertEquals(123, store.getNextSenderMsgSeqNum());
+        assertEquals(321, store.getNextTargetMsgSeqNum());
+        assertEquals(creationTime, store.getCreationTime());
+        List<String> messages = new ArrayList<>();
+        store.get(1, 10, messages);
+        assertEquals(1, messages.size());
+        assertEquals("MESSAGE", messages.get(0));
+    }
+
+    public void testSegmentRolling() throws Exception {
+        MappedFileStore store = (MappedFileStore) getStore();
+        String message = "8=FIX.4.2\0019=12\00135=0\00110=000\001";
+        for (int i = 1; i <= 200; i++) {
+            store.set(i, message + i);
+        }
+        // larger than a segment
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            large.append("LARGE");
+        }
+        store.set(201, large.toString());
+        store.set(202, message + 202);
+        // replaces the message stored in an earlier segment
+        store.set(10, "RESENT");
+        assertTrue(store.getSegmentCount() > 2);
+
+        store.refresh();
+
+        List<String> messages = new ArrayList<>();
+        store.get(1, 202, messages);
+        assertEquals(202, messages.size());
+        assertEquals(message + 1, messages.get(0));
+        assertEquals("RESENT", messages.get(9));
+        assertEquals(message + 200, messages.get(199));
+        assertEquals(large.toString(), messages.get(200));
+        assertEquals(message + 202, messages.get(201));
+    }
+
+    public void testSparseSequenceNumbers() throws Exception {
+        MappedFileStore store = (MappedFileStore) getStore();
+        store.set(3, "MESSAGE3");
+        store.set(1_000_000, "MESSAGE1000000");
+        store.set(Integer.MAX_VALUE, "MESSAGEMAX");
+
+        List<String> messages = new ArrayList<>();
+        store.get(1, Integer.MAX_VALUE, messages);
+        assertEquals(3, messages.size());
+        assertEquals("MESSAGE3", messages.get(0));
+        assertEquals("MESSAGE1000000", messages.get(1));
+        assertEquals("MESSAGEMAX", messages.get(2));
+        assertFalse(store.set(-1, "MESSAGE"));
+    }
+
+    public void testRecoveryFromTornRecord() throws Exception {
+        MappedFileStore store = (MappedFileStore) getStore();
+        store.set(1, "MESSAGE1");
+        store.set(2, "MESSAGE2");
+        store.close();
+
+        // a record of which only the length made it into the segment
+        File segment = new File(new SessionSettings(getConfigurationFileName()).getString(
+                FileStoreFactory.SETTING_FILE_STORE_PATH), FileUtil.sessionIdFileName(getSessionID())
+                + ".mmap.0.segment.0");
+        int tornOffset = 2 * (12 + "MESSAGE1".length());
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(tornOffset);
+            file.writeInt(0x7fff);
+            file.writeInt(3);
+        }
+
+        store.initialize(false);
+        List<String> messages = new ArrayList<>();
+        store.get(1, 3, messages);
+        assertEquals(2, messages.size());
+
+        store.set(3, "MESSAGE3");
+        store.close();
+        store.initialize(false);
+        messages.clear();
+        store.get(1, 3, messages);
+        assertEquals(3, messages.size());
+        assertEquals("MESSAGE3", messages.get(2));
+    }
+
+    public void testRecoveryFromCorruptedRecord() throws Exception {
+        MappedFileStore store = (MappedFileStore) getStore();
+        store.set(1, "MESSAGE1");
+        store.set(2, "MESSAGE2");
+        store.set(3, "MESSAGE3");
+        store.close();
+
+        // a complete record whose bytes do not match its checksum
+        File segment = new File(new SessionSettings(getConfigurationFileName()).getString(
+                FileStoreFactory.SETTING_FILE_STORE_PATH), FileUtil.sessionIdFileName(getSessionID())
+                + ".mmap.0.segment.0");
+        int corruptedOffset = 12 + "MESSAGE1".length() + 12;
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(corruptedOffset);
+            file.write('X');
+        }
+
+        store.initialize(false);
+        List<String> messages = new ArrayList<>();
+        store.get(1, 3, messages);
+        assertEquals(1, messages.size());
+        assertEquals("MESSAGE1", messages.get(0));
+
+        store.set(2, "MESSAGE2");
+        store.close();
+        store.initialize(false);
+        messages.clear();
+        store.get(1, 3, messages);
+        assertEquals(2, messages.size());
+        assertEquals("MESSAGE2", messages.get(1));
+    }
+
+    public void testCorruptedRecordFailsRead() throws Exception {
+        MappedFileStore store = (MappedFileStore) getStore();
+        String message = "8=FIX.4.2\0019=12\00135=0\00110=000\001";
+        for (int i = 1; i <= 100; i++) {
+            store.set(i, message + i);
+        }
+        assertTrue(store.getSegmentCount() > 1);
+        store.close();
+
+        // rolled over segments are not scanned on initialization
+        File segment = new File(new SessionSettings(getConfigurationFileName()).getString(
+                FileStoreFactory.SETTING_FILE_STORE_PATH), FileUtil.sessionIdFileName(getSessionID())
+                + ".mmap.0.segment.0");
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(12);
+            file.write('X');
+        }
+
+        store.initialize(false);
+        List<String> messages = new ArrayList<>();
+        try {
+            store.get(1, 1, messages);
+            fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+        store.get(2, 2, messages);
+        assertEquals(1, messages.size());
+    }
+
+    public void testResetDeletesOlderGeneration() throws Exception {
+        MappedFileStore store = (MappedFileStore) getStore();
+        store.set(1, "MESSAGE1");
+        File directory = new File(new SessionSettings(getConfigurationFileName()).getString(
+                FileStoreFactory.SETTING_FILE_STORE_PATH));
+        String prefix = FileUtil.sessionIdFileName(getSessionID()) + ".mmap.";
+        assertTrue(new File(directory, prefix + "0.segment.0").exists());
+
+        store.reset();
+
+        assertFalse(new File(directory, prefix + "0.segment.0").exists());
+        assertFalse(new File(directory, prefix + "0.index.0").exists());
+        assertTrue(new File(directory, prefix + "1.segment.0").exists());
+        store.set(1, "MESSAGE1");
+        List<String> messages = new ArrayList<>();
+        store.get(1, 1, messages);
+        assertEquals(1, messages.size());
+    }
+
+    public void testResetShouldNeverFail() throws Exception {
+        final MockSystemTimeSource mockSystemTimeSource = new MockSystemTimeSource(System.currentTimeMillis());
+        SystemTime.setTimeSource(mockSystemTimeSource);
+        final MappedFileStore store = (MappedFileStore) getStore();
+        final Thread thread = new Thread(() -> {
+            // mapping a file fails once the thread is interrupted
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    store.set(0, "SettingSomething");
+                } catch (IOException e) {
+                    // it is ok for this to fail
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+
+        Date creationTime = store.getCreationTime();
+        for (int i = 0; i < 20; i++) {
+            mockSystemTimeSource.increment(1);
+            store.reset();
+            final Date newCreationTime = store.getCreationTime();
+            assertTrue(newCreationTime.after(creationTime));
+            creationTime = newCreationTime;
+        }
+        SystemTime.setTimeSource(null);
+
+        thread.interrupt();
+        thread.join();
+    }
+}
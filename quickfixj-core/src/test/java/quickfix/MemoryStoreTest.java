@@ -19,6 +19,10 @@
 
 package quickfix;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class MemoryStoreTest extends AbstractMessageStoreTest {
     protected MessageStoreFactory getMessageStoreFactory() {
         return new MemoryStoreFactory();
@@ -27,4 +31,22 @@ public class MemoryStoreTest extends AbstractMessageStoreTest {
     protected Class<?> getMessageStoreClass() {
         return MemoryStore.class;
     }
+
+    public void testBoundedStoreKeepsRecentMessages() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setLong(MemoryStoreFactory.SETTING_MEMORY_STORE_MAX_MESSAGES, 2);
+        MessageStore store = new MemoryStoreFactory(settings).create(getSessionID());
+        store.set(1, "MESSAGE1");
+        store.set(2, "MESSAGE2");
+        store.set(3, "MESSAGE3");
+
+        List<String> messages = new ArrayList<>();
+        store.get(1, 3, messages);
+        assertEquals(Arrays.asList("MESSAGE2", "MESSAGE3"), messages);
+
+        store.reset();
+        messages.clear();
+        store.get(1, 3, messages);
+        assertEquals(0, messages.size());
+    }
 }
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MessageCacheTest {
+
+    @Test
+    public void testOldestMessagesAreEvicted() {
+        MessageCache cache = new MessageCache(3, Long.MAX_VALUE);
+        for (int i = 1; i <= 5; i++) {
+            cache.put(i, "M" + i);
+        }
+        assertEquals(3, cache.getFirstSequence());
+        assertEquals(3, cache.size());
+        assertEquals(Arrays.asList("M3", "M4", "M5"), get(cache, 1, 5));
+    }
+
+    @Test
+    public void testEvictionBySize() {
+        MessageCache cache = new MessageCache(100, 10);
+        cache.put(1, "AAAA");
+        cache.put(2, "BBBB");
+        cache.put(3, "CCCC");
+        assertEquals(2, cache.getFirstSequence());
+        assertEquals(8, cache.getByteSize());
+
+        cache.put(3, "CCCCCCC");
+        assertEquals(3, cache.getFirstSequence());
+        assertEquals(7, cache.getByteSize());
+        assertEquals(Arrays.asList("CCCCCCC"), get(cache, 1, 3));
+    }
+
+    @Test
+    public void testReplace() {
+        MessageCache cache = new MessageCache(10, Long.MAX_VALUE);
+        cache.put(1, "M1");
+        cache.put(2, "M2");
+        cache.put(3, "M3");
+        cache.put(2, "X");
+        assertEquals(Arrays.asList("M1", "X", "M3"), get(cache, 1, 3));
+        assertEquals(5, cache.getByteSize());
+    }
+
+    @Test
+    public void testGaps() {
+        MessageCache cache = new MessageCache(10, Long.MAX_VALUE);
+        cache.put(1, "M1");
+        cache.put(4, "M4");
+        assertEquals(1, cache.getFirstSequence());
+        assertEquals(2, cache.size());
+        assertEquals(Arrays.asList("M1", "M4"), get(cache, 1, 10));
+        assertEquals(Arrays.asList("M4"), get(cache, 2, 4));
+    }
+
+    @Test
+    public void testFarAheadMessageStartsNewWindow() {
+        MessageCache cache = new MessageCache(3, Long.MAX_VALUE);
+        cache.put(1, "M1");
+        cache.put(2, "M2");
+        cache.put(10, "M10");
+        assertEquals(10, cache.getFirstSequence());
+        assertEquals(Arrays.asList("M10"), get(cache, 1, 10));
+    }
+
+    @Test
+    public void testOlderMessages() {
+        MessageCache cache = new MessageCache(3, Long.MAX_VALUE);
+        cache.put(5, "M5");
+        cache.put(6, "M6");
+        cache.put(3, "M3");
+        assertEquals(5, cache.getFirstSequence());
+
+        cache.put(4, "M4");
+        assertEquals(4, cache.getFirstSequence());
+        assertEquals(Arrays.asList("M4", "M5", "M6"), get(cache, 1, 6));
+
+        // the window is full
+        cache.put(3, "M3");
+        assertEquals(4, cache.getFirstSequence());
+    }
+
+    @Test
+    public void testOversizedMessageIsNotCached() {
+        MessageCache cache = new MessageCache(10, 5);
+        cache.put(1, "M1");
+        cache.put(2, "TOO LONG");
+        assertEquals(3, cache.getFirstSequence());
+        assertEquals(0, cache.size());
+
+        cache.put(3, "M3");
+        assertEquals(Arrays.asList("M3"), get(cache, 1, 3));
+
+        cache.put(3, "TOO LONG");
+        assertEquals(4, cache.getFirstSequence());
+        assertEquals(0, cache.getByteSize());
+    }
+
+    @Test
+    public void testGrowth() {
+        MessageCache cache = new MessageCache(1000, Long.MAX_VALUE);
+        for (int i = 1; i <= 1500; i++) {
+            cache.put(i, "M" + i);
+        }
+        assertEquals(501, cache.getFirstSequence());
+        List<String> messages = get(cache, 1, 1500);
+        assertEquals(1000, messages.size());
+        assertEquals("M501", messages.get(0));
+        assertEquals("M1500", messages.get(999));
+    }
+
+    @Test
+    public void testClear() {
+        MessageCache cache = new MessageCache(10, Long.MAX_VALUE);
+        cache.put(1, "M1");
+        cache.clear();
+        assertEquals(Long.MAX_VALUE, cache.getFirstSequence());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getByteSize());
+        assertEquals(0, get(cache, 1, 1).size());
+    }
+
+    private static List<String> get(MessageCache cache, int start, int end) {
+        List<String> messages = new ArrayList<>();
+        cache.get(start, end, messages);
+        return messages;
+    }
+}
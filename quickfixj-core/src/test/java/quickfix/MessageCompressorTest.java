@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class MessageCompressorTest {
+    private static final String MESSAGE = "8=FIX.4.4\0019=122\00135=D\00134=215\00149=CLIENT12\001"
+            + "52=20100225-19:41:57.316\00156=B\0011=Marcel\00111=13346\00121=1\00140=2\00144=5\001"
+            + "54=1\00159=0\00160=20100225-19:39:52.020\00110=072\001";
+
+    private final MessageCompressor compressor = new MessageCompressor();
+
+    @After
+    public void tearDown() {
+        compressor.close();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        byte[] compressed = compressor.compress(MESSAGE);
+        assertTrue(compressed.length < MESSAGE.length());
+        assertTrue(MessageCompressor.isCompressed(compressed, 0, compressed.length));
+        assertEquals(MESSAGE, compressor.decompress(compressed, 0, compressed.length));
+    }
+
+    @Test
+    public void testRoundTripAtOffset() throws Exception {
+        byte[] compressed = compressor.compress(MESSAGE);
+        byte[] data = new byte[compressed.length + 10];
+        System.arraycopy(compressed, 0, data, 5, compressed.length);
+        assertTrue(MessageCompressor.isCompressed(data, 5, compressed.length));
+        assertEquals(MESSAGE, compressor.decompress(data, 5, compressed.length));
+    }
+
+    @Test
+    public void testLargeAndEmptyMessages() throws Exception {
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            large.append("58=").append(i).append('\001');
+        }
+        byte[] compressed = compressor.compress(large.toString());
+        assertEquals(large.toString(), compressor.decompress(compressed, 0, compressed.length));
+
+        compressed = compressor.compress("");
+        assertEquals("", compressor.decompress(compressed, 0, compressed.length));
+    }
+
+    @Test
+    public void testUncompressedMessagesAreDetected() {
+        byte[] data = MESSAGE.getBytes(StandardCharsets.ISO_8859_1);
+        assertFalse(MessageCompressor.isCompressed(data, 0, data.length));
+        assertFalse(MessageCompressor.isCompressed(new byte[] { 1, 'Z' }, 0, 2));
+    }
+
+    @Test
+    public void testText() throws Exception {
+        String text = compressor.compressToText(MESSAGE);
+        assertEquals(MESSAGE, compressor.decompressText(text));
+        assertEquals(MESSAGE, compressor.decompressText(MESSAGE));
+        assertEquals("", compressor.decompressText(""));
+    }
+
+    @Test
+    public void testInvalidData() throws Exception {
+        byte[] compressed = compressor.compress(MESSAGE);
+        try {
+            compressor.decompress(compressed, 0, compressed.length / 2);
+            fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+        // still usable after a failure
+        assertEquals(MESSAGE, compressor.decompress(compressed, 0, compressed.length));
+    }
+}
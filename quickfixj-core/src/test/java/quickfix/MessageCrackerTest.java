@@ -20,6 +20,8 @@
 package quickfix;
 
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -132,6 +134,59 @@ public class MessageCrackerTest {
         assertTrue(messageCracked > 0);
     }
 
+    @Test
+    public void testHandlersAreNotCalledByReflection() throws Exception {
+        quickfix.fixt11.Logon logon = new quickfix.fixt11.Logon(new EncryptMethod(
+                EncryptMethod.NONE_OTHER), new HeartBtInt(30),
+                new DefaultApplVerID(ApplVerID.FIX42));
+
+        MessageCracker cracker = new MessageCracker() {
+            @Handler
+            public void handle(quickfix.fixt11.Logon logon, SessionID sessionID) {
+                // frames between the cracker and this handler
+                for (StackTraceElement element : new Throwable().getStackTrace()) {
+                    if (element.getClassName().equals(MessageCracker.class.getName())
+                            && element.getMethodName().equals("crack")) {
+                        break;
+                    }
+                    assertFalse(element.getClassName().startsWith("java.lang.reflect")
+                            || element.getClassName().startsWith("jdk.internal.reflect"));
+                }
+                messageCracked++;
+            }
+        };
+
+        cracker.crack(logon, new SessionID(FixVersions.BEGINSTRING_FIXT11, "SENDER", "TARGET"));
+
+        assertEquals(1, messageCracked);
+    }
+
+    @Test
+    public void testHandlerBindingIsSharedByCrackers() throws Exception {
+        quickfix.fixt11.Logon logon = new quickfix.fixt11.Logon(new EncryptMethod(
+                EncryptMethod.NONE_OTHER), new HeartBtInt(30),
+                new DefaultApplVerID(ApplVerID.FIX42));
+        SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIXT11, "SENDER", "TARGET");
+
+        CallerRecordingCracker first = new CallerRecordingCracker();
+        CallerRecordingCracker second = new CallerRecordingCracker();
+        first.crack(logon, sessionID);
+        second.crack(logon, sessionID);
+
+        // both crackers call the handler through the same generated class
+        assertThat(first.caller, notNullValue());
+        assertEquals(first.caller, second.caller);
+    }
+
+    private static class CallerRecordingCracker extends MessageCracker {
+        private String caller;
+
+        @Handler
+        public void handle(quickfix.fixt11.Logon logon, SessionID sessionID) {
+            caller = new Throwable().getStackTrace()[1].getClassName();
+        }
+    }
+
     @Test(expected = RedundantHandlerException.class)
     public void testDuplicateCracks() throws Exception {
         try {
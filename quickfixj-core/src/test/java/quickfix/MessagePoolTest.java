@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import quickfix.field.AllocAccount;
+import quickfix.field.ClOrdID;
+import quickfix.field.HandlInst;
+import quickfix.field.MsgSeqNum;
+import quickfix.field.MsgType;
+import quickfix.field.NoAllocs;
+import quickfix.field.OrdType;
+import quickfix.field.SenderCompID;
+import quickfix.field.Side;
+import quickfix.field.Symbol;
+import quickfix.field.TargetCompID;
+import quickfix.field.TransactTime;
+import quickfix.fix42.NewOrderSingle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MessagePoolTest {
+
+    @Test
+    public void testReleasedMessageIsReused() throws Exception {
+        final DataDictionary dictionary = new DataDictionary("FIX42.xml");
+        final MessagePool pool = new MessagePool(new DefaultMessageFactory(), 4);
+        final String first = newOrder("ORD-1", "ACC1", "ACC2");
+        final String second = newOrder("ORD-2", "ACC3");
+
+        final Message message = pool.acquire(FixVersions.BEGINSTRING_FIX42, null, MsgType.ORDER_SINGLE);
+        assertTrue(message instanceof NewOrderSingle);
+        message.fromString(first, dictionary, true);
+        final List<Group> groups = new ArrayList<>(message.getGroups(NoAllocs.FIELD));
+        message.release();
+        assertTrue(message.isEmpty());
+        assertTrue(message.getHeader().isEmpty());
+        assertFalse(message.hasGroup(NoAllocs.FIELD));
+
+        final Message reused = pool.acquire(FixVersions.BEGINSTRING_FIX42, null, MsgType.ORDER_SINGLE);
+        assertSame(message, reused);
+        reused.fromString(second, dictionary, true);
+        assertEquals(second, reused.toString());
+        assertEquals("ORD-2", reused.getString(ClOrdID.FIELD));
+        assertEquals(1, reused.getGroupCount(NoAllocs.FIELD));
+        assertTrue(groups.contains(reused.getGroups(NoAllocs.FIELD).get(0)));
+        assertEquals("ACC3", reused.getGroup(1, NoAllocs.FIELD).getString(AllocAccount.FIELD));
+
+        // other message types have their own pool
+        assertNotSame(message, pool.acquire(FixVersions.BEGINSTRING_FIX42, null, MsgType.HEARTBEAT));
+    }
+
+    @Test
+    public void testRetainedMessageIsNotReused() throws Exception {
+        final MessagePool pool = new MessagePool(new DefaultMessageFactory(), 4);
+        final String order = newOrder("ORD-1", "ACC1");
+
+        final Message message = pool.acquire(FixVersions.BEGINSTRING_FIX42, null, MsgType.ORDER_SINGLE);
+        message.fromString(order, null, false);
+        message.retain();
+        message.release();
+        assertTrue(message.isRetained());
+        assertEquals(order, message.toString());
+        assertNotSame(message, pool.acquire(FixVersions.BEGINSTRING_FIX42, null, MsgType.ORDER_SINGLE));
+    }
+
+    @Test
+    public void testUnpooledMessageIsNotCleared() throws Exception {
+        final String order = newOrder("ORD-1", "ACC1");
+        final Message message = new Message(order, false);
+        message.release();
+        assertEquals(order, message.toString());
+    }
+
+    @Test
+    public void testPoolIsBounded() throws Exception {
+        final MessagePool pool = new MessagePool(new DefaultMessageFactory(), 1);
+        final Message first = pool.acquire(FixVersions.BEGINSTRING_FIX42, null, MsgType.HEARTBEAT);
+        final Message second = pool.acquire(FixVersions.BEGINSTRING_FIX42, null, MsgType.HEARTBEAT);
+        first.release();
+        second.release();
+        assertSame(first, pool.acquire(FixVersions.BEGINSTRING_FIX42, null, MsgType.HEARTBEAT));
+        assertNotSame(second, pool.acquire(FixVersions.BEGINSTRING_FIX42, null, MsgType.HEARTBEAT));
+    }
+
+    private static String newOrder(String clOrdID, String... accounts) {
+        final NewOrderSingle order = new NewOrderSingle(new ClOrdID(clOrdID), new HandlInst('1'),
+                new Symbol("IBM"), new Side(Side.BUY), new TransactTime(LocalDateTime.of(2020, 1, 2, 3, 4, 5)),
+                new OrdType(OrdType.MARKET));
+        order.getHeader().setString(SenderCompID.FIELD, "SENDER");
+        order.getHeader().setString(TargetCompID.FIELD, "TARGET");
+        order.getHeader().setInt(MsgSeqNum.FIELD, 1);
+        final NewOrderSingle.NoAllocs allocs = new NewOrderSingle.NoAllocs();
+        for (String account : accounts) {
+            allocs.set(new AllocAccount(account));
+            order.addGroup(allocs);
+        }
+        return order.toString();
+    }
+}
@@ -116,9 +116,12 @@ import quickfix.fix44.component.Parties;
 import quickfix.fix50.MarketDataSnapshotFullRefresh;
 
 import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.TimeZone;
 
@@ -574,6 +577,213 @@ public class MessageTest {
         }
     }
 
+    @Test
+    public void testParseFromBytes() throws Exception {
+        final DataDictionary dictionary = new DataDictionary("FIX42.xml");
+        final NewOrderSingle order = new NewOrderSingle(new ClOrdID("ORD-1"),
+                new HandlInst('1'), new quickfix.field.Symbol("IBM"), new Side(Side.BUY),
+                new TransactTime(LocalDateTime.of(2020, 1, 2, 3, 4, 5)), new OrdType(OrdType.MARKET));
+        order.getHeader().setString(SenderCompID.FIELD, "SENDER");
+        order.getHeader().setString(TargetCompID.FIELD, "TARGET");
+        order.getHeader().setInt(MsgSeqNum.FIELD, 5);
+        order.getHeader().setUtcTimeStamp(SendingTime.FIELD, LocalDateTime.of(2020, 1, 2, 3, 4, 5));
+        order.setString(RawData.FIELD, "raw\001data");
+        order.setInt(RawDataLength.FIELD, 8);
+        final NewOrderSingle.NoAllocs allocs = new NewOrderSingle.NoAllocs();
+        allocs.set(new AllocAccount("ACC1"));
+        allocs.set(new AllocShares(100));
+        order.addGroup(allocs);
+        allocs.set(new AllocAccount("ACC2"));
+        allocs.set(new AllocShares(200));
+        order.addGroup(allocs);
+        final String messageString = order.toString();
+
+        // embed the message in a larger array to exercise the offset handling
+        final byte[] raw = ("garbage" + messageString + "garbage").getBytes(CharsetSupport.getCharset());
+        final MessageBytes messageBytes = new MessageBytes(raw, 7, messageString.length(),
+                CharsetSupport.getCharsetInstance());
+
+        final Message fromBytes = new NewOrderSingle();
+        fromBytes.fromBytes(messageBytes, dictionary, true);
+        final Message fromString = new NewOrderSingle();
+        fromString.fromString(messageString, dictionary, true);
+
+        assertTrue(fromBytes.hasValidStructure());
+        assertEquals(fromString.toString(), fromBytes.toString());
+        assertEquals(messageString, fromBytes.toRawString());
+        assertEquals("raw\001data", fromBytes.getString(RawData.FIELD));
+        assertEquals(2, fromBytes.getGroupCount(quickfix.field.NoAllocs.FIELD));
+        assertEquals("ACC2", fromBytes.getGroup(2, quickfix.field.NoAllocs.FIELD).getString(AllocAccount.FIELD));
+    }
+
+    @Test
+    public void testParseFromBytesWithBadChecksum() throws Exception {
+        final DataDictionary dictionary = new DataDictionary("FIX42.xml");
+        final String messageString = "8=FIX.4.2\0019=12\00135=0\001108=30\00110=001\001";
+        try {
+            new Message().fromBytes(ByteBuffer.wrap(messageString.getBytes(CharsetSupport.getCharset())),
+                    dictionary, true);
+            fail("no exception thrown");
+        } catch (final InvalidMessage e) {
+            assertTrue(e.getMessage().startsWith("Expected CheckSum="));
+        }
+    }
+
+    @Test
+    public void testParseFromBytesWithBadTag() throws Exception {
+        final Message message = new Message();
+        try {
+            message.fromBytes(MessageBytes.wrap("8=FIX.4.2\0019=12\00135=0\001x08=30\00110=001\001"
+                    .getBytes(CharsetSupport.getCharset())), null, false);
+            fail("no exception thrown");
+        } catch (final InvalidMessage e) {
+            assertTrue(e.getMessage().startsWith("Bad tag format"));
+        }
+    }
+
+    @Test
+    public void testLazyParseFromBytes() throws Exception {
+        final DataDictionary dictionary = new DataDictionary("FIX42.xml");
+        final NewOrderSingle order = new NewOrderSingle(new ClOrdID("ORD-1"),
+                new HandlInst('1'), new quickfix.field.Symbol("IBM"), new Side(Side.BUY),
+                new TransactTime(LocalDateTime.of(2020, 1, 2, 3, 4, 5)), new OrdType(OrdType.MARKET));
+        order.getHeader().setString(SenderCompID.FIELD, "SENDER");
+        order.getHeader().setString(TargetCompID.FIELD, "TARGET");
+        order.getHeader().setInt(MsgSeqNum.FIELD, 5);
+        order.getHeader().setUtcTimeStamp(SendingTime.FIELD, LocalDateTime.of(2020, 1, 2, 3, 4, 5));
+        order.setString(RawData.FIELD, "raw\001data");
+        order.setInt(RawDataLength.FIELD, 8);
+        final NewOrderSingle.NoAllocs allocs = new NewOrderSingle.NoAllocs();
+        allocs.set(new AllocAccount("ACC1"));
+        allocs.set(new AllocShares(100));
+        order.addGroup(allocs);
+        final String messageString = order.toString();
+        final MessageBytes messageBytes = MessageBytes.wrap(messageString.getBytes(CharsetSupport.getCharset()));
+
+        final Message lazy = new NewOrderSingle();
+        lazy.fromBytes(messageBytes, dictionary, dictionary, true, true, true);
+        final Message eager = new NewOrderSingle();
+        eager.fromString(messageString, dictionary, true);
+
+        assertTrue(lazy.hasValidStructure());
+        assertEquals(messageString, lazy.toString());
+        assertEquals("ORD-1", lazy.getString(ClOrdID.FIELD));
+        assertTrue(lazy.isSetField(quickfix.field.Symbol.FIELD));
+        assertFalse(lazy.isSetField(Price.FIELD));
+        assertEquals("raw\001data", lazy.getString(RawData.FIELD));
+        assertEquals("ACC1", lazy.getGroup(1, quickfix.field.NoAllocs.FIELD).getString(AllocAccount.FIELD));
+        // reading fields does not count as a modification
+        assertEquals(messageString, lazy.toString());
+
+        lazy.setDouble(Price.FIELD, 12.5);
+        eager.setDouble(Price.FIELD, 12.5);
+        assertEquals(eager.toString(), lazy.toString());
+
+        final Message lazyGroupChange = new NewOrderSingle();
+        lazyGroupChange.fromBytes(messageBytes, dictionary, dictionary, true, true, true);
+        lazyGroupChange.getGroup(1, quickfix.field.NoAllocs.FIELD).setString(AllocAccount.FIELD, "ACC2");
+        assertFalse(messageString.equals(lazyGroupChange.toString()));
+        assertTrue(lazyGroupChange.toString().contains("\00179=ACC2\001"));
+    }
+
+    @Test
+    public void testLazyParseFromBytesWithDuplicateTag() throws Exception {
+        final Message message = new Message();
+        message.fromBytes(MessageBytes.wrap("8=FIX.4.2\0019=22\00135=D\00155=IBM\00155=IBM\00110=001\001"
+                .getBytes(CharsetSupport.getCharset())), null, null, false, false, true);
+        assertFalse(message.hasValidStructure());
+        assertEquals(SessionRejectReason.TAG_APPEARS_MORE_THAN_ONCE, message.getException().getSessionRejectReason());
+    }
+
+    @Test
+    public void testLazyParseFromBytesWithManyFields() throws Exception {
+        // more fields than the initial capacity of the lazy field index
+        final StringBuilder body = new StringBuilder("35=D\001");
+        for (int tag = 10000; tag < 10200; tag++) {
+            body.append(tag).append('=').append(tag).append('\001');
+        }
+        final String messageString = "8=FIX.4.2\0019=" + body.length() + "\001" + body + "10=000\001";
+        final Message message = new Message();
+        message.fromBytes(MessageBytes.wrap(messageString.getBytes(CharsetSupport.getCharset())),
+                null, null, false, false, true);
+        assertTrue(message.hasValidStructure());
+        for (int tag = 10000; tag < 10200; tag += 2) {
+            assertEquals(Integer.toString(tag), message.getString(tag));
+        }
+        message.removeField(10001);
+        assertFalse(message.isSetField(10001));
+        for (int tag = 10003; tag < 10200; tag += 2) {
+            assertTrue(message.isSetField(tag));
+            assertEquals(Integer.toString(tag), message.getString(tag));
+        }
+        assertFalse(message.isSetField(10200));
+
+        final Message duplicate = new Message();
+        duplicate.fromBytes(MessageBytes.wrap((messageString.replace("10=000\001", "") + "10150=x\00110=000\001")
+                .getBytes(CharsetSupport.getCharset())), null, null, false, false, true);
+        assertFalse(duplicate.hasValidStructure());
+        assertEquals(10150, duplicate.getException().getField());
+    }
+
+    @Test
+    public void testWriteTo() throws Exception {
+        final NewOrderSingle order = new NewOrderSingle(new ClOrdID("ORD-1"),
+                new HandlInst('1'), new quickfix.field.Symbol("IBM"), new Side(Side.BUY),
+                new TransactTime(LocalDateTime.of(2020, 1, 2, 3, 4, 5)), new OrdType(OrdType.MARKET));
+        order.getHeader().setString(SenderCompID.FIELD, "SENDER");
+        order.getHeader().setString(TargetCompID.FIELD, "TARGET");
+        order.getHeader().setInt(MsgSeqNum.FIELD, 5);
+        order.setString(RawData.FIELD, "raw\001data");
+        order.setInt(RawDataLength.FIELD, 8);
+        final NewOrderSingle.NoAllocs allocs = new NewOrderSingle.NoAllocs();
+        allocs.set(new AllocAccount("ACC1"));
+        allocs.set(new AllocShares(100));
+        order.addGroup(allocs);
+        assertWriteTo(order, ByteBuffer.allocate(1024));
+
+        // body lengths with fewer and more digits than reserved, heap and direct
+        final Message heartbeat = new Message();
+        heartbeat.getHeader().setString(BeginString.FIELD, FixVersions.BEGINSTRING_FIX42);
+        heartbeat.getHeader().setString(MsgType.FIELD, MsgType.HEARTBEAT);
+        assertWriteTo(heartbeat, ByteBuffer.allocate(64));
+        assertWriteTo(heartbeat, ByteBuffer.allocateDirect(64));
+        final char[] text = new char[1000];
+        Arrays.fill(text, 'x');
+        heartbeat.setString(Text.FIELD, new String(text));
+        assertWriteTo(heartbeat, ByteBuffer.allocate(2048));
+        assertWriteTo(heartbeat, ByteBuffer.allocateDirect(2048));
+
+        final ByteBuffer small = ByteBuffer.allocate(512);
+        small.position(3);
+        try {
+            heartbeat.writeTo(small);
+            fail("no exception thrown");
+        } catch (final BufferOverflowException e) {
+            assertEquals(3, small.position());
+        }
+    }
+
+    @Test
+    public void testWriteToAfterLazyParse() throws Exception {
+        final String messageString = "8=FIX.4.2\0019=22\00135=D\00155=IBM\00154=1\00110=198\001";
+        final Message message = new Message();
+        message.fromBytes(MessageBytes.wrap(messageString.getBytes(CharsetSupport.getCharset())),
+                null, null, false, false, true);
+        assertWriteTo(message, ByteBuffer.allocate(64));
+        message.setString(quickfix.field.Symbol.FIELD, "MSFT");
+        assertWriteTo(message, ByteBuffer.allocate(64));
+    }
+
+    private static void assertWriteTo(Message message, ByteBuffer buffer) {
+        buffer.position(2);
+        message.writeTo(buffer);
+        final int length = buffer.position() - 2;
+        final byte[] bytes = new byte[length];
+        buffer.position(2);
+        buffer.get(bytes);
+        assertEquals(message.toString(), new String(bytes, CharsetSupport.getCharsetInstance()));
+    }
+
     /**
      * Test for data fields with SOH. This test is based on report from a user on
      * the QuickFIX mailing list. The problem was the user's configuration but this
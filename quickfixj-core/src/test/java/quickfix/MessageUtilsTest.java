@@ -34,6 +34,8 @@ import quickfix.field.TargetCompID;
 import quickfix.fix40.Logon;
 import quickfix.fix50.Email;
 
+import java.time.LocalDateTime;
+
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
@@ -44,6 +46,8 @@ import static org.mockito.Mockito.when;
 
 public class MessageUtilsTest extends TestCase {
 
+    private static final LocalDateTime SENDING_TIME = LocalDateTime.of(2026, 1, 1, 11, 0);
+
     public void testGetStringField() throws Exception {
         String messageString = "8=FIX.4.2\0019=12\00135=X\001108=30\00110=049\001";
         assertEquals("wrong value", "FIX.4.2", MessageUtils.getStringField(messageString,
@@ -232,4 +236,72 @@ public class MessageUtilsTest extends TestCase {
         assertThat(message, is(notNullValue()));
     }
 
+    public void testPatchResendFields() throws Exception {
+        final String messageString = "8=FIX.4.4\0019=68\00135=B\00134=2\00149=SENDER\001"
+                + "52=20260101-10:00:00.000\00156=TARGET\001148=Headline\00110=071\001";
+        final String patched = MessageUtils.patchResendFields(messageString, SENDING_TIME,
+                UtcTimestampPrecision.MILLIS);
+
+        assertEquals("8=FIX.4.4\0019=99\00135=B\00134=2\00149=SENDER\00152=20260101-11:00:00.000\001"
+                + "43=Y\001122=20260101-10:00:00.000\00156=TARGET\001148=Headline\00110=041\001", patched);
+        assertBodyLengthAndChecksum(patched);
+    }
+
+    public void testPatchResendFieldsOfPossibleDuplicate() throws Exception {
+        final Message message = new quickfix.fix44.News(new quickfix.field.Headline("Headline"));
+        message.getHeader().setString(SenderCompID.FIELD, "SENDER");
+        message.getHeader().setString(TargetCompID.FIELD, "TARGET");
+        message.getHeader().setInt(quickfix.field.MsgSeqNum.FIELD, 2);
+        message.getHeader().setString(quickfix.field.SendingTime.FIELD, "20260101-10:00:00.000");
+        message.getHeader().setBoolean(quickfix.field.PossDupFlag.FIELD, false);
+        message.getHeader().setString(quickfix.field.OrigSendingTime.FIELD, "20260101-09:00:00.000");
+        final String patched = MessageUtils.patchResendFields(message.toString(), SENDING_TIME,
+                UtcTimestampPrecision.MILLIS);
+
+        assertBodyLengthAndChecksum(patched);
+        final Message resent = new Message(patched);
+        assertTrue(resent.getHeader().getBoolean(quickfix.field.PossDupFlag.FIELD));
+        assertEquals("20260101-10:00:00.000", resent.getHeader().getString(quickfix.field.OrigSendingTime.FIELD));
+        assertEquals("20260101-11:00:00.000", resent.getHeader().getString(quickfix.field.SendingTime.FIELD));
+        assertEquals(1, patched.split("\001122=").length - 1);
+        assertEquals(1, patched.split("\00143=").length - 1);
+    }
+
+    public void testPatchResendFieldsWithSessionPrecision() throws Exception {
+        // stored with seconds, resent with microseconds
+        final String messageString = "8=FIX.4.4\0019=64\00135=B\00134=2\00149=SENDER\001"
+                + "52=20260101-10:00:00\00156=TARGET\001148=Headline\00110=133\001";
+        final String patched = MessageUtils.patchResendFields(messageString, SENDING_TIME,
+                UtcTimestampPrecision.MICROS);
+
+        assertBodyLengthAndChecksum(patched);
+        final Message resent = new Message(patched);
+        assertEquals("20260101-10:00:00.000000", resent.getHeader().getString(quickfix.field.OrigSendingTime.FIELD));
+        assertEquals("20260101-11:00:00.000000", resent.getHeader().getString(quickfix.field.SendingTime.FIELD));
+    }
+
+    public void testPatchResendFieldsNotPossible() throws Exception {
+        // no SendingTime
+        assertNull(MessageUtils.patchResendFields(
+                "8=FIX.4.4\0019=40\00135=B\00134=2\00149=SENDER\00156=TARGET\001148=Headline\00110=004\001",
+                SENDING_TIME, UtcTimestampPrecision.MILLIS));
+        // truncated trailer
+        assertNull(MessageUtils.patchResendFields("8=FIX.4.4\0019=64\00135=B\00134=2\00149=SENDER\001"
+                + "52=20260101-10:00:00.000\00156=TARGET\001148=Headline\001", SENDING_TIME,
+                UtcTimestampPrecision.MILLIS));
+        // data field in the header
+        assertNull(MessageUtils.patchResendFields("8=FIX.4.4\0019=74\00135=B\00134=2\00149=SENDER\001"
+                + "52=20260101-10:00:00.000\00156=TARGET\001212=3\001213=a\001b\001148=Headline\00110=004\001",
+                SENDING_TIME, UtcTimestampPrecision.MILLIS));
+    }
+
+    private static void assertBodyLengthAndChecksum(String messageString) {
+        final int bodyStart = messageString.indexOf('\001', messageString.indexOf("\0019=") + 1) + 1;
+        final int trailerStart = messageString.lastIndexOf("\00110=") + 1;
+        assertEquals(Integer.toString(trailerStart - bodyStart),
+                MessageUtils.getStringField(messageString, quickfix.field.BodyLength.FIELD));
+        assertEquals(MessageUtils.checksum(messageString),
+                Integer.parseInt(MessageUtils.getStringField(messageString, quickfix.field.CheckSum.FIELD)));
+    }
+
 }
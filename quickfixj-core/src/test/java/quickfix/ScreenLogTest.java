@@ -85,6 +85,16 @@ public class ScreenLogTest extends TestCase {
         assertLoggedMessage(data, systemTime, "event", "TEST");
     }
 
+    public void testIncomingEnabled() {
+        SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIX42, "SENDER", "TARGET");
+        SessionSettings sessionSettings = new SessionSettings();
+        sessionSettings.setBool(sessionID, ScreenLogFactory.SETTING_LOG_INCOMING, false);
+        assertFalse(new ScreenLogFactory(sessionSettings).create(sessionID).isIncomingEnabled());
+
+        sessionSettings.setBool(sessionID, ScreenLogFactory.SETTING_LOG_INCOMING, true);
+        assertTrue(new ScreenLogFactory(sessionSettings).create(sessionID).isIncomingEnabled());
+    }
+
     private void assertNoMessageLogged(ByteArrayOutputStream data) {
         assertEquals(0, data.size());
     }
@@ -20,6 +20,7 @@
 package quickfix;
 
 import junit.framework.TestCase;
+import quickfix.field.PossDupFlag;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -28,13 +29,48 @@ import java.io.FileFilter;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
 import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Base64;
+import java.util.TreeMap;
 import java.util.regex.Pattern;
 
 public class SerializationTest extends TestCase {
 
+    /**
+     * A fix44 NewOrderSingle with a repeating group, serialized by the TreeMap
+     * based FieldMap of older versions.
+     */
+    private static final String OLDER_SERIALIZED_MESSAGE =
+            "rO0ABXNyAB1xdWlja2ZpeC5maXg0NC5OZXdPcmRlclNpbmdsZQAAAAABMfK5AgAAeHIAFnF1aWNrZml4LmZpeDQ0Lk1lc3Nh"
+            + "Z2UAAAAAATHyuQIAAHhyABBxdWlja2ZpeC5NZXNzYWdl067qevf5jowCAAdaAAlpc0dhcmJsZWRJAAhwb3NpdGlvbkwACWV4"
+            + "Y2VwdGlvbnQAGUxxdWlja2ZpeC9GaWVsZEV4Y2VwdGlvbjtMAAZoZWFkZXJ0ABlMcXVpY2tmaXgvTWVzc2FnZSRIZWFkZXI7"
+            + "TAALbWVzc2FnZURhdGF0ABJMamF2YS9sYW5nL1N0cmluZztMAA9wdXNoZWRCYWNrRmllbGR0ABZMcXVpY2tmaXgvU3RyaW5n"
+            + "RmllbGQ7TAAHdHJhaWxlcnQAGkxxdWlja2ZpeC9NZXNzYWdlJFRyYWlsZXI7eHIAEXF1aWNrZml4LkZpZWxkTWFw067qevf5"
+            + "jowCAANbAApmaWVsZE9yZGVydAACW0lMAAZmaWVsZHN0ABNMamF2YS91dGlsL1RyZWVNYXA7TAAGZ3JvdXBzcQB+AAp4cHBz"
+            + "cgARamF2YS51dGlsLlRyZWVNYXAMwfY+LSVq5gMAAUwACmNvbXBhcmF0b3J0ABZMamF2YS91dGlsL0NvbXBhcmF0b3I7eHBw"
+            + "dwQAAAAGc3IAEWphdmEubGFuZy5JbnRlZ2VyEuKgpPeBhzgCAAFJAAV2YWx1ZXhyABBqYXZhLmxhbmcuTnVtYmVyhqyVHQuU"
+            + "4IsCAAB4cAAAAAtzcgAWcXVpY2tmaXguZmllbGQuQ2xPcmRJRAAAAAABMfK5AgAAeHIAFHF1aWNrZml4LlN0cmluZ0ZpZWxk"
+            + "e9c9xEuLdpkCAAB4cgAOcXVpY2tmaXguRmllbGRiglHmk/w8RQIABVoADGlzQ2FsY3VsYXRlZEkAA3RhZ0wABGRhdGFxAH4A"
+            + "BVsACWRhdGFCeXRlc3QAAltCTAAGb2JqZWN0dAASTGphdmEvbGFuZy9PYmplY3Q7eHAAAAAAC3BwdAACSURzcQB+AA8AAAAo"
+            + "c3EAfgATAAAAAChwcHQAATFzcQB+AA8AAAA2c3EAfgATAAAAADZwcHQAATFzcQB+AA8AAAA3c3EAfgATAAAAADdwcHQAA1hZ"
+            + "WnNxAH4ADwAAADxzcQB+ABMAAAAAPHBwdAAVMjAyNjAxMDEtMTA6MDA6MDAuMDAwc3EAfgAPAAABxXNxAH4AEwAAAAHFcHB0"
+            + "AAExeHNxAH4ADHB3BAAAAAFzcQB+AA8AAAHFc3IAE2phdmEudXRpbC5BcnJheUxpc3R4gdIdmcdhnQMAAUkABHNpemV4cAAA"
+            + "AAF3BAAAAAFzcgAOcXVpY2tmaXguR3JvdXDbmkc8ckNg3gIAAkkABWRlbGltTAAFZmllbGR0ABNMcXVpY2tmaXgvSW50Rmll"
+            + "bGQ7eHEAfgAIdXIAAltJTbpgJnbqsqUCAAB4cAAAAAUAAAHAAAABvwAAAcQAAAMiAAAAAHNxAH4ADHNyACZxdWlja2ZpeC5G"
+            + "aWVsZE1hcCRGaWVsZE9yZGVyQ29tcGFyYXRvci9oF7hgX7vWAgABTAAGdGhpcyQwdAATTHF1aWNrZml4L0ZpZWxkTWFwO3hw"
+            + "cQB+AC53BAAAAAFzcQB+AA8AAAHAc3IAFnF1aWNrZml4LmZpZWxkLlBhcnR5SUQAAAAAATHyuQIAAHhxAH4AEwAAAAHAcHB0"
+            + "AAJQMXhzcQB+AAxwdwQAAAAAeAAAAcBzcgARcXVpY2tmaXguSW50RmllbGTcspCPyIfCrQIAAHhxAH4AFAAAAAHFcHBzcQB+"
+            + "AA8AAAAAeHgAAAAAAHBzcgAdcXVpY2tmaXguZml4NDQuTWVzc2FnZSRIZWFkZXIAAAAAATHyuQIAAHhyABdxdWlja2ZpeC5N"
+            + "ZXNzYWdlJEhlYWRlctOu6nr3+Y6MAgAAeHEAfgAIcHNxAH4ADHB3BAAAAAVzcQB+AA8AAAAIc3IAGnF1aWNrZml4LmZpZWxk"
+            + "LkJlZ2luU3RyaW5nAAAAAAEx8rkCAAB4cQB+ABMAAAAACHBwdAAHRklYLjQuNHNxAH4ADwAAACJzcQB+ABMAAAAAInBwdAAB"
+            + "NXNxAH4ADwAAACNzcgAWcXVpY2tmaXguZmllbGQuTXNnVHlwZQAAAAABMfK5AgAAeHEAfgATAAAAACNwcHQAAURzcQB+AA8A"
+            + "AAAxc3EAfgATAAAAADFwcHQAAVNzcQB+AA8AAAA4c3EAfgATAAAAADhwcHQAAVR4c3EAfgAMcHcEAAAAAHhwcHNyABhxdWlj"
+            + "a2ZpeC5NZXNzYWdlJFRyYWlsZXLTrup69/mOjAIAAHhxAH4ACHVxAH4ALwAAAAMAAABdAAAAWQAAAApzcQB+AAxzcQB+ADJx"
+            + "AH4AVHcEAAAAAHhzcQB+AAxwdwQAAAAAeA==";
+
     private final String[] srcDirs = {
         "quickfixj-core/target/generated-sources",
         "target/generated-sources"
@@ -55,6 +91,44 @@ public class SerializationTest extends TestCase {
         outs.writeObject(message);
     }
 
+    public void testMessageSerializedByOlderVersion() throws Exception {
+        final Message message = (Message) deserialize(Base64.getDecoder().decode(OLDER_SERIALIZED_MESSAGE));
+        assertEquals("8=FIX.4.4\0019=81\00135=D\00134=5\00149=S\00156=T\00111=ID\00140=1\00154=1\00155=XYZ\001"
+                + "60=20260101-10:00:00.000\001453=1\001448=P1\00110=101\001", message.toString());
+
+        // the field order of the header is kept
+        message.getHeader().setBoolean(PossDupFlag.FIELD, true);
+        assertTrue(message.toString().contains("\00134=5\00143=Y\00149=S\001"));
+    }
+
+    public void testSerializationWithArrayFieldStorage() throws Exception {
+        final Message message = new Message("8=FIX.4.4\0019=81\00135=D\00134=5\00149=S\00156=T\00111=ID\00140=1\001"
+                + "54=1\00155=XYZ\00160=20260101-10:00:00.000\001453=1\001448=P1\00110=101\001",
+                DataDictionaryTest.getDictionary());
+        FieldMap.setDefaultFieldStorageType(FieldStorageType.ARRAY);
+        try {
+            // read and written in the serialized form of the TreeMap based storage
+            assertEquals(message.toString(), deserialize(serialize(message)).toString());
+        } finally {
+            FieldMap.setDefaultFieldStorageType(FieldStorageType.TREE_MAP);
+        }
+        assertEquals(TreeMap.class, ObjectStreamClass.lookup(FieldMap.class).getField("fields").getType());
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream outs = new ObjectOutputStream(out)) {
+            outs.writeObject(object);
+        }
+        return out.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ins = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ins.readObject();
+        }
+    }
+
     public void testSerialization() {
         srcDir = findSrcDir();
         // Check messages
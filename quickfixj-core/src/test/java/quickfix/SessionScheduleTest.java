@@ -79,6 +79,33 @@ public class SessionScheduleTest {
         doIsSessionTimeTest(schedule, false, 2004, 10, 10, 18, 0, 1);
     }
 
+    @Test
+    public void testNextSessionTimeChange() throws Exception {
+        SessionSchedule schedule = newSessionSchedule(getUtcTime(3, 0, 0).getTime(),
+                getUtcTime(18, 0, 0).getTime(), -1, -1);
+        mockSystemTimeSource.setTime(getUtcTimeStamp(2004, 10, 10, 10, 0, 0));
+        assertEquals(getUtcTimeStamp(2004, 10, 10, 18, 0, 0).getTimeInMillis() + 1,
+                schedule.getNextSessionTimeChange());
+        mockSystemTimeSource.setTime(getUtcTimeStamp(2004, 10, 10, 2, 0, 0));
+        assertEquals(getUtcTimeStamp(2004, 10, 10, 3, 0, 0).getTimeInMillis(),
+                schedule.getNextSessionTimeChange());
+        mockSystemTimeSource.setTime(getUtcTimeStamp(2004, 10, 10, 19, 0, 0));
+        assertEquals(getUtcTimeStamp(2004, 10, 11, 3, 0, 0).getTimeInMillis(),
+                schedule.getNextSessionTimeChange());
+
+        // Friday after the end, the next start is on Monday
+        schedule = newSessionSchedule(getUtcTime(1, 0, 0).getTime(), getUtcTime(15, 0, 0).getTime(),
+                "Mon,Tue,Wed,Thu,Fri");
+        mockSystemTimeSource.setTime(getUtcTimeStamp(2004, Calendar.NOVEMBER, 12, 16, 0, 0));
+        assertEquals(getUtcTimeStamp(2004, Calendar.NOVEMBER, 15, 1, 0, 0).getTimeInMillis(),
+                schedule.getNextSessionTimeChange());
+
+        SessionSettings settings = new SessionSettings();
+        settings.setString(Session.SETTING_NON_STOP_SESSION, "Y");
+        schedule = new DefaultSessionSchedule(settings, new SessionID("FIX.4.2", "SENDER", "TARGET"));
+        assertEquals(Long.MAX_VALUE, schedule.getNextSessionTimeChange());
+    }
+
     private SessionSchedule newSessionSchedule(Date startTime, Date endTime, int startDay,
             int endDay) throws Exception {
         SessionSettings settings = new SessionSettings();
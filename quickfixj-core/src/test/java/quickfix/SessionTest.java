@@ -48,7 +48,13 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.TimeZone;
 
 import static org.junit.Assert.*;
@@ -380,6 +386,70 @@ public class SessionTest {
         }
     }
 
+    @Test
+    public void testNextTimerDeadline() throws Exception {
+        final MockSystemTimeSource systemTimeSource = new MockSystemTimeSource(1000000L);
+        SystemTime.setTimeSource(systemTimeSource);
+        final UnitTestApplication application = new UnitTestApplication();
+        try (Session session = setUpSession(application, false,
+                new UnitTestResponder())) {
+            session.setHeartBeatInterval(30);
+            final List<Integer> reschedules = new ArrayList<>();
+            session.setTimerRescheduler(() -> reschedules.add(1));
+
+            // not logged on, checked every second
+            assertEquals(1001000L, session.getNextTimerDeadline());
+
+            logonTo(session);
+            assertTrue(session.isLoggedOn());
+            assertEquals(1, reschedules.size());
+            // the heartbeat is due first
+            assertEquals(1030000L - 9, session.getNextTimerDeadline());
+
+            systemTimeSource.increment(30000L);
+            session.next();
+            assertEquals(MsgType.HEARTBEAT, application.lastToAdminMessage().getHeader().getString(MsgType.FIELD));
+            // the next heartbeat is due before the heartbeat timeout
+            assertEquals(1060000L - 9, session.getNextTimerDeadline());
+            systemTimeSource.increment(29991L);
+            session.next();
+            // nothing was received, the heartbeat timeout (2.4 times the
+            // interval) is due before the test request (2.5 times)
+            assertEquals(1072000L, session.getNextTimerDeadline());
+
+            session.logout();
+            session.next();
+            assertEquals(3, reschedules.size());
+            // disabled until disconnected, checked every second
+            assertEquals(1059991L + 1000L, session.getNextTimerDeadline());
+
+            session.setTimerRescheduler(null);
+        }
+    }
+
+    @Test
+    public void testNextTimerDeadlineWithSessionSchedule() throws Exception {
+        SystemTime.setTimeSource(new MockSystemTimeSource(1000000L));
+        final SessionSchedule sessionSchedule = mock(SessionSchedule.class);
+        when(sessionSchedule.isSessionTime()).thenReturn(true);
+        when(sessionSchedule.isSameSession(any(Calendar.class), any(Calendar.class))).thenReturn(true);
+        when(sessionSchedule.getNextSessionTimeChange()).thenReturn(1005000L);
+        try (Session session = new SessionFactoryTestSupport.Builder()
+                .setSessionId(new SessionID(FixVersions.BEGINSTRING_FIX44, "SENDER", "TARGET"))
+                .setSessionSchedule(sessionSchedule)
+                .build()) {
+            session.setResponder(new UnitTestResponder());
+            session.setHeartBeatInterval(30);
+            logonTo(session);
+            assertTrue(session.isLoggedOn());
+            // the end of the session is due before the heartbeat
+            assertEquals(1005000L, session.getNextTimerDeadline());
+
+            when(sessionSchedule.getNextSessionTimeChange()).thenReturn(1100000L);
+            assertEquals(1030000L - 9, session.getNextTimerDeadline());
+        }
+    }
+
     // QFJ-750
     @Test
     public void testLogoutMsgSeqNumTooHighOrLow() throws Exception {
@@ -1277,6 +1347,178 @@ public class SessionTest {
         }
     }
 
+    @Test
+    public void testEndOfBatch() throws Exception {
+        final SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIX44, "SENDER", "TARGET");
+        final List<SessionID> batchesEnded = new ArrayList<>();
+        final class BatchAwareApplication extends UnitTestApplication implements ApplicationBatchAware {
+            @Override
+            public void onEndOfBatch(SessionID sessionId) {
+                batchesEnded.add(sessionId);
+            }
+        }
+        try (Session session = SessionFactoryTestSupport.createSession(sessionID,
+                new BatchAwareApplication(), false)) {
+            session.endOfBatch();
+            assertEquals(Collections.singletonList(sessionID), batchesEnded);
+        }
+    }
+
+    @Test
+    public void testResendPatchedMessages() throws Exception {
+
+        final UnitTestApplication application = new UnitTestApplication();
+        final List<String> sent = new ArrayList<>();
+        final SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIX44, "SENDER", "TARGET");
+        try (Session session = SessionFactoryTestSupport.createSession(sessionID, application, false, false, true)) {
+            session.setResponder(new UnitTestResponder() {
+                @Override
+                public boolean send(String data) {
+                    sent.add(data);
+                    return super.send(data);
+                }
+            });
+            session.setPatchResentMessages(true);
+            logonTo(session);
+            session.send(createAppMessage(2));
+            session.send(createAppMessage(3));
+            final String stored = sent.get(sent.size() - 1);
+
+            application.toAppMessages.clear();
+            sent.clear();
+            processMessage(session, createResendRequest(2, 1));
+
+            // the logon is gap filled, the news are resent without calling toApp
+            assertEquals(3, sent.size());
+            assertEquals(MsgType.SEQUENCE_RESET, MessageUtils.getMessageType(sent.get(0)));
+            assertTrue(application.toAppMessages.isEmpty());
+            final Message resent = new Message(sent.get(2));
+            assertEquals(3, resent.getHeader().getInt(MsgSeqNum.FIELD));
+            assertTrue(resent.getHeader().getBoolean(PossDupFlag.FIELD));
+            assertEquals(MessageUtils.getStringField(stored, SendingTime.FIELD),
+                    resent.getHeader().getString(OrigSendingTime.FIELD));
+            assertEquals(new Message(stored).getString(Headline.FIELD), resent.getString(Headline.FIELD));
+        }
+    }
+
+    @Test
+    public void testResendIsStreamedFromStore() throws Exception {
+        final List<String> sent = new ArrayList<>();
+        final List<Integer> sentBeforeRead = new ArrayList<>();
+        final MessageStoreFactory storeFactory = new MemoryStoreFactory() {
+            @Override
+            public MessageStore create(SessionID sessionID) {
+                try {
+                    return new MemoryStore() {
+                        @Override
+                        public void get(int startSequence, int endSequence, Collection<String> messages) {
+                            fail("the resent messages are not to be collected");
+                        }
+
+                        @Override
+                        public void get(int startSequence, int endSequence, MessageConsumer consumer)
+                                throws IOException {
+                            super.get(startSequence, endSequence, message -> {
+                                sentBeforeRead.add(sent.size());
+                                consumer.accept(message);
+                            });
+                        }
+                    };
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        final SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIX44, "SENDER", "TARGET");
+        try (Session session = new SessionFactoryTestSupport.Builder()
+                .setSessionId(sessionID)
+                .setMessageStoreFactory(storeFactory)
+                .setPersistMessages(true)
+                .build()) {
+            session.setResponder(new UnitTestResponder() {
+                @Override
+                public boolean send(String data) {
+                    sent.add(data);
+                    return super.send(data);
+                }
+            });
+            logonTo(session);
+            for (int i = 2; i <= 4; i++) {
+                session.send(createAppMessage(i));
+            }
+
+            sent.clear();
+            processMessage(session, createResendRequest(2, 2));
+
+            // each message is resent before the next one is read
+            assertEquals(Arrays.asList(0, 1, 2), sentBeforeRead);
+            assertEquals(3, sent.size());
+            for (int i = 0; i < 3; i++) {
+                final Message resent = new Message(sent.get(i));
+                assertEquals(i + 2, resent.getHeader().getInt(MsgSeqNum.FIELD));
+                assertTrue(resent.getHeader().getBoolean(PossDupFlag.FIELD));
+            }
+        }
+    }
+
+    @Test
+    public void testResendFromPartlyCorruptedStore() throws Exception {
+        final List<String> sent = new ArrayList<>();
+        final MessageStoreFactory storeFactory = new MemoryStoreFactory() {
+            @Override
+            public MessageStore create(SessionID sessionID) {
+                try {
+                    return new MemoryStore() {
+                        @Override
+                        public void get(int startSequence, int endSequence, MessageConsumer consumer)
+                                throws IOException {
+                            // the store fails after the messages up to 3
+                            super.get(startSequence, Math.min(endSequence, 3), consumer);
+                            throw new IOException("corrupted store");
+                        }
+                    };
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        final SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIX44, "SENDER", "TARGET");
+        try (Session session = new SessionFactoryTestSupport.Builder()
+                .setSessionId(sessionID)
+                .setMessageStoreFactory(storeFactory)
+                .setPersistMessages(true)
+                .build()) {
+            session.setResponder(new UnitTestResponder() {
+                @Override
+                public boolean send(String data) {
+                    sent.add(data);
+                    return super.send(data);
+                }
+            });
+            session.setForceResendWhenCorruptedStore(true);
+            logonTo(session);
+            for (int i = 2; i <= 5; i++) {
+                session.send(createAppMessage(i));
+            }
+
+            sent.clear();
+            processMessage(session, createResendRequest(2, 2));
+
+            // the messages read before the failure are resent once, the
+            // rest of the range is filled with heartbeats
+            final List<Integer> seqNums = new ArrayList<>();
+            final List<String> msgTypes = new ArrayList<>();
+            for (String data : sent) {
+                seqNums.add(Integer.valueOf(MessageUtils.getStringField(data, MsgSeqNum.FIELD)));
+                msgTypes.add(MessageUtils.getMessageType(data));
+            }
+            assertEquals(Arrays.asList(2, 3, 4, 5), seqNums);
+            assertEquals(Arrays.asList(MsgType.NEWS, MsgType.NEWS, MsgType.HEARTBEAT,
+                    MsgType.SEQUENCE_RESET), msgTypes);
+            assertTrue(new Message(sent.get(3)).getBoolean(GapFillFlag.FIELD));
+        }
+    }
+
     // QFJ-493
     @Test
     public void testGapFillSatisfiesResendRequest() throws Exception {
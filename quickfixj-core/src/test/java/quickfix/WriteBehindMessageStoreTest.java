@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+package quickfix;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WriteBehindMessageStoreTest extends AbstractMessageStoreTest {
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        WriteBehindMessageStore store = (WriteBehindMessageStore) getStore();
+        store.close();
+        ((FileStore) store.getStore()).closeAndDeleteFiles();
+    }
+
+    protected MessageStoreFactory getMessageStoreFactory() throws ConfigError, FieldConvertError {
+        SessionSettings settings = new SessionSettings(getConfigurationFileName());
+        // Initialize the session settings from the defaults
+        settings.setString(getSessionID(), FileStoreFactory.SETTING_FILE_STORE_PATH, settings
+                .getString(FileStoreFactory.SETTING_FILE_STORE_PATH));
+        return new WriteBehindMessageStoreFactory(new FileStoreFactory(settings), settings);
+    }
+
+    protected Class<?> getMessageStoreClass() {
+        return WriteBehindMessageStore.class;
+    }
+
+    protected void closeMessageStore(MessageStore store) throws IOException {
+        ((WriteBehindMessageStore) store).close();
+    }
+
+    public void testWritesReachUnderlyingStore() throws Exception {
+        WriteBehindMessageStore store = (WriteBehindMessageStore) getStore();
+        store.set(1, "MESSAGE1");
+        store.incrNextSenderMsgSeqNum();
+        store.set(2, "MESSAGE2");
+        store.incrNextSenderMsgSeqNum();
+        store.setNextTargetMsgSeqNum(10);
+        store.flush();
+
+        List<String> messages = new ArrayList<>();
+        store.getStore().get(1, 2, messages);
+        assertEquals(2, messages.size());
+        assertEquals(3, store.getStore().getNextSenderMsgSeqNum());
+        assertEquals(10, store.getStore().getNextTargetMsgSeqNum());
+    }
+
+    public void testResendReadsFromRing() throws Exception {
+        AtomicInteger underlyingGets = new AtomicInteger();
+        MemoryStore underlying = new MemoryStore() {
+            @Override
+            public void get(int startSequence, int endSequence, Collection<String> messages) throws IOException {
+                underlyingGets.incrementAndGet();
+                super.get(startSequence, endSequence, messages);
+            }
+        };
+        WriteBehindMessageStore store = new WriteBehindMessageStore(underlying, getSessionID(), 4, true, true);
+        for (int i = 1; i <= 6; i++) {
+            store.set(i, "MESSAGE" + i);
+        }
+        store.set(5, "RESENT5");
+
+        List<String> messages = new ArrayList<>();
+        store.get(4, 6, messages);
+        assertEquals(0, underlyingGets.get());
+        assertEquals("MESSAGE4", messages.get(0));
+        assertEquals("RESENT5", messages.get(1));
+        assertEquals("MESSAGE6", messages.get(2));
+
+        // the ring no longer holds the first messages
+        messages.clear();
+        store.get(1, 6, messages);
+        assertEquals(1, underlyingGets.get());
+        assertEquals(6, messages.size());
+        assertEquals("RESENT5", messages.get(4));
+        store.close();
+    }
+
+    public void testBacklogIsBounded() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MemoryStore underlying = new MemoryStore() {
+            @Override
+            public boolean set(int sequence, String message) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return super.set(sequence, message);
+            }
+        };
+        WriteBehindMessageStore store = new WriteBehindMessageStore(underlying, getSessionID(), 2, true, true);
+        store.set(1, "MESSAGE1");
+        store.set(2, "MESSAGE2");
+
+        CountDownLatch written = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            try {
+                store.set(3, "MESSAGE3");
+                written.countDown();
+            } catch (IOException e) {
+                // fails the test below
+            }
+        });
+        writer.start();
+        assertFalse(written.await(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(written.await(10, TimeUnit.SECONDS));
+        store.flush();
+        List<String> messages = new ArrayList<>();
+        underlying.get(1, 3, messages);
+        assertEquals(3, messages.size());
+        store.close();
+    }
+
+    public void testFailedWritesAreRetried() throws Exception {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        MemoryStore underlying = new MemoryStore() {
+            @Override
+            public boolean set(int sequence, String message) throws IOException {
+                if (failing.get()) {
+                    throw new IOException("store unavailable");
+                }
+                return super.set(sequence, message);
+            }
+        };
+        WriteBehindMessageStore store = new WriteBehindMessageStore(underlying, getSessionID(), 8, true, true);
+        store.set(1, "MESSAGE1");
+        try {
+            for (int i = 0; i < 100; i++) {
+                store.flush();
+                Thread.sleep(10);
+            }
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("store unavailable"));
+        }
+
+        failing.set(false);
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < 500 && messages.isEmpty(); i++) {
+            Thread.sleep(10);
+            underlying.get(1, 1, messages);
+        }
+        assertEquals(1, messages.size());
+
+        // the failure is reported until the store is refreshed
+        try {
+            store.flush();
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("store unavailable"));
+        }
+        try {
+            store.incrNextSenderMsgSeqNum();
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("store unavailable"));
+        }
+        store.refresh();
+        store.set(2, "MESSAGE2");
+        store.flush();
+        store.close();
+    }
+
+    public void testFailureIsReportedByNextWrite() throws Exception {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        CountDownLatch failed = new CountDownLatch(1);
+        MemoryStore underlying = new MemoryStore() {
+            @Override
+            public boolean set(int sequence, String message) throws IOException {
+                if (failing.getAndSet(false)) {
+                    failed.countDown();
+                    throw new IOException("store unavailable");
+                }
+                return super.set(sequence, message);
+            }
+        };
+        WriteBehindMessageStore store = new WriteBehindMessageStore(underlying, getSessionID(), 8, true, true);
+        store.set(1, "MESSAGE1");
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        // the ring is not full, the write fails anyway
+        for (int i = 0; i < 500; i++) {
+            try {
+                store.setNextTargetMsgSeqNum(5);
+                Thread.sleep(10);
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("store unavailable"));
+                store.reset();
+                assertEquals(1, store.getNextTargetMsgSeqNum());
+                store.close();
+                return;
+            }
+        }
+        fail("expected IOException");
+    }
+
+    public void testStoresShareBackgroundThreads() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setLong(WriteBehindMessageStoreFactory.SETTING_WRITE_BEHIND_STORE_THREADS, 1);
+        List<String> threadNames = new ArrayList<>();
+        MessageStoreFactory factory = new WriteBehindMessageStoreFactory(new MemoryStoreFactory() {
+            @Override
+            public MessageStore create(SessionID sessionID) {
+                try {
+                    return new MemoryStore() {
+                        @Override
+                        public boolean set(int sequence, String message) throws IOException {
+                            synchronized (threadNames) {
+                                threadNames.add(Thread.currentThread().getName());
+                            }
+                            return super.set(sequence, message);
+                        }
+                    };
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }, settings);
+        WriteBehindMessageStore store1 = (WriteBehindMessageStore) factory.create(
+                new SessionID(FixVersions.BEGINSTRING_FIX44, "SENDER", "TARGET1"));
+        WriteBehindMessageStore store2 = (WriteBehindMessageStore) factory.create(
+                new SessionID(FixVersions.BEGINSTRING_FIX44, "SENDER", "TARGET2"));
+        for (int i = 1; i <= 10; i++) {
+            store1.set(i, "MESSAGE" + i);
+            store2.set(i, "MESSAGE" + i);
+        }
+        store1.close();
+        store2.close();
+
+        assertEquals(20, threadNames.size());
+        for (String threadName : threadNames) {
+            assertEquals(threadNames.get(0), threadName);
+        }
+    }
+
+    public void testCloseWithoutFlushDiscardsPendingWrites() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MemoryStore underlying = new MemoryStore() {
+            @Override
+            public boolean set(int sequence, String message) throws IOException {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return super.set(sequence, message);
+            }
+        };
+        WriteBehindMessageStore store = new WriteBehindMessageStore(underlying, getSessionID(), 8, false, false);
+        store.set(1, "MESSAGE1");
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        store.set(2, "MESSAGE2");
+        // neither waits for the blocked write
+        store.onLogout();
+        store.close();
+        release.countDown();
+        Thread.sleep(100);
+
+        List<String> messages = new ArrayList<>();
+        underlying.get(1, 2, messages);
+        assertEquals(1, messages.size());
+    }
+}
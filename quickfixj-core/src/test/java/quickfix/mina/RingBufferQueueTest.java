@@ -0,0 +1,308 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix.mina;
+
+import org.junit.Test;
+import quickfix.ConfigError;
+import quickfix.DefaultSessionFactory;
+import quickfix.MemoryStoreFactory;
+import quickfix.RuntimeError;
+import quickfix.SLF4JLogFactory;
+import quickfix.SessionFactory;
+import quickfix.SessionSettings;
+import quickfix.UnitTestApplication;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static quickfix.mina.RingBufferQueue.WaitStrategy.BLOCKING;
+import static quickfix.mina.RingBufferQueue.WaitStrategy.BUSY_SPIN;
+import static quickfix.mina.RingBufferQueue.WaitStrategy.YIELDING;
+
+public class RingBufferQueueTest {
+
+    @Test
+    public void basics() throws InterruptedException {
+        RingBufferQueue<Value> queue = new RingBufferQueue<>(3, BLOCKING, Value::new);
+        assertEquals(4, queue.remainingCapacity());
+        assertTrue(queue.isEmpty());
+        for (int i = 1; i <= 4; i++) {
+            put(queue, i);
+        }
+        assertNull(queue.tryClaim());
+        assertEquals(4, queue.size());
+        assertEquals(1, queue.peek().value);
+        assertEquals(1, queue.poll().value);
+        // the slot of a taken element is free once it is released
+        assertNull(queue.tryClaim());
+        queue.release();
+        assertEquals(1, queue.remainingCapacity());
+        put(queue, 5);
+
+        List<Value> drained = new ArrayList<>();
+        assertEquals(4, queue.drainTo(drained));
+        assertEquals(List.of(2L, 3L, 4L, 5L), values(drained));
+        assertNull(queue.poll());
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.size());
+        queue.release();
+        assertEquals(4, queue.remainingCapacity());
+    }
+
+    @Test
+    public void elementsAreReused() throws InterruptedException {
+        RingBufferQueue<Value> queue = new RingBufferQueue<>(2, BLOCKING, Value::new);
+        final Value first = queue.claim();
+        queue.put(first);
+        final Value second = queue.claim();
+        queue.put(second);
+        assertNotSame(first, second);
+        assertSame(first, queue.poll());
+        assertSame(second, queue.poll());
+        queue.release();
+
+        assertSame(first, queue.claim());
+        assertSame(second, queue.claim());
+    }
+
+    @Test
+    public void onlyClaimedElementsArePut() throws InterruptedException {
+        RingBufferQueue<Value> queue = new RingBufferQueue<>(2, BLOCKING, Value::new);
+        try {
+            queue.offer(new Value());
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        final Value value = queue.claim();
+        queue.put(value);
+        try {
+            queue.put(value);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void claimedElementIsTakenOnceItIsPut() throws InterruptedException {
+        RingBufferQueue<Value> queue = new RingBufferQueue<>(4, BLOCKING, Value::new);
+        final Value claimed = queue.claim();
+        put(queue, 2);
+        // the queue keeps the order of the claims
+        assertNull(queue.poll());
+        claimed.value = 1;
+        queue.put(claimed);
+        assertEquals(1, queue.poll().value);
+        assertEquals(2, queue.poll().value);
+    }
+
+    @Test
+    public void iterator() throws InterruptedException {
+        RingBufferQueue<Value> queue = new RingBufferQueue<>(4, BLOCKING, Value::new);
+        assertEquals("[]", queue.toString());
+        for (int i = 1; i <= 4; i++) {
+            put(queue, i);
+        }
+        queue.poll();
+        queue.poll();
+        queue.release();
+        // wraps around the end of the array
+        put(queue, 5);
+        put(queue, 6);
+        assertEquals("[3, 4, 5, 6]", queue.toString());
+        assertEquals(List.of(3L, 4L, 5L, 6L), values(queue));
+
+        Iterator<Value> iterator = queue.iterator();
+        assertEquals(3, iterator.next().value);
+        queue.poll();
+        queue.poll();
+        queue.release();
+        put(queue, 7);
+        put(queue, 8);
+        // skips the taken 4, whose slot holds 8 by now
+        assertEquals(5, iterator.next().value);
+        assertEquals(6, iterator.next().value);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void singleSessionQueueSizedFromWatermark() throws ConfigError {
+        final SessionSettings settings = new SessionSettings();
+        final SessionConnector connector = new SessionConnectorUnderTest(settings);
+        assertTrue(QueueTrackers.newSingleSessionQueue(connector, 100) instanceof LinkedBlockingQueue);
+
+        settings.setString(SessionFactory.SETTING_RING_BUFFER_WAIT_STRATEGY, "blocking");
+        assertEquals(256, QueueTrackers.newSingleSessionQueue(connector, 100).remainingCapacity());
+        assertEquals(16384, QueueTrackers.newSingleSessionQueue(connector, 100000).remainingCapacity());
+        assertEquals(16384, QueueTrackers.newSingleSessionQueue(connector, -1).remainingCapacity());
+    }
+
+    @Test(timeout = 10000)
+    public void manyProducersBlocking() throws Exception {
+        assertManyProducers(BLOCKING);
+    }
+
+    @Test(timeout = 10000)
+    public void manyProducersYielding() throws Exception {
+        assertManyProducers(YIELDING);
+    }
+
+    @Test(timeout = 10000)
+    public void manyProducersBusySpin() throws Exception {
+        assertManyProducers(BUSY_SPIN);
+    }
+
+    private void assertManyProducers(RingBufferQueue.WaitStrategy waitStrategy) throws Exception {
+        final int producers = 3;
+        final int count = 20000;
+        final RingBufferQueue<Value> queue = new RingBufferQueue<>(64, waitStrategy, Value::new);
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            final Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < count; i++) {
+                        final Value value = queue.claim();
+                        value.producer = producer;
+                        value.value = i;
+                        queue.put(value);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        final int[] next = new int[producers];
+        for (int n = 0; n < producers * count; n++) {
+            final Value value = queue.poll(5, TimeUnit.SECONDS);
+            // the elements of each producer arrive in order
+            assertEquals(next[value.producer]++, value.value);
+            value.producer = -1;
+            queue.release();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void watermarks() throws InterruptedException {
+        final Runnable onLower = mock(Runnable.class);
+        final Runnable onUpper = mock(Runnable.class);
+        final RingBufferQueue<Value> queue = new RingBufferQueue<>(4, BLOCKING, Value::new);
+        final WatermarkTracker<Value, Void> tracker = WatermarkTracker.newMono(queue, 1, 3, onLower, onUpper);
+
+        tracker.put(queue.claim());
+        tracker.put(queue.claim());
+        tracker.put(queue.claim());
+        verify(onUpper, times(1)).run();
+        assertTrue(tracker.isSuspended());
+        tracker.poll(1, TimeUnit.SECONDS);
+        tracker.poll(1, TimeUnit.SECONDS);
+        verify(onLower, times(1)).run();
+        assertFalse(tracker.isSuspended());
+    }
+
+    @Test
+    public void selectedBySetting() throws ConfigError {
+        final SessionSettings settings = new SessionSettings();
+        final SessionConnector connector = new SessionConnectorUnderTest(settings);
+        assertTrue(QueueTrackers.newQueue(connector, 10) instanceof LinkedBlockingQueue);
+
+        settings.setString(SessionFactory.SETTING_RING_BUFFER_WAIT_STRATEGY, "busy_spin");
+        final BlockingQueue<SessionMessageEvent> queue = QueueTrackers.newQueue(connector, 10);
+        assertTrue(queue instanceof RingBufferQueue);
+        assertEquals(16, queue.remainingCapacity());
+        assertTrue(QueueTrackers.newQueue(connector) instanceof RingBufferQueue);
+
+        settings.setString(SessionFactory.SETTING_RING_BUFFER_WAIT_STRATEGY, "sleeping");
+        try {
+            QueueTrackers.newQueue(connector, 10);
+        } catch (RuntimeError e) {
+            return;
+        }
+        throw new AssertionError("expected RuntimeError");
+    }
+
+    private static void put(RingBufferQueue<Value> queue, long value) throws InterruptedException {
+        final Value element = queue.claim();
+        element.value = value;
+        queue.put(element);
+    }
+
+    private static List<Long> values(Iterable<Value> elements) {
+        final List<Long> values = new ArrayList<>();
+        for (Value element : elements) {
+            values.add(element.value);
+        }
+        return values;
+    }
+
+    private static final class Value extends RingBufferQueue.Slot {
+        int producer;
+        long value;
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    private static class SessionConnectorUnderTest extends SessionConnector {
+
+        public SessionConnectorUnderTest(SessionSettings settings) throws ConfigError {
+            super(settings, new DefaultSessionFactory(new UnitTestApplication(), new MemoryStoreFactory(),
+                    new SLF4JLogFactory(new SessionSettings())));
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void stop(boolean force) {
+        }
+    }
+}
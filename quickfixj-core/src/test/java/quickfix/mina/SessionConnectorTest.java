@@ -43,6 +43,7 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -56,6 +57,7 @@ import java.util.concurrent.CountDownLatch;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
@@ -111,6 +113,66 @@ public class SessionConnectorTest {
         }
     }
 
+    @Test
+    public void testCreateSessionsInParallel() throws Exception {
+        List<SessionID> sessionIDs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            sessionIDs.add(new SessionID(FixVersions.BEGINSTRING_FIX42, "TW", "ISLD" + i));
+        }
+        SessionSettings settings = setUpSessionSettings(sessionIDs.get(0));
+        settings.setLong(SessionFactory.SETTING_SESSION_CREATION_THREADS, 4);
+        for (SessionID sessionID : sessionIDs) {
+            settings.setString(sessionID, SessionFactory.SETTING_CONNECTION_TYPE,
+                    SessionFactory.ACCEPTOR_CONNECTION_TYPE);
+        }
+        DefaultSessionFactory sessionFactory = new DefaultSessionFactory(new UnitTestApplication(),
+                new MemoryStoreFactory(), new SLF4JLogFactory(new SessionSettings()));
+
+        SessionConnector connector = new SessionConnectorUnderTest(settings, sessionFactory);
+        try {
+            Map<SessionID, Session> sessions = connector.createSessions(sessionIDs, false);
+            assertEquals(10, sessions.size());
+            for (SessionID sessionID : sessionIDs) {
+                assertEquals(sessionID, sessions.get(sessionID).getSessionID());
+            }
+            assertEquals(10, connector.getSessionsToCreate());
+            assertEquals(10, connector.getCreatedSessionCount());
+        } finally {
+            connector.stop(true);
+            for (SessionID sessionID : sessionIDs) {
+                Session.lookupSession(sessionID).close();
+            }
+        }
+    }
+
+    @Test
+    public void testCreateSessionsInParallelContinuesOnError() throws Exception {
+        SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIX42, "TW", "ISLD");
+        SessionID invalidSessionID = new SessionID(FixVersions.BEGINSTRING_FIX42, "TW", "INVALID");
+        SessionSettings settings = setUpSessionSettings(sessionID);
+        settings.setLong(SessionFactory.SETTING_SESSION_CREATION_THREADS, 2);
+        settings.setString(invalidSessionID, SessionFactory.SETTING_CONNECTION_TYPE, "invalid");
+        DefaultSessionFactory sessionFactory = new DefaultSessionFactory(new UnitTestApplication(),
+                new MemoryStoreFactory(), new SLF4JLogFactory(new SessionSettings()));
+
+        SessionConnector connector = new SessionConnectorUnderTest(settings, sessionFactory);
+        try {
+            Map<SessionID, Session> sessions = connector.createSessions(
+                    Arrays.asList(invalidSessionID, sessionID), true);
+            assertEquals(Collections.singleton(sessionID), sessions.keySet());
+            assertEquals(1, connector.getCreatedSessionCount());
+            try {
+                connector.createSessions(Arrays.asList(invalidSessionID, sessionID), false);
+                fail("expected ConfigError");
+            } catch (ConfigError e) {
+                // expected
+            }
+        } finally {
+            connector.stop(true);
+            Session.lookupSession(sessionID).close();
+        }
+    }
+
     @Test
     public void testOneSessionLoggedOnOneSessionNotLoggedOne() throws Exception {
         SessionID sessionID1 = new SessionID(FixVersions.BEGINSTRING_FIX40, "TW", "ISLD");
@@ -211,6 +273,42 @@ public class SessionConnectorTest {
         }
     }
 
+    @Test
+    public void testSessionTimerWheel() throws Exception {
+        SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIX40, "TW", "ISLD");
+        SessionID sessionID2 = new SessionID(FixVersions.BEGINSTRING_FIX40, "me", "you");
+        SessionSettings settings = setUpSessionSettings(sessionID);
+        settings.setBool(SessionFactory.SETTING_SESSION_TIMER_WHEEL, true);
+        settings.setLong(SessionFactory.SETTING_SESSION_TIMER_THREADS, 2);
+        settings.setString(sessionID2, SessionFactory.SETTING_CONNECTION_TYPE,
+                SessionFactory.ACCEPTOR_CONNECTION_TYPE);
+        DefaultSessionFactory sessionFactory = new DefaultSessionFactory(new UnitTestApplication(),
+                new MemoryStoreFactory(), new SLF4JLogFactory(new SessionSettings()));
+
+        SessionConnector connector = new SessionConnectorUnderTest(settings, sessionFactory);
+        try (Session session = connector.createSession(sessionID);
+                Session session2 = connector.createSession(sessionID2)) {
+            connector.setSessions(Collections.singletonMap(sessionID, session));
+            connector.startSessionTimer();
+            assertTrue(connector.checkSessionTimerRunning());
+            SessionTimerWheel timerWheel = connector.getSessionTimerWheel();
+            assertEquals(1, timerWheel.size());
+
+            connector.addDynamicSession(session2);
+            assertEquals(2, timerWheel.size());
+            connector.removeDynamicSession(sessionID);
+            assertEquals(1, timerWheel.size());
+            connector.clearConnectorSessions();
+            assertEquals(0, timerWheel.size());
+
+            connector.stopSessionTimer();
+            assertFalse(connector.checkSessionTimerRunning());
+            assertNull(connector.getSessionTimerWheel());
+        } finally {
+            connector.stop(true);
+        }
+    }
+
     /**
      * Test dynamic initiator sessions
      */
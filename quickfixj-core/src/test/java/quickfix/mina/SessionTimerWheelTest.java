@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix.mina;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import quickfix.MockSystemTimeSource;
+import quickfix.Session;
+import quickfix.SessionID;
+import quickfix.SystemTime;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SessionTimerWheelTest {
+
+    private static final long START = 1000000L;
+
+    private MockSystemTimeSource timeSource;
+    private final AtomicLong nanoTime = new AtomicLong(-123456789L);
+
+    @Before
+    public void setUp() {
+        timeSource = new MockSystemTimeSource(START);
+        SystemTime.setTimeSource(timeSource);
+    }
+
+    @After
+    public void tearDown() {
+        SystemTime.setTimeSource(null);
+    }
+
+    @Test
+    public void testSessionRunsOnlyWhenDue() throws Exception {
+        SessionTimerWheel wheel = newWheel();
+        Session session = mockSession("A");
+        when(session.getNextTimerDeadline()).thenReturn(START + 5000L);
+        wheel.add(session);
+
+        advanceTo(wheel, START + 100L);
+        verify(session, times(1)).next();
+
+        advanceTo(wheel, START + 4900L);
+        verify(session, times(1)).next();
+
+        advanceTo(wheel, START + 5000L);
+        verify(session, times(2)).next();
+    }
+
+    @Test
+    public void testDeadlineIsNotRunEarly() throws Exception {
+        SessionTimerWheel wheel = newWheel();
+        Session session = mockSession("A");
+        when(session.getNextTimerDeadline()).thenReturn(START + 1050L);
+        wheel.add(session);
+        advanceTo(wheel, START + 100L);
+
+        advanceTo(wheel, START + 1000L);
+        verify(session, times(1)).next();
+        advanceTo(wheel, START + 1100L);
+        verify(session, times(2)).next();
+    }
+
+    @Test
+    public void testDeadlineBeyondOneTurnOfTheWheel() throws Exception {
+        SessionTimerWheel wheel = newWheel();
+        Session session = mockSession("A");
+        when(session.getNextTimerDeadline()).thenReturn(START + 120000L);
+        wheel.add(session);
+        advanceTo(wheel, START + 100L);
+
+        for (long time = START + 200L; time < START + 120000L; time += 100L) {
+            advanceTo(wheel, time);
+        }
+        verify(session, times(1)).next();
+        advanceTo(wheel, START + 120000L);
+        verify(session, times(2)).next();
+    }
+
+    @Test
+    public void testSessionWithoutDeadlineRunsWhenRescheduled() throws Exception {
+        SessionTimerWheel wheel = newWheel();
+        Session session = mockSession("A");
+        when(session.getNextTimerDeadline()).thenReturn(Long.MAX_VALUE);
+        wheel.add(session);
+        advanceTo(wheel, START + 100L);
+        verify(session, times(1)).next();
+
+        advanceTo(wheel, START + 100000L);
+        verify(session, times(1)).next();
+
+        rescheduler(session).run();
+        advanceTo(wheel, START + 100100L);
+        verify(session, times(2)).next();
+    }
+
+    @Test
+    public void testRescheduleWhileRunning() throws Exception {
+        SessionTimerWheel wheel = newWheel();
+        Session session = mockSession("A");
+        when(session.getNextTimerDeadline()).thenReturn(START + 60000L);
+        wheel.add(session);
+        final Runnable rescheduler = rescheduler(session);
+        doAnswer(invocation -> {
+            rescheduler.run();
+            return null;
+        }).when(session).next();
+
+        advanceTo(wheel, START + 100L);
+        verify(session, times(1)).next();
+        // the reschedule during the run is not lost
+        advanceTo(wheel, START + 200L);
+        verify(session, times(2)).next();
+    }
+
+    @Test
+    public void testRemovedSessionIsNotRun() throws Exception {
+        SessionTimerWheel wheel = newWheel();
+        Session session = mockSession("A");
+        when(session.getNextTimerDeadline()).thenReturn(START + 1000L);
+        wheel.add(session);
+        assertEquals(1, wheel.size());
+
+        wheel.remove(session.getSessionID());
+        assertEquals(0, wheel.size());
+        verify(session).setTimerRescheduler(null);
+        advanceTo(wheel, START + 2000L);
+        verify(session, never()).next();
+    }
+
+    @Test
+    public void testClockJump() throws Exception {
+        SessionTimerWheel wheel = newWheel();
+        Session first = mockSession("A");
+        Session second = mockSession("B");
+        when(first.getNextTimerDeadline()).thenReturn(START + 1000L);
+        when(second.getNextTimerDeadline()).thenReturn(START + 90000L);
+        wheel.add(first);
+        wheel.add(second);
+        advanceTo(wheel, START + 100L);
+
+        advanceTo(wheel, START + 3600000L);
+        verify(first, times(2)).next();
+        verify(second, times(2)).next();
+    }
+
+    @Test
+    public void testWallClockStepsBack() throws Exception {
+        SessionTimerWheel wheel = newWheel();
+        Session session = mockSession("A");
+        when(session.getNextTimerDeadline()).thenAnswer(invocation -> SystemTime.currentTimeMillis() + 1000L);
+        wheel.add(session);
+        advanceTo(wheel, START + 100L);
+        verify(session, times(1)).next();
+
+        // the wall clock is set back by an hour, the elapsed time still counts
+        timeSource.setSystemTimes(new long[] { START - 3600000L });
+        for (int i = 0; i < 9; i++) {
+            advanceBy(wheel, 100L);
+        }
+        verify(session, times(1)).next();
+        advanceBy(wheel, 100L);
+        verify(session, times(2)).next();
+        for (int i = 0; i < 10; i++) {
+            advanceBy(wheel, 100L);
+        }
+        verify(session, times(3)).next();
+    }
+
+    @Test
+    public void testWallClockStepsForward() throws Exception {
+        SessionTimerWheel wheel = newWheel();
+        Session session = mockSession("A");
+        when(session.getNextTimerDeadline()).thenAnswer(invocation -> SystemTime.currentTimeMillis() + 1000L);
+        wheel.add(session);
+        advanceTo(wheel, START + 100L);
+        verify(session, times(1)).next();
+
+        // a deadline already in the wheel is not brought forward by the step
+        timeSource.setSystemTimes(new long[] { START + 3600000L });
+        advanceBy(wheel, 100L);
+        verify(session, times(1)).next();
+        for (int i = 0; i < 9; i++) {
+            advanceBy(wheel, 100L);
+        }
+        verify(session, times(2)).next();
+    }
+
+    @Test
+    public void testTimerThreadAndExecutor() throws Exception {
+        SystemTime.setTimeSource(null);
+        final CountDownLatch latch = new CountDownLatch(3);
+        SessionTimerWheel wheel = new SessionTimerWheel("test", Runnable::run, 10L);
+        Session session = mockSession("A");
+        doAnswer(invocation -> {
+            latch.countDown();
+            return null;
+        }).when(session).next();
+        when(session.getNextTimerDeadline()).thenAnswer(invocation -> SystemTime.currentTimeMillis() + 20L);
+        wheel.start();
+        try {
+            assertTrue(wheel.isRunning());
+            wheel.add(session);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            wheel.stop();
+        }
+        assertFalse(wheel.isRunning());
+        assertEquals(0, wheel.size());
+    }
+
+    private SessionTimerWheel newWheel() {
+        return new SessionTimerWheel("test", null, 100L, nanoTime::get);
+    }
+
+    /**
+     * Moves the wall clock and the elapsed time to the given time since the start.
+     */
+    private void advanceTo(SessionTimerWheel wheel, long time) {
+        timeSource.setSystemTimes(new long[] { time });
+        nanoTime.set(-123456789L + TimeUnit.MILLISECONDS.toNanos(time - START));
+        wheel.advance();
+    }
+
+    /**
+     * Moves the wall clock and the elapsed time by the given number of milliseconds.
+     */
+    private void advanceBy(SessionTimerWheel wheel, long millis) {
+        timeSource.increment(millis);
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+        wheel.advance();
+    }
+
+    private static Session mockSession(String targetCompID) {
+        Session session = mock(Session.class);
+        when(session.getSessionID()).thenReturn(new SessionID("FIX.4.4", "SENDER", targetCompID));
+        return session;
+    }
+
+    private static Runnable rescheduler(Session session) {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(session).setTimerRescheduler(captor.capture());
+        return captor.getValue();
+    }
+}
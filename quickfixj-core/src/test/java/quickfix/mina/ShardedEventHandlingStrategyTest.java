@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) quickfixengine.org  All rights reserved.
+ *
+ * This file is part of the QuickFIX FIX Engine
+ *
+ * This file may be distributed under the terms of the quickfixengine.org
+ * license as defined by quickfixengine.org and appearing in the file
+ * LICENSE included in the packaging of this file.
+ *
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING
+ * THE WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE.
+ *
+ * See http://www.quickfixengine.org/LICENSE for licensing information.
+ *
+ * Contact ask@quickfixengine.org if any conditions of this licensing
+ * are not clear to you.
+ ******************************************************************************/
+
+
+package quickfix.mina;
+
+import org.junit.After;
+import org.junit.Test;
+import quickfix.ConfigError;
+import quickfix.DefaultSessionFactory;
+import quickfix.FixVersions;
+import quickfix.MemoryStoreFactory;
+import quickfix.Message;
+import quickfix.RuntimeError;
+import quickfix.SLF4JLogFactory;
+import quickfix.Session;
+import quickfix.SessionFactory;
+import quickfix.SessionID;
+import quickfix.SessionSettings;
+import quickfix.UnitTestApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ShardedEventHandlingStrategyTest {
+
+    private final DefaultSessionFactory sessionFactory = new DefaultSessionFactory(new UnitTestApplication(),
+            new MemoryStoreFactory(), new SLF4JLogFactory(new SessionSettings()));
+    private ShardedEventHandlingStrategy ehs;
+
+    @After
+    public void cleanup() {
+        if (ehs != null) {
+            ehs.stopHandlingMessages(true);
+        }
+    }
+
+    @Test
+    public void testMessagesOfSessionAreProcessedInOrderByOneThread() throws Exception {
+        SessionConnector connector = new SessionConnectorUnderTest(new SessionSettings(), sessionFactory);
+        ehs = new ShardedEventHandlingStrategy(connector, 1000, 4);
+        assertMessagesOfSessionAreProcessedInOrderByOneThread();
+    }
+
+    @Test
+    public void testMessagesOfSessionAreProcessedInOrderOnRingBuffers() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setString(SessionFactory.SETTING_RING_BUFFER_WAIT_STRATEGY, "yielding");
+        SessionConnector connector = new SessionConnectorUnderTest(settings, sessionFactory);
+        // the events of the 4 slots of each ring buffer are reused
+        ehs = new ShardedEventHandlingStrategy(connector, 4, 4);
+        assertMessagesOfSessionAreProcessedInOrderByOneThread();
+    }
+
+    @Test
+    public void testMessagesOfSessionAreProcessedInOrderOnRingBuffersWithWatermarks() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setString(SessionFactory.SETTING_RING_BUFFER_WAIT_STRATEGY, "blocking");
+        SessionConnector connector = new SessionConnectorUnderTest(settings, sessionFactory);
+        ehs = new ShardedEventHandlingStrategy(connector, 2, 4, 4);
+        assertMessagesOfSessionAreProcessedInOrderByOneThread();
+    }
+
+    private void assertMessagesOfSessionAreProcessedInOrderByOneThread() throws Exception {
+        ehs.blockInThread();
+
+        final int sessionCount = 8;
+        final int messageCount = 100;
+        final CountDownLatch processed = new CountDownLatch(sessionCount * messageCount);
+        final Map<SessionID, List<Message>> messages = new ConcurrentHashMap<>();
+        final Map<SessionID, Set<String>> threads = new ConcurrentHashMap<>();
+        final List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < sessionCount; i++) {
+            final SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIX44, "SENDER" + i, "TARGET");
+            final Session session = mock(Session.class);
+            when(session.getSessionID()).thenReturn(sessionID);
+            messages.put(sessionID, new ArrayList<>());
+            threads.put(sessionID, ConcurrentHashMap.newKeySet());
+            doAnswer(invocation -> {
+                messages.get(sessionID).add((Message) invocation.getArguments()[0]);
+                threads.get(sessionID).add(Thread.currentThread().getName());
+                processed.countDown();
+                return null;
+            }).when(session).next(any(Message.class));
+            sessions.add(session);
+        }
+
+        final List<Message> sent = new ArrayList<>();
+        for (int i = 0; i < messageCount; i++) {
+            final Message message = new Message();
+            sent.add(message);
+            for (Session session : sessions) {
+                ehs.onMessage(session, message);
+            }
+        }
+
+        assertTrue(processed.await(10, TimeUnit.SECONDS));
+        for (Session session : sessions) {
+            final List<Message> received = messages.get(session.getSessionID());
+            assertEquals(messageCount, received.size());
+            for (int i = 0; i < messageCount; i++) {
+                assertSame(sent.get(i), received.get(i));
+            }
+            assertEquals(1, threads.get(session.getSessionID()).size());
+        }
+        assertEquals(0, ehs.getQueueSize());
+    }
+
+    @Test
+    public void testStartStop() throws Exception {
+        SessionConnector connector = new SessionConnectorUnderTest(new SessionSettings(), sessionFactory);
+        ehs = new ShardedEventHandlingStrategy(connector, 1000, 3);
+        ehs.blockInThread();
+        ehs.blockInThread();
+        assertMessageProcessorThreads(3);
+        ehs.stopHandlingMessages(true);
+        assertMessageProcessorThreads(0);
+        ehs.blockInThread();
+        assertMessageProcessorThreads(3);
+    }
+
+    @Test
+    public void testExecutorHasToRunAllThreads() throws Exception {
+        SessionConnector connector = new SessionConnectorUnderTest(new SessionSettings(), sessionFactory);
+        ehs = new ShardedEventHandlingStrategy(connector, 1000, 3);
+        ExecutorService fixedThreadPool = Executors.newFixedThreadPool(2);
+        ExecutorService cachedThreadPool = Executors.newCachedThreadPool();
+        try {
+            try {
+                ehs.setExecutor(fixedThreadPool);
+                fail("executor with too few threads accepted");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            ehs.setExecutor(cachedThreadPool);
+            ehs.blockInThread();
+            // the executor threads are named after the message processors they run
+            assertMessageProcessorThreads(3);
+            ehs.stopHandlingMessages(true);
+            assertMessageProcessorThreads(0);
+        } finally {
+            fixedThreadPool.shutdown();
+            cachedThreadPool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSelectedBySetting() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        SessionConnector connector = new SessionConnectorUnderTest(settings, sessionFactory);
+        assertFalse(connector.newQueuedEventHandlingStrategy(1000) instanceof ShardedEventHandlingStrategy);
+
+        settings.setLong(SessionFactory.SETTING_MESSAGE_PROCESSOR_THREADS, 4);
+        AbstractQueuedEventHandlingStrategy strategy = connector.newQueuedEventHandlingStrategy(1000);
+        assertTrue(strategy instanceof ShardedEventHandlingStrategy);
+        assertEquals(4, ((ShardedEventHandlingStrategy) strategy).getThreads());
+
+        settings.setLong(SessionFactory.SETTING_MESSAGE_PROCESSOR_THREADS, 0);
+        strategy = connector.newQueuedEventHandlingStrategy(10, 100);
+        assertEquals(Runtime.getRuntime().availableProcessors() > 1, strategy instanceof ShardedEventHandlingStrategy);
+    }
+
+    /**
+     * A joined message processor thread may still be alive for a moment, so
+     * the count is polled until it settles.
+     */
+    private static void assertMessageProcessorThreads(int expected) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (getMessageProcessorThreads() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, getMessageProcessorThreads());
+    }
+
+    private static int getMessageProcessorThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith(
+                    SingleThreadedEventHandlingStrategy.MESSAGE_PROCESSOR_THREAD_NAME + "-")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static class SessionConnectorUnderTest extends SessionConnector {
+
+        public SessionConnectorUnderTest(SessionSettings settings, SessionFactory sessionFactory) throws ConfigError {
+            super(settings, sessionFactory);
+        }
+
+        @Override
+        public void start() throws ConfigError, RuntimeError {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void stop(boolean force) {
+        }
+    }
+}
@@ -29,8 +29,10 @@ import quickfix.DefaultMessageFactory;
 import quickfix.DefaultSessionFactory;
 import quickfix.FixVersions;
 import quickfix.MemoryStoreFactory;
+import quickfix.Message;
 import quickfix.RuntimeError;
 import quickfix.SLF4JLogFactory;
+import quickfix.Session;
 import quickfix.SessionFactory;
 import quickfix.SessionID;
 import quickfix.SessionSettings;
@@ -47,6 +49,7 @@ import java.util.concurrent.CountDownLatch;
 import org.junit.AfterClass;
 import quickfix.test.util.ReflectionUtil;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static quickfix.test.util.ReflectionUtil.getField;
@@ -317,6 +320,78 @@ public class SingleThreadedEventHandlingStrategyTest {
                 QueueTracker.class) instanceof WatermarkTracker);
     }
 
+    @Test(timeout = 10000)
+    public void testBatchProcessing() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setLong(SessionFactory.SETTING_MESSAGE_PROCESSOR_BATCH_SIZE, 10);
+        SessionConnector connector = new SessionConnectorUnderTest(settings, sessionFactory);
+        ehs = new SingleThreadedEventHandlingStrategy(connector, 1000);
+
+        Session session1 = Mockito.mock(Session.class);
+        Session session2 = Mockito.mock(Session.class);
+        CountDownLatch batchEnded = new CountDownLatch(2);
+        Mockito.doAnswer(invocation -> {
+            batchEnded.countDown();
+            return null;
+        }).when(session1).endOfBatch();
+        Mockito.doAnswer(invocation -> {
+            batchEnded.countDown();
+            return null;
+        }).when(session2).endOfBatch();
+        for (int i = 0; i < 5; i++) {
+            ehs.onMessage(session1, new Message());
+            ehs.onMessage(session2, new Message());
+        }
+        ehs.blockInThread();
+        batchEnded.await();
+
+        // all queued messages are processed in one batch
+        Mockito.verify(session1, Mockito.times(5)).next(Mockito.any(Message.class));
+        Mockito.verify(session2, Mockito.times(5)).next(Mockito.any(Message.class));
+        Mockito.verify(session1, Mockito.times(1)).endOfBatch();
+        Mockito.verify(session2, Mockito.times(1)).endOfBatch();
+    }
+
+    @Test(timeout = 10000)
+    public void testMessagesDrainedOnStopEndBatch() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        settings.setLong(SessionFactory.SETTING_MESSAGE_PROCESSOR_BATCH_SIZE, 10);
+        SessionConnector connector = new SessionConnectorUnderTest(settings, sessionFactory);
+        ehs = new SingleThreadedEventHandlingStrategy(connector, 1000);
+
+        Session session = Mockito.mock(Session.class);
+        CountDownLatch processing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            processing.countDown();
+            release.await();
+            return null;
+        }).when(session).next(Mockito.any(Message.class));
+        ehs.blockInThread();
+        ehs.onMessage(session, new Message());
+        processing.await();
+        for (int i = 0; i < 3; i++) {
+            ehs.onMessage(session, new Message());
+        }
+        ehs.stopHandlingMessages();
+        release.countDown();
+        ehs.stopHandlingMessages(true);
+
+        // the messages queued behind the first one are drained on stop and end a batch as well
+        Mockito.verify(session, Mockito.times(4)).next(Mockito.any(Message.class));
+        Mockito.verify(session, Mockito.times(2)).endOfBatch();
+    }
+
+    @Test
+    public void testBatchSizeIsLimited() throws Exception {
+        SessionSettings settings = new SessionSettings();
+        SessionConnector connector = new SessionConnectorUnderTest(settings, sessionFactory);
+        settings.setLong(SessionFactory.SETTING_MESSAGE_PROCESSOR_BATCH_SIZE, Long.MAX_VALUE);
+        assertEquals(Integer.MAX_VALUE, AbstractQueuedEventHandlingStrategy.getBatchSize(connector));
+        settings.setLong(SessionFactory.SETTING_MESSAGE_PROCESSOR_BATCH_SIZE, 0);
+        assertEquals(1, AbstractQueuedEventHandlingStrategy.getBatchSize(connector));
+    }
+
     private SocketAcceptor createAcceptor(int i) throws ConfigError {
         Map<Object, Object> acceptorProperties = new HashMap<>();
         acceptorProperties.put("ConnectionType", "acceptor");
@@ -73,7 +73,8 @@ public class ThreadPerSessionEventHandlingStrategyTest {
         }
 
         @Override
-        protected Message getNextMessage(QueueTracker<Message> queueTracker) throws InterruptedException {
+        protected SessionMessageEvent getNextMessage(QueueTracker<SessionMessageEvent> queueTracker)
+                throws InterruptedException {
             if (getMessageCount-- == 0) {
                 throw new InterruptedException("END COUNT");
             }
@@ -173,6 +174,61 @@ public class ThreadPerSessionEventHandlingStrategyTest {
         }
     }
 
+    /**
+     * Verifies that the dispatchers run on virtual threads where the JVM
+     * supports them, and that the mode is refused otherwise.
+     */
+    @Test
+    public void testEventHandlingOnVirtualThreads() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            try {
+                strategy.setVirtualThreads(true);
+                fail("Virtual threads are not supported by this JVM");
+            } catch (final ConfigError e) {
+                assertFalse(strategy.isVirtualThreads());
+            }
+            return;
+        }
+
+        final SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIX40, "TW", "ISLD");
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Thread[] dispatcherThread = new Thread[1];
+
+        final UnitTestApplication application = new UnitTestApplication() {
+            @Override
+            public void fromAdmin(Message message, SessionID sessionId) throws FieldNotFound,
+                    IncorrectDataFormat, IncorrectTagValue, RejectLogon {
+                super.fromAdmin(message, sessionId);
+                dispatcherThread[0] = Thread.currentThread();
+                latch.countDown();
+            }
+        };
+
+        try (Session session = setUpSession(sessionID, application)) {
+            strategy.setVirtualThreads(true);
+
+            final Message message = new Logon();
+            message.getHeader().setString(SenderCompID.FIELD, "ISLD");
+            message.getHeader().setString(TargetCompID.FIELD, "TW");
+            message.getHeader().setString(SendingTime.FIELD,
+                    UtcTimestampConverter.convert(new Date(), false));
+            message.getHeader().setInt(MsgSeqNum.FIELD, 1);
+            message.setInt(HeartBtInt.FIELD, 30);
+
+            strategy.onMessage(session, message);
+
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                fail("Timeout");
+            }
+
+            assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(dispatcherThread[0]));
+            assertTrue(dispatcherThread[0].getName().startsWith("QF/J Session dispatcher"));
+
+            strategy.stopDispatcherThreads();
+            assertNull(strategy.getDispatcher(sessionID));
+        }
+    }
+
     /**
      * See QFJ-686. Verify that thread is stopped if Session has no responder.
      */
@@ -41,6 +41,7 @@ import quickfix.field.SendingTime;
 import quickfix.field.TargetCompID;
 import quickfix.field.Text;
 import quickfix.fix44.Logout;
+import quickfix.fixt11.Heartbeat;
 import quickfix.fixt11.Logon;
 import quickfix.mina.EventHandlingStrategy;
 import quickfix.mina.NetworkingOptions;
@@ -56,6 +57,7 @@ import java.util.Properties;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.stub;
 import static org.mockito.Mockito.verify;
@@ -315,6 +317,59 @@ public class AcceptorIoHandlerTest {
         }
     }
 
+    @Test
+    public void testDeferredMessageParsingAfterLogonIsBound() throws Exception {
+        SessionSettings settings = SessionSettingsTest.setUpSession(null);
+        SessionConnector connector = new SessionConnectorStub(settings);
+        SingleThreadedEventHandlingStrategy eventHandlingStrategy = new SingleThreadedEventHandlingStrategy(connector, 1000);
+        IoSession mockIoSession = mock(IoSession.class);
+
+        final SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIXT11, "SENDER",
+                "TARGET");
+        try (Session session = SessionFactoryTestSupport.createSession(sessionID, new UnitTestApplication(), false, true, true, true, new DefaultApplVerID(ApplVerID.FIX50SP2))) {
+            stub(mockIoSession.getAttribute("QF_SESSION")).toReturn(null); // to create a new Session
+
+            final HashMap<SessionID, Session> acceptorSessions = new HashMap<>();
+            acceptorSessions.put(sessionID, session);
+            final Properties properties = new Properties();
+            properties.setProperty(NetworkingOptions.SETTING_SOCKET_DEFER_MESSAGE_PARSING, "Y");
+            final AcceptorIoHandler handler = new AcceptorIoHandler(createSessionProvider(acceptorSessions),
+                    new NetworkingOptions(properties), eventHandlingStrategy);
+
+            final Logon logon = new Logon(new EncryptMethod(EncryptMethod.NONE_OTHER),
+                    new HeartBtInt(30), new DefaultApplVerID(ApplVerID.FIX50SP2));
+            logon.getHeader().setString(TargetCompID.FIELD, sessionID.getSenderCompID());
+            logon.getHeader().setString(SenderCompID.FIELD, sessionID.getTargetCompID());
+            logon.getHeader().setField(new SendingTime(LocalDateTime.now(ZoneOffset.UTC)));
+            logon.getHeader().setInt(MsgSeqNum.FIELD, 1);
+
+            // the logon is parsed on the I/O thread to bind the session
+            handler.messageReceived(mockIoSession, logon.toString());
+            verify(mockIoSession).setAttribute(SessionConnector.QF_SESSION, session);
+            stub(mockIoSession.getAttribute("QF_SESSION")).toReturn(session);
+
+            final Heartbeat heartbeat = new Heartbeat();
+            heartbeat.getHeader().setString(TargetCompID.FIELD, sessionID.getSenderCompID());
+            heartbeat.getHeader().setString(SenderCompID.FIELD, sessionID.getTargetCompID());
+            heartbeat.getHeader().setField(new SendingTime(LocalDateTime.now(ZoneOffset.UTC)));
+            heartbeat.getHeader().setInt(MsgSeqNum.FIELD, 2);
+            handler.messageReceived(mockIoSession, heartbeat.toString());
+
+            // both are queued, the heartbeat unparsed, and processed in order
+            assertEquals(2, eventHandlingStrategy.getQueueSize());
+            assertEquals(1, session.getStore().getNextTargetMsgSeqNum());
+            eventHandlingStrategy.blockInThread();
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (session.getStore().getNextTargetMsgSeqNum() < 3) {
+                assertTrue("Timeout", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            assertTrue(session.isLoggedOn());
+        } finally {
+            eventHandlingStrategy.stopHandlingMessages(true);
+        }
+    }
+
     // QFJ-976
     @Test
     public void testRejectGarbledMessageWithoutMsgTypeBeforeSessionIsCreated() throws Exception {
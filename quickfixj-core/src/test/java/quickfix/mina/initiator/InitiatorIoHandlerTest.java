@@ -6,6 +6,7 @@ import quickfix.FixVersions;
 import quickfix.Message;
 import quickfix.Responder;
 import quickfix.Session;
+import quickfix.SessionFactory;
 import quickfix.SessionFactoryTestSupport;
 import quickfix.SessionID;
 import quickfix.SessionSettings;
@@ -27,14 +28,20 @@ import quickfix.mina.NetworkingOptions;
 import quickfix.mina.SessionConnector;
 import quickfix.mina.SessionConnectorStub;
 import quickfix.mina.SingleThreadedEventHandlingStrategy;
+import quickfix.mina.ThreadPerSessionEventHandlingStrategy;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.Properties;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.stub;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 
 public class InitiatorIoHandlerTest {
 
@@ -140,4 +147,166 @@ public class InitiatorIoHandlerTest {
         }
     }
 
+    @Test
+    public void testDeferredMessageParsing() throws Exception {
+        assertDeferredMessageParsing(SessionSettingsTest.setUpSession(null));
+    }
+
+    @Test
+    public void testDeferredMessageParsingOnRingBuffer() throws Exception {
+        final SessionSettings settings = SessionSettingsTest.setUpSession(null);
+        settings.setString(SessionFactory.SETTING_RING_BUFFER_WAIT_STRATEGY, "blocking");
+        assertDeferredMessageParsing(settings);
+    }
+
+    private void assertDeferredMessageParsing(SessionSettings settings) throws Exception {
+        final SessionConnector connector = new SessionConnectorStub(settings);
+        final SingleThreadedEventHandlingStrategy eventHandlingStrategy =
+                new SingleThreadedEventHandlingStrategy(connector, 1000);
+        final IoSession mockIoSession = mock(IoSession.class);
+
+        final SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIXT11, "SENDER",
+                "TARGET");
+        final UnitTestApplication unitTestApplication = new UnitTestApplication();
+
+        try (Session session = SessionFactoryTestSupport
+                .createSession(sessionID, unitTestApplication, false, true, true, true, new DefaultApplVerID(
+                        ApplVerID.FIX50SP2))) {
+            session.setRejectGarbledMessage(true);
+            session.setResponder(mock(Responder.class));
+            stub(mockIoSession.getAttribute("QF_SESSION")).toReturn(session);
+
+            final Properties properties = new Properties();
+            properties.setProperty(NetworkingOptions.SETTING_SOCKET_DEFER_MESSAGE_PARSING, "Y");
+            final InitiatorIoHandler handler = new InitiatorIoHandler(session,
+                    new NetworkingOptions(properties), eventHandlingStrategy);
+
+            final Logon message = new Logon(new EncryptMethod(EncryptMethod.NONE_OTHER),
+                    new HeartBtInt(30), new DefaultApplVerID(ApplVerID.FIX50SP1));
+            message.getHeader().setString(TargetCompID.FIELD, sessionID.getSenderCompID());
+            message.getHeader().setString(SenderCompID.FIELD, sessionID.getTargetCompID());
+            message.getHeader().setField(new SendingTime(LocalDateTime.now(ZoneOffset.UTC)));
+            message.getHeader().setInt(MsgSeqNum.FIELD, 1);
+            handler.messageReceived(mockIoSession, message.toString());
+            // garbled: character as group count
+            handler.messageReceived(mockIoSession,
+                    "8=FIXT.1.19=6835=B34=249=TARGET52=20180623-22:06:28.97756=SENDER148=foo33=a10=248");
+
+            // the messages are queued unparsed
+            assertEquals(2, eventHandlingStrategy.getQueueSize());
+            assertNull(session.getTargetDefaultApplicationVersionID());
+
+            eventHandlingStrategy.blockInThread();
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (session.getStore().getNextSenderMsgSeqNum() < 3) {
+                assertTrue("Timeout", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+
+            assertEquals(ApplVerID.FIX50SP1, session.getTargetDefaultApplicationVersionID().getValue());
+            assertEquals(3, session.getStore().getNextTargetMsgSeqNum());
+            assertEquals(3, session.getStore().getNextSenderMsgSeqNum());
+            final Message lastToAdminMessage = unitTestApplication.lastToAdminMessage();
+            assertEquals(MsgType.REJECT, lastToAdminMessage.getHeader().getString(MsgType.FIELD));
+        } finally {
+            eventHandlingStrategy.stopHandlingMessages(true);
+        }
+    }
+
+    @Test
+    public void testDeferredMessageParsingWithThreadPerSession() throws Exception {
+        assertDeferredMessageParsingWithThreadPerSession(SessionSettingsTest.setUpSession(null));
+    }
+
+    @Test
+    public void testDeferredMessageParsingWithThreadPerSessionOnRingBuffer() throws Exception {
+        final SessionSettings settings = SessionSettingsTest.setUpSession(null);
+        settings.setString(SessionFactory.SETTING_RING_BUFFER_WAIT_STRATEGY, "blocking");
+        assertDeferredMessageParsingWithThreadPerSession(settings);
+    }
+
+    private void assertDeferredMessageParsingWithThreadPerSession(SessionSettings settings) throws Exception {
+        final SessionConnector connector = new SessionConnectorStub(settings);
+        final ThreadPerSessionEventHandlingStrategy eventHandlingStrategy =
+                new ThreadPerSessionEventHandlingStrategy(connector, 1000);
+        final IoSession mockIoSession = mock(IoSession.class);
+
+        final SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIXT11, "SENDER",
+                "TARGET");
+        final UnitTestApplication unitTestApplication = new UnitTestApplication();
+
+        try (Session session = SessionFactoryTestSupport
+                .createSession(sessionID, unitTestApplication, false, true, true, true, new DefaultApplVerID(
+                        ApplVerID.FIX50SP2))) {
+            session.setRejectGarbledMessage(true);
+            session.setResponder(mock(Responder.class));
+            stub(mockIoSession.getAttribute("QF_SESSION")).toReturn(session);
+
+            final Properties properties = new Properties();
+            properties.setProperty(NetworkingOptions.SETTING_SOCKET_DEFER_MESSAGE_PARSING, "Y");
+            final InitiatorIoHandler handler = new InitiatorIoHandler(session,
+                    new NetworkingOptions(properties), eventHandlingStrategy);
+
+            final Logon message = new Logon(new EncryptMethod(EncryptMethod.NONE_OTHER),
+                    new HeartBtInt(30), new DefaultApplVerID(ApplVerID.FIX50SP1));
+            message.getHeader().setString(TargetCompID.FIELD, sessionID.getSenderCompID());
+            message.getHeader().setString(SenderCompID.FIELD, sessionID.getTargetCompID());
+            message.getHeader().setField(new SendingTime(LocalDateTime.now(ZoneOffset.UTC)));
+            message.getHeader().setInt(MsgSeqNum.FIELD, 1);
+            handler.messageReceived(mockIoSession, message.toString());
+            // garbled: character as group count
+            handler.messageReceived(mockIoSession,
+                    "8=FIXT.1.19=6835=B34=249=TARGET52=20180623-22:06:28.97756=SENDER148=foo33=a10=248");
+
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (session.getStore().getNextSenderMsgSeqNum() < 3 || session.getStore().getNextTargetMsgSeqNum() < 3) {
+                assertTrue("Timeout", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+
+            // parsed and processed in order by the dispatcher of the session
+            assertEquals(ApplVerID.FIX50SP1, session.getTargetDefaultApplicationVersionID().getValue());
+            assertEquals(3, session.getStore().getNextTargetMsgSeqNum());
+            final Message lastToAdminMessage = unitTestApplication.lastToAdminMessage();
+            assertEquals(MsgType.REJECT, lastToAdminMessage.getHeader().getString(MsgType.FIELD));
+        } finally {
+            eventHandlingStrategy.stopDispatcherThreads();
+        }
+    }
+
+    @Test
+    public void testInvalidLogonClosesConnectionWhenParsingIsDeferred() throws Exception {
+        final SessionSettings settings = SessionSettingsTest.setUpSession(null);
+        final SessionConnector connector = new SessionConnectorStub(settings);
+        final SingleThreadedEventHandlingStrategy eventHandlingStrategy =
+                new SingleThreadedEventHandlingStrategy(connector, 1000);
+        final IoSession mockIoSession = mock(IoSession.class);
+
+        final SessionID sessionID = new SessionID(FixVersions.BEGINSTRING_FIXT11, "SENDER",
+                "TARGET");
+
+        try (Session session = SessionFactoryTestSupport
+                .createSession(sessionID, new UnitTestApplication(), false, true, true, true, new DefaultApplVerID(
+                        ApplVerID.FIX50SP2))) {
+            session.setResponder(mock(Responder.class));
+            stub(mockIoSession.getAttribute("QF_SESSION")).toReturn(session);
+
+            final Properties properties = new Properties();
+            properties.setProperty(NetworkingOptions.SETTING_SOCKET_DEFER_MESSAGE_PARSING, "Y");
+            final InitiatorIoHandler handler = new InitiatorIoHandler(session,
+                    new NetworkingOptions(properties), eventHandlingStrategy);
+
+            // garbled: wrong checksum
+            handler.messageReceived(mockIoSession,
+                    "8=FIXT.1.19=7435=A34=149=TARGET52=20180623-22:06:28.97756=SENDER98=0108=301137=910=044");
+            assertEquals(1, eventHandlingStrategy.getQueueSize());
+            verify(mockIoSession, never()).closeNow();
+
+            eventHandlingStrategy.blockInThread();
+            verify(mockIoSession, timeout(5000)).closeNow();
+            assertEquals(1, session.getStore().getNextTargetMsgSeqNum());
+        } finally {
+            eventHandlingStrategy.stopHandlingMessages(true);
+        }
+    }
 }
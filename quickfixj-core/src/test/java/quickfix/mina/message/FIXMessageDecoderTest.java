@@ -32,6 +32,7 @@ import org.quickfixj.CharsetSupport;
 import quickfix.DataDictionaryTest;
 import quickfix.InvalidMessage;
 import quickfix.Message;
+import quickfix.MessageBytes;
 import quickfix.field.Headline;
 import quickfix.mina.CriticalProtocolCodecException;
 
@@ -44,6 +45,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -240,6 +242,29 @@ public class FIXMessageDecoderTest {
 		assertMessageFound(goodMessage, 3);
 	}
 
+	@Test
+	public void testMessageBytesDecoding() throws Exception {
+		decoder = new FIXMessageDecoder(CharsetSupport.getCharset(), "\001", true);
+		String goodMessage = "8=FIX.4.2\0019=12\00135=X\001108=30\00110=036\001";
+		setUpBuffer("garbage" + goodMessage + goodMessage);
+		assertEquals("wrong decoder result", MessageDecoderResult.OK, decoder.decode(null, buffer,
+				decoderOutput));
+		assertEquals("wrong message count", 2, decoderOutput.getMessageCount());
+		MessageBytes first = (MessageBytes) decoderOutput.messages.get(0);
+		MessageBytes second = (MessageBytes) decoderOutput.messages.get(1);
+		assertEquals(goodMessage.length(), first.length());
+		assertEquals("incorrect msg framing", goodMessage, first.toString());
+		assertEquals("incorrect msg framing", goodMessage, second.toString());
+		// each message has an array of its own, so that a kept message does
+		// not keep the others alive
+		assertNotSame(first.array(), second.array());
+		assertEquals(0, second.offset());
+		assertEquals(goodMessage.length(), second.array().length);
+		assertEquals("X", second.getStringField(35));
+		assertEquals("30", second.getStringField(108));
+		assertNull(second.getStringField(49));
+	}
+
 	/**
 	 * QFJ-760
 	 */
@@ -20,10 +20,17 @@
 package quickfix.mina.message;
 
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import junit.framework.ComparisonFailure;
 import junit.framework.TestCase;
 
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.future.DefaultWriteFuture;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.filter.codec.AbstractProtocolEncoderOutput;
 import org.apache.mina.filter.codec.ProtocolCodecException;
 import org.quickfixj.CharsetSupport;
 
@@ -121,4 +128,73 @@ public class FIXMessageEncoderTest extends TestCase {
         assertEquals(12, protocolEncoderOutputForTest.buffer.limit());
     }
 
+    public void testEncodingIntoPooledBuffers() throws Exception {
+        FIXMessageEncoder.clearPool();
+        FIXMessageEncoder encoder = new FIXMessageEncoder();
+        Message message = new Logon();
+        message.getHeader().setString(SenderCompID.FIELD, "TW");
+        message.getHeader().setString(TargetCompID.FIELD, "ISLD");
+        FlushingEncoderOutput out = new FlushingEncoderOutput();
+
+        encoder.encode(null, message, out);
+        IoBuffer first = out.written.get(0);
+        assertTrue(first.isDirect());
+        byte[] bytes = new byte[first.remaining()];
+        first.get(bytes);
+        assertEquals(message.toString(), new String(bytes, CharsetSupport.getCharset()));
+
+        // the first buffer has not been written yet
+        encoder.encode(null, "abcd", out);
+        assertNotSame(first, out.written.get(1));
+        assertEquals(4, out.written.get(1).limit());
+
+        out.futures.get(0).setWritten();
+        encoder.encode(null, "efgh", out);
+        assertSame(first, out.written.get(2));
+        assertEquals(4, first.limit());
+
+        // too large for a pooled buffer
+        char[] large = new char[FIXMessageEncoder.POOLED_BUFFER_SIZE + 1];
+        Arrays.fill(large, 'x');
+        encoder.encode(null, new String(large), out);
+        assertEquals(3, out.written.size());
+        assertEquals(large.length, ((IoBuffer) out.getMessageQueue().poll()).limit());
+    }
+
+    public void testPooledBuffersAreSharedAndBounded() throws Exception {
+        FIXMessageEncoder.clearPool();
+        FlushingEncoderOutput out = new FlushingEncoderOutput();
+        new FIXMessageEncoder().encode(null, "abcd", out);
+        out.futures.get(0).setWritten();
+        assertEquals(1, FIXMessageEncoder.getPooledBufferCount());
+
+        // another connection's encoder reuses the buffer
+        new FIXMessageEncoder().encode(null, "efgh", out);
+        assertSame(out.written.get(0), out.written.get(1));
+        assertEquals(0, FIXMessageEncoder.getPooledBufferCount());
+
+        FIXMessageEncoder encoder = new FIXMessageEncoder();
+        for (int i = 0; i < FIXMessageEncoder.MAX_POOLED_BUFFERS + 10; i++) {
+            encoder.encode(null, "ijkl", out);
+        }
+        for (DefaultWriteFuture future : out.futures) {
+            future.setWritten();
+        }
+        assertEquals(FIXMessageEncoder.MAX_POOLED_BUFFERS, FIXMessageEncoder.getPooledBufferCount());
+        FIXMessageEncoder.clearPool();
+    }
+
+    private static final class FlushingEncoderOutput extends AbstractProtocolEncoderOutput {
+        final List<IoBuffer> written = new ArrayList<>();
+        final List<DefaultWriteFuture> futures = new ArrayList<>();
+
+        @Override
+        public WriteFuture flush() {
+            written.add((IoBuffer) getMessageQueue().poll());
+            DefaultWriteFuture future = new DefaultWriteFuture(null);
+            futures.add(future);
+            return future;
+        }
+    }
+
 }